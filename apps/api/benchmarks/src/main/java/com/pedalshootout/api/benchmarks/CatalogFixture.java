@@ -0,0 +1,151 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.pedalshootout.api.entity.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a synthetic pedal catalog (manufacturers, products, pedal_details, jacks)
+ * as detached JPA entities, so benchmarks can exercise the real DTO mapping code
+ * without a database.
+ *
+ * The entities are read-only (getters only, no setters) — that's deliberate in the
+ * app, so here we populate private fields via reflection instead of adding setters.
+ *
+ * Shape roughly follows the real data: ~1 manufacturer per 20 products, 3–8 jacks
+ * per pedal (audio in/out, power in, sometimes MIDI/expression), ~80% with MSRP.
+ * A fixed seed keeps runs comparable.
+ */
+public final class CatalogFixture {
+
+    private static final String[] EFFECT_TYPES = {
+        "Gain", "Fuzz", "Compression", "Delay", "Reverb", "Chorus", "Flanger", "Phaser",
+        "Tremolo", "Vibrato", "Pitch Shifter", "Wah", "Filter", "EQ", "Looper", "Preamp"
+    };
+    private static final String[] BYPASS_TYPES = {
+        "True Bypass", "Buffered Bypass", "Relay Bypass", "DSP Bypass"
+    };
+    private static final String[] MONO_STEREO = { "Mono", "Stereo In/Out", "Mono In/Stereo Out" };
+    private static final String[] VOLTAGES = { "9V", "9V", "9V", "12V", "18V", "9-18V" };
+    private static final int[] CURRENTS = { 10, 25, 50, 100, 150, 250, 300, 500 };
+
+    public final List<Manufacturer> manufacturers = new ArrayList<>();
+    public final List<Product> products = new ArrayList<>();
+    public final List<PedalDetail> pedalDetails = new ArrayList<>();
+    public final List<Jack> jacks = new ArrayList<>();
+    public final Map<Integer, List<Jack>> jacksByProductId = new HashMap<>();
+
+    private CatalogFixture() {}
+
+    /** Build a catalog of {@code productCount} pedals. */
+    public static CatalogFixture generate(int productCount) {
+        CatalogFixture f = new CatalogFixture();
+        Random rnd = new Random(42);
+
+        ProductType pedalType = newInstance(ProductType.class);
+        set(pedalType, "id", 1);
+        set(pedalType, "typeName", "pedal");
+
+        int manufacturerCount = Math.max(1, productCount / 20);
+        for (int i = 1; i <= manufacturerCount; i++) {
+            Manufacturer m = newInstance(Manufacturer.class);
+            set(m, "id", i);
+            set(m, "name", "Manufacturer " + i);
+            set(m, "country", "USA");
+            set(m, "status", "Active");
+            f.manufacturers.add(m);
+        }
+
+        int jackId = 1;
+        for (int id = 1; id <= productCount; id++) {
+            Product p = newInstance(Product.class);
+            set(p, "id", id);
+            set(p, "manufacturer", f.manufacturers.get(rnd.nextInt(manufacturerCount)));
+            set(p, "productType", pedalType);
+            set(p, "model", "Model " + id);
+            set(p, "colorOptions", "Black");
+            set(p, "inProduction", rnd.nextInt(10) != 0);
+            set(p, "widthMm", 60.0 + rnd.nextInt(120));
+            set(p, "depthMm", 100.0 + rnd.nextInt(40));
+            set(p, "heightMm", 45.0 + rnd.nextInt(20));
+            set(p, "weightGrams", 250 + rnd.nextInt(900));
+            set(p, "msrpCents", rnd.nextInt(5) == 0 ? null : 4900 + rnd.nextInt(50000));
+            set(p, "productPage", "https://example.com/products/" + id);
+            set(p, "description", "A synthetic benchmark pedal with a reasonably long description, #" + id);
+            set(p, "tags", "transparent, boutique");
+            set(p, "dataReliability", "Medium");
+            f.products.add(p);
+
+            boolean midi = rnd.nextInt(4) == 0;
+            PedalDetail pd = newInstance(PedalDetail.class);
+            set(pd, "productId", id);
+            set(pd, "product", p);
+            set(pd, "effectType", EFFECT_TYPES[rnd.nextInt(EFFECT_TYPES.length)]);
+            set(pd, "signalType", rnd.nextBoolean() ? "Analog" : "Digital");
+            set(pd, "bypassType", BYPASS_TYPES[rnd.nextInt(BYPASS_TYPES.length)]);
+            set(pd, "monoStereo", MONO_STEREO[rnd.nextInt(MONO_STEREO.length)]);
+            set(pd, "presetCount", midi ? 128 : 0);
+            set(pd, "hasTapTempo", rnd.nextBoolean());
+            set(pd, "midiCapable", midi);
+            set(pd, "midiReceiveCapabilities", midi ? "PC, CC, Clock" : null);
+            set(pd, "batteryCapable", rnd.nextBoolean());
+            f.pedalDetails.add(pd);
+
+            List<Jack> productJacks = new ArrayList<>();
+            productJacks.add(jack(jackId++, p, "audio", "input", "1/4\" TS", "Input"));
+            productJacks.add(jack(jackId++, p, "audio", "output", "1/4\" TS", "Output"));
+            Jack power = jack(jackId++, p, "power", "input", "2.1mm barrel", "Power");
+            set(power, "voltage", VOLTAGES[rnd.nextInt(VOLTAGES.length)]);
+            set(power, "currentMa", CURRENTS[rnd.nextInt(CURRENTS.length)]);
+            set(power, "polarity", "Center Negative");
+            productJacks.add(power);
+            if (midi) {
+                productJacks.add(jack(jackId++, p, "midi", "input", "5-pin DIN", "MIDI In"));
+                productJacks.add(jack(jackId++, p, "midi", "output", "5-pin DIN", "MIDI Out"));
+            }
+            int extra = rnd.nextInt(4);
+            for (int e = 0; e < extra; e++) {
+                productJacks.add(jack(jackId++, p, "expression", "input", "1/4\" TRS", "Exp " + (e + 1)));
+            }
+            f.jacks.addAll(productJacks);
+            f.jacksByProductId.put(id, productJacks);
+        }
+        return f;
+    }
+
+    private static Jack jack(int id, Product p, String category, String direction, String connector, String name) {
+        Jack j = newInstance(Jack.class);
+        set(j, "id", id);
+        set(j, "product", p);
+        set(j, "category", category);
+        set(j, "direction", direction);
+        set(j, "connectorType", connector);
+        set(j, "jackName", name);
+        set(j, "position", "Top");
+        return j;
+    }
+
+    private static <T> T newInstance(Class<T> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getSimpleName(), e);
+        }
+    }
+
+    private static void set(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "Cannot set " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
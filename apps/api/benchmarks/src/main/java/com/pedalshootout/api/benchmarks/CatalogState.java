@@ -0,0 +1,54 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDto;
+import com.pedalshootout.api.entity.Jack;
+import com.pedalshootout.api.entity.PedalDetail;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared JMH state: one generated catalog per product count, built once per trial.
+ *
+ * Also pre-computes the intermediate shapes each benchmark starts from (jack DTOs
+ * grouped by product, the final List<PedalDto>) so a benchmark only measures the
+ * step it's named after.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"1000", "10000", "100000"})
+    public int products;
+
+    public CatalogFixture fixture;
+    public Map<Integer, List<JackDto>> jackDtosByProduct;
+    public List<PedalDto> pedalDtos;
+    public Integer[] msrpCents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = CatalogFixture.generate(products);
+
+        jackDtosByProduct = new HashMap<>(products * 2);
+        fixture.jacksByProductId.forEach((productId, jacks) ->
+                jackDtosByProduct.put(productId, jacks.stream().map(JackDto::from).toList()));
+
+        pedalDtos = fixture.pedalDetails.stream()
+                .map(pd -> PedalDto.from(pd.getProduct(), pd, jackDtosByProduct.get(pd.getProductId())))
+                .toList();
+
+        msrpCents = fixture.products.stream()
+                .map(p -> p.getMsrpCents())
+                .toArray(Integer[]::new);
+    }
+
+    public List<PedalDetail> pedalDetails() { return fixture.pedalDetails; }
+    public List<Jack> jacks() { return fixture.jacks; }
+}
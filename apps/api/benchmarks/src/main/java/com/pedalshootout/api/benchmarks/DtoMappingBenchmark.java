@@ -0,0 +1,49 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.pedalshootout.api.dto.DtoUtils;
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDto;
+import com.pedalshootout.api.entity.Jack;
+import com.pedalshootout.api.entity.PedalDetail;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity → DTO mapping cost for a whole catalog.
+ *
+ *   pedalDtoFrom  — PedalDto.from for every pedal (jack DTOs already built)
+ *   jackDtoFrom   — JackDto.from for every jack
+ *   formatMsrp    — DtoUtils.formatMsrp for every product's price
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DtoMappingBenchmark {
+
+    @Benchmark
+    public void pedalDtoFrom(CatalogState state, Blackhole bh) {
+        for (PedalDetail pd : state.pedalDetails()) {
+            List<JackDto> jacks = state.jackDtosByProduct.get(pd.getProductId());
+            bh.consume(PedalDto.from(pd.getProduct(), pd, jacks));
+        }
+    }
+
+    @Benchmark
+    public void jackDtoFrom(CatalogState state, Blackhole bh) {
+        for (Jack j : state.jacks()) {
+            bh.consume(JackDto.from(j));
+        }
+    }
+
+    @Benchmark
+    public void formatMsrp(CatalogState state, Blackhole bh) {
+        for (Integer cents : state.msrpCents) {
+            bh.consume(DtoUtils.formatMsrp(cents));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.pedalshootout.api.catalog.CatalogSnapshotLoader;
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.entity.Jack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Grouping a flat jack list into product ID → List<JackDto>.
+ *
+ *   legacyJacksForAll — the jacksForAll() helper PedalService and DetailTypeService
+ *                       used before catalog reads moved to the snapshot, kept here
+ *                       verbatim as the "before" number
+ *   snapshotGrouping  — CatalogSnapshotLoader.groupJacksByProduct, what runs today
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class JackGroupingBenchmark {
+
+    @Benchmark
+    public Map<Integer, List<JackDto>> legacyJacksForAll(CatalogState state) {
+        return state.jacks().stream()
+                .collect(Collectors.groupingBy(
+                        j -> j.getProduct().getId(),
+                        Collectors.mapping(JackDto::from, Collectors.toList())
+                ));
+    }
+
+    @Benchmark
+    public Map<Integer, List<JackDto>> snapshotGrouping(CatalogState state) {
+        List<Jack> jacks = state.jacks();
+        return CatalogSnapshotLoader.groupJacksByProduct(jacks);
+    }
+}
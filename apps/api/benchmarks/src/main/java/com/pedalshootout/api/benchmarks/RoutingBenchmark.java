@@ -0,0 +1,133 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.routing.SignalGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SignalGraph on a large rig: a guitar into a 10-loop switcher with four pedals in
+ * each loop (40 pedals, ~60 cables), then four more pedals into the amp.
+ *
+ *   editOneCable — sync to a state where one cable moved, then back: two edits
+ *   checkCable   — would a new cable (last pedal back into the first) close a loop?
+ *   fullRebuild  — a fresh graph from the whole state, what re-validating from
+ *                  scratch on every edit costs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class RoutingBenchmark {
+
+    private static final int SWITCHER = 1;
+    private static final int PEDAL = 2;
+    private static final int LOOPS = 10;
+    private static final int PER_LOOP = 4;
+
+    @State(Scope.Thread)
+    public static class Rig {
+        final Map<Integer, List<JackDto>> jacks = new HashMap<>();
+        JsonNode before;
+        JsonNode after;
+        SignalGraph graph;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<JackDto> switcher = new ArrayList<>();
+            switcher.add(jack(100, "input", null));
+            switcher.add(jack(101, "output", null));
+            for (int l = 1; l <= LOOPS; l++) {
+                switcher.add(jack(100 + 2 * l, "output", "loop_" + l));
+                switcher.add(jack(101 + 2 * l, "input", "loop_" + l));
+            }
+            jacks.put(SWITCHER, switcher);
+            jacks.put(PEDAL, List.of(jack(200, "input", null), jack(201, "output", null)));
+
+            ObjectMapper mapper = new ObjectMapper();
+            ObjectNode state = mapper.createObjectNode();
+            ArrayNode items = state.putArray("items");
+            ArrayNode cables = state.putArray("audioConnections");
+            items.addObject().put("instanceId", "sw").put("productId", SWITCHER);
+            cable(cables, "virtual:guitar", "virtual-jack:guitar-out", "sw", 100);
+            for (int l = 1; l <= LOOPS; l++) {
+                String previous = "sw";
+                int previousJack = 100 + 2 * l;
+                for (int p = 0; p < PER_LOOP; p++) {
+                    String pedal = "p" + l + "-" + p;
+                    items.addObject().put("instanceId", pedal).put("productId", PEDAL);
+                    cable(cables, previous, previousJack, pedal, 200);
+                    previous = pedal;
+                    previousJack = 201;
+                }
+                cable(cables, previous, previousJack, "sw", 101 + 2 * l);
+            }
+            String previous = "sw";
+            int previousJack = 101;
+            for (int p = 0; p < 4; p++) {
+                String pedal = "post-" + p;
+                items.addObject().put("instanceId", pedal).put("productId", PEDAL);
+                cable(cables, previous, previousJack, pedal, 200);
+                previous = pedal;
+                previousJack = 201;
+            }
+            cable(cables, previous, previousJack, "virtual:amp", "virtual-jack:amp-in");
+
+            before = state;
+            ObjectNode moved = state.deepCopy();
+            ObjectNode c = (ObjectNode) moved.get("audioConnections").get(5);
+            c.put("id", "moved").put("targetInstanceId", "p5-2");
+            after = moved;
+
+            graph = new SignalGraph(SignalGraph.Layer.AUDIO);
+            graph.sync(before, this::jacksOf);
+        }
+
+        List<JackDto> jacksOf(Integer productId) {
+            return jacks.getOrDefault(productId, List.of());
+        }
+    }
+
+    @Benchmark
+    public boolean editOneCable(Rig rig) {
+        rig.graph.sync(rig.after, rig::jacksOf);
+        rig.graph.sync(rig.before, rig::jacksOf);
+        return rig.graph.hasCycle();
+    }
+
+    @Benchmark
+    public SignalGraph.Cycle checkCable(Rig rig) {
+        return rig.graph.wouldClose(new SignalGraph.Port("post-3", "201"), new SignalGraph.Port("p1-0", "200"));
+    }
+
+    @Benchmark
+    public boolean fullRebuild(Rig rig) {
+        SignalGraph graph = new SignalGraph(SignalGraph.Layer.AUDIO);
+        graph.sync(rig.before, rig::jacksOf);
+        return graph.hasCycle();
+    }
+
+    private static JackDto jack(int id, String direction, String group) {
+        return new JackDto(id, "audio", direction, null, null, "1/4\" TS", null, null, null, null, null,
+                null, null, null, null, null, null, null, null, group, null, null, null, null);
+    }
+
+    private static void cable(ArrayNode cables, String from, Object fromJack, String to, Object toJack) {
+        ObjectNode c = cables.addObject();
+        c.put("id", "c" + cables.size());
+        c.put("sourceInstanceId", from);
+        c.put("sourceJackId", String.valueOf(fromJack));
+        c.put("targetInstanceId", to);
+        c.put("targetJackId", String.valueOf(toJack));
+    }
+}
@@ -0,0 +1,36 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full Jackson serialization of List<PedalDto> — what GET /api/pedals spends
+ * after the service returns.
+ *
+ * The ObjectMapper comes from Jackson2ObjectMapperBuilder, the same builder Spring
+ * Boot uses for its HTTP message converter, so module/feature defaults match the app.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public byte[] serializePedalList(CatalogState state) throws JsonProcessingException {
+        return mapper.writeValueAsBytes(state.pedalDtos);
+    }
+}
@@ -0,0 +1,51 @@
+package com.pedalshootout.api.benchmarks;
+
+import com.pedalshootout.api.planner.SlotIndex;
+import com.pedalshootout.api.planner.SupplyIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SlotIndex queries (GET /api/board-planner/slot-candidates), target < 10 ms at 100k.
+ *
+ *   slotAndSupply — a 100 × 130 mm gap with 9V:300 and 18V:250 left, no other filters;
+ *                   the short-side prefix is most of the catalog, so close to a full scan
+ *   narrow        — the same plus an effect type and a price ceiling, served from the
+ *                   effect type posting list
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SlotFinderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+        SlotIndex index;
+
+        @Setup(Level.Trial)
+        public void setUp(CatalogState catalog) {
+            index = SlotIndex.build(catalog.pedalDtos, id -> catalog.jackDtosByProduct.getOrDefault(id, List.of()));
+        }
+    }
+
+    private static final Map<SupplyIndex.VoltKey, Integer> SUPPLY = Map.of(
+            new SupplyIndex.VoltKey(9, false), 300,
+            new SupplyIndex.VoltKey(18, false), 250);
+
+    @Benchmark
+    public SlotIndex.Page slotAndSupply(IndexState state) {
+        return state.index.search(
+                new SlotIndex.Query(100.0, 130.0, SUPPLY, "center negative", null, null, null), 0, 20);
+    }
+
+    @Benchmark
+    public SlotIndex.Page narrow(IndexState state) {
+        return state.index.search(
+                new SlotIndex.Query(100.0, 130.0, SUPPLY, "center negative", null, "Delay", 25000), 0, 20);
+    }
+}
@@ -0,0 +1,59 @@
+package com.pedalshootout.api.cache;
+
+/**
+ * One fully-encoded JSON response, ready to be written straight to the socket.
+ *
+ * The gzip coding is kept alongside the identity body once a gzip-capable client has
+ * asked for it (ResponseCache.gzip), so those clients don't pay for compression on
+ * every request and clients that never ask don't pay for it at all. Each coding is a
+ * distinct representation, so each gets its own strong ETag (the gzip one carries a
+ * "-gz" suffix); both are known up front since they only depend on the identity bytes.
+ */
+public final class CachedResponse {
+
+    private final long catalogVersion;
+    private final String etag;
+    private final String gzipEtag;
+    private final String contentType;
+    private final byte[] identity;
+    /** Null until the first gzip request; set once, under ResponseCache's lock. */
+    private volatile byte[] gzip;
+
+    /**
+     * @param catalogVersion snapshot version the body was rendered from
+     * @param etag           strong ETag of the identity body (quoted)
+     * @param gzipEtag       strong ETag of the gzip body (quoted)
+     * @param contentType    Content-Type the controller produced
+     * @param identity       uncompressed body bytes
+     */
+    public CachedResponse(long catalogVersion, String etag, String gzipEtag, String contentType, byte[] identity) {
+        this.catalogVersion = catalogVersion;
+        this.etag = etag;
+        this.gzipEtag = gzipEtag;
+        this.contentType = contentType;
+        this.identity = identity;
+    }
+
+    public long catalogVersion() { return catalogVersion; }
+    public String etag() { return etag; }
+    public String gzipEtag() { return gzipEtag; }
+    public String contentType() { return contentType; }
+    public byte[] identity() { return identity; }
+
+    /** The gzip body if it has been built and kept, else null. */
+    byte[] gzipIfBuilt() { return gzip; }
+
+    void keepGzip(byte[] gzip) { this.gzip = gzip; }
+
+    /** RFC 9110 If-None-Match uses weak comparison: ignore a W/ prefix, match either coding. */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag) || tag.equals(gzipEtag)) return true;
+        }
+        return false;
+    }
+}
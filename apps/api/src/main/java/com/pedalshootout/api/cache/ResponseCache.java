@@ -0,0 +1,150 @@
+package com.pedalshootout.api.cache;
+
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Store of pre-serialized catalog list responses, keyed by endpoint + query parameters.
+ *
+ * Entries are tied to the catalog snapshot version they were rendered from. When the
+ * catalog refreshes, the cache is emptied; an entry from an older version that sneaks
+ * in afterwards (a request that was mid-render during the swap) is simply ignored by
+ * get() and overwritten on the next request.
+ *
+ * The ETag is a SHA-256 of the rendered bytes, so it only changes when the catalog
+ * content behind that URL changes, and stays stable across restarts and across API
+ * instances serving the same catalog.
+ *
+ * The cache is capped by the bytes it holds (every entry's body, plus its gzip copy
+ * once one has been built), not by its entry count: one full-catalog body can be
+ * megabytes, so a count cap would let a few hundred distinct query strings pin
+ * gigabytes. Room is checked before a body is fingerprinted, so past the cap a miss
+ * costs nothing beyond rendering, and the response goes out uncached until the next
+ * catalog refresh empties the cache. The gzip copy is built on the first request that
+ * accepts gzip and kept if it still fits.
+ */
+@Component
+public class ResponseCache {
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    /** Identity + built gzip bytes of everything in entries; only changed under this object's lock. */
+    private long bytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResponseCache(@Value("${pedalshootout.response-cache.max-size:64MB}") DataSize maxSize) {
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /** The cached response for this key, if it was rendered from the given catalog version. */
+    public CachedResponse get(String key, long catalogVersion) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.catalogVersion() == catalogVersion) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Fingerprint and store a freshly rendered body, or return null without doing
+     * either if it doesn't fit — the caller then sends it as it is.
+     */
+    public CachedResponse put(String key, long catalogVersion, String contentType, byte[] body) {
+        if (!hasRoom(key, body.length)) return null;
+        String hash = sha256(body);
+        CachedResponse cached = new CachedResponse(
+            catalogVersion, "\"" + hash + "\"", "\"" + hash + "-gz\"", contentType, body
+        );
+        store(key, cached);
+        return cached;
+    }
+
+    /**
+     * The gzip coding of a cached body, compressed on first use. It's kept with the entry
+     * if the entry is still current and there's room; otherwise this request compresses
+     * it for itself.
+     */
+    public byte[] gzip(String key, CachedResponse cached) {
+        byte[] built = cached.gzipIfBuilt();
+        if (built != null) return built;
+        byte[] compressed = gzip(cached.identity());
+        synchronized (this) {
+            built = cached.gzipIfBuilt();
+            if (built != null) return built;
+            if (entries.get(key) == cached && bytes + compressed.length <= maxBytes) {
+                cached.keepGzip(compressed);
+                bytes += compressed.length;
+            }
+        }
+        return compressed;
+    }
+
+    /** Misses are rare (once per key per catalog version), so a lock here costs nothing; get() never takes it. */
+    private synchronized boolean hasRoom(String key, long length) {
+        return bytes - weight(entries.get(key)) + length <= maxBytes;
+    }
+
+    private synchronized void store(String key, CachedResponse cached) {
+        CachedResponse previous = entries.get(key);
+        long after = bytes - weight(previous) + weight(cached);
+        if (after <= maxBytes) {
+            entries.put(key, cached);
+            bytes = after;
+        }
+    }
+
+    @EventListener
+    public synchronized void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long hitCount() { return hits.get(); }
+    public long missCount() { return misses.get(); }
+    public int size() { return entries.size(); }
+    public synchronized long byteSize() { return bytes; }
+
+    private static long weight(CachedResponse cached) {
+        if (cached == null) return 0;
+        byte[] gzip = cached.gzipIfBuilt();
+        return cached.identity().length + (gzip == null ? 0 : gzip.length);
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // 16 bytes (128 bits) is plenty to tell catalog versions apart
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
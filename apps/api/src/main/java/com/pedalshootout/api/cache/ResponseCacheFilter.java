@@ -0,0 +1,140 @@
+package com.pedalshootout.api.cache;
+
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Serves catalog list endpoints from pre-serialized bytes, with ETag / 304 support.
+ *
+ * Flow for a GET on a cached path:
+ *   1. Build a cache key from the path + the query parameters that endpoint reads
+ *   2. Look up an entry rendered from the current catalog snapshot version
+ *   3. Miss → let the controller run once, capture the JSON bytes, store them in
+ *      ResponseCache (if it's full, send them as they are and stop here)
+ *   4. If-None-Match matches → 304 Not Modified (no body, controller not called)
+ *      otherwise → write the cached bytes, gzip if the client accepts it (compressed
+ *      on the first such request, then kept)
+ *
+ * Cache-Control: no-cache tells browsers to keep the body but revalidate every time,
+ * which is exactly the reload-the-catalog-view case: a tiny 304 instead of the
+ * whole table.
+ *
+ * Which URLs this applies to is decided by the FilterRegistrationBean in
+ * ResponseCacheConfig; non-GET requests and non-200 responses pass straight through.
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseCache cache;
+    private final CatalogSnapshotService catalog;
+    private final Map<String, Set<String>> keyParams;
+
+    /**
+     * @param keyParams for each cached path, the query parameters its controller reads.
+     *                  Only these go into the cache key: anything else can't change the
+     *                  response, so ?x=1, ?x=2, ... share one entry instead of each
+     *                  storing another copy of the catalog.
+     */
+    public ResponseCacheFilter(ResponseCache cache, CatalogSnapshotService catalog,
+                               Map<String, Set<String>> keyParams) {
+        this.cache = cache;
+        this.catalog = catalog;
+        this.keyParams = keyParams;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String key = cacheKey(request, keyParams.getOrDefault(request.getRequestURI(), Set.of()));
+        long version = catalog.current().version();
+
+        CachedResponse cached = cache.get(key, version);
+        if (cached == null) {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            cached = cache.put(key, version, wrapper.getContentType(), wrapper.getContentAsByteArray());
+            if (cached == null) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+        }
+        write(request, response, key, cached);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response,
+                       String key, CachedResponse cached) throws IOException {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.setHeader(HttpHeaders.ETAG, gzip ? cached.gzipEtag() : cached.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (cached.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? cache.gzip(key, cached) : cached.identity();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /** Path + the given query parameters in sorted order, so ?a=1&b=2 and ?b=2&a=1 share an entry. */
+    static String cacheKey(HttpServletRequest request, Set<String> read) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        params.keySet().retainAll(read);
+        char sep = '?';
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            String[] values = param.getValue().clone();
+            Arrays.sort(values);
+            for (String value : values) {
+                key.append(sep).append(param.getKey()).append('=').append(value);
+                sep = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    /** True unless the client doesn't mention gzip or explicitly refuses it (q=0). */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String p = parts[i].trim().replace(" ", "");
+                if (p.equals("q=0") || p.equals("q=0.0") || p.equals("q=0.00") || p.equals("q=0.000")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package com.pedalshootout.api.catalog;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Refreshes this instance's catalog snapshot when the catalog changes anywhere.
+ *
+ * Whatever writes the catalog (CatalogIngester, ProductWriteService) sends NOTIFY
+ * catalog_changed in its transaction. Postgres delivers it to every listening session
+ * once that transaction commits, and not at all if it rolls back, so each running
+ * instance reloads after exactly the commits that changed something. Notifications
+ * that arrive together are folded into one refresh.
+ *
+ * The listener holds one connection of its own, opened straight from the primary's
+ * URL rather than borrowed from the pool (it would be checked out forever) and never
+ * from a replica (a standby can't LISTEN). If the connection drops it reconnects every
+ * RETRY_MILLIS and refreshes once back, since it may have missed a notification.
+ *
+ * ProductWriteController refreshes its own instance before answering (after the
+ * write's transaction, see ProductWriteService.awaitCatalog), and the service tags its
+ * notification with instanceId() so this one doesn't load the same change again.
+ */
+@Component
+@Profile("!ingest")
+public class CatalogChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeListener.class);
+
+    public static final String CHANNEL = "catalog_changed";
+
+    /** How long one wait for notifications lasts; also how quickly shutdown is noticed. */
+    private static final int POLL_MILLIS = 5_000;
+
+    private static final long RETRY_MILLIS = 5_000;
+
+    private final CatalogSnapshotService catalog;
+    private final HikariDataSource primaryDataSource;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalog-listener");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running;
+
+    public CatalogChangeListener(CatalogSnapshotService catalog, HikariDataSource primaryDataSource) {
+        this.catalog = catalog;
+        this.primaryDataSource = primaryDataSource;
+    }
+
+    /** The payload a writer sends when it has already refreshed this instance. */
+    public String instanceId() {
+        return instanceId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        thread.execute(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        thread.shutdownNow();
+    }
+
+    private void listen() {
+        boolean reconnected = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(primaryDataSource.getJdbcUrl(),
+                    primaryDataSource.getUsername(), primaryDataSource.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnected) {
+                    log.info("Listening for catalog changes again");
+                    refresh();
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications != null && fromElsewhere(notifications)) refresh();
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Catalog change listener lost its connection, retrying in {} ms: {}",
+                        RETRY_MILLIS, e.getMessage());
+                reconnected = true;
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean fromElsewhere(PGNotification[] notifications) {
+        for (PGNotification n : notifications) {
+            if (!instanceId.equals(n.getParameter())) return true;
+        }
+        return false;
+    }
+
+    private void refresh() {
+        try {
+            catalog.refresh();
+        } catch (RuntimeException e) {
+            // Keep serving the snapshot we have; the next change (or restart) tries again.
+            log.error("Catalog refresh after a change notification failed", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.pedalshootout.api.catalog;
+
+/**
+ * Published after a new CatalogSnapshot has been swapped in.
+ *
+ * Anything that derives its own structures from the catalog (caches, search
+ * indexes, etc.) can listen for this with @EventListener and rebuild, instead of
+ * polling the snapshot service for changes.
+ *
+ * @param previous the snapshot that was replaced, or null on the first load
+ * @param current  the snapshot now being served
+ */
+public record CatalogRefreshedEvent(CatalogSnapshot previous, CatalogSnapshot current) {}
@@ -0,0 +1,192 @@
+package com.pedalshootout.api.catalog;
+
+import com.pedalshootout.api.compatibility.CompatibilityGraph;
+import com.pedalshootout.api.dto.*;
+import com.pedalshootout.api.entity.ProductType;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Immutable, pre-indexed copy of the whole gear catalog.
+ *
+ * The catalog only changes when a migration runs, so instead of going back to
+ * Postgres (and through Hibernate + DTO mapping) on every GET, we build every
+ * list-endpoint DTO once and keep it in memory. A snapshot is never modified
+ * after construction — a refresh builds a brand new snapshot and swaps it in
+ * (see CatalogSnapshotService), so readers never see a half-built catalog.
+ *
+ * Indexes built up front:
+ *   - every product type by product ID
+ *   - products by product type ID and by manufacturer ID
+ *   - jacks by product ID
+ *   - pedals by effect type, utilities by utility type
+ *   - product_compatibility as a graph (see CompatibilityGraph)
+ */
+public final class CatalogSnapshot {
+
+    /** A list of DTOs plus an ID → DTO lookup over the same objects. */
+    public record Indexed<T>(List<T> all, Map<Integer, T> byId) {
+
+        static <T> Indexed<T> of(List<T> items, Function<T, Integer> idOf) {
+            Map<Integer, T> byId = new HashMap<>(items.size() * 2);
+            for (T item : items) {
+                byId.put(idOf.apply(item), item);
+            }
+            return new Indexed<>(List.copyOf(items), Map.copyOf(byId));
+        }
+
+        public Optional<T> find(Integer id) {
+            return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id));
+        }
+    }
+
+    private final long version;
+    private final Instant loadedAt;
+
+    private final List<ProductType> productTypes;
+    private final Indexed<ManufacturerDto> manufacturers;
+
+    private final Indexed<ProductSummaryDto> products;
+    private final Map<Integer, ProductDetailDto> productDetailsById;
+    private final Map<Integer, List<ProductSummaryDto>> productsByType;
+    private final Map<Integer, List<ProductSummaryDto>> productsByManufacturer;
+    private final Map<Integer, List<JackDto>> jacksByProduct;
+
+    private final Indexed<PedalDto> pedals;
+    private final Map<String, List<PedalDto>> pedalsByEffectType;
+    private final Indexed<PowerSupplyDto> powerSupplies;
+    private final Indexed<PedalboardDto> pedalboards;
+    private final Indexed<MidiControllerDto> midiControllers;
+    private final Indexed<UtilityDto> utilities;
+    private final Map<String, List<UtilityDto>> utilitiesByType;
+    private final Indexed<PlugDto> plugs;
+
+    private final CompatibilityGraph compatibility;
+
+    CatalogSnapshot(long version,
+                    Instant loadedAt,
+                    List<ProductType> productTypes,
+                    List<ManufacturerDto> manufacturers,
+                    List<ProductDetailDto> productDetails,
+                    Map<Integer, List<JackDto>> jacksByProduct,
+                    List<PedalDto> pedals,
+                    List<PowerSupplyDto> powerSupplies,
+                    List<PedalboardDto> pedalboards,
+                    List<MidiControllerDto> midiControllers,
+                    List<UtilityDto> utilities,
+                    List<PlugDto> plugs,
+                    CompatibilityGraph compatibility) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.productTypes = List.copyOf(productTypes);
+        this.manufacturers = Indexed.of(manufacturers, ManufacturerDto::id);
+
+        Map<Integer, ProductDetailDto> detailsById = new HashMap<>(productDetails.size() * 2);
+        List<ProductSummaryDto> summaries = new ArrayList<>(productDetails.size());
+        for (ProductDetailDto d : productDetails) {
+            detailsById.put(d.id(), d);
+            summaries.add(toSummary(d));
+        }
+        this.productDetailsById = Map.copyOf(detailsById);
+        this.products = Indexed.of(summaries, ProductSummaryDto::id);
+        this.productsByType = groupBy(summaries, ProductSummaryDto::productTypeId);
+        this.productsByManufacturer = groupBy(summaries, ProductSummaryDto::manufacturerId);
+
+        Map<Integer, List<JackDto>> jacks = new HashMap<>(jacksByProduct.size() * 2);
+        jacksByProduct.forEach((productId, list) -> jacks.put(productId, List.copyOf(list)));
+        this.jacksByProduct = Map.copyOf(jacks);
+
+        this.pedals = Indexed.of(pedals, PedalDto::id);
+        this.pedalsByEffectType = groupBy(pedals, p -> p.pedalDetails().effectType());
+        this.powerSupplies = Indexed.of(powerSupplies, PowerSupplyDto::id);
+        this.pedalboards = Indexed.of(pedalboards, PedalboardDto::id);
+        this.midiControllers = Indexed.of(midiControllers, MidiControllerDto::id);
+        this.utilities = Indexed.of(utilities, UtilityDto::id);
+        this.utilitiesByType = groupBy(utilities, UtilityDto::utilityType);
+        this.plugs = Indexed.of(plugs, PlugDto::id);
+        this.compatibility = compatibility;
+    }
+
+    /** Group items into an immutable map of immutable lists, preserving order. Null keys are skipped. */
+    private static <K, T> Map<K, List<T>> groupBy(List<T> items, Function<T, K> keyOf) {
+        Map<K, List<T>> grouped = new HashMap<>();
+        for (T item : items) {
+            K key = keyOf.apply(item);
+            if (key != null) {
+                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+            }
+        }
+        Map<K, List<T>> frozen = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((k, v) -> frozen.put(k, List.copyOf(v)));
+        return Map.copyOf(frozen);
+    }
+
+    private static ProductSummaryDto toSummary(ProductDetailDto d) {
+        return new ProductSummaryDto(
+            d.id(), d.model(), d.manufacturerName(), d.manufacturerId(),
+            d.productType(), d.productTypeId(), d.colorOptions(), d.inProduction(),
+            d.widthMm(), d.depthMm(), d.heightMm(), d.weightGrams(),
+            d.msrpDisplay(), d.msrpCents(), d.productPage(), d.imagePath()
+        );
+    }
+
+    // --- Metadata ---
+
+    /** Monotonically increasing per process; bumps on every refresh. */
+    public long version() { return version; }
+    public Instant loadedAt() { return loadedAt; }
+
+    // --- Reference data ---
+
+    public List<ProductType> productTypes() { return productTypes; }
+    public Indexed<ManufacturerDto> manufacturers() { return manufacturers; }
+
+    // --- Products (all types) ---
+
+    public Indexed<ProductSummaryDto> products() { return products; }
+
+    public Optional<ProductDetailDto> productDetail(Integer id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(productDetailsById.get(id));
+    }
+
+    public List<ProductSummaryDto> productsByType(Integer productTypeId) {
+        return productsByType.getOrDefault(productTypeId, List.of());
+    }
+
+    public List<ProductSummaryDto> productsByManufacturer(Integer manufacturerId) {
+        return productsByManufacturer.getOrDefault(manufacturerId, List.of());
+    }
+
+    public List<JackDto> jacks(Integer productId) {
+        return jacksByProduct.getOrDefault(productId, List.of());
+    }
+
+    // --- Detail types ---
+
+    public Indexed<PedalDto> pedals() { return pedals; }
+
+    public List<PedalDto> pedalsByEffectType(String effectType) {
+        return pedalsByEffectType.getOrDefault(effectType, List.of());
+    }
+
+    public Indexed<PowerSupplyDto> powerSupplies() { return powerSupplies; }
+    public Indexed<PedalboardDto> pedalboards() { return pedalboards; }
+    public Indexed<MidiControllerDto> midiControllers() { return midiControllers; }
+    public Indexed<UtilityDto> utilities() { return utilities; }
+
+    public List<UtilityDto> utilitiesByType(String utilityType) {
+        return utilitiesByType.getOrDefault(utilityType, List.of());
+    }
+
+    public Indexed<PlugDto> plugs() { return plugs; }
+
+    // --- Relationships ---
+
+    public CompatibilityGraph compatibility() { return compatibility; }
+}
@@ -0,0 +1,264 @@
+package com.pedalshootout.api.catalog;
+
+import com.pedalshootout.api.compatibility.CompatibilityGraph;
+import com.pedalshootout.api.concurrent.FanOut;
+import com.pedalshootout.api.datasource.ReplicaSet;
+import com.pedalshootout.api.dto.*;
+import com.pedalshootout.api.entity.*;
+import com.pedalshootout.api.repository.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the whole catalog out of Postgres and turns it into a CatalogSnapshot.
+ *
+ * By default everything runs inside one read-only transaction. With
+ * pedalshootout.catalog.load-parallelism > 1 the eleven table reads fan out across that
+ * many connections instead, all reading one exported Postgres snapshot (see
+ * readInParallel), so a refresh takes about as long as its slowest query rather than
+ * the sum of them. Every list query names its fetch
+ * plan: products come back with their manufacturer and type joined in, and the detail
+ * tables use DetailRepository.findAllWithProductBy, which joins in the product, its
+ * manufacturer and its type — so no DTO's from() ever touches an unloaded lazy proxy.
+ * Jacks only need their product ID, which Hibernate reads off the proxy for free.
+ *
+ * Total: one query per table, regardless of catalog size.
+ */
+@Component
+public class CatalogSnapshotLoader {
+
+    private final ProductTypeRepository productTypeRepository;
+    private final ManufacturerRepository manufacturerRepository;
+    private final ProductRepository productRepository;
+    private final JackRepository jackRepository;
+    private final PedalDetailRepository pedalDetailRepo;
+    private final PowerSupplyDetailRepository powerSupplyRepo;
+    private final PedalboardDetailRepository pedalboardRepo;
+    private final MidiControllerDetailRepository midiControllerRepo;
+    private final UtilityDetailRepository utilityRepo;
+    private final PlugDetailRepository plugRepo;
+    private final ProductCompatibilityRepository compatibilityRepo;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final AsyncTaskExecutor executor;
+    private final int parallelism;
+
+    public CatalogSnapshotLoader(ProductTypeRepository productTypeRepository,
+                                 ManufacturerRepository manufacturerRepository,
+                                 ProductRepository productRepository,
+                                 JackRepository jackRepository,
+                                 PedalDetailRepository pedalDetailRepo,
+                                 PowerSupplyDetailRepository powerSupplyRepo,
+                                 PedalboardDetailRepository pedalboardRepo,
+                                 MidiControllerDetailRepository midiControllerRepo,
+                                 UtilityDetailRepository utilityRepo,
+                                 PlugDetailRepository plugRepo,
+                                 ProductCompatibilityRepository compatibilityRepo,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManager entityManager,
+                                 @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                 @Value("${pedalshootout.catalog.load-parallelism:1}") int loadParallelism,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.productTypeRepository = productTypeRepository;
+        this.manufacturerRepository = manufacturerRepository;
+        this.productRepository = productRepository;
+        this.jackRepository = jackRepository;
+        this.pedalDetailRepo = pedalDetailRepo;
+        this.powerSupplyRepo = powerSupplyRepo;
+        this.pedalboardRepo = pedalboardRepo;
+        this.midiControllerRepo = midiControllerRepo;
+        this.utilityRepo = utilityRepo;
+        this.plugRepo = plugRepo;
+        this.compatibilityRepo = compatibilityRepo;
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.executor = executor;
+        // The coordinating transaction holds a connection of its own, and requests need some too
+        this.parallelism = Math.max(1, Math.min(loadParallelism, poolSize / 2));
+    }
+
+    /**
+     * Build a fresh snapshot tagged with the given version.
+     *
+     * Always reads the primary, even though the transactions are read-only: a refresh
+     * usually follows a change, and a lagging replica could hand back the catalog from
+     * before it. (Also, an exported snapshot only exists on the server that exported it.)
+     */
+    public CatalogSnapshot load(long version) {
+        List<Supplier<Object>> queries = queries();
+        List<Object> results = parallelism > 1
+                ? ReplicaSet.onPrimary(() -> readInParallel(queries))
+                : ReplicaSet.onPrimary(() -> readInOneTransaction(queries));
+        return assemble(version, results);
+    }
+
+    /**
+     * The eleven reads a snapshot is built from, in the order assemble() expects. Each is
+     * self-contained (its own fetch plan, no reliance on what's already in the session),
+     * so they can run in one transaction or spread across several.
+     */
+    private List<Supplier<Object>> queries() {
+        Sort byId = Sort.by("id");
+        Sort byProduct = Sort.by("productId");
+        return List.of(
+            () -> productTypeRepository.findAll(byId),
+            () -> manufacturerRepository.findAll(byId),
+            productRepository::findAllWithManufacturerAndType,
+            () -> groupJacksByProduct(jackRepository.findAll(byId)),
+            () -> pedalDetailRepo.findAllWithProductBy(byProduct),
+            () -> powerSupplyRepo.findAllWithProductBy(byProduct),
+            () -> pedalboardRepo.findAllWithProductBy(byProduct),
+            () -> midiControllerRepo.findAllWithProductBy(byProduct),
+            () -> utilityRepo.findAllWithProductBy(byProduct),
+            () -> plugRepo.findAllWithProductBy(byProduct),
+            () -> compatibilityRepo.findAll(byId)
+        );
+    }
+
+    private List<Object> readInOneTransaction(List<Supplier<Object>> queries) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> queries.stream().map(Supplier::get).toList());
+    }
+
+    /**
+     * Run the reads side by side, each on its own connection, while still seeing one
+     * consistent catalog.
+     *
+     * Separate transactions would normally each see the database as of their own start,
+     * so a write landing mid-load could give us jacks for a product the products query
+     * never saw. Postgres's exported snapshots fix that (it's how pg_dump --jobs works):
+     * a coordinating REPEATABLE READ transaction calls pg_export_snapshot(), and every
+     * worker transaction starts with SET TRANSACTION SNAPSHOT on that ID, so all of them
+     * read exactly the same committed state. The coordinator has to stay open until the
+     * workers have attached, so it waits for all of them inside its own transaction.
+     *
+     * Cost: parallelism + 1 pooled connections for the duration of the load.
+     */
+    private List<Object> readInParallel(List<Supplier<Object>> queries) {
+        TransactionTemplate tx = snapshotTransaction();
+        return tx.execute(status -> {
+            String snapshotId = session().doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT pg_export_snapshot()")) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            });
+            List<Callable<Object>> tasks = queries.stream()
+                    .<Callable<Object>>map(query -> () -> ReplicaSet.onPrimary(
+                            () -> snapshotTransaction().execute(worker -> {
+                                session().doWork(connection -> {
+                                    try (Statement statement = connection.createStatement()) {
+                                        statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+                                    }
+                                });
+                                return query.get();
+                            })))
+                    .toList();
+            return FanOut.all(executor, parallelism, tasks);
+        });
+    }
+
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return tx;
+    }
+
+    /** The Hibernate session bound to the current thread's transaction. */
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CatalogSnapshot assemble(long version, List<Object> results) {
+        List<ProductType> productTypes = (List<ProductType>) results.get(0);
+        List<Manufacturer> manufacturers = (List<Manufacturer>) results.get(1);
+        List<Product> products = (List<Product>) results.get(2);
+        Map<Integer, List<JackDto>> jacksByProduct = (Map<Integer, List<JackDto>>) results.get(3);
+
+        Map<Integer, Long> productCounts = new HashMap<>();
+        for (Product p : products) {
+            productCounts.merge(p.getManufacturer().getId(), 1L, Long::sum);
+        }
+        List<ManufacturerDto> manufacturerDtos = manufacturers.stream()
+                .map(m -> ManufacturerDto.from(m, productCounts.getOrDefault(m.getId(), 0L)))
+                .toList();
+
+        List<ProductDetailDto> productDetails = products.stream()
+                .map(p -> ProductDetailDto.from(p, jacksFor(jacksByProduct, p.getId())))
+                .toList();
+
+        List<PedalDto> pedals = ((List<PedalDetail>) results.get(4)).stream()
+                .map(d -> PedalDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        List<PowerSupplyDto> powerSupplies = ((List<PowerSupplyDetail>) results.get(5)).stream()
+                .map(d -> PowerSupplyDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        List<PedalboardDto> pedalboards = ((List<PedalboardDetail>) results.get(6)).stream()
+                .map(d -> PedalboardDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        List<MidiControllerDto> midiControllers = ((List<MidiControllerDetail>) results.get(7)).stream()
+                .map(d -> MidiControllerDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        List<UtilityDto> utilities = ((List<UtilityDetail>) results.get(8)).stream()
+                .map(d -> UtilityDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        List<PlugDto> plugs = ((List<PlugDetail>) results.get(9)).stream()
+                .map(d -> PlugDto.from(d.getProduct(), d, jacksFor(jacksByProduct, d.getProductId())))
+                .toList();
+
+        CompatibilityGraph compatibility = CompatibilityGraph.of(
+                ((List<ProductCompatibility>) results.get(10)).stream()
+                        .map(CompatibilityDto.Relation::from)
+                        .toList());
+
+        return new CatalogSnapshot(
+            version, Instant.now(),
+            productTypes, manufacturerDtos, productDetails, jacksByProduct,
+            pedals, powerSupplies, pedalboards, midiControllers, utilities, plugs,
+            compatibility
+        );
+    }
+
+    /**
+     * Group jacks by their product ID. j.getProduct().getId() reads the FK off the
+     * lazy proxy without initializing it, so this never triggers extra queries.
+     */
+    public static Map<Integer, List<JackDto>> groupJacksByProduct(List<Jack> jacks) {
+        return jacks.stream()
+                .collect(Collectors.groupingBy(
+                        j -> j.getProduct().getId(),
+                        Collectors.mapping(JackDto::from, Collectors.toUnmodifiableList())
+                ));
+    }
+
+    private static List<JackDto> jacksFor(Map<Integer, List<JackDto>> jacksByProduct, Integer productId) {
+        return jacksByProduct.getOrDefault(productId, List.of());
+    }
+}
@@ -0,0 +1,92 @@
+package com.pedalshootout.api.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the current CatalogSnapshot.
+ *
+ * The snapshot is loaded once when the application is ready (after Flyway has run)
+ * and read lock-free from then on. refresh() builds a complete new snapshot off to
+ * the side and swaps it in with a single atomic write, so in-flight requests keep
+ * reading the old snapshot until they finish and new requests see the new one.
+ *
+ * If a request arrives before the startup load has finished, current() loads the
+ * snapshot on that thread rather than returning nothing.
+ *
+ * A writer that has just committed calls awaitRefresh() to be sure its change is being
+ * served before it answers. Each refresh notes the last such request that had been made
+ * when it started loading; a writer whose request is covered by a finished refresh
+ * doesn't load again, so a burst of writes shares a reload or two instead of queueing
+ * one each.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final CatalogSnapshotLoader loader;
+    private final ApplicationEventPublisher events;
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private volatile long covered;
+
+    public CatalogSnapshotService(CatalogSnapshotLoader loader, ApplicationEventPublisher events) {
+        this.loader = loader;
+        this.events = events;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (current.get() == null) {
+            refresh();
+        }
+    }
+
+    /** The snapshot currently being served. Never null. */
+    public CatalogSnapshot current() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            return snapshot != null ? snapshot : refresh();
+        }
+    }
+
+    /** Reload the catalog from the database and atomically swap it in. */
+    public synchronized CatalogSnapshot refresh() {
+        long started = System.nanoTime();
+        long covers = requested.get();
+        CatalogSnapshot next = loader.load(versions.incrementAndGet());
+        CatalogSnapshot previous = current.getAndSet(next);
+        covered = covers;
+        log.info("Catalog snapshot v{} loaded: {} products, {} jacks in {} ms",
+                next.version(), next.products().all().size(),
+                next.products().all().stream().mapToInt(p -> next.jacks(p.id()).size()).sum(),
+                (System.nanoTime() - started) / 1_000_000);
+        events.publishEvent(new CatalogRefreshedEvent(previous, next));
+        return next;
+    }
+
+    /**
+     * Returns once the snapshot being served was loaded after this call began — so it
+     * includes anything committed before the call. Reuses a refresh that started after
+     * the call if one has finished by the time it gets the lock.
+     */
+    public CatalogSnapshot awaitRefresh() {
+        long ticket = requested.incrementAndGet();
+        synchronized (this) {
+            return covered >= ticket ? current.get() : refresh();
+        }
+    }
+}
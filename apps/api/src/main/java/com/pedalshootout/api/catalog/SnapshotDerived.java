@@ -0,0 +1,59 @@
+package com.pedalshootout.api.catalog;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A value computed from a CatalogSnapshot (a search index, a lookup table, ...) that is
+ * rebuilt whenever the snapshot version changes.
+ *
+ * get() returns the cached value if it was built from the same snapshot version and
+ * rebuilds it otherwise, so callers always see a value that matches the snapshot they
+ * are holding. Owners typically also call get(event.current()) from a
+ * CatalogRefreshedEvent listener so the rebuild happens right after the refresh
+ * instead of on the first request that needs it.
+ *
+ * Reads are lock-free; concurrent rebuilds for the same version are collapsed into one.
+ *
+ * incremental() variants also get the previously built value (null the first time),
+ * so a large structure can be patched with what changed instead of rebuilt.
+ */
+public final class SnapshotDerived<T> {
+
+    private record Built<T>(long version, T value) {}
+
+    private final BiFunction<T, CatalogSnapshot, T> builder;
+    private volatile Built<T> built;
+
+    public SnapshotDerived(Function<CatalogSnapshot, T> builder) {
+        this.builder = (previous, snapshot) -> builder.apply(snapshot);
+    }
+
+    private SnapshotDerived(BiFunction<T, CatalogSnapshot, T> builder) {
+        this.builder = builder;
+    }
+
+    /** builder receives (previous value or null, new snapshot). */
+    public static <T> SnapshotDerived<T> incremental(BiFunction<T, CatalogSnapshot, T> builder) {
+        return new SnapshotDerived<>(builder);
+    }
+
+    public T get(CatalogSnapshot snapshot) {
+        Built<T> b = built;
+        if (b != null && b.version() == snapshot.version()) {
+            return b.value();
+        }
+        synchronized (this) {
+            b = built;
+            if (b != null && b.version() == snapshot.version()) {
+                return b.value();
+            }
+            T value = builder.apply(b != null ? b.value() : null, snapshot);
+            // Don't let a slow build for an older snapshot overwrite a newer one
+            if (built == null || built.version() < snapshot.version()) {
+                built = new Built<>(snapshot.version(), value);
+            }
+            return value;
+        }
+    }
+}
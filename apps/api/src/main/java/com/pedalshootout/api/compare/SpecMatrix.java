@@ -0,0 +1,55 @@
+package com.pedalshootout.api.compare;
+
+import com.pedalshootout.api.dto.ComparisonDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Lines several SpecSheets up into comparison rows.
+ *
+ * Rows are the union of every sheet's keys, in first-seen order (so "product" rows
+ * come first, then each type's rows in the order the columns introduce them, then
+ * jacks and power). A row a product doesn't have is null in its column — except jack
+ * counts, where a missing row means none of that kind: 0.
+ *
+ * Each row is flagged differs when its values aren't all equal; that's the diff the
+ * comparison view highlights (or filters down to with "show differences only").
+ */
+public final class SpecMatrix {
+
+    private SpecMatrix() {}
+
+    public static List<ComparisonDto.Row> rows(List<SpecSheet> sheets) {
+        Set<SpecSheet.Key> keys = new LinkedHashSet<>();
+        for (SpecSheet sheet : sheets) keys.addAll(sheet.values().keySet());
+
+        List<ComparisonDto.Row> rows = new ArrayList<>(keys.size());
+        for (SpecSheet.Key key : keys) {
+            Object[] values = new Object[sheets.size()];
+            boolean any = false;
+            for (int c = 0; c < values.length; c++) {
+                Object v = sheets.get(c).values().get(key);
+                if (v == null && SpecSheet.JACKS.equals(key.group())) v = 0;
+                values[c] = v;
+                any |= v != null;
+            }
+            if (!any) continue;     // nobody has it; not worth a row
+            rows.add(new ComparisonDto.Row(key.group(), key.field(),
+                    Collections.unmodifiableList(Arrays.asList(values)), differs(values)));
+        }
+        return rows;
+    }
+
+    private static boolean differs(Object[] values) {
+        for (int c = 1; c < values.length; c++) {
+            if (!Objects.equals(values[0], values[c])) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+package com.pedalshootout.api.compare;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.ProductDetailDto;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * One product's specs as an ordered list of (group, field) → value, the row labels
+ * of the comparison table.
+ *
+ * Built from the DTOs the catalog snapshot already holds, by walking their record
+ * components, so a field added to PedalDto or PowerSupplyDto shows up in comparisons
+ * without touching this class:
+ *   - "product"  — the shared ProductDetailDto fields (dimensions, price, ...)
+ *   - the type   — the type-specific DTO's own fields ("pedal": effectType, bypassType,
+ *                  ...); nested records (PedalDto.pedalDetails) are flattened into it
+ *   - "jacks"    — how many jacks of each category/direction ("audio input": 2)
+ *   - "power"    — the power input jack's voltage, current, polarity and connector
+ * Lists, IDs and long-form text (description, links, tags) aren't specs and are left
+ * out. Null values are kept, so a row lines up across products that don't all have it.
+ */
+public record SpecSheet(Map<Key, Object> values) {
+
+    /** Row label: group ("product", "pedal", "jacks", ...) and field name within it. */
+    public record Key(String group, String field) {}
+
+    public static final String PRODUCT = "product";
+    public static final String JACKS = "jacks";
+    public static final String POWER = "power";
+
+    private static final Set<String> SKIPPED = Set.of(
+            "id", "manufacturerId", "productTypeId", "msrpCents", "productPage", "instructionManual",
+            "imagePath", "description", "tags", "dataReliability");
+
+    private static final Set<String> PRODUCT_FIELDS = componentNames(ProductDetailDto.class);
+
+    private static final Map<Class<?>, RecordComponent[]> COMPONENTS = new ConcurrentHashMap<>();
+
+    /**
+     * product is the snapshot's ProductDetailDto; typed is the same product's
+     * type-specific DTO (PedalDto, PowerSupplyDto, ...) or null if it has none.
+     */
+    public static SpecSheet of(ProductDetailDto product, Record typed) {
+        Map<Key, Object> values = new LinkedHashMap<>();
+        flatten(values, PRODUCT, product, Set.of());
+        if (typed != null) {
+            flatten(values, product.productType(), typed, PRODUCT_FIELDS);
+        }
+        addJacks(values, product.jacks());
+        return new SpecSheet(values);
+    }
+
+    private static void flatten(Map<Key, Object> out, String group, Record record, Set<String> exclude) {
+        for (RecordComponent c : components(record.getClass())) {
+            String name = c.getName();
+            if (SKIPPED.contains(name) || exclude.contains(name)) continue;
+            Object value = read(c, record);
+            if (value instanceof Collection<?>) continue;
+            if (value instanceof Record nested) {
+                flatten(out, group, nested, exclude);
+            } else if (c.getType().isRecord()) {
+                // null nested record: still one null row per field, so columns line up
+                for (RecordComponent inner : components(c.getType())) {
+                    if (!SKIPPED.contains(inner.getName())) out.put(new Key(group, inner.getName()), null);
+                }
+            } else {
+                out.put(new Key(group, name), value);
+            }
+        }
+    }
+
+    private static void addJacks(Map<Key, Object> out, List<JackDto> jacks) {
+        Map<String, Long> counts = jacks.stream().collect(Collectors.groupingBy(
+                j -> label(j.category()) + " " + label(j.direction()), TreeMap::new, Collectors.counting()));
+        counts.forEach((label, count) -> out.put(new Key(JACKS, label), count.intValue()));
+
+        JackDto power = jacks.stream()
+                .filter(j -> "power".equals(j.category()) && "input".equals(j.direction()))
+                .findFirst().orElse(null);
+        if (power != null) {
+            out.put(new Key(POWER, "voltage"), power.voltage());
+            out.put(new Key(POWER, "currentMa"), power.currentMa());
+            out.put(new Key(POWER, "polarity"), power.polarity());
+            out.put(new Key(POWER, "connectorType"), power.connectorType());
+        }
+    }
+
+    private static String label(String s) {
+        return s == null || s.isBlank() ? "other" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static RecordComponent[] components(Class<?> type) {
+        return COMPONENTS.computeIfAbsent(type, Class::getRecordComponents);
+    }
+
+    private static Object read(RecordComponent c, Record record) {
+        try {
+            return c.getAccessor().invoke(record);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't read " + c.getName() + " of " + record.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static Set<String> componentNames(Class<? extends Record> type) {
+        return Arrays.stream(type.getRecordComponents())
+                .map(RecordComponent::getName)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
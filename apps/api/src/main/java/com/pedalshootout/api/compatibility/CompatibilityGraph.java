@@ -0,0 +1,152 @@
+package com.pedalshootout.api.compatibility;
+
+import com.pedalshootout.api.dto.CompatibilityDto.Relation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The product_compatibility table as an in-memory graph: products are nodes, each
+ * row is an undirected edge carrying its type and flags.
+ *
+ * Built once per catalog snapshot and immutable after that. Two views over the same
+ * Relation objects:
+ *   - adjacency lists: productId → every relation touching it ("what goes with this?")
+ *   - a pair index: packed (min, max) product IDs → the relations between exactly those
+ *     two, in O(1) without boxing (see PairIndex). The planners run one of these per
+ *     pair of products in a request, so it has to be cheap.
+ *
+ * Replacement relations also answer closure queries: "what can stand in for this?"
+ * follows Replacement edges transitively (A replaces B, B replaces C → A and C are
+ * alternatives), nearest first. Rows flagged incompatible are never followed.
+ */
+public final class CompatibilityGraph {
+
+    public static final String REPLACEMENT = "Replacement";
+
+    public static final CompatibilityGraph EMPTY = of(List.of());
+
+    private final List<Relation> relations;
+    private final Map<Integer, List<Relation>> adjacency;
+    private final PairIndex pairIndex;
+    private final List<List<Relation>> pairs;        // by pair ordinal (the PairIndex value)
+    private final boolean[] pairIncompatible;        // by pair ordinal
+
+    private CompatibilityGraph(List<Relation> relations, Map<Integer, List<Relation>> adjacency,
+                               PairIndex pairIndex, List<List<Relation>> pairs, boolean[] pairIncompatible) {
+        this.relations = relations;
+        this.adjacency = adjacency;
+        this.pairIndex = pairIndex;
+        this.pairs = pairs;
+        this.pairIncompatible = pairIncompatible;
+    }
+
+    public static CompatibilityGraph of(List<Relation> relations) {
+        Map<Integer, List<Relation>> adjacency = new HashMap<>();
+        PairIndex index = new PairIndex(relations.size());
+        List<List<Relation>> pairs = new ArrayList<>();
+
+        for (Relation r : relations) {
+            adjacency.computeIfAbsent(r.productAId(), k -> new ArrayList<>()).add(r);
+            if (!r.productAId().equals(r.productBId())) {
+                adjacency.computeIfAbsent(r.productBId(), k -> new ArrayList<>()).add(r);
+            }
+            int ordinal = index.putIfAbsent(PairIndex.key(r.productAId(), r.productBId()), pairs.size());
+            if (ordinal == pairs.size()) pairs.add(new ArrayList<>(1));
+            pairs.get(ordinal).add(r);
+        }
+
+        boolean[] incompatible = new boolean[pairs.size()];
+        List<List<Relation>> frozenPairs = new ArrayList<>(pairs.size());
+        for (int i = 0; i < pairs.size(); i++) {
+            incompatible[i] = pairs.get(i).stream().anyMatch(Relation::incompatible);
+            frozenPairs.add(List.copyOf(pairs.get(i)));
+        }
+        Map<Integer, List<Relation>> frozenAdjacency = new HashMap<>(adjacency.size() * 2);
+        adjacency.forEach((id, list) -> frozenAdjacency.put(id, List.copyOf(list)));
+
+        return new CompatibilityGraph(List.copyOf(relations), Map.copyOf(frozenAdjacency),
+                index, List.copyOf(frozenPairs), incompatible);
+    }
+
+    public List<Relation> relations() { return relations; }
+
+    public int size() { return relations.size(); }
+
+    /** Every relation touching the product, in table order. */
+    public List<Relation> of(Integer productId) {
+        return adjacency.getOrDefault(productId, List.of());
+    }
+
+    /** The relations between exactly these two products, in either direction. */
+    public List<Relation> between(int a, int b) {
+        int ordinal = pairIndex.get(PairIndex.key(a, b));
+        return ordinal < 0 ? List.of() : pairs.get(ordinal);
+    }
+
+    /** True if any row flags this pair as a known-bad combination. */
+    public boolean knownIncompatible(int a, int b) {
+        int ordinal = pairIndex.get(PairIndex.key(a, b));
+        return ordinal >= 0 && pairIncompatible[ordinal];
+    }
+
+    /**
+     * Every known-bad pairing among the given products (duplicates ignored), one pair
+     * lookup per pair. What the planners attach to their results.
+     */
+    public List<Relation> incompatibilitiesAmong(Collection<Integer> productIds) {
+        if (relations.isEmpty()) return List.of();
+        int[] ids = productIds.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).distinct().toArray();
+        List<Relation> found = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = i + 1; j < ids.length; j++) {
+                if (!knownIncompatible(ids[i], ids[j])) continue;
+                for (Relation r : between(ids[i], ids[j])) {
+                    if (r.incompatible()) found.add(r);
+                }
+            }
+        }
+        return found;
+    }
+
+    /** incompatibilitiesAmong for one main product (a board, a supply) plus a list of others. */
+    public List<Relation> incompatibilitiesAmong(Integer productId, Collection<Integer> others) {
+        List<Integer> all = new ArrayList<>(others.size() + 1);
+        all.add(productId);
+        all.addAll(others);
+        return incompatibilitiesAmong(all);
+    }
+
+    /**
+     * Products reachable from productId through Replacement relations, mapped to the
+     * number of hops, nearest first (breadth-first). The product itself isn't included.
+     */
+    public LinkedHashMap<Integer, Integer> replacements(Integer productId) {
+        LinkedHashMap<Integer, Integer> hops = new LinkedHashMap<>();
+        Set<Integer> seen = new HashSet<>();
+        seen.add(productId);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(productId);
+        while (!queue.isEmpty()) {
+            Integer current = queue.poll();
+            int depth = current.equals(productId) ? 0 : hops.get(current);
+            for (Relation r : of(current)) {
+                if (!REPLACEMENT.equals(r.type()) || r.incompatible()) continue;
+                Integer next = r.other(current);
+                if (seen.add(next)) {
+                    hops.put(next, depth + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,62 @@
+package com.pedalshootout.api.compatibility;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from a packed product pair to an int, with no boxing.
+ *
+ * A pair of product IDs packs into one long — smaller ID in the high 32 bits, larger
+ * in the low — so A–B and B–A are the same key. Keys live in a plain long[] probed
+ * linearly; a lookup is a multiply, a shift and (almost always) one array read, and
+ * nothing is allocated. The table is sized to at most half full and never changes
+ * after it's built.
+ */
+final class PairIndex {
+
+    private static final long EMPTY = -1L;  // product IDs are positive, so no real key is -1
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+
+    PairIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    static long key(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+    }
+
+    /** Store value under key, unless the key is already present. Returns the stored value. */
+    int putIfAbsent(long key, int value) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return value;
+    }
+
+    /** The value stored under key, or -1. */
+    int get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Fibonacci hashing: spreads consecutive IDs across the table. */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pedalshootout.api.concurrent;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Run a handful of independent blocking calls at the same time and wait for all of them
+ * — Promise.all() for threads.
+ *
+ * The shape follows Java 21's structured concurrency (StructuredTaskScope.ShutdownOnFailure),
+ * which is still a preview API and so not usable here: every subtask finishes before all()
+ * returns, and the first failure cancels (interrupts) the subtasks still running and is
+ * rethrown to the caller. Nothing outlives the call, so a failed fan-out can't leave
+ * queries running in the background.
+ *
+ * The executor decides what kind of threads do the waiting. With
+ * spring.threads.virtual.enabled on Java 21, Spring Boot's applicationTaskExecutor starts
+ * a virtual thread per task, so a blocked JDBC call costs almost nothing; otherwise it's
+ * the usual bounded platform-thread pool. maxConcurrent caps how many subtasks run at
+ * once, which in practice means how many pooled connections one fan-out can hold.
+ */
+public final class FanOut {
+
+    private FanOut() {}
+
+    /**
+     * Submit every task (at most maxConcurrent running at a time) and return their results
+     * in task order. If any task fails, the rest are cancelled and the failure is rethrown —
+     * unchecked as-is, checked wrapped in FanOutException.
+     */
+    public static <T> List<T> all(AsyncTaskExecutor executor, int maxConcurrent, List<? extends Callable<T>> tasks) {
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrent));
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return task.call();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for subtasks");
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);  // no-op for the ones that already finished
+            }
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) return runtime;
+        if (cause instanceof Error error) throw error;
+        return new FanOutException(cause);
+    }
+
+    /** A subtask failed with a checked exception. */
+    public static class FanOutException extends RuntimeException {
+        FanOutException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
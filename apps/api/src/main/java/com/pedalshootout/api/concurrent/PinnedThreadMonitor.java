@@ -0,0 +1,77 @@
+package com.pedalshootout.api.concurrent;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Logs virtual threads that get pinned to their carrier thread.
+ *
+ * A virtual thread that blocks inside a synchronized block (or native code) can't be
+ * unmounted, so it holds one of the few carrier threads for the whole wait. A few of
+ * those at once and every other virtual thread queues behind them — thread exhaustion
+ * again, just with different threads. The JVM reports each such episode as a
+ * jdk.VirtualThreadPinned flight-recorder event; this streams those events in-process
+ * and logs the ones longer than the threshold with the frames that caused them, so a
+ * pinning library (an old JDBC driver, a synchronized cache) shows up in the normal logs.
+ *
+ * Only created when virtual threads are actually on (spring.threads.virtual.enabled
+ * on Java 21+).
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinnedThreadMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int FRAMES_LOGGED = 8;
+
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(@Value("${pedalshootout.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::report);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {} ms", threshold.toMillis());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    private void report(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String where = frames.stream()
+                .limit(FRAMES_LOGGED)
+                .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                .collect(Collectors.joining("\n    at ", "\n    at ", ""));
+        log.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), where);
+    }
+}
@@ -1,8 +1,18 @@
 package com.pedalshootout.api.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * CORS (Cross-Origin Resource Sharing) configuration.
@@ -12,15 +22,39 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * and this API runs on port 8081, we need to explicitly allow cross-origin requests.
  *
  * @Configuration tells Spring this class provides configuration beans.
- * Implementing WebMvcConfigurer lets us hook into Spring MVC's setup process.
+ *
+ * This is registered as a servlet filter (rather than through WebMvcConfigurer's
+ * addCorsMappings) so it runs first, before any other filter. That matters because
+ * ResponseCacheFilter can answer a request from cache without ever reaching Spring
+ * MVC — those responses need CORS headers too.
  */
 @Configuration
-public class CorsConfig implements WebMvcConfigurer {
+public class CorsConfig {
+
+    /**
+     * Browsers only get the write methods for endpoints that are switched on: workbench
+     * saves exist under the workbenches profile. Catalog edits (admin profile) are for
+     * operators' tools, not pages, so they're never offered cross-origin.
+     */
+    @Bean
+    public FilterRegistrationBean<CorsFilter> corsFilter(Environment environment) {
+        Set<String> methods = new LinkedHashSet<>(List.of("GET"));
+        Set<String> headers = new LinkedHashSet<>(List.of("Content-Type"));
+        if (environment.acceptsProfiles(Profiles.of("workbenches"))) {
+            methods.addAll(List.of("POST", "PATCH", "DELETE"));
+            headers.add("If-Match");                                     // If-Match: save version
+        }
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(List.of("http://localhost:8080"));  // React dev server
+        config.setAllowedMethods(List.copyOf(methods));
+        config.setAllowedHeaders(List.copyOf(headers));
+        config.setExposedHeaders(List.of("ETag", "Location"));                // so JS can read them
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/api/**", config);          // Apply to all /api/* routes
 
-    @Override
-    public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/api/**")           // Apply to all /api/* routes
-                .allowedOrigins("http://localhost:8080")  // React dev server
-                .allowedMethods("GET");           // Only GET for now
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 }
@@ -0,0 +1,88 @@
+package com.pedalshootout.api.config;
+
+import com.pedalshootout.api.datasource.ReplicaProperties;
+import com.pedalshootout.api.datasource.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting: read-only transactions go to the replicas, everything else
+ * (writes, Flyway) to the primary.
+ *
+ * The DataSource everything uses is a LazyConnectionDataSourceProxy. It hands out a
+ * placeholder connection and only fetches a real one at the first statement — by which
+ * point @Transactional(readOnly = true) has marked the connection read-only, so the
+ * proxy knows to take it from the ReplicaSet instead of the primary pool. Nothing in the
+ * services or repositories changes; readOnly = true is the whole API.
+ *
+ * With no pedalshootout.datasource.replicas configured, the ReplicaSet is empty and
+ * read-only connections come from the primary, i.e. the same as a single DataSource.
+ *
+ * Defining our own DataSource switches off Boot's, so the primary pool is built here
+ * from the usual spring.datasource.* / spring.datasource.hikari.* settings.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(HikariDataSource primaryDataSource, ReplicaProperties replicas,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        List<Map.Entry<String, DataSource>> pools = replicas.replicas().stream()
+                .filter(r -> r.url() != null && !r.url().isBlank())
+                .map(r -> Map.entry(r.url(), (DataSource) replicaPool(primaryDataSource, r, registry)))
+                .toList();
+        return new ReplicaSet(primaryDataSource, pools, replicas.maxLag(), replicas.checkInterval());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routing.setReadOnlyDataSource(replicaSet);
+        return routing;
+    }
+
+    /**
+     * A replica pool shaped like the primary one; credentials default to the primary's.
+     * Boot only instruments DataSource beans, so replica pools get their hikaricp.*
+     * metrics (tagged with the pool name) wired up here.
+     */
+    private static HikariDataSource replicaPool(HikariDataSource primary, ReplicaProperties.Replica replica,
+                                                MeterRegistry registry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica-" + replica.url().replaceAll(".*//", ""));
+        pool.setJdbcUrl(replica.url());
+        pool.setUsername(replica.username() != null ? replica.username() : primary.getUsername());
+        pool.setPassword(replica.password() != null ? replica.password() : primary.getPassword());
+        pool.setMaximumPoolSize(primary.getMaximumPoolSize());
+        pool.setConnectionTimeout(primary.getConnectionTimeout());
+        pool.setReadOnly(true);
+        if (registry != null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+        return pool;
+    }
+}
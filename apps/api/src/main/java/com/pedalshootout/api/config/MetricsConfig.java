@@ -0,0 +1,95 @@
+package com.pedalshootout.api.config;
+
+import com.pedalshootout.api.cache.ResponseCache;
+import com.pedalshootout.api.datasource.ReplicaSet;
+import com.pedalshootout.api.metrics.SqlStatementCounter;
+import com.pedalshootout.api.metrics.SqlStatementMetricsFilter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Metrics served at /actuator/prometheus.
+ *
+ * Most of them come from Spring Boot as soon as Actuator is on the classpath:
+ *   http.server.requests               — per endpoint (method + route template + status)
+ *   spring.data.repository.invocations — per repository method
+ *   hikaricp.connections.acquire       — how long requests wait for a pooled connection
+ *   jvm.*, process.*, tomcat.*
+ * Histograms for these are switched on in application.yml so Prometheus can compute
+ * p99s with histogram_quantile().
+ *
+ * Added here:
+ *   pedalshootout.service              — every public service method (@Timed on the class)
+ *   pedalshootout.http.sql.statements  — SQL statements per request (SqlStatementMetricsFilter)
+ *   pedalshootout.response.cache.*     — response cache hits / misses / entries
+ *   pedalshootout.datasource.replicas.* — replicas configured and currently in rotation
+ */
+@Configuration
+public class MetricsConfig {
+
+    /** Makes @Timed work on Spring beans (it's a no-op annotation without this aspect). */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /** Every statement Hibernate prepares goes through SqlStatementCounter. */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    /**
+     * Inside the response cache filter, so requests answered from the cache (which
+     * run no SQL at all) aren't recorded.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementMetricsFilter(registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder responseCacheMetrics(ResponseCache cache) {
+        return registry -> {
+            FunctionCounter.builder("pedalshootout.response.cache.requests", cache, ResponseCache::hitCount)
+                    .description("Cached list endpoint lookups")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("pedalshootout.response.cache.requests", cache, ResponseCache::missCount)
+                    .description("Cached list endpoint lookups")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("pedalshootout.response.cache.entries", cache, ResponseCache::size)
+                    .description("Rendered responses currently cached")
+                    .register(registry);
+            Gauge.builder("pedalshootout.response.cache.size", cache, ResponseCache::byteSize)
+                    .description("Bytes held by cached responses, both codings")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaSet replicas) {
+        return registry -> {
+            Gauge.builder("pedalshootout.datasource.replicas.configured", replicas, ReplicaSet::size)
+                    .register(registry);
+            Gauge.builder("pedalshootout.datasource.replicas.healthy", replicas, ReplicaSet::healthyCount)
+                    .description("Replicas in rotation (within max-lag and passing health checks)")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.pedalshootout.api.config;
+
+import com.pedalshootout.api.cache.ResponseCache;
+import com.pedalshootout.api.cache.ResponseCacheFilter;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registers the pre-serialized response cache on the catalog list endpoints.
+ *
+ * Only the exact list URLs are cached — single-item lookups (/api/pedals/{id}) are
+ * cheap and numerous, so caching their bytes wouldn't pay for the memory.
+ *
+ * Runs right after the CORS filter (see CorsConfig) so cached responses still get
+ * their CORS headers.
+ */
+@Configuration
+public class ResponseCacheConfig {
+
+    /** fields/include: sparse fieldsets (SparseFieldsetAdvice), on every catalog endpoint. */
+    private static final Set<String> FIELDSET = Set.of("fields", "include");
+
+    /**
+     * Each cached URL and the query parameters its controller reads — the only ones that
+     * go into the cache key. A new @RequestParam on one of these endpoints must be added
+     * here, or requests differing only in it would share a cached body.
+     */
+    private static final Map<String, Set<String>> CACHED = Map.of(
+            "/api/pedals", Set.of("fields", "include", "effectType"),
+            "/api/power-supplies", FIELDSET,
+            "/api/pedalboards", FIELDSET,
+            "/api/midi-controllers", FIELDSET,
+            "/api/utilities", Set.of("fields", "include", "utilityType"),
+            "/api/plugs", FIELDSET
+    );
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(ResponseCache cache,
+                                                                           CatalogSnapshotService catalog) {
+        FilterRegistrationBean<ResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new ResponseCacheFilter(cache, catalog, CACHED));
+        registration.addUrlPatterns(CACHED.keySet().toArray(String[]::new));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
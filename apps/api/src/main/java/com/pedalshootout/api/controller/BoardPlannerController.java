@@ -1,39 +1,99 @@
 package com.pedalshootout.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pedalshootout.api.dto.BoardPlannerDto;
+import com.pedalshootout.api.metrics.SqlBudget;
 import com.pedalshootout.api.service.BoardPlannerService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 /**
  * Layer 2 controller: Board Planner.
  *
- *   GET /api/board-planner/components               — all boards, supplies, pedals for planning
+ *   GET /api/board-planner/components               — all boards, supplies, pedals for planning (streamed)
  *   GET /api/board-planner/fit-check?boardId=X&pedalIds=1,2,3  — do these pedals fit on this board?
+ *                                                   (optional &spacingMm=10 keeps a gap between pedals;
+ *                                                   at most MAX_PEDALS pedals)
+ *   GET /api/board-planner/slot-candidates?maxWidthMm=80&maxDepthMm=130&supply=9V:250
+ *                                                   — pedals that fit the space and power left
+ *                                                   (also &polarity=, &connector=, &effectType=, &maxMsrpCents=)
  */
 @RestController
 @RequestMapping("/api/board-planner")
 public class BoardPlannerController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BoardPlannerService boardPlannerService;
+    private final ObjectMapper objectMapper;
 
-    public BoardPlannerController(BoardPlannerService boardPlannerService) {
+    public BoardPlannerController(BoardPlannerService boardPlannerService, ObjectMapper objectMapper) {
         this.boardPlannerService = boardPlannerService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Same JSON as BoardPlannerDto.Components, but streamed. StreamingResponseBody runs
+     * on an async request thread after this method returns, writing through a
+     * JsonGenerator straight onto the response — think Express's res.write() per row
+     * instead of one res.json() at the end.
+     *
+     * The generator is told not to close the servlet stream; the container does that.
+     *
+     * SQL: none — everything comes from the catalog snapshot.
+     */
+    @SqlBudget(0)
     @GetMapping("/components")
-    public BoardPlannerDto.Components getComponents() {
-        return boardPlannerService.getComponents();
+    public ResponseEntity<StreamingResponseBody> getComponents() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                boardPlannerService.streamComponents(generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
+    @SqlBudget(0)
     @GetMapping("/fit-check")
     public ResponseEntity<BoardPlannerDto.FitCheckResult> fitCheck(
             @RequestParam Integer boardId,
-            @RequestParam List<Integer> pedalIds) {
-        return boardPlannerService.fitCheck(boardId, pedalIds)
+            @RequestParam List<Integer> pedalIds,
+            @RequestParam(defaultValue = "0") double spacingMm) {
+        if (pedalIds.size() > BoardPlannerService.MAX_PEDALS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Fit-check at most " + BoardPlannerService.MAX_PEDALS + " pedals at a time");
+        }
+        if (!(spacingMm >= 0 && spacingMm <= BoardPlannerService.MAX_SPACING_MM)) {    // also catches NaN
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "spacingMm must be between 0 and " + (int) BoardPlannerService.MAX_SPACING_MM);
+        }
+        return boardPlannerService.fitCheck(boardId, pedalIds, spacingMm)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @SqlBudget(0)
+    @GetMapping("/slot-candidates")
+    public BoardPlannerDto.SlotSearchResult slotCandidates(
+            @RequestParam(required = false) Double maxWidthMm,
+            @RequestParam(required = false) Double maxDepthMm,
+            @RequestParam(required = false) String supply,
+            @RequestParam(required = false) String polarity,
+            @RequestParam(required = false) String connector,
+            @RequestParam(required = false) String effectType,
+            @RequestParam(required = false) Integer maxMsrpCents,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return boardPlannerService.findSlotCandidates(
+                maxWidthMm, maxDepthMm, supply, polarity, connector, effectType, maxMsrpCents,
+                Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE));
+    }
 }
@@ -0,0 +1,41 @@
+package com.pedalshootout.api.controller;
+
+import com.pedalshootout.api.dto.ComparisonDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.service.ComparisonService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * REST controller for the side-by-side comparison table.
+ *
+ *   GET /api/compare?ids=12,34,56   — spec rows for up to 12 products, differing rows flagged
+ *
+ * One call replaces a /api/products/{id} plus a /jacks call per pinned product.
+ */
+@RestController
+@RequestMapping("/api")
+public class ComparisonController {
+
+    private final ComparisonService comparisonService;
+
+    public ComparisonController(ComparisonService comparisonService) {
+        this.comparisonService = comparisonService;
+    }
+
+    @SqlBudget(0)
+    @GetMapping("/compare")
+    public ResponseEntity<ComparisonDto.Comparison> compare(@RequestParam List<Integer> ids) {
+        if (ids.size() > ComparisonService.MAX_PRODUCTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Compare at most " + ComparisonService.MAX_PRODUCTS + " products at a time");
+        }
+        return comparisonService.compare(ids)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,50 @@
+package com.pedalshootout.api.controller;
+
+import com.pedalshootout.api.dto.CompatibilityDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.service.CompatibilityService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for product compatibility (the product_compatibility table).
+ *
+ * Handles:
+ *   GET /api/products/{id}/compatibility   — every relation for a product (?type=Power)
+ *   GET /api/products/{id}/replacements    — transitive Replacement closure, nearest first
+ *   GET /api/compatibility?a=12&b=34       — what's recorded about one pair
+ */
+@RestController
+@RequestMapping("/api")
+public class CompatibilityController {
+
+    private final CompatibilityService compatibilityService;
+
+    public CompatibilityController(CompatibilityService compatibilityService) {
+        this.compatibilityService = compatibilityService;
+    }
+
+    @SqlBudget(0)
+    @GetMapping("/products/{id}/compatibility")
+    public ResponseEntity<CompatibilityDto.ProductLinks> getProductCompatibility(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String type) {
+        return compatibilityService.findForProduct(id, type)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(0)
+    @GetMapping("/products/{id}/replacements")
+    public ResponseEntity<CompatibilityDto.ReplacementResult> getReplacements(@PathVariable Integer id) {
+        return compatibilityService.findReplacements(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(0)
+    @GetMapping("/compatibility")
+    public CompatibilityDto.PairResult getPair(@RequestParam int a, @RequestParam int b) {
+        return compatibilityService.findForPair(a, b);
+    }
+}
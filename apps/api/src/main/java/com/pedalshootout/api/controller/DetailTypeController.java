@@ -1,6 +1,9 @@
 package com.pedalshootout.api.controller;
 
 import com.pedalshootout.api.dto.*;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.paging.KeysetPageRequest;
+import com.pedalshootout.api.service.CatalogPageService;
 import com.pedalshootout.api.service.DetailTypeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +16,7 @@ import java.util.List;
  *
  * Each product type follows the same pattern:
  *   GET /api/{type}       — list all
+ *   GET /api/{type}/page  — one keyset page, server-sorted (see CatalogPageService)
  *   GET /api/{type}/{id}  — single with full details + jacks
  *
  * Note: We use separate @GetMapping methods rather than a generic approach
@@ -24,18 +28,32 @@ import java.util.List;
 public class DetailTypeController {
 
     private final DetailTypeService service;
+    private final CatalogPageService pageService;
 
-    public DetailTypeController(DetailTypeService service) {
+    public DetailTypeController(DetailTypeService service, CatalogPageService pageService) {
         this.service = service;
+        this.pageService = pageService;
     }
 
     // --- Power Supplies ---
 
+    @SqlBudget(0)
     @GetMapping("/power-supplies")
     public List<PowerSupplyDto> getAllPowerSupplies() {
         return service.findAllPowerSupplies();
     }
 
+    @SqlBudget(4)
+    @GetMapping("/power-supplies/page")
+    public CursorPage<PowerSupplyDto> getPowerSupplyPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.powerSupplies(KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/power-supplies/{id}")
     public ResponseEntity<PowerSupplyDto> getPowerSupplyById(@PathVariable Integer id) {
         return service.findPowerSupplyById(id)
@@ -45,11 +63,23 @@ public class DetailTypeController {
 
     // --- Pedalboards ---
 
+    @SqlBudget(0)
     @GetMapping("/pedalboards")
     public List<PedalboardDto> getAllPedalboards() {
         return service.findAllPedalboards();
     }
 
+    @SqlBudget(4)
+    @GetMapping("/pedalboards/page")
+    public CursorPage<PedalboardDto> getPedalboardPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.pedalboards(KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/pedalboards/{id}")
     public ResponseEntity<PedalboardDto> getPedalboardById(@PathVariable Integer id) {
         return service.findPedalboardById(id)
@@ -59,11 +89,23 @@ public class DetailTypeController {
 
     // --- MIDI Controllers ---
 
+    @SqlBudget(0)
     @GetMapping("/midi-controllers")
     public List<MidiControllerDto> getAllMidiControllers() {
         return service.findAllMidiControllers();
     }
 
+    @SqlBudget(4)
+    @GetMapping("/midi-controllers/page")
+    public CursorPage<MidiControllerDto> getMidiControllerPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.midiControllers(KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/midi-controllers/{id}")
     public ResponseEntity<MidiControllerDto> getMidiControllerById(@PathVariable Integer id) {
         return service.findMidiControllerById(id)
@@ -73,12 +115,25 @@ public class DetailTypeController {
 
     // --- Utilities ---
 
+    @SqlBudget(0)
     @GetMapping("/utilities")
     public List<UtilityDto> getAllUtilities(
             @RequestParam(required = false) String utilityType) {
         return service.findAllUtilities(utilityType);
     }
 
+    @SqlBudget(4)
+    @GetMapping("/utilities/page")
+    public CursorPage<UtilityDto> getUtilityPage(
+            @RequestParam(required = false) String utilityType,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.utilities(utilityType, KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/utilities/{id}")
     public ResponseEntity<UtilityDto> getUtilityById(@PathVariable Integer id) {
         return service.findUtilityById(id)
@@ -88,11 +143,23 @@ public class DetailTypeController {
 
     // --- Plugs ---
 
+    @SqlBudget(0)
     @GetMapping("/plugs")
     public List<PlugDto> getAllPlugs() {
         return service.findAllPlugs();
     }
 
+    @SqlBudget(4)
+    @GetMapping("/plugs/page")
+    public CursorPage<PlugDto> getPlugPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.plugs(KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/plugs/{id}")
     public ResponseEntity<PlugDto> getPlugById(@PathVariable Integer id) {
         return service.findPlugById(id)
@@ -2,6 +2,7 @@ package com.pedalshootout.api.controller;
 
 import com.pedalshootout.api.dto.ManufacturerDto;
 import com.pedalshootout.api.dto.ProductSummaryDto;
+import com.pedalshootout.api.metrics.SqlBudget;
 import com.pedalshootout.api.service.ManufacturerService;
 import com.pedalshootout.api.service.ProductService;
 import org.springframework.http.ResponseEntity;
@@ -46,6 +47,7 @@ public class ManufacturerController {
      * @RequestParam binds a URL query parameter to a method argument.
      * "required = false" means the param is optional (like ?search= in Express).
      */
+    @SqlBudget(0)
     @GetMapping
     public List<ManufacturerDto> getAll(@RequestParam(required = false) String search) {
         return manufacturerService.findAll(search);
@@ -60,6 +62,7 @@ public class ManufacturerController {
      *   - 200 OK with the manufacturer data if found
      *   - 404 Not Found if the ID doesn't exist
      */
+    @SqlBudget(0)
     @GetMapping("/{id}")
     public ResponseEntity<ManufacturerDto> getById(@PathVariable Integer id) {
         return manufacturerService.findById(id)
@@ -71,6 +74,7 @@ public class ManufacturerController {
      * GET /api/manufacturers/{id}/products
      * Returns all products made by this manufacturer.
      */
+    @SqlBudget(0)
     @GetMapping("/{id}/products")
     public ResponseEntity<List<ProductSummaryDto>> getProducts(@PathVariable Integer id) {
         List<ProductSummaryDto> products = productService.findByManufacturerId(id);
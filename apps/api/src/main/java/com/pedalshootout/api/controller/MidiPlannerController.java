@@ -1,6 +1,7 @@
 package com.pedalshootout.api.controller;
 
 import com.pedalshootout.api.dto.MidiPlannerDto;
+import com.pedalshootout.api.metrics.SqlBudget;
 import com.pedalshootout.api.service.MidiPlannerService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +13,7 @@ import java.util.List;
  *
  *   GET /api/midi-planner/devices                                      — all MIDI-capable devices
  *   GET /api/midi-planner/compatibility?controllerId=X&pedalIds=1,2,3  — check MIDI compatibility
+ *   GET /api/midi-planner/matrix                                       — every controller × every MIDI pedal
  */
 @RestController
 @RequestMapping("/api/midi-planner")
@@ -23,11 +25,13 @@ public class MidiPlannerController {
         this.midiPlannerService = midiPlannerService;
     }
 
+    @SqlBudget(0)
     @GetMapping("/devices")
     public List<MidiPlannerDto.MidiDevice> getDevices() {
         return midiPlannerService.getDevices();
     }
 
+    @SqlBudget(0)
     @GetMapping("/compatibility")
     public ResponseEntity<MidiPlannerDto.CompatibilityResult> checkCompatibility(
             @RequestParam Integer controllerId,
@@ -36,4 +40,10 @@ public class MidiPlannerController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @SqlBudget(0)
+    @GetMapping("/matrix")
+    public MidiPlannerDto.CompatibilityMatrix getCompatibilityMatrix() {
+        return midiPlannerService.getCompatibilityMatrix();
+    }
 }
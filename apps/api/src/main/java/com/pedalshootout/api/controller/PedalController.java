@@ -1,11 +1,19 @@
 package com.pedalshootout.api.controller;
 
+import com.pedalshootout.api.dto.CursorPage;
 import com.pedalshootout.api.dto.PedalDto;
+import com.pedalshootout.api.dto.PedalFilterDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.paging.KeysetPageRequest;
+import com.pedalshootout.api.search.PedalFacetIndex.Dimension;
+import com.pedalshootout.api.service.CatalogPageService;
 import com.pedalshootout.api.service.PedalService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for pedal-specific endpoints.
@@ -14,28 +22,79 @@ import java.util.List;
  * with pedal-specific details and jacks.
  *
  *   GET /api/pedals              — all pedals (filterable by ?effectType=Delay)
+ *   GET /api/pedals/page         — one keyset page, server-sorted (?sort=msrp&limit=50&cursor=...)
+ *   GET /api/pedals/filter       — faceted filter with counts (?effectType=Delay,Reverb&price=100-199)
  *   GET /api/pedals/{id}         — single pedal with full details + jacks
  */
 @RestController
 @RequestMapping("/api/pedals")
 public class PedalController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final PedalService pedalService;
+    private final CatalogPageService pageService;
 
-    public PedalController(PedalService pedalService) {
+    public PedalController(PedalService pedalService, CatalogPageService pageService) {
         this.pedalService = pedalService;
+        this.pageService = pageService;
     }
 
+    @SqlBudget(0)
     @GetMapping
     public List<PedalDto> getAll(
             @RequestParam(required = false) String effectType) {
         return pedalService.findAll(effectType);
     }
 
+    @SqlBudget(4)
+    @GetMapping("/page")
+    public CursorPage<PedalDto> getPage(
+            @RequestParam(required = false) String effectType,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.pedals(effectType, KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    /** Each facet takes a comma-separated list of values, e.g. ?bypassType=True Bypass,Relay Bypass */
+    @SqlBudget(0)
+    @GetMapping("/filter")
+    public PedalFilterDto.FilterResult filter(
+            @RequestParam(required = false) List<String> effectType,
+            @RequestParam(required = false) List<String> bypassType,
+            @RequestParam(required = false) List<String> monoStereo,
+            @RequestParam(required = false) List<String> signalType,
+            @RequestParam(required = false) List<String> midiCapable,
+            @RequestParam(required = false) List<String> hasTapTempo,
+            @RequestParam(required = false) List<String> voltage,
+            @RequestParam(required = false) List<String> current,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Map<Dimension, List<String>> selected = new EnumMap<>(Dimension.class);
+        put(selected, Dimension.EFFECT_TYPE, effectType);
+        put(selected, Dimension.BYPASS_TYPE, bypassType);
+        put(selected, Dimension.MONO_STEREO, monoStereo);
+        put(selected, Dimension.SIGNAL_TYPE, signalType);
+        put(selected, Dimension.MIDI_CAPABLE, midiCapable);
+        put(selected, Dimension.TAP_TEMPO, hasTapTempo);
+        put(selected, Dimension.VOLTAGE, voltage);
+        put(selected, Dimension.CURRENT, current);
+        put(selected, Dimension.PRICE, price);
+        return pedalService.filter(selected, Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/{id}")
     public ResponseEntity<PedalDto> getById(@PathVariable Integer id) {
         return pedalService.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    private static void put(Map<Dimension, List<String>> selected, Dimension dim, List<String> values) {
+        if (values != null && !values.isEmpty()) selected.put(dim, values);
+    }
 }
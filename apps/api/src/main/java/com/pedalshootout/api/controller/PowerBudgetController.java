@@ -1,9 +1,12 @@
 package com.pedalshootout.api.controller;
 
 import com.pedalshootout.api.dto.PowerBudgetDto;
+import com.pedalshootout.api.metrics.SqlBudget;
 import com.pedalshootout.api.service.PowerBudgetService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -11,30 +14,64 @@ import java.util.List;
  * Layer 2 controller: Power Budget.
  *
  *   GET /api/power-budget/calculate?supplyId=X&pedalIds=1,2,3  — check power budget
+ *   GET /api/power-budget/assign?supplyIds=X,Y&pedalIds=1,2,3  — plug each pedal into a specific output
  *   GET /api/power-budget/supplies-for-pedals?pedalIds=1,2,3   — find compatible supplies
+ *                                 (optional &isolated=true, paged with &page=0&size=20)
+ *
+ * Pedal lists are capped at PowerBudgetService.MAX_PEDALS, supply lists at MAX_SUPPLIES (400 above).
  */
 @RestController
 @RequestMapping("/api/power-budget")
 public class PowerBudgetController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PowerBudgetService powerBudgetService;
 
     public PowerBudgetController(PowerBudgetService powerBudgetService) {
         this.powerBudgetService = powerBudgetService;
     }
 
+    @SqlBudget(0)
     @GetMapping("/calculate")
     public ResponseEntity<PowerBudgetDto.CalculationResult> calculate(
             @RequestParam Integer supplyId,
             @RequestParam List<Integer> pedalIds) {
+        requireAtMost(pedalIds, PowerBudgetService.MAX_PEDALS, "pedals");
         return powerBudgetService.calculate(supplyId, pedalIds)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @GetMapping("/supplies-for-pedals")
-    public List<PowerBudgetDto.SupplyMatch> suppliesForPedals(
+    @SqlBudget(0)
+    @GetMapping("/assign")
+    public ResponseEntity<PowerBudgetDto.AssignmentResult> assign(
+            @RequestParam List<Integer> supplyIds,
             @RequestParam List<Integer> pedalIds) {
-        return powerBudgetService.findSuppliesForPedals(pedalIds);
+        requireAtMost(supplyIds, PowerBudgetService.MAX_SUPPLIES, "supplies");
+        requireAtMost(pedalIds, PowerBudgetService.MAX_PEDALS, "pedals");
+        return powerBudgetService.assign(supplyIds, pedalIds)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(0)
+    @GetMapping("/supplies-for-pedals")
+    public PowerBudgetDto.SupplySearchResult suppliesForPedals(
+            @RequestParam List<Integer> pedalIds,
+            @RequestParam(defaultValue = "false") boolean isolated,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        requireAtMost(pedalIds, PowerBudgetService.MAX_PEDALS, "pedals");
+        return powerBudgetService.findSuppliesForPedals(
+                pedalIds, isolated, Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE));
+    }
+
+    /** IDs may repeat (two of the same pedal), so the cap counts occurrences. */
+    private static void requireAtMost(List<Integer> ids, int max, String what) {
+        if (ids.size() > max) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + max + " " + what + " per request");
+        }
     }
 }
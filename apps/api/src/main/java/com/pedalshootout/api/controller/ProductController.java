@@ -1,10 +1,15 @@
 package com.pedalshootout.api.controller;
 
+import com.pedalshootout.api.dto.CursorPage;
 import com.pedalshootout.api.dto.JackDto;
 import com.pedalshootout.api.dto.ProductDetailDto;
 import com.pedalshootout.api.dto.ProductSummaryDto;
+import com.pedalshootout.api.dto.SimilarityDto;
 import com.pedalshootout.api.entity.ProductType;
-import com.pedalshootout.api.repository.ProductTypeRepository;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.paging.KeysetPageRequest;
+import com.pedalshootout.api.search.SimilarityIndex;
+import com.pedalshootout.api.service.CatalogPageService;
 import com.pedalshootout.api.service.ProductService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,8 +21,10 @@ import java.util.List;
  *
  * Handles:
  *   GET /api/products              — list all products (filterable by ?typeId=1)
+ *   GET /api/products/page         — one keyset page (?sort=msrp&dir=desc&limit=50&cursor=...)
  *   GET /api/products/{id}         — single product with full details + jacks
  *   GET /api/products/{id}/jacks   — just the jacks for a product
+ *   GET /api/products/{id}/similar — pedals with the nearest specs (?limit=10)
  *   GET /api/product-types         — reference data (pedal, power_supply, etc.)
  */
 @RestController
@@ -25,20 +32,32 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
-    private final ProductTypeRepository productTypeRepository;
+    private final CatalogPageService pageService;
 
-    public ProductController(ProductService productService,
-                              ProductTypeRepository productTypeRepository) {
+    public ProductController(ProductService productService, CatalogPageService pageService) {
         this.productService = productService;
-        this.productTypeRepository = productTypeRepository;
+        this.pageService = pageService;
     }
 
+    @SqlBudget(0)
     @GetMapping("/products")
     public List<ProductSummaryDto> getAllProducts(
             @RequestParam(required = false) Integer typeId) {
         return productService.findAll(typeId);
     }
 
+    @SqlBudget(2)
+    @GetMapping("/products/page")
+    public CursorPage<ProductSummaryDto> getProductPage(
+            @RequestParam(required = false) Integer typeId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String dir,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return pageService.products(typeId, KeysetPageRequest.of(sort, dir, limit, cursor));
+    }
+
+    @SqlBudget(0)
     @GetMapping("/products/{id}")
     public ResponseEntity<ProductDetailDto> getProductById(@PathVariable Integer id) {
         return productService.findById(id)
@@ -46,13 +65,25 @@ public class ProductController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @SqlBudget(0)
     @GetMapping("/products/{id}/jacks")
     public List<JackDto> getProductJacks(@PathVariable Integer id) {
         return productService.findJacksByProductId(id);
     }
 
+    @SqlBudget(0)
+    @GetMapping("/products/{id}/similar")
+    public ResponseEntity<SimilarityDto.SimilarResult> getSimilarProducts(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productService.findSimilar(id, Math.min(Math.max(1, limit), SimilarityIndex.MAX_NEIGHBOURS))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(0)
     @GetMapping("/product-types")
     public List<ProductType> getProductTypes() {
-        return productTypeRepository.findAll();
+        return productService.findProductTypes();
     }
 }
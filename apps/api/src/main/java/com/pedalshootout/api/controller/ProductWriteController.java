@@ -0,0 +1,127 @@
+package com.pedalshootout.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.ProductWriteDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.service.ProductWriteService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for writing products. Reads stay on ProductController.
+ *
+ *   POST   /api/products                        — create a product with its details and jacks
+ *   PUT    /api/products/{id}                   — replace its columns (and details, if given)
+ *   DELETE /api/products/{id}                   — with its details, jacks and sources
+ *   PUT    /api/products/{id}/details           — replace its detail row
+ *   POST   /api/products/{id}/jacks             — add jacks
+ *   PUT    /api/products/{id}/jacks/{jackId}    — replace one jack
+ *   DELETE /api/products/{id}/jacks/{jackId}
+ *
+ * Every write that changes something also sends NOTIFY catalog_changed (one statement,
+ * counted in each budget). Once the write's transaction has committed, the answer waits
+ * for this instance's catalog snapshot to have the change (ProductWriteService.awaitCatalog,
+ * at most CATALOG_WAIT_SECONDS; past that it answers anyway and reads catch up shortly).
+ *
+ * PUT replaces: a column left out of the body is set to null. Answers:
+ *   400 unknown field, wrong type, or a value the database's CHECKs reject ·
+ *   404 no such product or jack · 409 the manufacturer already has this model
+ *
+ * Off by default: there are no user accounts to check, so these only exist with the
+ * admin profile (SPRING_PROFILES_ACTIVE=admin), on an instance that only operators can
+ * reach. CorsConfig never offers them to browsers.
+ */
+@Profile("admin")
+@RestController
+@RequestMapping("/api/products")
+public class ProductWriteController {
+
+    private final ProductWriteService productWriteService;
+
+    public ProductWriteController(ProductWriteService productWriteService) {
+        this.productWriteService = productWriteService;
+    }
+
+    /**
+     * SQL: a nextval per table when its id block runs out (one per 50 rows), then one
+     * batched INSERT each for the product, its detail row and its jacks, plus one
+     * UPDATE batch if jacks are normalled to each other in a loop, then the NOTIFY.
+     */
+    @SqlBudget(8)
+    @PostMapping
+    public ResponseEntity<ProductWriteDto.Created> create(@RequestBody JsonNode body) {
+        ProductWriteDto.Created created = productWriteService.create(body);
+        productWriteService.awaitCatalog();
+        return ResponseEntity.created(URI.create("/api/products/" + created.id())).body(created);
+    }
+
+    /** SQL: the product and its detail row, then an UPDATE (or INSERT) for each, then the NOTIFY. */
+    @SqlBudget(5)
+    @PutMapping("/{id}")
+    public ResponseEntity<Void> update(@PathVariable Integer id, @RequestBody JsonNode body) {
+        return served(productWriteService.update(id, body))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @SqlBudget(2)
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Integer id) {
+        return served(productWriteService.delete(id))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @SqlBudget(4)
+    @PutMapping("/{id}/details")
+    public ResponseEntity<Void> updateDetails(@PathVariable Integer id, @RequestBody JsonNode body) {
+        return served(productWriteService.updateDetails(id, body))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /** SQL: the product, its jack ids (only if a new jack names one), nextval, the INSERT batch, an UPDATE batch for loops, the NOTIFY. */
+    @SqlBudget(7)
+    @PostMapping("/{id}/jacks")
+    public ResponseEntity<List<JackDto>> addJacks(@PathVariable Integer id, @RequestBody JsonNode body) {
+        return served(productWriteService.addJacks(id, body))
+                .map(jacks -> ResponseEntity.status(HttpStatus.CREATED).body(jacks))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** SQL: the jack, the product's jack ids (only if it's normalled), the UPDATE, the NOTIFY. */
+    @SqlBudget(4)
+    @PutMapping("/{id}/jacks/{jackId}")
+    public ResponseEntity<JackDto> updateJack(@PathVariable Integer id, @PathVariable Integer jackId,
+                                              @RequestBody JsonNode body) {
+        return served(productWriteService.updateJack(id, jackId, body))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(2)
+    @DeleteMapping("/{id}/jacks/{jackId}")
+    public ResponseEntity<Void> deleteJack(@PathVariable Integer id, @PathVariable Integer jackId) {
+        return served(productWriteService.deleteJack(id, jackId))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /** A write that found its product or jack answers once the catalog has it. */
+    private boolean served(boolean written) {
+        if (written) productWriteService.awaitCatalog();
+        return written;
+    }
+
+    private <T> Optional<T> served(Optional<T> written) {
+        if (written.isPresent()) productWriteService.awaitCatalog();
+        return written;
+    }
+}
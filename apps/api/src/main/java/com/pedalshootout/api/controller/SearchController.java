@@ -0,0 +1,51 @@
+package com.pedalshootout.api.controller;
+
+import com.pedalshootout.api.dto.SearchDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.service.SearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST controller for catalog search.
+ *
+ *   GET /api/search?q=timline            — products and manufacturers, best match first
+ *   GET /api/search?q=boss&type=pedal    — only pedals (comma-separate several types,
+ *                                          "manufacturer" for manufacturers)
+ *
+ * Matching is fuzzy (trigram similarity), so it works for search-as-you-type and
+ * survives the odd typo.
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    /** Longer than any product name; each query's work grows with its length. */
+    static final int MAX_QUERY_LENGTH = 200;
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @SqlBudget(0)
+    @GetMapping
+    public SearchDto.SearchResult search(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "q must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        return searchService.search(q, type == null ? Set.of() : Set.copyOf(type),
+                Math.min(Math.max(1, limit), MAX_LIMIT));
+    }
+}
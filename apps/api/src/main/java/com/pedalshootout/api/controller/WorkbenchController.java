@@ -0,0 +1,130 @@
+package com.pedalshootout.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pedalshootout.api.dto.WorkbenchDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.service.WorkbenchService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * REST controller for saved workbenches.
+ *
+ *   GET    /api/workbenches                    — all workbenches, most recently saved first (no data)
+ *   POST   /api/workbenches                    — create one from {name, data}
+ *   GET    /api/workbenches/{id}               — one workbench with its data; ETag is its version
+ *   PATCH  /api/workbenches/{id}               — save: an RFC 6902 JSON Patch, If-Match: <version>
+ *   GET    /api/workbenches/{id}/patches?since=7 — the patches after version 7, to catch up
+ *   DELETE /api/workbenches/{id}
+ *
+ * The version doubles as the ETag, so a client that GETs a workbench already has the
+ * If-Match value for its first save, and each save's response has the next one.
+ * PATCH answers:
+ *   200 saved · 400 malformed patch · 404 no such workbench · 409 version moved on
+ *   (someone else saved — GET, rebase, retry) · 422 patch doesn't apply · 428 no If-Match
+ *
+ * Off by default: there are no user accounts yet, so every workbench would be open to
+ * anyone who can reach the API. The endpoints only exist with the workbenches profile
+ * (SPRING_PROFILES_ACTIVE=workbenches), for local development, until auth lands — see
+ * docs/plans/workbench-cloud-save.md.
+ */
+@Profile("workbenches")
+@RestController
+@RequestMapping("/api/workbenches")
+public class WorkbenchController {
+
+    /** RFC 6902's media type; plain application/json is accepted too. */
+    public static final String JSON_PATCH = "application/json-patch+json";
+
+    private final WorkbenchService workbenchService;
+
+    public WorkbenchController(WorkbenchService workbenchService) {
+        this.workbenchService = workbenchService;
+    }
+
+    @SqlBudget(1)
+    @GetMapping
+    public List<WorkbenchDto.Summary> list() {
+        return workbenchService.list();
+    }
+
+    /** SQL: one INSERT. */
+    @SqlBudget(1)
+    @PostMapping
+    public ResponseEntity<WorkbenchDto.Detail> create(@RequestBody WorkbenchDto.Create request) {
+        WorkbenchDto.Detail created = workbenchService.create(request);
+        return ResponseEntity.created(URI.create("/api/workbenches/" + created.id()))
+                .eTag(etag(created.version()))
+                .body(created);
+    }
+
+    /** SQL: the row, plus the patch log unless this instance already has that version. */
+    @SqlBudget(2)
+    @GetMapping("/{id}")
+    public ResponseEntity<WorkbenchDto.Detail> getById(@PathVariable Integer id) {
+        return workbenchService.find(id)
+                .map(w -> ResponseEntity.ok().eTag(etag(w.version())).body(w))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * SQL: row and patch log (skipped when this instance made the previous save), the
+     * version bump, the patch insert, and every COMPACT_EVERY saves the snapshot rewrite
+     * and log trim.
+     */
+    @SqlBudget(6)
+    @PatchMapping(value = "/{id}", consumes = {JSON_PATCH, "application/json"})
+    public ResponseEntity<WorkbenchDto.Saved> patch(@PathVariable Integer id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @RequestBody JsonNode patch) {
+        long expected = parseVersion(ifMatch);
+        return workbenchService.patch(id, expected, patch)
+                .map(saved -> ResponseEntity.ok().eTag(etag(saved.version())).body(saved))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(2)
+    @GetMapping("/{id}/patches")
+    public ResponseEntity<WorkbenchDto.Changes> changesSince(@PathVariable Integer id, @RequestParam long since) {
+        return workbenchService.changesSince(id, since)
+                .map(changes -> ResponseEntity.ok().eTag(etag(changes.toVersion())).body(changes))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(1)
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Integer id) {
+        return workbenchService.delete(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /** If-Match: "7" (or W/"7", or a bare 7) → 7. */
+    private static long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "Saves need If-Match: the version the patch was made against");
+        }
+        String v = ifMatch.trim();
+        if (v.startsWith("W/")) v = v.substring(2);
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) v = v.substring(1, v.length() - 1);
+        try {
+            long version = Long.parseLong(v);
+            if (version >= 0) return version;
+        } catch (NumberFormatException ignored) {
+            // fall through
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a workbench version, e.g. \"7\"");
+    }
+}
@@ -0,0 +1,62 @@
+package com.pedalshootout.api.controller;
+
+import com.pedalshootout.api.dto.RoutingDto;
+import com.pedalshootout.api.metrics.SqlBudget;
+import com.pedalshootout.api.routing.SignalGraph;
+import com.pedalshootout.api.service.WorkbenchRoutingService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller for signal-chain validation of saved workbenches.
+ *
+ *   GET /api/workbenches/{id}/routing        — feedback loops in the audio and MIDI routing
+ *   GET /api/workbenches/{id}/routing/check?layer=audio&sourceInstanceId=..&sourceJackId=..
+ *       &targetInstanceId=..&targetJackId=..  — would this new cable close a loop?
+ *
+ * The check is the server-side version of the frontend's wouldCreateCycle(), run
+ * before a cable is added; the report covers the whole saved workbench.
+ * SQL: whatever loading the workbench costs (see GET /api/workbenches/{id}).
+ * Off by default, like WorkbenchController.
+ */
+@Profile("workbenches")
+@RestController
+@RequestMapping("/api/workbenches/{id}/routing")
+public class WorkbenchRoutingController {
+
+    private final WorkbenchRoutingService routingService;
+
+    public WorkbenchRoutingController(WorkbenchRoutingService routingService) {
+        this.routingService = routingService;
+    }
+
+    @SqlBudget(2)
+    @GetMapping
+    public ResponseEntity<RoutingDto.Report> validate(@PathVariable Integer id) {
+        return routingService.validate(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @SqlBudget(2)
+    @GetMapping("/check")
+    public ResponseEntity<RoutingDto.Check> check(@PathVariable Integer id,
+                                                  @RequestParam(defaultValue = "audio") String layer,
+                                                  @RequestParam String sourceInstanceId,
+                                                  @RequestParam String sourceJackId,
+                                                  @RequestParam String targetInstanceId,
+                                                  @RequestParam String targetJackId) {
+        SignalGraph.Layer l = SignalGraph.Layer.of(layer);
+        if (l == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "layer must be audio or midi");
+        }
+        return routingService.check(id, l,
+                        new SignalGraph.Port(sourceInstanceId, sourceJackId),
+                        new SignalGraph.Port(targetInstanceId, targetJackId))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,26 @@
+package com.pedalshootout.api.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * pedalshootout.datasource.* — read replicas for the routing DataSource.
+ *
+ *   pedalshootout.datasource.replicas[0].url=jdbc:postgresql://replica-1:5432/pedal_shootout
+ *   pedalshootout.datasource.replicas[0].username=...   (defaults to spring.datasource.username)
+ *   pedalshootout.datasource.max-lag=5s                  (a replica further behind is skipped)
+ *   pedalshootout.datasource.check-interval=5s           (how often lag/health is measured)
+ *
+ * With no replicas configured, everything goes to the primary exactly as before.
+ */
+@ConfigurationProperties(prefix = "pedalshootout.datasource")
+public record ReplicaProperties(
+    @DefaultValue List<Replica> replicas,
+    @DefaultValue("5s") Duration maxLag,
+    @DefaultValue("5s") Duration checkInterval
+) {
+    public record Replica(String url, String username, String password) {}
+}
@@ -0,0 +1,180 @@
+package com.pedalshootout.api.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The DataSource read-only transactions get their connections from: a set of replica
+ * pools, used round-robin, falling back to the primary when none of them is usable.
+ *
+ * A background check runs every checkInterval against each replica and measures how
+ * far behind the primary it is. A replica that fails the check, or is more than maxLag
+ * behind, is taken out of rotation until a later check passes — so a replica that's
+ * down or catching up after a restart costs a little extra load on the primary rather
+ * than errors or stale pages. Lag is measured as "time since the last replayed
+ * transaction, unless the WAL receiver is streaming and everything received has been
+ * replayed", which reads 0 on an idle but caught-up replica (and on a plain Postgres
+ * standing in for one locally). A replica whose receiver is disconnected has replayed
+ * everything it received too, so it is judged by its replay timestamp alone, and one
+ * that has never replayed anything counts as infinitely behind. pg_stat_wal_receiver
+ * only shows the status to roles with pg_read_all_stats; without it every replica is
+ * judged that way, and an idle one drops out after maxLag.
+ *
+ * onPrimary() pins reads on the current thread to the primary — for reads that must
+ * see the latest commit, like building the catalog snapshot after a change.
+ */
+public class ReplicaSet extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming')
+                     AND pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8 * 1000,
+                              'Infinity'::float8)
+            END""";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    /** One replica pool and what the last check said about it. */
+    private static final class Member {
+        final String name;
+        final DataSource pool;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+
+        Member(String name, DataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Member> members;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    /** replicas maps a display name (the JDBC URL) to its pool; order is rotation order. */
+    public ReplicaSet(DataSource primary, List<Map.Entry<String, DataSource>> replicas,
+                      Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        this.members = replicas.stream().map(e -> new Member(e.getKey(), e.getValue())).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        if (members.isEmpty()) {
+            this.checker = null;
+        } else {
+            this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "replica-health");
+                t.setDaemon(true);
+                return t;
+            });
+            // Replicas start out of rotation; the first check (run straight away) admits them
+            long every = Math.max(100, checkInterval.toMillis());
+            checker.scheduleWithFixedDelay(this::checkAll, 0, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Run work with this thread's read-only connections taken from the primary. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return choose().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return choose().getConnection(username, password);
+    }
+
+    /** Healthy replicas right now (for logs and metrics). */
+    public long healthyCount() {
+        return members.stream().filter(m -> m.healthy).count();
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    private DataSource choose() {
+        if (members.isEmpty() || PRIMARY_ONLY.get() != null) {
+            return primary;
+        }
+        int n = members.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Member member = members.get((start + i) % n);
+            if (member.healthy) return member.pool;
+        }
+        return primary;
+    }
+
+    private void checkAll() {
+        for (Member member : members) {
+            boolean wasHealthy = member.healthy;
+            try (Connection connection = member.pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    member.lagMillis = (long) rs.getDouble(1);
+                }
+                member.healthy = member.lagMillis <= maxLagMillis;
+                if (!member.healthy && wasHealthy) {
+                    log.warn("Replica {} is {} ms behind (max {} ms) — reading from the others",
+                            member.name, member.lagMillis, maxLagMillis);
+                }
+            } catch (SQLException | RuntimeException e) {
+                member.healthy = false;
+                member.lagMillis = -1;
+                if (wasHealthy) {
+                    log.warn("Replica {} failed its health check — reading from the others: {}",
+                            member.name, e.getMessage());
+                }
+            }
+            if (member.healthy && !wasHealthy) {
+                log.info("Replica {} is in rotation ({} ms behind)", member.name, member.lagMillis);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) checker.shutdownNow();
+        for (Member member : members) {
+            if (member.pool instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.debug("Closing replica pool {}", member.name, e);
+                }
+            }
+        }
+    }
+}
@@ -10,7 +10,10 @@ import java.util.List;
  */
 public class BoardPlannerDto {
 
-    /** Everything the frontend needs for the board layout planner. */
+    /**
+     * Everything the frontend needs for the board layout planner.
+     * GET /components streams this shape field by field rather than building one.
+     */
     public record Components(
         List<PedalboardDto> pedalboards,
         List<PowerSupplyDto> powerSupplies,
@@ -27,16 +30,80 @@ public class BoardPlannerDto {
         Double heightMm
     ) {}
 
-    /** Result of checking if pedals fit on a board. */
+    /**
+     * Where one pedal landed on the board. x/y are mm from the left and back edges of
+     * the tier's usable area; width/depth are as placed (swapped when rotated 90°).
+     * Tier 1 is the main deck, tier 2 the raised second tier.
+     */
+    public record PedalPlacement(
+        Integer id,
+        int tier,
+        Double xMm,
+        Double yMm,
+        Double widthMm,
+        Double depthMm,
+        boolean rotated
+    ) {}
+
+    /**
+     * Result of checking if pedals fit on a board.
+     *
+     * fitsByArea is the quick "total footprint vs. total surface" comparison;
+     * fits is the real answer from packing the pedals, with their positions in
+     * placements. A set can pass fitsByArea and still fail fits (awkward shapes
+     * waste space), never the other way round.
+     *
+     * knownIssues lists product_compatibility rows flagging any two of the board and
+     * pedals as a known-bad combination.
+     */
     public record FitCheckResult(
         Integer boardId,
         String boardModel,
         Double boardUsableWidthMm,
         Double boardUsableDepthMm,
+        Double tier2UsableWidthMm,
+        Double tier2UsableDepthMm,
         Double totalPedalAreaMm2,
         Double boardAreaMm2,
         boolean fitsByArea,
+        boolean fits,
         List<PedalFootprint> pedals,
+        List<PedalPlacement> placements,
+        List<Integer> unplacedPedalIds,
+        List<Integer> unknownSizePedalIds,
+        List<CompatibilityDto.Relation> knownIssues,
         String summary
     ) {}
+
+    /**
+     * A pedal that fits the remaining slot, power and budget. rotated means it only fits
+     * turned 90°; poweredAt is the supply voltage it would run from (null for passive
+     * pedals or when no supply headroom was given); slackMm2 is the slot area it leaves
+     * unused (null unless both slot dimensions were given).
+     */
+    public record SlotCandidate(
+        Integer id,
+        String model,
+        String manufacturerName,
+        String effectType,
+        Double widthMm,
+        Double depthMm,
+        boolean rotated,
+        String poweredAt,
+        Integer currentMa,
+        String polarity,
+        String connector,
+        String msrpDisplay,
+        Integer msrpCents,
+        String imagePath,
+        Double slackMm2
+    ) {}
+
+    /** One page of slot candidates, tightest fit first. */
+    public record SlotSearchResult(
+        int totalMatches,
+        int page,
+        int size,
+        List<SlotCandidate> candidates
+    ) {}
 }
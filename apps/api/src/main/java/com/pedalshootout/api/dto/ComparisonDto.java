@@ -0,0 +1,42 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * DTOs for GET /api/compare (the side-by-side comparison table).
+ */
+public class ComparisonDto {
+
+    /** One product column header. */
+    public record Column(
+        Integer id,
+        String model,
+        String manufacturerName,
+        String productType,
+        String msrpDisplay,
+        String imagePath
+    ) {}
+
+    /**
+     * One spec row: values line up with Comparison.columns (null where a product doesn't
+     * have the field). differs is true when not every column has the same value.
+     */
+    public record Row(
+        String group,
+        String field,
+        List<Object> values,
+        boolean differs
+    ) {}
+
+    /**
+     * The comparison table. Columns are in ascending product ID order whatever order
+     * the IDs were given in — the same set of products is the same table. unknownIds
+     * lists requested IDs that aren't in the catalog.
+     */
+    public record Comparison(
+        List<Column> columns,
+        List<Row> rows,
+        int differingRows,
+        List<Integer> unknownIds
+    ) {}
+}
@@ -0,0 +1,78 @@
+package com.pedalshootout.api.dto;
+
+import com.pedalshootout.api.entity.ProductCompatibility;
+
+import java.util.List;
+
+/**
+ * DTOs for the product compatibility endpoints and the planners' known-issue lists.
+ */
+public class CompatibilityDto {
+
+    /**
+     * One product_compatibility row. The pair is unordered for lookups (A–B and B–A
+     * are the same pair), but A and B are reported as stored.
+     */
+    public record Relation(
+        Integer id,
+        Integer productAId,
+        Integer productBId,
+        String type,
+        boolean incompatible,
+        boolean verified,
+        String notes,
+        String source
+    ) {
+        public static Relation from(ProductCompatibility c) {
+            return new Relation(
+                c.getId(), c.getProductAId(), c.getProductBId(), c.getCompatibilityType(),
+                Boolean.TRUE.equals(c.getIsIncompatible()), Boolean.TRUE.equals(c.getVerified()),
+                c.getNotes(), c.getSource()
+            );
+        }
+
+        /** The other end of this relation, seen from productId. */
+        public Integer other(Integer productId) {
+            return productAId.equals(productId) ? productBId : productAId;
+        }
+    }
+
+    /** A relation seen from one product, with the product on the other end. */
+    public record Link(
+        Integer productId,
+        String model,
+        String manufacturerName,
+        String productType,
+        Relation relation
+    ) {}
+
+    /** Everything recorded about one product. */
+    public record ProductLinks(
+        Integer productId,
+        String model,
+        List<Link> links
+    ) {}
+
+    /** Everything recorded about one pair. */
+    public record PairResult(
+        Integer productAId,
+        Integer productBId,
+        boolean knownIncompatible,
+        List<Relation> relations
+    ) {}
+
+    /** A product reachable through Replacement relations; hops = 1 is a direct replacement. */
+    public record Replacement(
+        Integer id,
+        String model,
+        String manufacturerName,
+        String productType,
+        int hops
+    ) {}
+
+    public record ReplacementResult(
+        Integer productId,
+        String model,
+        List<Replacement> replacements
+    ) {}
+}
@@ -0,0 +1,18 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paged list (GET /api/.../page).
+ *
+ * nextCursor is opaque — pass it back as ?cursor= (with the same sort and dir) to get
+ * the following page. It's null on the last page, when hasMore is false.
+ */
+public record CursorPage<T>(
+    List<T> items,
+    String nextCursor,
+    boolean hasMore,
+    String sort,
+    String dir,
+    int limit
+) {}
@@ -17,14 +17,22 @@ public class MidiPlannerDto {
         String midiReceiveCapabilities,
         String midiSendCapabilities,
         Integer presetCount,
-        List<JackDto> midiJacks
+        List<JackDto> midiJacks,
+        List<String> receiveMessages,
+        List<String> sendMessages,
+        List<String> midiInputs,
+        List<String> midiOutputs
     ) {}
 
-    /** Compatibility check between a controller and pedals. */
+    /**
+     * Compatibility check between a controller and pedals. knownIssues lists
+     * known-bad pairings among them (from product_compatibility).
+     */
     public record CompatibilityResult(
         Integer controllerId,
         String controllerModel,
         List<PedalCompatibility> pedals,
+        List<CompatibilityDto.Relation> knownIssues,
         String summary
     ) {}
 
@@ -37,6 +45,36 @@ public class MidiPlannerDto {
         String midiReceiveCapabilities,
         boolean hasMidiInput,
         String connectionType,
-        String notes
+        String notes,
+        List<String> sharedMessages
+    ) {}
+
+    /** A row/column header in the compatibility matrix. */
+    public record MatrixDevice(
+        Integer id,
+        String model,
+        String manufacturerName
+    ) {}
+
+    /**
+     * One controller's row of the matrix. connection[i] and sharedMessages[i] describe
+     * pedals[i]: connection is an index into connectionLevels, sharedMessages a bitmask
+     * over messageBits (bit n = messageBits[n]) of what the controller can send that
+     * the pedal understands.
+     */
+    public record MatrixRow(
+        Integer controllerId,
+        int compatibleCount,
+        int[] connection,
+        int[] sharedMessages
+    ) {}
+
+    /** Every MIDI controller × every MIDI-capable pedal, in compact form. */
+    public record CompatibilityMatrix(
+        List<String> connectionLevels,
+        List<String> messageBits,
+        List<MatrixDevice> controllers,
+        List<MatrixDevice> pedals,
+        List<MatrixRow> rows
     ) {}
 }
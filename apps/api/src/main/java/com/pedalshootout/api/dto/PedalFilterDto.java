@@ -0,0 +1,35 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * Response shapes for GET /api/pedals/filter (faceted pedal filtering).
+ */
+public final class PedalFilterDto {
+
+    private PedalFilterDto() {}
+
+    /**
+     * One value of a facet. count is how many pedals you'd get with this value ticked,
+     * given the selections in every other facet.
+     */
+    public record FacetValue(
+        String value,
+        int count,
+        boolean selected
+    ) {}
+
+    /** A filterable dimension (e.g. "bypassType") and all of its values. */
+    public record Facet(
+        String name,
+        List<FacetValue> values
+    ) {}
+
+    public record FilterResult(
+        int totalMatches,
+        int page,
+        int size,
+        List<PedalDto> pedals,
+        List<Facet> facets
+    ) {}
+}
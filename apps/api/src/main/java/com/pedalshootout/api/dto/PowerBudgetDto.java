@@ -17,7 +17,10 @@ public class PowerBudgetDto {
         String polarity
     ) {}
 
-    /** Result of calculating total power draw vs supply capacity. */
+    /**
+     * Result of calculating total power draw vs supply capacity. knownIssues lists
+     * known-bad pairings among the supply and pedals (from product_compatibility).
+     */
     public record CalculationResult(
         Integer supplyId,
         String supplyModel,
@@ -26,6 +29,7 @@ public class PowerBudgetDto {
         Integer remainingMa,
         boolean withinBudget,
         List<PedalPower> pedals,
+        List<CompatibilityDto.Relation> knownIssues,
         String summary
     ) {}
 
@@ -37,6 +41,87 @@ public class PowerBudgetDto {
         Integer totalCapacityMa,
         Integer requiredMa,
         Integer headroomMa,
-        String msrpDisplay
+        String msrpDisplay,
+        Integer msrpCents,
+        Integer totalOutputCount,
+        Integer isolatedOutputCount
+    ) {}
+
+    /** Outputs needed at one voltage: how many, and the hungriest pedal among them. */
+    public record OutputRequirement(
+        String voltage,
+        int outputs,
+        Integer largestDrawMa
+    ) {}
+
+    /** One page of supplies that can power the given pedals, tightest fit first. */
+    public record SupplySearchResult(
+        Integer requiredMa,
+        List<OutputRequirement> outputRequirements,
+        boolean isolatedOnly,
+        int totalMatches,
+        int page,
+        int size,
+        List<SupplyMatch> supplies
+    ) {}
+
+    /**
+     * One pedal plugged into one specific supply output.
+     * supplyIndex is the supply's position in the request's supplyIds (so two of the
+     * same supply stay distinguishable); portIndex is 1-based within that supply.
+     */
+    public record PortAssignment(
+        Integer pedalId,
+        String pedalModel,
+        String pedalManufacturerName,
+        String pedalVoltage,
+        Integer pedalCurrentMa,
+        Integer supplyId,
+        String supplyModel,
+        int supplyIndex,
+        int portIndex,
+        Integer outputJackId,
+        String outputName,
+        String outputVoltage,
+        Integer outputCurrentMa,
+        boolean isolated,
+        boolean daisyChained,
+        List<String> notes
+    ) {}
+
+    /** Several pedals sharing one output via a daisy-chain cable. */
+    public record DaisyChainGroup(
+        Integer supplyId,
+        int supplyIndex,
+        int portIndex,
+        Integer outputJackId,
+        List<Integer> pedalIds,
+        Integer combinedMa,
+        Integer outputCurrentMa
+    ) {}
+
+    /** A pedal that couldn't be given power, and why. */
+    public record UnassignedPedal(
+        Integer id,
+        String model,
+        String manufacturerName,
+        String voltage,
+        Integer currentMa,
+        String reason
+    ) {}
+
+    /** Result of assigning pedals to specific outputs across one or more supplies. */
+    public record AssignmentResult(
+        List<Integer> supplyIds,
+        int outputCount,
+        int outputsUsed,
+        int totalDrawMa,
+        int totalCapacityMa,
+        boolean allAssigned,
+        List<PortAssignment> assignments,
+        List<DaisyChainGroup> daisyChains,
+        List<UnassignedPedal> unassigned,
+        List<Integer> unpoweredPedalIds,
+        String summary
     ) {}
 }
@@ -0,0 +1,21 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * DTOs for the product write endpoints (ProductWriteController).
+ *
+ * Request bodies are JSON objects with the same field names as the GET responses —
+ * a product's columns plus manufacturerId and productTypeId, its detail-table columns
+ * under "details" (effectType, totalOutputCount, ...) and its jacks under "jacks" —
+ * and are bound straight onto the entities (entity.ColumnBinder), so they're passed in
+ * as JSON trees rather than records with a component per column.
+ */
+public class ProductWriteDto {
+
+    /** POST /api/products: the new product's id and its jacks, ids included, in request order. */
+    public record Created(
+        Integer id,
+        List<JackDto> jacks
+    ) {}
+}
@@ -0,0 +1,45 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * DTOs for the /api/workbenches/{id}/routing endpoints (signal-chain validation).
+ *
+ * status and severity use the same words as the frontend's ConnectionValidation:
+ * "valid", "warning", "error". An audio cycle is a feedback loop (error); a MIDI cycle
+ * is usually a chain returning to the controller (warning).
+ */
+public class RoutingDto {
+
+    /**
+     * A cycle: the workbench item instances it passes through in signal order, and the
+     * connection IDs of the cables on it.
+     */
+    public record Cycle(
+        List<String> instanceIds,
+        List<String> connectionIds
+    ) {}
+
+    /** One layer (audio or midi) of the workbench. */
+    public record LayerReport(
+        String layer,
+        String status,
+        int connections,
+        List<Cycle> cycles
+    ) {}
+
+    public record Report(
+        Integer workbenchId,
+        long version,
+        String status,
+        List<LayerReport> layers
+    ) {}
+
+    /** Would one more cable close a cycle? cycle is null when it wouldn't. */
+    public record Check(
+        String layer,
+        boolean createsCycle,
+        String severity,
+        Cycle cycle
+    ) {}
+}
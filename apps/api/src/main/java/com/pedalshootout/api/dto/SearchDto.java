@@ -0,0 +1,28 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * Response shapes for GET /api/search.
+ */
+public final class SearchDto {
+
+    private SearchDto() {}
+
+    /**
+     * One search result. kind is the product type ("pedal", "power_supply", ...) or
+     * "manufacturer"; id is the product or manufacturer ID.
+     */
+    public record Hit(
+        String kind,
+        Integer id,
+        String title,
+        String subtitle,
+        double score
+    ) {}
+
+    public record SearchResult(
+        String query,
+        List<Hit> hits
+    ) {}
+}
@@ -0,0 +1,33 @@
+package com.pedalshootout.api.dto;
+
+import java.util.List;
+
+/**
+ * DTOs for GET /api/products/{id}/similar ("you might also consider").
+ */
+public class SimilarityDto {
+
+    /**
+     * One suggested pedal. score is 1 / (1 + distance) between the two pedals' spec
+     * vectors: 1 for identical specs, falling towards 0. sharedSpecs names the
+     * categorical specs the two have in common (effectType, monoStereo, bypassType,
+     * midiCapable), for "also a stereo delay with MIDI"-style captions.
+     */
+    public record SimilarPedal(
+        Integer id,
+        String model,
+        String manufacturerName,
+        String effectType,
+        String msrpDisplay,
+        Integer msrpCents,
+        String imagePath,
+        double score,
+        List<String> sharedSpecs
+    ) {}
+
+    public record SimilarResult(
+        Integer productId,
+        String model,
+        List<SimilarPedal> similar
+    ) {}
+}
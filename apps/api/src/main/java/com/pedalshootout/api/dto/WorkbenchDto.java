@@ -0,0 +1,59 @@
+package com.pedalshootout.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * DTOs for the /api/workbenches endpoints.
+ *
+ * data is the frontend's Workbench object minus id, name and timestamps (items,
+ * viewPositions, viewportStates, the four connection lists, virtualNodes). The server
+ * doesn't interpret it — it only stores it and applies patches to it — so it's passed
+ * through as a JSON tree.
+ */
+public class WorkbenchDto {
+
+    /** POST body. */
+    public record Create(
+        String name,
+        JsonNode data
+    ) {}
+
+    /** One row of the workbench list (no data). */
+    public record Summary(
+        Integer id,
+        String name,
+        long version,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt
+    ) {}
+
+    /** A whole workbench at one version. */
+    public record Detail(
+        Integer id,
+        String name,
+        long version,
+        JsonNode data,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt
+    ) {}
+
+    /** Answer to a PATCH: the version the workbench is at now. */
+    public record Saved(
+        Integer id,
+        long version
+    ) {}
+
+    /**
+     * The patches that take a client from fromVersion to toVersion, oldest first;
+     * applying them in order gives the same state the server has.
+     */
+    public record Changes(
+        Integer id,
+        long fromVersion,
+        long toVersion,
+        List<JsonNode> patches
+    ) {}
+}
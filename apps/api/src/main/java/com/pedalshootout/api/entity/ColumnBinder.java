@@ -0,0 +1,88 @@
+package com.pedalshootout.api.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies a JSON object's values onto an entity's plain column fields, for the write API.
+ *
+ * The entities are read models with getters only, and the write bodies use the same
+ * camelCase names as the GET responses (widthMm, effectType, connectorType), which are
+ * the entity field names. So rather than a setter per column on eight entities, the
+ * writable fields are found once per class: every non-static field except the id,
+ * relationships and the created/updated timestamps, which the service or the database
+ * own.
+ *
+ * bind() replaces: a column missing from the object is set to null (unknown), as a PUT
+ * should. Unknown names and values of the wrong type are returned as problems, all at
+ * once, rather than thrown one at a time.
+ */
+public final class ColumnBinder<E> {
+
+    private static final Set<String> MANAGED = Set.of("createdAt", "updatedAt");
+
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+
+    public ColumnBinder(Class<E> type) {
+        for (Field f : type.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers()) || MANAGED.contains(f.getName())
+                    || f.isAnnotationPresent(Id.class) || f.isAnnotationPresent(ManyToOne.class)
+                    || f.isAnnotationPresent(OneToOne.class) || f.isAnnotationPresent(OneToMany.class)
+                    || f.isAnnotationPresent(MapsId.class)) {
+                continue;
+            }
+            f.setAccessible(true);
+            fields.put(f.getName(), f);
+        }
+    }
+
+    public boolean has(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * Set every column of entity from object. Names in ignore are the caller's (ids,
+     * nested objects) and skipped. Returns the problems, prefixed with where; entity
+     * may be partly written if there are any.
+     */
+    public List<String> bind(JsonNode object, E entity, ObjectMapper mapper, Set<String> ignore, String where) {
+        if (object == null || !object.isObject()) return List.of(where + " must be a JSON object");
+        List<String> problems = new ArrayList<>();
+        for (Iterator<String> names = object.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!fields.containsKey(name) && !ignore.contains(name)) problems.add(where + ": unknown field " + name);
+        }
+        for (Field f : fields.values()) {
+            JsonNode value = object.get(f.getName());
+            try {
+                f.set(entity, value == null || value.isNull() ? null : mapper.treeToValue(value, f.getType()));
+            } catch (Exception e) {
+                problems.add(where + ": " + f.getName() + " must be " + describe(f.getType()));
+            }
+        }
+        return problems;
+    }
+
+    private static String describe(Class<?> type) {
+        if (type == Integer.class) return "an integer";
+        if (type == Double.class) return "a number";
+        if (type == Boolean.class) return "true or false";
+        if (type == LocalDate.class) return "a date (yyyy-mm-dd)";
+        return "a string";
+    }
+}
@@ -10,13 +10,17 @@ import jakarta.persistence.*;
  *
  * @ManyToOne on the product field means "many jacks belong to one product."
  * The @JoinColumn tells JPA which column in the jacks table holds the foreign key.
+ *
+ * Ids come from jacks_id_seq 50 at a time, like Product's, so a product's jacks are
+ * inserted as one JDBC batch.
  */
 @Entity
 @Table(name = "jacks")
 public class Jack {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jacks_id")
+    @SequenceGenerator(name = "jacks_id", sequenceName = "jacks_id_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -89,6 +93,13 @@ public class Jack {
 
     public Jack() {}
 
+    /** A new jack on product; the columns are set by ProductWriteService. */
+    public Jack(Product product) {
+        this.product = product;
+    }
+
+    public void setNormalledToJackId(Integer normalledToJackId) { this.normalledToJackId = normalledToJackId; }
+
     // --- Getters ---
     public Integer getId() { return id; }
     public Product getProduct() { return product; }
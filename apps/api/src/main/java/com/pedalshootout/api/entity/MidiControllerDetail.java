@@ -116,6 +116,11 @@ public class MidiControllerDetail {
 
     public MidiControllerDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public MidiControllerDetail(Product product) {
+        this.product = product;
+    }
+
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
     public Integer getFootswitchCount() { return footswitchCount; }
@@ -108,6 +108,11 @@ public class PedalDetail {
 
     public PedalDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public PedalDetail(Product product) {
+        this.product = product;
+    }
+
     // --- Getters ---
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
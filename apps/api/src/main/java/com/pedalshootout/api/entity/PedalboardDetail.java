@@ -70,6 +70,11 @@ public class PedalboardDetail {
 
     public PedalboardDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public PedalboardDetail(Product product) {
+        this.product = product;
+    }
+
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
     public Double getUsableWidthMm() { return usableWidthMm; }
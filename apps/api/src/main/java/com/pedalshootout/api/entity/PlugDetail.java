@@ -50,6 +50,11 @@ public class PlugDetail {
 
     public PlugDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public PlugDetail(Product product) {
+        this.product = product;
+    }
+
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
     public String getPlugType() { return plugType; }
@@ -64,6 +64,11 @@ public class PowerSupplyDetail {
 
     public PowerSupplyDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public PowerSupplyDetail(Product product) {
+        this.product = product;
+    }
+
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
     public String getSupplyType() { return supplyType; }
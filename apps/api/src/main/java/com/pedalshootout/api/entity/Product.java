@@ -17,13 +17,19 @@ import java.time.OffsetDateTime;
  *   @JoinColumn — specifies which column holds the foreign key
  *   FetchType.LAZY — don't load the related object until it's actually accessed
  *     (performance optimization to avoid loading everything upfront)
+ *
+ * Ids come from products_id_seq 50 at a time (pooled optimizer, see V6 migration)
+ * rather than IDENTITY: Hibernate knows a new product's id as soon as it's persisted,
+ * so its detail row and jacks can reference it and all the inserts go out as JDBC
+ * batches at flush. allocationSize must equal the sequence's INCREMENT BY.
  */
 @Entity
 @Table(name = "products")
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id")
+    @SequenceGenerator(name = "products_id", sequenceName = "products_id_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -89,6 +95,14 @@ public class Product {
 
     public Product() {}
 
+    /** A new product; the other columns are set by ProductWriteService. */
+    public Product(Manufacturer manufacturer, ProductType productType) {
+        this.manufacturer = manufacturer;
+        this.productType = productType;
+    }
+
+    public void setManufacturer(Manufacturer manufacturer) { this.manufacturer = manufacturer; }
+
     // --- Getters ---
     public Integer getId() { return id; }
     public Manufacturer getManufacturer() { return manufacturer; }
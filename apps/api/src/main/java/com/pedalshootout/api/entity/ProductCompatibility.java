@@ -0,0 +1,64 @@
+package com.pedalshootout.api.entity;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * JPA Entity for the product_compatibility table.
+ *
+ * One row records a known relationship between two products: a supply that mounts
+ * under a board (Mounting), a supply that can power a pedal (Power), a controller
+ * that drives a pedal (MIDI), an official accessory, or a direct replacement.
+ * is_incompatible turns the row into a warning instead — "these two are known to
+ * cause noise together".
+ *
+ * The product IDs are mapped as plain columns rather than @ManyToOne: the catalog
+ * snapshot only needs the IDs (the products themselves are already loaded), so
+ * there's nothing to join.
+ */
+@Entity
+@Table(name = "product_compatibility")
+public class ProductCompatibility {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "product_a_id", nullable = false)
+    private Integer productAId;
+
+    @Column(name = "product_b_id", nullable = false)
+    private Integer productBId;
+
+    /** 'Mounting', 'Power', 'MIDI', 'Accessory' or 'Replacement'. */
+    @Column(name = "compatibility_type")
+    private String compatibilityType;
+
+    private String notes;
+
+    @Column(name = "is_incompatible")
+    private Boolean isIncompatible;
+
+    private String source;
+    private Boolean verified;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
+    public ProductCompatibility() {}
+
+    // --- Getters ---
+    public Integer getId() { return id; }
+    public Integer getProductAId() { return productAId; }
+    public Integer getProductBId() { return productBId; }
+    public String getCompatibilityType() { return compatibilityType; }
+    public String getNotes() { return notes; }
+    public Boolean getIsIncompatible() { return isIncompatible; }
+    public String getSource() { return source; }
+    public Boolean getVerified() { return verified; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -74,6 +74,11 @@ public class UtilityDetail {
 
     public UtilityDetail() {}
 
+    /** A new detail row for product; shares its id (@MapsId). */
+    public UtilityDetail(Product product) {
+        this.product = product;
+    }
+
     public Integer getProductId() { return productId; }
     public Product getProduct() { return product; }
     public String getUtilityType() { return utilityType; }
@@ -0,0 +1,64 @@
+package com.pedalshootout.api.entity;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * JPA Entity for the workbenches table — a user's saved rig.
+ *
+ * The state itself is stored as a gzip-compressed JSON snapshot at snapshotVersion,
+ * with the JSON Patches applied since then in workbench_patches (WorkbenchPatch).
+ * version is the latest version: snapshotVersion plus the number of patches after it.
+ *
+ * version isn't a JPA @Version: saves bump it with a conditional UPDATE
+ * (WorkbenchRepository.bumpVersion) so the check against the client's version and the
+ * increment are one statement, without loading the snapshot first.
+ */
+@Entity
+@Table(name = "workbenches")
+public class Workbench {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "snapshot_version", nullable = false)
+    private Long snapshotVersion;
+
+    @Column(nullable = false)
+    private byte[] snapshot;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    protected Workbench() {}
+
+    /** A new workbench at version 0, the given compressed state as its snapshot. */
+    public Workbench(String name, byte[] snapshot) {
+        OffsetDateTime now = OffsetDateTime.now();
+        this.name = name;
+        this.version = 0L;
+        this.snapshotVersion = 0L;
+        this.snapshot = snapshot;
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    // --- Getters ---
+    public Integer getId() { return id; }
+    public String getName() { return name; }
+    public Long getVersion() { return version; }
+    public Long getSnapshotVersion() { return snapshotVersion; }
+    public byte[] getSnapshot() { return snapshot; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+}
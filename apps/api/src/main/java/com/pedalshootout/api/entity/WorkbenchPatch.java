@@ -0,0 +1,55 @@
+package com.pedalshootout.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+
+/**
+ * JPA Entity for the workbench_patches table: one save, as the RFC 6902 patch the
+ * client sent, and the workbench version it produced.
+ *
+ * workbenchId is a plain column rather than a @ManyToOne — patches are always read by
+ * workbench ID and never need the parent row (which carries the snapshot blob).
+ *
+ * patch is JSONB; @JdbcTypeCode(SqlTypes.JSON) tells Hibernate to bind the String as
+ * JSON rather than text, which Postgres would refuse for a jsonb column.
+ */
+@Entity
+@Table(name = "workbench_patches")
+public class WorkbenchPatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "workbench_id", nullable = false)
+    private Integer workbenchId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private String patch;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    protected WorkbenchPatch() {}
+
+    public WorkbenchPatch(Integer workbenchId, Long version, String patch) {
+        this.workbenchId = workbenchId;
+        this.version = version;
+        this.patch = patch;
+        this.createdAt = OffsetDateTime.now();
+    }
+
+    // --- Getters ---
+    public Long getId() { return id; }
+    public Integer getWorkbenchId() { return workbenchId; }
+    public Long getVersion() { return version; }
+    public String getPatch() { return patch; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+}
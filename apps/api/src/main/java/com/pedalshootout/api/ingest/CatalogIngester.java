@@ -0,0 +1,296 @@
+package com.pedalshootout.api.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pedalshootout.api.catalog.CatalogChangeListener;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog import: product files of any type in, one transaction out.
+ *
+ * The per-product SQL templates (data/templates) are fine for a pedal at a time, but a
+ * catalog dump is tens of thousands of products, each a products row, a detail row,
+ * a dozen jacks and some sources — a million single-row INSERTs. Instead:
+ *   1. read every file and validate the whole batch in memory (IngestValidator), against
+ *      the columns and CHECK vocabularies read from the database itself. Any problem
+ *      and nothing is written
+ *   2. COPY each table's rows into a temporary staging table — one streamed statement
+ *      per table, however many rows
+ *   3. merge the staging tables into the catalog with a handful of set-based
+ *      statements: create missing manufacturers, match existing products by
+ *      manufacturer + product_type + model, take ids from the identity sequences a
+ *      block at a time, and INSERT ... SELECT products, details, jacks (normalled_to
+ *      resolved by a self-join) and sources
+ * all in one transaction, so readers see the old catalog or the whole new one. Products
+ * already in the catalog are skipped, or with OnConflict.REPLACE have their columns
+ * overwritten and their details, jacks and sources re-created (jacks get new ids).
+ *
+ * Writes take the primary pool directly: there's nothing to route, and COPY needs the
+ * driver's own connection. products is locked against other writers for the merge so a
+ * product created concurrently can't slip between the match and the insert; readers
+ * aren't blocked. The transaction ends with NOTIFY catalog_changed, so once it commits
+ * every running API instance reloads its catalog snapshot (CatalogChangeListener) and
+ * serves the new products — no restart needed. A dry run rolls back, and with it the
+ * notification.
+ */
+@Service
+public class CatalogIngester {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIngester.class);
+
+    /** COPY data is sent in chunks of about this many chars. */
+    private static final int COPY_CHUNK = 1 << 16;
+
+    private final HikariDataSource primaryDataSource;
+    private final ObjectMapper objectMapper;
+
+    public CatalogIngester(HikariDataSource primaryDataSource, ObjectMapper objectMapper) {
+        this.primaryDataSource = primaryDataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Import files (.json, or .csv with their .jacks.csv / .sources.csv siblings). Throws
+     * IngestException, having written nothing, if any record is invalid. With dryRun the
+     * whole load runs and is then rolled back, which checks the data against the real
+     * constraints too.
+     */
+    public IngestReport ingest(List<Path> files, IngestReport.OnConflict onConflict, boolean dryRun)
+            throws IOException, SQLException {
+        long started = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        List<ProductRecord> records = new ArrayList<>();
+        ProductFileReader reader = new ProductFileReader(objectMapper);
+        for (Path file : files) {
+            records.addAll(reader.read(file, errors));
+        }
+
+        try (Connection connection = primaryDataSource.getConnection()) {
+            IngestSchema schema = IngestSchema.load(connection);
+            IngestBatch batch = new IngestValidator(schema, errors).validate(records);
+            if (batch == null || !errors.isEmpty()) throw new IngestException(errors);
+            log.info("Validated {} products from {} file(s) in {} ms", records.size(), files.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Counts counts = load(connection, schema, batch, onConflict);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("NOTIFY " + CatalogChangeListener.CHANNEL);    // delivered on commit
+                }
+                if (dryRun) connection.rollback();
+                else connection.commit();
+                return new IngestReport(records.size(), counts.inserted, counts.replaced, counts.skipped,
+                        counts.manufacturers, counts.jacks, counts.sources, !dryRun,
+                        (System.nanoTime() - started) / 1_000_000);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static final class Counts {
+        int inserted, replaced, skipped, manufacturers, jacks, sources;
+    }
+
+    // ─── Load ───────────────────────────────────────────────────────────
+
+    private Counts load(Connection connection, IngestSchema schema, IngestBatch batch,
+                        IngestReport.OnConflict onConflict) throws SQLException {
+        IngestSchema.Table products = schema.table(IngestSchema.PRODUCTS);
+        IngestSchema.Table jacks = schema.table(IngestSchema.JACKS);
+        IngestSchema.Table sources = schema.table(IngestSchema.SOURCES);
+        CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+        Counts counts = new Counts();
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("LOCK TABLE products IN SHARE ROW EXCLUSIVE MODE");
+
+            // ── Stage ──
+            st.execute("CREATE TEMP TABLE ingest_products (key integer PRIMARY KEY, manufacturer text NOT NULL, "
+                    + "product_type_id integer NOT NULL, model text NOT NULL" + definitions(products)
+                    + ", manufacturer_id integer, product_id integer, existing boolean NOT NULL DEFAULT false) ON COMMIT DROP");
+            copy(copy, "ingest_products", "key, manufacturer, product_type_id, model", products, batch.products());
+            for (Map.Entry<String, List<Object[]>> details : batch.details().entrySet()) {
+                IngestSchema.Table table = schema.table(details.getKey());
+                st.execute("CREATE TEMP TABLE " + stage(table) + " (key integer PRIMARY KEY"
+                        + definitions(table) + ") ON COMMIT DROP");
+                copy(copy, stage(table), "key", table, details.getValue());
+                st.execute("ANALYZE " + stage(table));
+            }
+            st.execute("CREATE TEMP TABLE ingest_jacks (key integer NOT NULL, ord integer NOT NULL, normalled_ord integer"
+                    + definitions(jacks) + ", id integer, PRIMARY KEY (key, ord)) ON COMMIT DROP");
+            copy(copy, "ingest_jacks", "key, ord, normalled_ord", jacks, batch.jacks());
+            st.execute("CREATE TEMP TABLE ingest_sources (key integer NOT NULL, jack_ord integer"
+                    + definitions(sources) + ") ON COMMIT DROP");
+            copy(copy, "ingest_sources", "key, jack_ord", sources, batch.sources());
+            // Temp tables are never auto-analyzed; without stats the joins below get planned blind.
+            st.execute("ANALYZE ingest_products, ingest_jacks, ingest_sources");
+
+            // ── Match ──
+            counts.manufacturers = st.executeUpdate(
+                    "INSERT INTO manufacturers (name) SELECT DISTINCT manufacturer FROM ingest_products "
+                    + "ON CONFLICT (name) DO NOTHING");
+            st.executeUpdate("UPDATE ingest_products s SET manufacturer_id = m.id FROM manufacturers m "
+                    + "WHERE m.name = s.manufacturer");
+            int existing = st.executeUpdate("UPDATE ingest_products s SET product_id = p.id, existing = true "
+                    + "FROM products p WHERE p.manufacturer_id = s.manufacturer_id "
+                    + "AND p.product_type_id = s.product_type_id AND p.model = s.model");
+
+            if (onConflict == IngestReport.OnConflict.SKIP) {
+                counts.skipped = st.executeUpdate("DELETE FROM ingest_products WHERE existing");
+            } else if (existing > 0) {
+                counts.replaced = st.executeUpdate("UPDATE products p SET "
+                        + products.columns().values().stream()
+                                .map(c -> quote(c.name()) + " = " + value("s", c))
+                                .collect(Collectors.joining(", "))
+                        + " FROM ingest_products s WHERE p.id = s.product_id AND s.existing");
+                String replacedIds = "(SELECT product_id FROM ingest_products WHERE existing)";
+                st.executeUpdate("DELETE FROM product_sources WHERE product_id IN " + replacedIds);
+                st.executeUpdate("DELETE FROM jacks WHERE product_id IN " + replacedIds);
+                for (String detailTable : batch.details().keySet()) {
+                    st.executeUpdate("DELETE FROM " + detailTable + " WHERE product_id IN " + replacedIds);
+                }
+            }
+
+            // ── Merge ──
+            // Ids come off the identity sequences in file order, before the inserts, so the
+            // child rows can be joined to them.
+            st.executeUpdate("WITH numbered AS (SELECT key, row_number() OVER (ORDER BY key) - 1 AS i "
+                    + "FROM ingest_products WHERE NOT existing), " + idBlocks("products")
+                    + "UPDATE ingest_products s SET product_id = b.hi - step.n + 1 + u.i % step.n "
+                    + "FROM numbered u, step, blocks b WHERE b.g = u.i / step.n + 1 AND u.key = s.key");
+            counts.inserted = st.executeUpdate("INSERT INTO products (id, manufacturer_id, product_type_id, model"
+                    + names(products) + ") OVERRIDING SYSTEM VALUE "
+                    + "SELECT product_id, manufacturer_id, product_type_id, model" + values("s", products)
+                    + " FROM ingest_products s WHERE NOT existing ORDER BY key");
+            for (String detailTable : batch.details().keySet()) {
+                IngestSchema.Table table = schema.table(detailTable);
+                st.executeUpdate("INSERT INTO " + detailTable + " (product_id" + names(table) + ") "
+                        + "SELECT p.product_id" + values("d", table)
+                        + " FROM " + stage(table) + " d JOIN ingest_products p USING (key)");
+            }
+            st.executeUpdate("WITH numbered AS (SELECT x.key, x.ord, row_number() OVER (ORDER BY x.key, x.ord) - 1 AS i "
+                    + "FROM ingest_jacks x JOIN ingest_products p USING (key)), " + idBlocks("jacks")
+                    + "UPDATE ingest_jacks j SET id = b.hi - step.n + 1 + u.i % step.n "
+                    + "FROM numbered u, step, blocks b WHERE b.g = u.i / step.n + 1 AND u.key = j.key AND u.ord = j.ord");
+            counts.jacks = st.executeUpdate("INSERT INTO jacks (id, product_id, normalled_to_jack_id"
+                    + names(jacks) + ") OVERRIDING SYSTEM VALUE "
+                    + "SELECT j.id, p.product_id, n.id" + values("j", jacks)
+                    + " FROM ingest_jacks j JOIN ingest_products p USING (key) "
+                    + "LEFT JOIN ingest_jacks n ON n.key = j.key AND n.ord = j.normalled_ord ORDER BY j.id");
+            counts.sources = st.executeUpdate("INSERT INTO product_sources (product_id, jack_id"
+                    + names(sources) + ") "
+                    + "SELECT p.product_id, j.id" + values("s", sources)
+                    + " FROM ingest_sources s JOIN ingest_products p USING (key) "
+                    + "LEFT JOIN ingest_jacks j ON j.key = s.key AND j.ord = s.jack_ord");
+        }
+        return counts;
+    }
+
+    /**
+     * CTEs "step" (the sequence's increment, n) and "blocks" (g = 1, 2, ... → hi) with
+     * enough blocks for the rows in "numbered". products and jacks hand out ids in blocks
+     * of 50 (V6 migration): nextval returns the top of a block, which is how the API's
+     * Hibernate pooled generator reads it too, so row i takes id hi - n + 1 + i % n of
+     * block i / n + 1, and 50 rows cost one nextval.
+     */
+    private static String idBlocks(String table) {
+        String sequence = "pg_get_serial_sequence('" + table + "', 'id')";
+        return "step AS (SELECT seqincrement AS n FROM pg_sequence WHERE seqrelid = " + sequence + "::regclass), "
+                + "blocks AS (SELECT g, nextval(" + sequence + ") AS hi FROM generate_series(1, "
+                + "((SELECT count(*) FROM numbered) + (SELECT n FROM step) - 1) / (SELECT n FROM step)) g) ";
+    }
+
+    /** Stream rows into table as CSV, COPY_CHUNK chars at a time. */
+    private static void copy(CopyManager copy, String table, String prefix, IngestSchema.Table columns,
+                             List<Object[]> rows) throws SQLException {
+        CopyIn in = copy.copyIn("COPY " + table + " (" + prefix + names(columns) + ") FROM STDIN WITH (FORMAT csv)");
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_CHUNK + 1024);
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) buffer.append(',');
+                    Object value = row[i];
+                    if (value instanceof String s) {
+                        // Quoted, so an empty string stays one; unquoted empty is NULL.
+                        buffer.append('"').append(s.replace("\"", "\"\"")).append('"');
+                    } else if (value != null) {
+                        buffer.append(value);
+                    }
+                }
+                buffer.append('\n');
+                if (buffer.length() >= COPY_CHUNK) send(in, buffer);
+            }
+            send(in, buffer);
+            in.endCopy();
+        } finally {
+            if (in.isActive()) in.cancelCopy();
+        }
+    }
+
+    private static void send(CopyIn in, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        in.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // ─── SQL fragments ──────────────────────────────────────────────────
+
+    private static String stage(IngestSchema.Table table) {
+        return "ingest_" + table.name();
+    }
+
+    /** ", "a" text, "b" integer, ..." for a staging table. */
+    private static String definitions(IngestSchema.Table table) {
+        return table.columns().values().stream()
+                .map(c -> ", " + quote(c.name()) + " " + switch (c.type()) {
+                    case TEXT -> "text";
+                    case INTEGER -> "integer";
+                    case DOUBLE -> "double precision";
+                    case BOOLEAN -> "boolean";
+                    case DATE -> "date";
+                })
+                .collect(Collectors.joining());
+    }
+
+    /** ", "a", "b", ..." */
+    private static String names(IngestSchema.Table table) {
+        return table.columns().keySet().stream().map(c -> ", " + quote(c)).collect(Collectors.joining());
+    }
+
+    /** ", alias."a", COALESCE(alias."b", <default>), ..." */
+    private static String values(String alias, IngestSchema.Table table) {
+        return table.columns().values().stream().map(c -> ", " + value(alias, c)).collect(Collectors.joining());
+    }
+
+    /** A staged value, or the column's default when the file left it empty. */
+    private static String value(String alias, IngestSchema.Column column) {
+        String staged = alias + "." + quote(column.name());
+        return column.defaultSql() == null ? staged : "COALESCE(" + staged + ", " + column.defaultSql() + ")";
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,97 @@
+package com.pedalshootout.api.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small RFC 4180 reader: comma-separated, double-quoted fields that may hold commas,
+ * newlines and doubled quotes (""), CRLF or LF line endings. Enough for spreadsheet
+ * exports without pulling in a CSV library.
+ *
+ * An unquoted empty field reads as null (SQL NULL); a quoted empty one ("") reads as
+ * the empty string. Streams one record at a time, so a 100k-row file is never held as
+ * text.
+ */
+final class CsvReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /** The next record's fields, or null at end of input. */
+    List<String> next() throws IOException {
+        if (peek() < 0) return null;
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == '"' && field.isEmpty()) {
+                readQuoted(field);
+                fields.add(field.toString());
+                field.setLength(0);
+                c = read();
+                if (c == ',') continue;
+                if (c == '\r' && peek() == '\n') read();
+                if (c < 0 || c == '\n' || c == '\r') return fields;
+                throw new IOException("line " + recordLine + ": unexpected character after closing quote");
+            }
+            if (c == ',') {
+                fields.add(field.isEmpty() ? null : field.toString());
+                field.setLength(0);
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') read();
+                fields.add(field.isEmpty() ? null : field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /** The line the last record returned by next() started on (1-based). */
+    int recordLine() {
+        return recordLine;
+    }
+
+    private void readQuoted(StringBuilder field) throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) throw new IOException("line " + recordLine + ": unterminated quoted field");
+            if (c == '"') {
+                if (peek() != '"') return;
+                read();
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) position++;
+        if (c == '\n') line++;
+        return c;
+    }
+
+    /** Reads go through our own buffer: Reader.read() per char is several times slower. */
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+}
@@ -0,0 +1,28 @@
+package com.pedalshootout.api.ingest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validated import rows, ready to COPY: every value is already in the text form Postgres
+ * parses (true/false, ISO dates, plain numbers) or null. Rows are keyed by key, the
+ * product's position in the batch, since products have no ids yet; jacks add ord, their
+ * position within the product.
+ *
+ * Each row is a key-and-link prefix followed by one value per schema column, in
+ * IngestSchema table order:
+ *   products — key, manufacturer, product_type_id, model, products columns...
+ *   details  — key, <type>_details columns...            (one list per detail table)
+ *   jacks    — key, ord, normalled_ord, jacks columns...
+ *   sources  — key, jack_ord, product_sources columns...
+ */
+record IngestBatch(List<Object[]> products,
+                   Map<String, List<Object[]>> details,
+                   List<Object[]> jacks,
+                   List<Object[]> sources) {
+
+    static final int PRODUCT_PREFIX = 4;
+    static final int DETAIL_PREFIX = 1;
+    static final int JACK_PREFIX = 3;
+    static final int SOURCE_PREFIX = 2;
+}
@@ -0,0 +1,18 @@
+package com.pedalshootout.api.ingest;
+
+import java.util.List;
+
+/** An import that was refused before anything was written, with every problem found. */
+public class IngestException extends RuntimeException {
+
+    private final List<String> problems;
+
+    public IngestException(List<String> problems) {
+        super(problems.size() + " problem(s) in the import:\n  " + String.join("\n  ", problems));
+        this.problems = List.copyOf(problems);
+    }
+
+    public List<String> problems() {
+        return problems;
+    }
+}
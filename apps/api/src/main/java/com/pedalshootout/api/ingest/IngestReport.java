@@ -0,0 +1,19 @@
+package com.pedalshootout.api.ingest;
+
+/**
+ * What an import did. inserted + replaced + skipped = products; skipped products
+ * (already in the catalog, OnConflict.SKIP) bring none of their jacks or sources.
+ */
+public record IngestReport(int products,
+                           int inserted,
+                           int replaced,
+                           int skipped,
+                           int manufacturersCreated,
+                           int jacks,
+                           int sources,
+                           boolean committed,
+                           long millis) {
+
+    /** For an existing manufacturer + product_type + model. */
+    public enum OnConflict { SKIP, REPLACE }
+}
@@ -0,0 +1,88 @@
+package com.pedalshootout.api.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs an import from the command line and exits, instead of serving HTTP:
+ *
+ *   java -jar api.jar --spring.profiles.active=ingest [--on-conflict=replace] [--dry-run] \
+ *        pedals.csv power_supplies.json ...
+ *
+ * (or ./mvnw spring-boot:run -Dspring-boot.run.profiles=ingest -Dspring-boot.run.arguments="...").
+ * application-ingest.yml turns the web server off. The exit code is 0 when the import
+ * committed (or the dry run passed), 1 otherwise; the problems are logged.
+ */
+@Component
+@Profile("ingest")
+public class IngestRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestRunner.class);
+
+    private final CatalogIngester ingester;
+    private final ConfigurableApplicationContext context;
+
+    public IngestRunner(CatalogIngester ingester, ConfigurableApplicationContext context) {
+        this.ingester = ingester;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Path> files = args.getNonOptionArgs().stream().map(Path::of).toList();
+        if (files.isEmpty()) {
+            log.error("Nothing to import: pass product files (.json or .csv) as arguments");
+            exit(1);
+            return;
+        }
+        IngestReport.OnConflict onConflict = onConflict(args);
+        if (onConflict == null) {
+            exit(1);
+            return;
+        }
+        boolean dryRun = args.containsOption("dry-run");
+
+        try {
+            IngestReport report = ingester.ingest(files, onConflict, dryRun);
+            log.info("{}: {} products ({} inserted, {} replaced, {} skipped), {} new manufacturers, "
+                            + "{} jacks, {} sources in {} ms",
+                    report.committed() ? "Imported" : "Dry run, rolled back",
+                    report.products(), report.inserted(), report.replaced(), report.skipped(),
+                    report.manufacturersCreated(), report.jacks(), report.sources(), report.millis());
+            exit(0);
+        } catch (IngestException e) {
+            log.error(e.getMessage());
+            exit(1);
+        }
+    }
+
+    /** --on-conflict=skip (the default) or replace; null, after logging why, for anything else. */
+    private static IngestReport.OnConflict onConflict(ApplicationArguments args) {
+        if (!args.containsOption("on-conflict")) return IngestReport.OnConflict.SKIP;
+        List<String> values = args.getOptionValues("on-conflict");
+        String value = values.isEmpty() ? "" : values.get(0);
+        try {
+            return IngestReport.OnConflict.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.error("--on-conflict={} is not one of {}", value,
+                    Arrays.toString(IngestReport.OnConflict.values()).toLowerCase(Locale.ROOT));
+            return null;
+        }
+    }
+
+    /** Close the context (and the pool) and stop; nothing else should start after an import. */
+    private void exit(int code) {
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
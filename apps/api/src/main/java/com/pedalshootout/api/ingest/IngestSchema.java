@@ -0,0 +1,155 @@
+package com.pedalshootout.api.ingest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What an import may write, read from the database it's about to write to: the columns
+ * of products, jacks, product_sources and every <type>_details table with their types,
+ * whether they're required and their defaults, plus each CHECK (col IN (...))
+ * vocabulary and the product types.
+ *
+ * Reading it rather than restating it means a migration that adds a column or a
+ * vocabulary value (a new effect_type, say) is importable the moment it's applied, and
+ * the validator can never accept a value Postgres would then reject halfway through a
+ * 100k-row load.
+ */
+record IngestSchema(Map<String, Table> tables, Map<String, ProductType> productTypes) {
+
+    static final String PRODUCTS = "products";
+    static final String JACKS = "jacks";
+    static final String SOURCES = "product_sources";
+
+    /**
+     * Columns the import fills in itself (ids, foreign keys, timestamps) rather than
+     * taking from the file.
+     */
+    private static final Map<String, Set<String>> MANAGED = Map.of(
+            PRODUCTS, Set.of("id", "manufacturer_id", "product_type_id", "model", "created_at", "updated_at"),
+            JACKS, Set.of("id", "product_id", "normalled_to_jack_id"),
+            SOURCES, Set.of("id", "product_id", "jack_id", "created_at"));
+    private static final Set<String> MANAGED_DETAIL = Set.of("product_id");
+
+    enum Type { TEXT, INTEGER, DOUBLE, BOOLEAN, DATE }
+
+    /**
+     * A column the file may set. defaultSql is the column's DEFAULT expression ("true",
+     * "CURRENT_DATE"), used when the file leaves it empty, or null; required means NOT
+     * NULL with no default. allowed is the CHECK vocabulary, or null for free values.
+     */
+    record Column(String name, Type type, boolean required, String defaultSql, Set<String> allowed) {}
+
+    /** A table's importable columns, in table order; position(column) is the index in that order. */
+    record Table(String name, Map<String, Column> columns, Map<String, Integer> positions) {
+
+        Table(String name, Map<String, Column> columns) {
+            this(name, columns, new HashMap<>());
+            columns.keySet().forEach(c -> positions.put(c, positions.size()));
+        }
+
+        int position(String column) {
+            return positions.getOrDefault(column, -1);
+        }
+    }
+
+    record ProductType(int id, String name, String detailTable) {}
+
+    Table table(String name) {
+        return tables.get(name);
+    }
+
+    /** CHECK ((col = ANY (ARRAY['a'::text, 'b'::text]))), as pg_get_constraintdef prints IN lists. */
+    private static final Pattern IN_LIST = Pattern.compile("^CHECK \\(\\(?\\(?(\\w+) = ANY \\(ARRAY\\[(.*)]\\)\\)\\)?\\)?$");
+    private static final Pattern LITERAL = Pattern.compile("'((?:[^']|'')*)'");
+
+    static IngestSchema load(Connection connection) throws SQLException {
+        Map<String, ProductType> types = new LinkedHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT id, type_name FROM product_types ORDER BY id");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString(2);
+                types.put(name, new ProductType(rs.getInt(1), name, name + "_details"));
+            }
+        }
+        List<String> names = new ArrayList<>(List.of(PRODUCTS, JACKS, SOURCES));
+        types.values().forEach(t -> names.add(t.detailTable()));
+
+        Map<String, Map<String, Set<String>>> vocabularies = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT c.conrelid::regclass::text, pg_get_constraintdef(c.oid)
+                FROM pg_constraint c
+                WHERE c.contype = 'c' AND c.conrelid::regclass::text = ANY (?)
+                """)) {
+            ps.setArray(1, connection.createArrayOf("text", names.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Matcher m = IN_LIST.matcher(rs.getString(2));
+                    if (!m.matches()) continue;     // range checks and the like: Postgres enforces them
+                    Set<String> values = new LinkedHashSet<>();
+                    Matcher literal = LITERAL.matcher(m.group(2));
+                    while (literal.find()) values.add(literal.group(1).replace("''", "'"));
+                    vocabularies.computeIfAbsent(rs.getString(1), k -> new HashMap<>()).put(m.group(1), values);
+                }
+            }
+        }
+
+        Map<String, Map<String, Column>> columns = new LinkedHashMap<>();
+        names.forEach(n -> columns.put(n, new LinkedHashMap<>()));
+        Set<String> present = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT table_name, column_name, data_type, is_nullable = 'YES', column_default
+                FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = ANY (?)
+                ORDER BY table_name, ordinal_position
+                """)) {
+            ps.setArray(1, connection.createArrayOf("text", names.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString(1);
+                    String column = rs.getString(2);
+                    present.add(table);
+                    if (MANAGED.getOrDefault(table, MANAGED_DETAIL).contains(column)) continue;
+                    String defaultSql = rs.getString(5);
+                    if (defaultSql != null && defaultSql.startsWith("NULL::")) defaultSql = null;
+                    Set<String> allowed = vocabularies.getOrDefault(table, Map.of()).get(column);
+                    columns.get(table).put(column, new Column(column, type(table, column, rs.getString(3)),
+                            !rs.getBoolean(4) && defaultSql == null, defaultSql, allowed));
+                }
+            }
+        }
+
+        Map<String, Table> tables = new LinkedHashMap<>();
+        columns.forEach((name, cols) -> {
+            if (present.contains(name)) tables.put(name, new Table(name, cols));
+        });
+        Map<String, ProductType> productTypes = new LinkedHashMap<>();
+        types.forEach((name, t) -> {
+            if (tables.containsKey(t.detailTable())) productTypes.put(name, t);
+        });
+        return new IngestSchema(tables, productTypes);
+    }
+
+    private static Type type(String table, String column, String dataType) {
+        return switch (dataType) {
+            case "text", "character varying", "character" -> Type.TEXT;
+            case "integer", "smallint", "bigint" -> Type.INTEGER;
+            case "double precision", "real", "numeric" -> Type.DOUBLE;
+            case "boolean" -> Type.BOOLEAN;
+            case "date" -> Type.DATE;
+            default -> throw new IllegalStateException(
+                    table + "." + column + " is " + dataType + ", which the importer doesn't handle yet");
+        };
+    }
+}
@@ -0,0 +1,251 @@
+package com.pedalshootout.api.ingest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a whole batch in memory before anything is written, against the schema read
+ * from the database (IngestSchema):
+ *   - every product names a manufacturer, a known product_type and a model, and no two
+ *     products in the batch share that natural key
+ *   - every column exists on products or the product type's detail table (or jacks /
+ *     product_sources), and its value parses as the column's type
+ *   - values in CHECK vocabularies are in them; NOT NULL columns without a default
+ *     are set
+ *   - jack keys are unique per product, normalled_to and a source's jack name a jack of
+ *     the same product, and a source has a jack exactly when its table_name is jacks
+ *
+ * All problems are collected (up to MAX_ERRORS), each with the record's origin, so one
+ * run reports everything wrong with a file instead of failing on the first row —
+ * and a batch with any problem is never loaded, so an import is all-or-nothing.
+ */
+final class IngestValidator {
+
+    static final int MAX_ERRORS = 200;
+
+    private final IngestSchema schema;
+    private final IngestSchema.Table products;
+    private final IngestSchema.Table jacks;
+    private final IngestSchema.Table sources;
+    private final List<String> errors;
+    private int suppressed;
+
+    IngestValidator(IngestSchema schema, List<String> errors) {
+        this.schema = schema;
+        this.products = schema.table(IngestSchema.PRODUCTS);
+        this.jacks = schema.table(IngestSchema.JACKS);
+        this.sources = schema.table(IngestSchema.SOURCES);
+        this.errors = errors;
+    }
+
+    /** The batch, or null if anything was wrong (see errors). */
+    IngestBatch validate(List<ProductRecord> records) {
+        List<Object[]> productRows = new ArrayList<>(records.size());
+        Map<String, List<Object[]>> detailRows = new LinkedHashMap<>();
+        List<Object[]> jackRows = new ArrayList<>();
+        List<Object[]> sourceRows = new ArrayList<>();
+        Map<String, String> seen = new HashMap<>(records.size() * 2);
+
+        for (int key = 0; key < records.size(); key++) {
+            ProductRecord record = records.get(key);
+            String where = record.origin();
+            Map<String, String> columns = record.columns();
+            String manufacturer = required(columns.get(ProductRecord.MANUFACTURER), where, ProductRecord.MANUFACTURER);
+            String model = required(columns.get(ProductRecord.MODEL), where, ProductRecord.MODEL);
+            String typeName = required(columns.get(ProductRecord.PRODUCT_TYPE), where, ProductRecord.PRODUCT_TYPE);
+            IngestSchema.ProductType type = typeName == null ? null : schema.productTypes().get(typeName);
+            if (typeName != null && type == null) {
+                error(where + ": product_type '" + typeName + "' is not one of " + schema.productTypes().keySet());
+            }
+            if (manufacturer != null && model != null && type != null) {
+                String previous = seen.putIfAbsent(manufacturer + "\u0000" + type.id() + "\u0000" + model, where);
+                if (previous != null) error(where + ": " + record.naturalKey() + " is also at " + previous);
+            }
+            if (type == null) continue;
+            IngestSchema.Table details = schema.table(type.detailTable());
+
+            Object[] product = new Object[IngestBatch.PRODUCT_PREFIX + products.columns().size()];
+            product[0] = key;
+            product[1] = manufacturer;
+            product[2] = type.id();
+            product[3] = model;
+            Object[] detail = new Object[IngestBatch.DETAIL_PREFIX + details.columns().size()];
+            detail[0] = key;
+            for (Map.Entry<String, String> e : columns.entrySet()) {
+                String column = e.getKey();
+                if (column.equals(ProductRecord.MANUFACTURER) || column.equals(ProductRecord.MODEL)
+                        || column.equals(ProductRecord.PRODUCT_TYPE)) {
+                    continue;
+                }
+                if (!set(products, column, e.getValue(), product, IngestBatch.PRODUCT_PREFIX, where)
+                        && !set(details, column, e.getValue(), detail, IngestBatch.DETAIL_PREFIX, where)) {
+                    error(where + ": " + column + " is not a column of products or " + details.name());
+                }
+            }
+            checkRequired(products, product, IngestBatch.PRODUCT_PREFIX, where);
+            checkRequired(details, detail, IngestBatch.DETAIL_PREFIX, where);
+            productRows.add(product);
+            detailRows.computeIfAbsent(details.name(), k -> new ArrayList<>()).add(detail);
+
+            Map<String, Integer> jackOrds = jacks(record, key, jackRows);
+            for (ProductRecord.Source s : record.sources()) {
+                sourceRows.add(source(s, key, type, jackOrds));
+            }
+        }
+        if (suppressed > 0) errors.add("... and " + suppressed + " more");
+        return errors.isEmpty() ? new IngestBatch(productRows, detailRows, jackRows, sourceRows) : null;
+    }
+
+    /** Adds the product's jack rows; returns jack key → ord for its sources. */
+    private Map<String, Integer> jacks(ProductRecord record, int key, List<Object[]> into) {
+        Map<String, Integer> ords = new HashMap<>();
+        for (int ord = 0; ord < record.jacks().size(); ord++) {
+            ProductRecord.Jack jack = record.jacks().get(ord);
+            String jackKey = blankToNull(jack.key());
+            if (jackKey != null && ords.putIfAbsent(jackKey, ord) != null) {
+                error(jack.origin() + ": jack key '" + jackKey + "' is used twice in " + record.naturalKey());
+            }
+        }
+        for (int ord = 0; ord < record.jacks().size(); ord++) {
+            ProductRecord.Jack jack = record.jacks().get(ord);
+            Object[] row = new Object[IngestBatch.JACK_PREFIX + jacks.columns().size()];
+            row[0] = key;
+            row[1] = ord;
+            String normalledTo = blankToNull(jack.normalledTo());
+            if (normalledTo != null) {
+                Integer target = ords.get(normalledTo);
+                if (target == null || target == ord) {
+                    error(jack.origin() + ": normalled_to '" + normalledTo + "' is not another jack of " + record.naturalKey());
+                }
+                row[2] = target;
+            }
+            jack.columns().forEach((column, value) -> {
+                if (!set(jacks, column, value, row, IngestBatch.JACK_PREFIX, jack.origin())) {
+                    error(jack.origin() + ": " + column + " is not a column of jacks");
+                }
+            });
+            checkRequired(jacks, row, IngestBatch.JACK_PREFIX, jack.origin());
+            into.add(row);
+        }
+        return ords;
+    }
+
+    private Object[] source(ProductRecord.Source source, int key, IngestSchema.ProductType type,
+                            Map<String, Integer> jackOrds) {
+        Object[] row = new Object[IngestBatch.SOURCE_PREFIX + sources.columns().size()];
+        row[0] = key;
+        source.columns().forEach((column, value) -> {
+            if (!set(sources, column, value, row, IngestBatch.SOURCE_PREFIX, source.origin())) {
+                error(source.origin() + ": " + column + " is not a column of product_sources");
+            }
+        });
+        checkRequired(sources, row, IngestBatch.SOURCE_PREFIX, source.origin());
+
+        int tableNameAt = IngestBatch.SOURCE_PREFIX + sources.position("table_name");
+        Object tableName = row[tableNameAt];
+        String jack = blankToNull(source.jack());
+        if (jack != null) {
+            row[1] = jackOrds.get(jack);
+            if (row[1] == null) error(source.origin() + ": jack '" + jack + "' is not a jack of this product");
+            if (tableName != null && !IngestSchema.JACKS.equals(tableName)) {
+                error(source.origin() + ": a source with a jack must have table_name jacks");
+            }
+        } else if (IngestSchema.JACKS.equals(tableName)) {
+            error(source.origin() + ": table_name jacks needs the jack it documents");
+        }
+        if (tableName != null && !tableName.equals(IngestSchema.PRODUCTS) && !tableName.equals(IngestSchema.JACKS)
+                && !tableName.equals(type.detailTable())) {
+            error(source.origin() + ": table_name " + tableName + " doesn't belong to a " + type.name());
+        }
+        return row;
+    }
+
+    // ─── Values ─────────────────────────────────────────────────────────
+
+    /** Parse value into row if column is in table; false if it isn't. */
+    private boolean set(IngestSchema.Table table, String column, String value, Object[] row, int prefix, String where) {
+        IngestSchema.Column c = table.columns().get(column);
+        if (c == null) return false;
+        row[prefix + table.position(column)] = parse(c, value, where);
+        return true;
+    }
+
+    /** The value as Postgres text for the column's type, or null; records an error if it doesn't fit. */
+    private String parse(IngestSchema.Column column, String raw, String where) {
+        String value = blankToNull(raw);
+        if (value == null) return null;
+        String parsed = switch (column.type()) {
+            case TEXT -> raw;
+            case INTEGER -> {
+                try {
+                    yield Integer.toString(Integer.parseInt(value));
+                } catch (NumberFormatException e) {
+                    yield null;
+                }
+            }
+            case DOUBLE -> {
+                try {
+                    // Java also takes 1d, 0x1p3 and NaN, which Postgres doesn't
+                    double d = Double.parseDouble(value);
+                    char last = value.charAt(value.length() - 1);
+                    boolean plain = (Character.isDigit(last) || last == '.') && value.indexOf('x') < 0 && value.indexOf('X') < 0;
+                    yield plain && Double.isFinite(d) ? Double.toString(d) : null;
+                } catch (NumberFormatException e) {
+                    yield null;
+                }
+            }
+            case BOOLEAN -> switch (value.toLowerCase()) {
+                case "true", "t", "yes", "y", "1" -> "true";
+                case "false", "f", "no", "n", "0" -> "false";
+                default -> null;
+            };
+            case DATE -> {
+                try {
+                    yield LocalDate.parse(value).toString();
+                } catch (DateTimeParseException e) {
+                    yield null;
+                }
+            }
+        };
+        if (parsed == null) {
+            error(where + ": " + column.name() + " '" + value + "' is not " + switch (column.type()) {
+                case INTEGER -> "an integer";
+                case DOUBLE -> "a number";
+                case BOOLEAN -> "true or false";
+                case DATE -> "a date (yyyy-mm-dd)";
+                case TEXT -> "text";
+            });
+        } else if (column.allowed() != null && !column.allowed().contains(parsed)) {
+            error(where + ": " + column.name() + " '" + parsed + "' is not one of " + column.allowed());
+        }
+        return parsed;
+    }
+
+    private void checkRequired(IngestSchema.Table table, Object[] row, int prefix, String where) {
+        int i = prefix;
+        for (IngestSchema.Column c : table.columns().values()) {
+            if (c.required() && row[i] == null) error(where + ": " + table.name() + "." + c.name() + " is required");
+            i++;
+        }
+    }
+
+    private String required(String value, String where, String column) {
+        String v = blankToNull(value);
+        if (v == null) error(where + ": " + column + " is required");
+        return v;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private void error(String message) {
+        if (errors.size() < MAX_ERRORS) errors.add(message);
+        else suppressed++;
+    }
+}
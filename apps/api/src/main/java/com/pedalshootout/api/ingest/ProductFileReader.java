@@ -0,0 +1,214 @@
+package com.pedalshootout.api.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads import files into ProductRecords. Two formats, picked by extension:
+ *
+ * JSON — an array of products, each an object of column → value, with the product's
+ * jacks and sources nested:
+ *
+ *   [{"manufacturer": "Boss", "product_type": "pedal", "model": "DS-1",
+ *     "width_mm": 73, "effect_type": "Distortion",
+ *     "jacks":   [{"key": "in", "category": "audio", "direction": "input", ...}],
+ *     "sources": [{"table_name": "jacks", "jack": "in", "field_name": "impedance_ohms", ...}]}]
+ *
+ * Detail columns can sit next to the product's or in a nested "details" object.
+ *
+ * CSV — one file per table, since rows don't nest: pedals.csv holds the products (detail
+ * columns inline) and the optional siblings pedals.jacks.csv and pedals.sources.csv
+ * hold their jacks and sources, each row naming its product by the manufacturer,
+ * product_type and model columns. The first row of every file is the header.
+ *
+ * Either way a file can mix product types; the product_type column decides. Problems
+ * that stop a row being read at all (a jack for a product that isn't in the file, a
+ * nested object where a value belongs) go to errors; checking values is the
+ * validator's job.
+ */
+final class ProductFileReader {
+
+    static final String DETAILS = "details";
+    static final String JACKS = "jacks";
+    static final String SOURCES = "sources";
+    static final String JACK_KEY = "key";
+    static final String NORMALLED_TO = "normalled_to";
+    static final String SOURCE_JACK = "jack";
+
+    private final ObjectMapper objectMapper;
+
+    ProductFileReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    List<ProductRecord> read(Path file, List<String> errors) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".json")) return readJson(file, errors);
+        if (name.endsWith(".jacks.csv") || name.endsWith(".sources.csv")) {
+            throw new IOException(file + ": pass the products file; its .jacks.csv and .sources.csv are read with it");
+        }
+        if (name.endsWith(".csv")) return readCsv(file, errors);
+        throw new IOException(file + ": expected a .json or .csv file");
+    }
+
+    // ─── JSON ───────────────────────────────────────────────────────────
+
+    private List<ProductRecord> readJson(Path file, List<String> errors) throws IOException {
+        String fileName = file.getFileName().toString();
+        List<ProductRecord> products = new ArrayList<>();
+        try (MappingIterator<JsonNode> it = objectMapper.readerFor(JsonNode.class).readValues(file.toFile())) {
+            while (it.hasNextValue()) {
+                JsonNode node = it.nextValue();
+                ProductRecord product = new ProductRecord(fileName + "[" + products.size() + "]");
+                products.add(product);
+                if (!node.isObject()) {
+                    errors.add(product.origin() + ": expected an object");
+                    continue;
+                }
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    switch (field.getKey()) {
+                        case DETAILS -> scalars(field.getValue(), product.columns(), product.origin() + ".details", errors);
+                        case JACKS -> readJsonJacks(field.getValue(), product, errors);
+                        case SOURCES -> readJsonSources(field.getValue(), product, errors);
+                        default -> scalar(field.getKey(), field.getValue(), product.columns(), product.origin(), errors);
+                    }
+                }
+            }
+        }
+        return products;
+    }
+
+    private void readJsonJacks(JsonNode jacks, ProductRecord product, List<String> errors) {
+        String where = product.origin() + ".jacks";
+        if (!jacks.isArray()) {
+            errors.add(where + ": expected an array");
+            return;
+        }
+        for (int i = 0; i < jacks.size(); i++) {
+            Map<String, String> columns = new HashMap<>();
+            String origin = where + "[" + i + "]";
+            scalars(jacks.get(i), columns, origin, errors);
+            product.jacks().add(new ProductRecord.Jack(origin, columns.remove(JACK_KEY), columns.remove(NORMALLED_TO), columns));
+        }
+    }
+
+    private void readJsonSources(JsonNode sources, ProductRecord product, List<String> errors) {
+        String where = product.origin() + ".sources";
+        if (!sources.isArray()) {
+            errors.add(where + ": expected an array");
+            return;
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            Map<String, String> columns = new HashMap<>();
+            String origin = where + "[" + i + "]";
+            scalars(sources.get(i), columns, origin, errors);
+            product.sources().add(new ProductRecord.Source(origin, columns.remove(SOURCE_JACK), columns));
+        }
+    }
+
+    private static void scalars(JsonNode object, Map<String, String> into, String where, List<String> errors) {
+        if (!object.isObject()) {
+            errors.add(where + ": expected an object");
+            return;
+        }
+        object.fields().forEachRemaining(f -> scalar(f.getKey(), f.getValue(), into, where, errors));
+    }
+
+    /** Numbers keep their JSON spelling and booleans become true/false; the validator parses them. */
+    private static void scalar(String column, JsonNode value, Map<String, String> into, String where, List<String> errors) {
+        if (value.isContainerNode()) {
+            errors.add(where + "." + column + ": expected a single value");
+        } else {
+            into.put(column, value.isNull() ? null : value.asText());
+        }
+    }
+
+    // ─── CSV ────────────────────────────────────────────────────────────
+
+    private List<ProductRecord> readCsv(Path file, List<String> errors) throws IOException {
+        String fileName = file.getFileName().toString();
+        String base = fileName.substring(0, fileName.length() - ".csv".length());
+        List<ProductRecord> products = new ArrayList<>();
+        Map<String, ProductRecord> byKey = new HashMap<>();
+
+        forEachRow(file, (origin, row) -> {
+            ProductRecord product = new ProductRecord(origin, row, new ArrayList<>(), new ArrayList<>());
+            products.add(product);
+            byKey.putIfAbsent(product.naturalKey(), product);
+        });
+
+        Path jacks = file.resolveSibling(base + ".jacks.csv");
+        if (Files.exists(jacks)) {
+            forEachRow(jacks, (origin, row) -> {
+                ProductRecord product = owner(row, byKey, origin, errors);
+                if (product != null) {
+                    product.jacks().add(new ProductRecord.Jack(origin, row.remove(JACK_KEY), row.remove(NORMALLED_TO), row));
+                }
+            });
+        }
+        Path sources = file.resolveSibling(base + ".sources.csv");
+        if (Files.exists(sources)) {
+            forEachRow(sources, (origin, row) -> {
+                ProductRecord product = owner(row, byKey, origin, errors);
+                if (product != null) {
+                    product.sources().add(new ProductRecord.Source(origin, row.remove(SOURCE_JACK), row));
+                }
+            });
+        }
+        return products;
+    }
+
+    /** The product a jacks/sources row names, taking the naming columns out of the row. */
+    private static ProductRecord owner(Map<String, String> row, Map<String, ProductRecord> byKey,
+                                       String origin, List<String> errors) {
+        String key = row.remove(ProductRecord.MANUFACTURER) + " / " + row.remove(ProductRecord.PRODUCT_TYPE)
+                + " / " + row.remove(ProductRecord.MODEL);
+        ProductRecord product = byKey.get(key);
+        if (product == null) errors.add(origin + ": no product " + key + " in the products file");
+        return product;
+    }
+
+    private interface RowHandler {
+        void accept(String origin, Map<String, String> row);
+    }
+
+    /** Each data row as header → value, skipping blank lines. */
+    private static void forEachRow(Path file, RowHandler handler) throws IOException {
+        String fileName = file.getFileName().toString();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(in);
+            List<String> header = csv.next();
+            if (header == null) return;
+            if (!header.isEmpty() && header.get(0) != null && header.get(0).startsWith("﻿")) {
+                header.set(0, header.get(0).substring(1));    // Excel's UTF-8 byte order mark
+            }
+            for (List<String> fields; (fields = csv.next()) != null; ) {
+                if (fields.stream().allMatch(f -> f == null)) continue;
+                String origin = fileName + ":" + csv.recordLine();
+                if (fields.size() != header.size()) {
+                    throw new IOException(origin + ": " + fields.size() + " fields, header has " + header.size());
+                }
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String column = header.get(i) == null ? "" : header.get(i).trim();
+                    row.put(column, fields.get(i));
+                }
+                handler.accept(origin, row);
+            }
+        }
+    }
+}
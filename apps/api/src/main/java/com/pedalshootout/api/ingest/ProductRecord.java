@@ -0,0 +1,47 @@
+package com.pedalshootout.api.ingest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One product as read from an import file, before validation: every value is still the
+ * text from the file (null for empty), keyed by column name.
+ *
+ * columns holds the products columns and the detail-table columns side by side, plus
+ * the three that name the product: manufacturer, product_type and model — a file
+ * doesn't know product or manufacturer ids. The validator decides which table each
+ * column belongs to.
+ *
+ * origin says where the record came from ("pedals.csv:12", "boards.json[3]") so errors
+ * can point at it.
+ */
+record ProductRecord(String origin,
+                     Map<String, String> columns,
+                     List<Jack> jacks,
+                     List<Source> sources) {
+
+    static final String MANUFACTURER = "manufacturer";
+    static final String PRODUCT_TYPE = "product_type";
+    static final String MODEL = "model";
+
+    ProductRecord(String origin) {
+        this(origin, new LinkedHashMap<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * A jack. key is the file's name for it, so other jacks can be normalled to it
+     * (normalledTo) and sources can cite it (ProductRecord.Source.jack); both refer to
+     * jacks of the same product.
+     */
+    record Jack(String origin, String key, String normalledTo, Map<String, String> columns) {}
+
+    /** A product_sources row; jack is a Jack.key when it documents a jack. */
+    record Source(String origin, String jack, Map<String, String> columns) {}
+
+    /** manufacturer / product_type / model, for error messages and matching child rows. */
+    String naturalKey() {
+        return columns.get(MANUFACTURER) + " / " + columns.get(PRODUCT_TYPE) + " / " + columns.get(MODEL);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pedalshootout.api.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The most SQL statements one request to this endpoint may run, against the seed catalog.
+ *
+ * Every controller handler carries one, and SqlBudgetTest holds them to it: it calls
+ * each endpoint once against a seeded Postgres, counts the statements that reach the
+ * JDBC driver, and fails if any endpoint goes over. An N+1 creeping into a service
+ * shows up there as a red build rather than as a slow page in production.
+ *
+ *   @SqlBudget(0)   served from the catalog snapshot — touching the database is a bug
+ *   @SqlBudget(4)   a keyset page: products, (null tail), details, jacks
+ *
+ * The number is per request, whatever the page or list size, so "one query per row"
+ * can't hide inside it. Where it does depend on the data (batched reads), the handler
+ * says how and the budget is sized for the seed.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /** Maximum statements per request. */
+    int value();
+}
@@ -0,0 +1,58 @@
+package com.pedalshootout.api.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ *
+ * Hibernate passes every statement it is about to prepare through the configured
+ * StatementInspector (registered in MetricsConfig); this one just bumps a counter for
+ * whichever Scope is open on the thread, if any, and hands the SQL back unchanged.
+ *
+ *   try (SqlStatementCounter.Scope sql = SqlStatementCounter.start()) {
+ *       pedalService.findAll(null);
+ *       sql.count();   // statements run inside the block
+ *   }
+ *
+ * Scopes nest: an inner scope's statements also count towards the outer one. Work
+ * handed to another thread (a FanOut subtask, an async response body) isn't counted.
+ */
+public final class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.outer) {
+            scope.count++;
+        }
+        return sql;
+    }
+
+    /** Start counting on this thread until the returned scope is closed. */
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope outer;
+        private int count;
+
+        private Scope(Scope outer) {
+            this.outer = outer;
+        }
+
+        /** Statements prepared on this thread since start(). */
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            if (outer == null) CURRENT.remove();
+            else CURRENT.set(outer);
+        }
+    }
+}
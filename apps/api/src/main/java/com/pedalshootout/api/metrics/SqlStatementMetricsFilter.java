@@ -0,0 +1,49 @@
+package com.pedalshootout.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, as the
+ * pedalshootout.http.sql.statements distribution summary (tags: method, uri).
+ *
+ * uri is the route template (/api/pedals/{id}), the same tag http.server.requests
+ * uses, so a p99 latency regression can be lined up against its statement count.
+ * A jump from a constant to something that grows with the catalog is an N+1.
+ *
+ * The filter sits inside ResponseCacheFilter (see MetricsConfig), so requests answered
+ * from the response cache never reach it and record nothing: the summary describes the
+ * requests that got past the cache and reached a controller.
+ */
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public SqlStatementMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        try (SqlStatementCounter.Scope sql = SqlStatementCounter.start()) {
+            chain.doFilter(request, response);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("pedalshootout.http.sql.statements")
+                    .description("SQL statements run per request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(registry)
+                    .record(sql.count());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pedalshootout.api.paging;
+
+import com.pedalshootout.api.entity.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position in a keyset-paged list: "the row after this one".
+ *
+ * A cursor holds the sort key values and ID of the last row on the previous page, plus
+ * which sort/direction it was issued for. The next page is then
+ *   WHERE (sort columns, id) > (cursor values, cursor id)  ORDER BY sort columns, id
+ * which is an index seek — page 500 costs the same as page 1, unlike OFFSET, which
+ * has to walk and throw away every row before the page.
+ *
+ * Clients see it as an opaque base64url token (like a Stripe or GitHub cursor) and
+ * should just send back whatever nextCursor they got. The encoding is a small binary
+ * record rather than JSON so tokens stay short enough for a query string.
+ *
+ * nullsPhase: for nullable sort keys (MSRP, dimensions), rows with no value are listed
+ * after all rows with one. A cursor in that tail only needs the ID.
+ */
+public record Cursor(SortKey sort, boolean descending, boolean nullsPhase, List<Object> values, int id) {
+
+    private static final byte FORMAT = 1;
+
+    /** Cursor pointing just after the given row. */
+    public static Cursor after(SortKey sort, boolean descending, Product last) {
+        List<Object> values = new ArrayList<>();
+        for (SortKey.Column column : sort.columns()) {
+            values.add(column.getter().apply(last));
+        }
+        if (sort.nullable() && values.get(0) == null) {
+            return new Cursor(sort, descending, true, List.of(), last.getId());
+        }
+        return new Cursor(sort, descending, false, List.copyOf(values), last.getId());
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeByte(sort.ordinal());
+            out.writeBoolean(descending);
+            out.writeBoolean(nullsPhase);
+            out.writeInt(id);
+            if (!nullsPhase) {
+                for (int i = 0; i < values.size(); i++) {
+                    Object value = values.get(i);
+                    Class<?> type = sort.columns().get(i).type();
+                    if (type == String.class) out.writeUTF((String) value);
+                    else if (type == Integer.class) out.writeInt((Integer) value);
+                    else out.writeDouble((Double) value);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // in-memory stream, can't happen
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /** Decode a token from a client. Throws IllegalArgumentException if it isn't one of ours. */
+    public static Cursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != FORMAT) throw new IllegalArgumentException("Unsupported cursor");
+            SortKey sort = SortKey.values()[in.readUnsignedByte()];
+            boolean descending = in.readBoolean();
+            boolean nullsPhase = in.readBoolean();
+            int id = in.readInt();
+            if (nullsPhase && !sort.nullable()) throw new IllegalArgumentException("Malformed cursor");
+            List<Object> values = new ArrayList<>();
+            if (!nullsPhase) {
+                for (SortKey.Column column : sort.columns()) {
+                    if (column.type() == String.class) values.add(in.readUTF());
+                    else if (column.type() == Integer.class) values.add(in.readInt());
+                    else values.add(in.readDouble());
+                }
+            }
+            if (in.available() > 0) throw new IllegalArgumentException("Malformed cursor");
+            return new Cursor(sort, descending, nullsPhase, List.copyOf(values), id);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pedalshootout.api.paging;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The paging half of a paged list request: ?sort=&dir=&limit=&cursor=.
+ *
+ * When a cursor is sent, it must have been issued for the same sort and direction —
+ * a position in "cheapest first" means nothing in "by model name".
+ */
+public record KeysetPageRequest(SortKey sort, boolean descending, Cursor after, int limit) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    /** Parse and validate controller params; bad input is a 400, not a 500. */
+    public static KeysetPageRequest of(String sort, String dir, Integer limit, String cursor) {
+        try {
+            SortKey key = SortKey.fromParam(sort);
+            boolean descending = parseDirection(dir);
+            int size = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(1, limit), MAX_LIMIT);
+            Cursor after = null;
+            if (cursor != null && !cursor.isBlank()) {
+                after = Cursor.decode(cursor);
+                if (after.sort() != key || after.descending() != descending) {
+                    throw new IllegalArgumentException(
+                            "Cursor was issued for sort=" + after.sort().param()
+                            + "&dir=" + (after.descending() ? "desc" : "asc"));
+                }
+            }
+            return new KeysetPageRequest(key, descending, after, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private static boolean parseDirection(String dir) {
+        if (dir == null || dir.isBlank() || dir.equalsIgnoreCase("asc")) return false;
+        if (dir.equalsIgnoreCase("desc")) return true;
+        throw new IllegalArgumentException("dir must be 'asc' or 'desc'");
+    }
+}
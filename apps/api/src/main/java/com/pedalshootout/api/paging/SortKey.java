@@ -0,0 +1,69 @@
+package com.pedalshootout.api.paging;
+
+import com.pedalshootout.api.entity.Product;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * The orderings a paged catalog endpoint can be sorted by.
+ *
+ * Each key is a list of columns (as JPQL paths on Product p / Manufacturer m),
+ * always followed by p.id as the tie-breaker. The tie-breaker is what makes the order
+ * total: two pedals with the same MSRP still have a fixed position relative to each
+ * other, so a cursor pointing "after (9900, 412)" means exactly one place in the list.
+ *
+ * Every ordering is backed by a composite index from V4__keyset_pagination_indexes.sql
+ * ((product_type_id, col, id) and (col, id)), so Postgres can jump straight to the
+ * cursor position instead of counting past the rows before it.
+ *
+ * Nullable keys (MSRP, dimensions) keep products with no value at the end of the list
+ * in both directions — see ProductKeysetRepositoryImpl for how that is paged.
+ */
+public enum SortKey {
+    ID(false),
+    MODEL(false, new Column("p.model", String.class, Product::getModel)),
+    MANUFACTURER(false,
+            new Column("m.name", String.class, p -> p.getManufacturer().getName()),
+            new Column("p.model", String.class, Product::getModel)),
+    MSRP(true, new Column("p.msrpCents", Integer.class, Product::getMsrpCents)),
+    WIDTH(true, new Column("p.widthMm", Double.class, Product::getWidthMm)),
+    DEPTH(true, new Column("p.depthMm", Double.class, Product::getDepthMm)),
+    HEIGHT(true, new Column("p.heightMm", Double.class, Product::getHeightMm));
+
+    /** One sort column: its JPQL path, Java type (for cursor decoding) and getter. */
+    public record Column(String path, Class<?> type, Function<Product, Object> getter) {}
+
+    private final boolean nullable;
+    private final List<Column> columns;
+
+    SortKey(boolean nullable, Column... columns) {
+        this.nullable = nullable;
+        this.columns = List.of(columns);
+    }
+
+    /** Columns before the p.id tie-breaker (empty for ID). */
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /** True for single-column keys whose value can be NULL. */
+    public boolean nullable() {
+        return nullable;
+    }
+
+    /** The query-string name, e.g. "msrp". */
+    public String param() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Parse ?sort=; null or blank means ID. */
+    public static SortKey fromParam(String raw) {
+        if (raw == null || raw.isBlank()) return ID;
+        for (SortKey key : values()) {
+            if (key.param().equalsIgnoreCase(raw.trim())) return key;
+        }
+        throw new IllegalArgumentException("Unknown sort '" + raw + "'");
+    }
+}
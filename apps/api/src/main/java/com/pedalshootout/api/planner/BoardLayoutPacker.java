@@ -0,0 +1,211 @@
+package com.pedalshootout.api.planner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 2D rectangle packer that finds actual x/y positions for pedals on a board.
+ *
+ * Uses the MaxRects algorithm (Jylänki, "A Thousand Ways to Pack the Bin"):
+ *   - The board starts as one free rectangle.
+ *   - Every placement splits each free rectangle it overlaps into the (up to four)
+ *     maximal rectangles left around it, then drops free rectangles that are fully
+ *     contained in another one.
+ *   - Each pedal may be rotated 90°.
+ *
+ * Placement order uses "global best fit": at every step, every remaining pedal is
+ * scored against every free rectangle in both orientations and the single best
+ * (pedal, position) pair is placed. That's O(n² · free rects) but n is a pedalboard's
+ * worth of pedals, so a 40-pedal board packs in around a millisecond.
+ *
+ * Because no single scoring rule wins on every input, the pack is run once per
+ * Heuristic and the result that places the most area is kept.
+ *
+ * Multiple surfaces (e.g. a board's second tier) are filled in order: whatever
+ * doesn't fit on the first surface is packed onto the next.
+ *
+ * Coordinates are in mm from the left edge (x) and back edge (y) of each surface.
+ * This class is pure computation — no Spring, no database.
+ */
+public final class BoardLayoutPacker {
+
+    private static final double EPS = 1e-6;
+
+    /** A pedal to place. {@code key} is the caller's handle (e.g. position in the request list). */
+    public record Item(int key, double width, double depth) {}
+
+    /** A rectangular mounting surface (main deck, second tier, ...). */
+    public record Surface(double width, double depth) {}
+
+    /** Where an item ended up. Width/depth are as placed (already swapped if rotated). */
+    public record Placement(int key, int surface, double x, double y,
+                            double width, double depth, boolean rotated) {}
+
+    public record Result(List<Placement> placements, List<Integer> unplacedKeys) {
+        public boolean allPlaced() { return unplacedKeys.isEmpty(); }
+    }
+
+    /** Scoring rules for choosing a free rectangle. Lower score wins. */
+    enum Heuristic {
+        /** Best short side fit: minimize the smaller leftover edge. */
+        BEST_SHORT_SIDE_FIT,
+        /** Best area fit: minimize wasted area in the chosen free rectangle. */
+        BEST_AREA_FIT,
+        /** Bottom-left: keep everything packed toward the back-left corner. */
+        BACK_LEFT
+    }
+
+    private record Rect(double x, double y, double w, double h) {
+        boolean contains(Rect o) {
+            return o.x >= x - EPS && o.y >= y - EPS
+                    && o.x + o.w <= x + w + EPS && o.y + o.h <= y + h + EPS;
+        }
+
+        boolean intersects(Rect o) {
+            return o.x < x + w - EPS && o.x + o.w > x + EPS
+                    && o.y < y + h - EPS && o.y + o.h > y + EPS;
+        }
+    }
+
+    private BoardLayoutPacker() {}
+
+    /**
+     * Pack items onto the surfaces in order.
+     *
+     * @param spacing clearance (mm) to keep between neighbouring pedals, e.g. for
+     *                patch cable plugs; 0 for edge-to-edge
+     */
+    public static Result pack(List<Item> items, List<Surface> surfaces, double spacing) {
+        List<Placement> placements = new ArrayList<>(items.size());
+        List<Item> remaining = new ArrayList<>(items);
+
+        for (int s = 0; s < surfaces.size() && !remaining.isEmpty(); s++) {
+            Surface surface = surfaces.get(s);
+            List<Placement> best = List.of();
+            double bestArea = -1;
+            for (Heuristic heuristic : Heuristic.values()) {
+                List<Placement> attempt = packSurface(remaining, surface, s, spacing, heuristic);
+                double area = attempt.stream().mapToDouble(p -> p.width() * p.depth()).sum();
+                if (area > bestArea + EPS) {
+                    best = attempt;
+                    bestArea = area;
+                }
+            }
+            placements.addAll(best);
+            List<Integer> placedKeys = best.stream().map(Placement::key).toList();
+            remaining.removeIf(item -> placedKeys.contains(item.key()));
+        }
+
+        placements.sort(Comparator.comparingInt(Placement::key));
+        List<Integer> unplaced = remaining.stream().map(Item::key).sorted().toList();
+        return new Result(placements, unplaced);
+    }
+
+    private static List<Placement> packSurface(List<Item> items, Surface surface, int surfaceIndex,
+                                               double spacing, Heuristic heuristic) {
+        // Pad every pedal (and the board, so the far edges don't need a gap) by the spacing;
+        // report the unpadded size at the placed position.
+        List<Rect> free = new ArrayList<>();
+        free.add(new Rect(0, 0, surface.width() + spacing, surface.depth() + spacing));
+
+        List<Item> remaining = new ArrayList<>(items);
+        List<Placement> placed = new ArrayList<>(items.size());
+
+        while (!remaining.isEmpty()) {
+            Item bestItem = null;
+            Rect bestRect = null;
+            boolean bestRotated = false;
+            double bestPrimary = Double.MAX_VALUE;
+            double bestSecondary = Double.MAX_VALUE;
+
+            for (Item item : remaining) {
+                double w = item.width() + spacing;
+                double d = item.depth() + spacing;
+                for (int orientation = 0; orientation < 2; orientation++) {
+                    boolean rotated = orientation == 1;
+                    if (rotated && Math.abs(w - d) < EPS) break;  // square: rotation is a no-op
+                    double pw = rotated ? d : w;
+                    double pd = rotated ? w : d;
+                    for (Rect f : free) {
+                        if (pw > f.w + EPS || pd > f.h + EPS) continue;
+                        double primary;
+                        double secondary;
+                        switch (heuristic) {
+                            case BEST_AREA_FIT -> {
+                                primary = f.w * f.h - pw * pd;
+                                secondary = Math.min(f.w - pw, f.h - pd);
+                            }
+                            case BACK_LEFT -> {
+                                primary = f.y + pd;
+                                secondary = f.x;
+                            }
+                            default -> {
+                                double leftoverW = f.w - pw;
+                                double leftoverD = f.h - pd;
+                                primary = Math.min(leftoverW, leftoverD);
+                                secondary = Math.max(leftoverW, leftoverD);
+                            }
+                        }
+                        if (primary < bestPrimary - EPS
+                                || (primary < bestPrimary + EPS && secondary < bestSecondary - EPS)) {
+                            bestPrimary = primary;
+                            bestSecondary = secondary;
+                            bestItem = item;
+                            bestRect = new Rect(f.x, f.y, pw, pd);
+                            bestRotated = rotated;
+                        }
+                    }
+                }
+            }
+
+            if (bestItem == null) {
+                break;  // nothing left fits anywhere on this surface
+            }
+
+            splitFreeRects(free, bestRect);
+            remaining.remove(bestItem);
+            placed.add(new Placement(
+                bestItem.key(), surfaceIndex, bestRect.x, bestRect.y,
+                bestRotated ? bestItem.depth() : bestItem.width(),
+                bestRotated ? bestItem.width() : bestItem.depth(),
+                bestRotated
+            ));
+        }
+        return placed;
+    }
+
+    /** Carve {@code used} out of every free rectangle it overlaps, then prune contained ones. */
+    private static void splitFreeRects(List<Rect> free, Rect used) {
+        List<Rect> added = new ArrayList<>();
+        for (int i = free.size() - 1; i >= 0; i--) {
+            Rect f = free.get(i);
+            if (!f.intersects(used)) continue;
+            free.remove(i);
+            if (used.x > f.x + EPS) {                                   // left strip
+                added.add(new Rect(f.x, f.y, used.x - f.x, f.h));
+            }
+            if (used.x + used.w < f.x + f.w - EPS) {                    // right strip
+                added.add(new Rect(used.x + used.w, f.y, f.x + f.w - (used.x + used.w), f.h));
+            }
+            if (used.y > f.y + EPS) {                                   // back strip
+                added.add(new Rect(f.x, f.y, f.w, used.y - f.y));
+            }
+            if (used.y + used.h < f.y + f.h - EPS) {                    // front strip
+                added.add(new Rect(f.x, used.y + used.h, f.w, f.y + f.h - (used.y + used.h)));
+            }
+        }
+        free.addAll(added);
+
+        // Drop free rectangles fully inside another — they can never offer a better spot
+        for (int i = free.size() - 1; i >= 0; i--) {
+            Rect a = free.get(i);
+            for (int j = 0; j < free.size(); j++) {
+                if (i != j && free.get(j).contains(a)) {
+                    free.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.pedalshootout.api.planner;
+
+import com.pedalshootout.api.dto.JackDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A device's MIDI capabilities, parsed once into bitmasks.
+ *
+ * The catalog stores MIDI support as free text ('PC, CC, Clock') on the detail rows and
+ * as jack rows (connector type + TRS standard). Comparing those strings for every
+ * controller × pedal pair is slow and easy to get wrong, so each device is reduced to
+ * four ints:
+ *   - receives / sends — one bit per Message
+ *   - inputs / outputs — one bit per Port (connector family, TRS standard resolved)
+ *
+ * With that, "what can this controller tell this pedal?" is {@code sends & receives},
+ * and "can they be cabled directly?" is {@code outputs & inputs} — a couple of CPU
+ * instructions per pair, which is what makes the full compatibility matrix cheap.
+ */
+public record MidiProfile(int id, boolean midiCapable, int receives, int sends, int inputs, int outputs) {
+
+    /** MIDI message families listed in the *_capabilities columns. */
+    public enum Message {
+        PC("PC"), CC("CC"), CLOCK("Clock"), SYSEX("SysEx"), NOTE("Note"), MMC("MMC");
+
+        public final String label;
+
+        Message(String label) { this.label = label; }
+
+        public int bit() { return 1 << ordinal(); }
+    }
+
+    /** Physical MIDI connection types. TRS jacks are split by standard since A and B don't interoperate. */
+    public enum Port {
+        DIN5("5-pin DIN"), DIN7("7-pin DIN"), TRS_A("TRS-A"), TRS_B("TRS-B"),
+        TRS_UNKNOWN("TRS (type unknown)"), XLR6("6-pin XLR"), USB("USB");
+
+        public final String label;
+
+        Port(String label) { this.label = label; }
+
+        public int bit() { return 1 << ordinal(); }
+    }
+
+    /** How a controller can be connected to a pedal, worst to best. Ordinal is the matrix cell value. */
+    public enum Connection {
+        NOT_MIDI("None"),
+        USB_ONLY("USB only"),
+        NO_CONTROLLER_OUTPUT("None"),
+        ADAPTER("Adapter needed"),
+        DIRECT("Direct");
+
+        public final String label;
+
+        Connection(String label) { this.label = label; }
+    }
+
+    /** Result of matching one controller against one pedal. */
+    public record Match(Connection connection, Port port, int sharedMessages, String note) {
+        /** Same rule the planner has always used: MIDI-capable with a real MIDI input. */
+        public boolean compatible() {
+            return connection.ordinal() >= Connection.NO_CONTROLLER_OUTPUT.ordinal();
+        }
+    }
+
+    private static final int TRS_ANY = Port.TRS_A.bit() | Port.TRS_B.bit() | Port.TRS_UNKNOWN.bit();
+    private static final int DIN_ANY = Port.DIN5.bit() | Port.DIN7.bit();
+
+    /** Build a profile from the capability strings and the device's jacks. */
+    public static MidiProfile of(int id, boolean midiCapable, String receives, String sends, List<JackDto> jacks) {
+        int inputs = 0;
+        int outputs = 0;
+        for (JackDto j : jacks) {
+            if (!"midi".equals(j.category())) continue;
+            int bit = portBit(j);
+            if (bit == 0) continue;
+            if ("input".equals(j.direction()) || "bidirectional".equals(j.direction())) inputs |= bit;
+            if ("output".equals(j.direction()) || "bidirectional".equals(j.direction())) {
+                // A 7-pin DIN output takes a standard 5-pin cable
+                outputs |= bit == Port.DIN7.bit() ? bit | Port.DIN5.bit() : bit;
+            }
+        }
+        return new MidiProfile(id, midiCapable, parseMessages(receives), parseMessages(sends), inputs, outputs);
+    }
+
+    /** Parse 'PC, CC, Clock' style lists. Unknown tokens are ignored. */
+    public static int parseMessages(String raw) {
+        if (raw == null) return 0;
+        int mask = 0;
+        for (String token : raw.split("[,/;]")) {
+            String t = token.trim().toUpperCase(Locale.ROOT);
+            if (t.isEmpty()) continue;
+            if (t.equals("PC") || t.startsWith("PROGRAM")) mask |= Message.PC.bit();
+            else if (t.equals("CC") || t.startsWith("CONTROL")) mask |= Message.CC.bit();
+            else if (t.contains("CLOCK")) mask |= Message.CLOCK.bit();
+            else if (t.contains("SYSEX") || t.contains("SYSTEM EXCLUSIVE")) mask |= Message.SYSEX.bit();
+            else if (t.startsWith("NOTE")) mask |= Message.NOTE.bit();
+            else if (t.equals("MMC") || t.contains("MACHINE CONTROL")) mask |= Message.MMC.bit();
+        }
+        return mask;
+    }
+
+    private static int portBit(JackDto j) {
+        String connector = j.connectorType();
+        if (connector == null) return 0;
+        if (connector.equals("5-pin DIN")) return Port.DIN5.bit();
+        if (connector.equals("7-pin DIN")) return Port.DIN7.bit();
+        if (connector.equals("6-pin XLR")) return Port.XLR6.bit();
+        if (connector.startsWith("USB")) return Port.USB.bit();
+        if (connector.contains("TRS")) {
+            String standard = j.trsMidiStandard();
+            if ("TRS-A".equals(standard) || "Ring Active".equals(standard)) return Port.TRS_A.bit();
+            if ("TRS-B".equals(standard) || "Tip Active".equals(standard)) return Port.TRS_B.bit();
+            return Port.TRS_UNKNOWN.bit();
+        }
+        return 0;
+    }
+
+    /** Does the pedal have a MIDI input other than USB? */
+    public boolean hasMidiInput() {
+        return (inputs & ~Port.USB.bit()) != 0;
+    }
+
+    /** Match a controller (this) against a pedal. */
+    public Match match(MidiProfile pedal) {
+        int shared = sends & pedal.receives;
+        if (!pedal.midiCapable) {
+            return new Match(Connection.NOT_MIDI, null, 0, "Pedal does not support MIDI");
+        }
+        if (!pedal.hasMidiInput()) {
+            return new Match(Connection.USB_ONLY, (pedal.inputs & Port.USB.bit()) != 0 ? Port.USB : null, shared,
+                    "Pedal is MIDI-capable but has no standard MIDI input jack");
+        }
+        int wired = outputs & ~Port.USB.bit();
+        if (wired == 0) {
+            return new Match(Connection.NO_CONTROLLER_OUTPUT, null, shared, "");
+        }
+        int direct = wired & pedal.inputs & ~Port.TRS_UNKNOWN.bit();
+        if (direct != 0) {
+            return new Match(Connection.DIRECT, lowest(direct), shared, "");
+        }
+
+        Port in = lowest(pedal.inputs & ~Port.USB.bit());
+        Port out = lowest(wired);
+        String note;
+        if ((wired & TRS_ANY) != 0 && (pedal.inputs & TRS_ANY) != 0) {
+            note = (wired & Port.TRS_UNKNOWN.bit()) != 0 || (pedal.inputs & Port.TRS_UNKNOWN.bit()) != 0
+                    ? "Both use TRS MIDI, but the TRS type isn't listed for one of them — check before using a plain TRS cable"
+                    : "TRS-A ↔ TRS-B converter needed";
+            out = lowest(wired & TRS_ANY);
+            in = lowest(pedal.inputs & TRS_ANY);
+        } else if ((wired & DIN_ANY) != 0 && (pedal.inputs & TRS_ANY) != 0) {
+            note = "DIN-to-TRS MIDI cable needed (" + in.label + ")";
+            out = lowest(wired & DIN_ANY);
+        } else {
+            note = "Controller outputs " + out.label + ", pedal expects " + in.label;
+        }
+        return new Match(Connection.ADAPTER, in, shared, note);
+    }
+
+    /** Labels for the bits set in a Message mask, in enum order. */
+    public static List<String> messageLabels(int mask) {
+        List<String> labels = new ArrayList<>();
+        for (Message m : Message.values()) {
+            if ((mask & m.bit()) != 0) labels.add(m.label);
+        }
+        return labels;
+    }
+
+    /** Labels for the bits set in a Port mask, in enum order. */
+    public static List<String> portLabels(int mask) {
+        List<String> labels = new ArrayList<>();
+        for (Port p : Port.values()) {
+            if ((mask & p.bit()) != 0) labels.add(p.label);
+        }
+        return labels;
+    }
+
+    private static Port lowest(int mask) {
+        return mask == 0 ? null : Port.values()[Integer.numberOfTrailingZeros(mask)];
+    }
+}
@@ -0,0 +1,309 @@
+package com.pedalshootout.api.planner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Assigns pedals to specific power supply outputs.
+ *
+ * Server-side counterpart of apps/web/src/utils/powerAssignment.ts, but solved as a
+ * proper assignment problem instead of greedily:
+ *
+ *   1. Build a cost matrix of pedal × output. Voltage and per-output current are hard
+ *      constraints (the pair is simply not allowed). Polarity and connector mismatches
+ *      (fixable with a cable/adapter), non-isolated outputs, and wasted headroom add
+ *      cost — the same preferences the frontend scores, just inverted.
+ *   2. Solve it with the Hungarian algorithm. Every pedal also gets its own "unassigned"
+ *      column priced far above any real pairing, so the optimum first maximizes how
+ *      many pedals get their own output, then minimizes adapters/compromises.
+ *      O(n² · (n + m)) — a few hundred microseconds for 30+ pedals.
+ *   3. Pedals still without an output are daisy-chained onto an already-used output
+ *      when voltage and polarity match every pedal on it and the output has current
+ *      to spare (best fit: the tightest output that still works).
+ *   4. Anything left is reported with the reason it can't be powered.
+ *
+ * Pure computation — callers pass in the jack data and map keys back to products.
+ */
+public final class PowerPortSolver {
+
+    /** A pedal's power input. {@code key} is the caller's handle. Raw strings are kept for notes. */
+    public record Consumer(int key, String voltage, Integer currentMa, String polarity, String connector) {}
+
+    /** One supply output jack. */
+    public record Output(int key, String voltage, Integer currentMa, String polarity, String connector,
+                         boolean isolated) {}
+
+    public record Assignment(int consumerKey, int outputKey, boolean daisyChained, List<String> notes) {}
+
+    public record Unassigned(int consumerKey, String reason) {}
+
+    public record Result(List<Assignment> assignments, List<Unassigned> unassigned) {}
+
+    // Cost weights. UNASSIGNED must dominate any sum of real costs so the solver never
+    // trades a powered pedal for fewer adapters elsewhere.
+    private static final long NOT_ISOLATED = 100;
+    private static final long UNKNOWN_VOLTAGE = 40;
+    private static final long POLARITY_MISMATCH = 30;
+    private static final long CONNECTOR_MISMATCH = 20;
+    private static final long MAX_HEADROOM_COST = 10;
+    private static final long UNASSIGNED = 1_000_000;
+    private static final long FORBIDDEN = Long.MAX_VALUE / 4;
+
+    private PowerPortSolver() {}
+
+    public static Result solve(List<Consumer> consumers, List<Output> outputs) {
+        int n = consumers.size();
+        int m = outputs.size();
+        if (n == 0) return new Result(List.of(), List.of());
+
+        VoltageSpec[] consumerVolts = consumers.stream().map(c -> VoltageSpec.parse(c.voltage())).toArray(VoltageSpec[]::new);
+        VoltageSpec[] outputVolts = outputs.stream().map(o -> VoltageSpec.parse(o.voltage())).toArray(VoltageSpec[]::new);
+
+        // Columns: m real outputs, then n "unassigned" slots (one per pedal)
+        long[][] cost = new long[n][m + n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                cost[i][j] = pairCost(consumers.get(i), consumerVolts[i], outputs.get(j), outputVolts[j]);
+            }
+            for (int j = m; j < m + n; j++) {
+                cost[i][j] = UNASSIGNED;
+            }
+        }
+        int[] match = hungarian(cost);
+
+        List<Assignment> assignments = new ArrayList<>(n);
+        List<Integer> leftovers = new ArrayList<>();
+        // Per output: which consumer indexes are on it, and how much current is spoken for
+        List<List<Integer>> onOutput = new ArrayList<>(m);
+        for (int j = 0; j < m; j++) onOutput.add(new ArrayList<>(2));
+
+        for (int i = 0; i < n; i++) {
+            int j = match[i];
+            if (j < m && cost[i][j] < FORBIDDEN) {
+                onOutput.get(j).add(i);
+            } else {
+                leftovers.add(i);
+            }
+        }
+
+        // Daisy-chain the leftovers, biggest draw first
+        leftovers.sort(Comparator.comparingInt((Integer i) -> currentOf(consumers.get(i))).reversed());
+        List<Integer> stillUnassigned = new ArrayList<>();
+        for (int i : leftovers) {
+            Consumer c = consumers.get(i);
+            int bestOutput = -1;
+            int bestSpare = Integer.MAX_VALUE;
+            if (c.currentMa() != null && consumerVolts[i] != null) {
+                for (int j = 0; j < m; j++) {
+                    List<Integer> members = onOutput.get(j);
+                    if (members.isEmpty()) continue;
+                    int spare = spareCurrent(outputs.get(j), members, consumers) - c.currentMa();
+                    if (spare < 0 || spare >= bestSpare) continue;
+                    if (!canShare(i, j, members, consumers, consumerVolts, outputVolts)) continue;
+                    bestOutput = j;
+                    bestSpare = spare;
+                }
+            }
+            if (bestOutput >= 0) {
+                onOutput.get(bestOutput).add(i);
+            } else {
+                stillUnassigned.add(i);
+            }
+        }
+
+        for (int j = 0; j < m; j++) {
+            List<Integer> members = onOutput.get(j);
+            for (int i : members) {
+                List<String> notes = notesFor(consumers.get(i), consumerVolts[i], outputs.get(j), outputVolts[j]);
+                if (members.size() > 1) {
+                    notes.add(String.format("Daisy-chained with %d other pedal(s) on this output", members.size() - 1));
+                }
+                assignments.add(new Assignment(consumers.get(i).key(), outputs.get(j).key(), members.size() > 1, notes));
+            }
+        }
+        assignments.sort(Comparator.comparingInt(Assignment::consumerKey));
+
+        List<Unassigned> unassigned = stillUnassigned.stream()
+                .sorted()
+                .map(i -> new Unassigned(consumers.get(i).key(),
+                        reasonUnassigned(consumers.get(i), consumerVolts[i], outputs, outputVolts)))
+                .toList();
+
+        return new Result(assignments, unassigned);
+    }
+
+    // ─── Costs and notes ───────────────────────────────────────────────
+
+    private static long pairCost(Consumer c, VoltageSpec cv, Output o, VoltageSpec ov) {
+        if (cv != null && ov != null && !cv.compatibleWith(ov)) return FORBIDDEN;
+        if (c.currentMa() != null && o.currentMa() != null && o.currentMa() < c.currentMa()) return FORBIDDEN;
+
+        long cost = 0;
+        if (!o.isolated()) cost += NOT_ISOLATED;
+        if (cv == null || ov == null) cost += UNKNOWN_VOLTAGE;
+        if (polarityMismatch(c.polarity(), o.polarity())) cost += POLARITY_MISMATCH;
+        if (connectorMismatch(c.connector(), o.connector())) cost += CONNECTOR_MISMATCH;
+        if (c.currentMa() != null && o.currentMa() != null) {
+            // Prefer the smallest output that does the job, saving big outputs for hungry pedals
+            cost += Math.min(MAX_HEADROOM_COST, (o.currentMa() - c.currentMa()) / 100);
+        }
+        return cost;
+    }
+
+    private static List<String> notesFor(Consumer c, VoltageSpec cv, Output o, VoltageSpec ov) {
+        List<String> notes = new ArrayList<>();
+        if (cv == null || ov == null) {
+            notes.add("Voltage unknown — check the pedal's manual before connecting");
+        } else if (ov.adjustable() && !cv.adjustable()) {
+            notes.add(String.format("Adjustable output — set it to %s for this pedal", c.voltage()));
+        }
+        if (polarityMismatch(c.polarity(), o.polarity())) {
+            notes.add(String.format("Needs polarity adapter (%s pedal, %s output)", c.polarity(), o.polarity()));
+        }
+        if (connectorMismatch(c.connector(), o.connector())) {
+            notes.add(String.format("Needs connector adapter (%s pedal, %s output)", c.connector(), o.connector()));
+        }
+        if (c.currentMa() == null) {
+            notes.add("Current draw unknown — make sure the output can supply it");
+        }
+        return notes;
+    }
+
+    private static String reasonUnassigned(Consumer c, VoltageSpec cv, List<Output> outputs, VoltageSpec[] outputVolts) {
+        if (outputs.isEmpty()) {
+            return "The selected supplies have no output jacks listed";
+        }
+        int largestCompatible = -1;
+        boolean anyVoltage = false;
+        for (int j = 0; j < outputs.size(); j++) {
+            if (cv != null && outputVolts[j] != null && !cv.compatibleWith(outputVolts[j])) continue;
+            anyVoltage = true;
+            Integer ma = outputs.get(j).currentMa();
+            if (ma != null) largestCompatible = Math.max(largestCompatible, ma);
+        }
+        if (!anyVoltage) {
+            return String.format("No output supplies %s", c.voltage());
+        }
+        if (c.currentMa() != null && largestCompatible >= 0 && largestCompatible < c.currentMa()) {
+            return String.format("Draws %dmA; the largest compatible output provides %dmA",
+                    c.currentMa(), largestCompatible);
+        }
+        return "All compatible outputs are in use and none has spare current for a daisy chain";
+    }
+
+    // ─── Daisy chains ──────────────────────────────────────────────────
+
+    private static int currentOf(Consumer c) {
+        return c.currentMa() != null ? c.currentMa() : 0;
+    }
+
+    /** Remaining current on an output, or -1 if it can't be known (output or a member draw unknown). */
+    private static int spareCurrent(Output o, List<Integer> members, List<Consumer> consumers) {
+        if (o.currentMa() == null) return -1;
+        int used = 0;
+        for (int i : members) {
+            Integer ma = consumers.get(i).currentMa();
+            if (ma == null) return -1;
+            used += ma;
+        }
+        return o.currentMa() - used;
+    }
+
+    /** A daisy chain runs every pedal at one voltage and polarity, so the newcomer must agree with all of them. */
+    private static boolean canShare(int i, int j, List<Integer> members, List<Consumer> consumers,
+                                    VoltageSpec[] consumerVolts, VoltageSpec[] outputVolts) {
+        VoltageSpec cv = consumerVolts[i];
+        if (outputVolts[j] != null && !cv.compatibleWith(outputVolts[j])) return false;
+        String polarity = normalizePolarity(consumers.get(i).polarity());
+        for (int k : members) {
+            if (consumerVolts[k] == null || !cv.compatibleWith(consumerVolts[k])) return false;
+            String other = normalizePolarity(consumers.get(k).polarity());
+            if (polarity != null && other != null && !polarity.equals(other)) return false;
+        }
+        return true;
+    }
+
+    // ─── Normalization (mirrors apps/web/src/utils/powerUtils.ts) ──────
+
+    /** "Center Negative" → "center-negative"; 'N/A' or blank → null (no constraint). */
+    static String normalizePolarity(String p) {
+        if (p == null || p.isBlank() || p.equalsIgnoreCase("N/A")) return null;
+        return p.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", "-");
+    }
+
+    private static boolean polarityMismatch(String a, String b) {
+        String na = normalizePolarity(a);
+        String nb = normalizePolarity(b);
+        return na != null && nb != null && !na.equals(nb);
+    }
+
+    private static boolean connectorMismatch(String a, String b) {
+        return a != null && b != null && !a.isBlank() && !b.isBlank() && !a.trim().equalsIgnoreCase(b.trim());
+    }
+
+    // ─── Hungarian algorithm ───────────────────────────────────────────
+
+    /**
+     * Minimum-cost assignment for an n × m matrix with n ≤ m (Kuhn–Munkres with
+     * potentials, the O(n²·m) formulation). Returns the column chosen for each row.
+     */
+    static int[] hungarian(long[][] a) {
+        int n = a.length;
+        int m = a[0].length;
+        long inf = Long.MAX_VALUE / 2;
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] p = new int[m + 1];     // p[j] = row matched to column j (1-based, 0 = none)
+        int[] way = new int[m + 1];
+        long[] minv = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, inf);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                long delta = inf;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    long cur = a[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] rowToCol = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) rowToCol[p[j] - 1] = j - 1;
+        }
+        return rowToCol;
+    }
+}
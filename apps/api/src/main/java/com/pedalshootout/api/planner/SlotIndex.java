@@ -0,0 +1,419 @@
+package com.pedalshootout.api.planner;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * "What fits in the gap I have left?" — pedals that satisfy a board slot, the power
+ * still free on the supply, a polarity/connector and a budget, best fits first.
+ *
+ * Everything a query compares is pulled out of the PedalDtos and their power input
+ * jacks once, into primitive arrays indexed by row (the pedal's position in the
+ * snapshot's list): short and long side, draw in mA, MSRP, parsed voltage, normalized
+ * polarity and connector. On top of those sit three candidate sources:
+ *   - rows sorted by short side — a pedal can only fit a W × D slot if its short side
+ *     fits the slot's short side, so a binary search gives every possible fit as a prefix
+ *   - rows sorted by MSRP — same trick for a price ceiling
+ *   - one posting list of rows per effect type
+ * A query takes whichever of those is smallest for its constraints and checks each row
+ * in it against all the others, so the cost follows the most selective filter rather
+ * than the catalog size. Ranking keeps a bounded heap of one page's worth of rows.
+ *
+ * Rotation: a pedal fits a slot when short ≤ min(W, D) and long ≤ max(W, D); it's
+ * reported as rotated when it only fits turned 90°.
+ *
+ * Power: with supply headroom given, a pedal has to run on one of the listed voltages
+ * with at least its draw free there; the voltage with the most headroom left is the one
+ * reported. Passive pedals (no power input jack) always pass. Pedals that do take power
+ * but don't list a voltage or a draw are left out — there's no way to say they fit.
+ * Unknown polarity or connector on the pedal is not a mismatch (PowerPortSolver's rule).
+ */
+public final class SlotIndex {
+
+    private static final String POWER = "power";
+
+    /**
+     * A slot query. Null fields are unconstrained; supplyMa maps each voltage still
+     * free on the supply to the mA left at it (empty means no power constraint).
+     */
+    public record Query(
+        Double maxWidthMm,
+        Double maxDepthMm,
+        Map<SupplyIndex.VoltKey, Integer> supplyMa,
+        String polarity,
+        String connector,
+        String effectType,
+        Integer maxMsrpCents
+    ) {}
+
+    /**
+     * One candidate. poweredAt is null for passive pedals or when no supply was given;
+     * slackMm2 is the slot area left over, null without a complete slot.
+     */
+    public record Hit(
+        PedalDto pedal,
+        boolean rotated,
+        SupplyIndex.VoltKey poweredAt,
+        Integer currentMa,
+        String polarity,
+        String connector,
+        Double slackMm2
+    ) {}
+
+    public record Page(int totalMatches, List<Hit> hits) {}
+
+    private static final int UNKNOWN = -1;
+    private static final int NOT_IN_CATALOG = -2;
+
+    private final PedalDto[] pedals;
+    private final double[] shortSide;        // NaN when either dimension is unknown
+    private final double[] longSide;
+    private final double[] footprint;        // short × long, NaN when unknown
+    private final boolean[] powered;         // has a power input jack
+    private final int[] voltage;             // into specs; UNKNOWN: passive or unparseable
+    private final int[] drawMa;              // UNKNOWN
+    private final int[] msrpCents;           // UNKNOWN
+    private final int[] polarity;            // code of the normalized value, UNKNOWN for none / N/A
+    private final int[] connector;           // code of the lower-cased value, UNKNOWN for none
+    private final int[] effectType;          // code of the lower-cased value, UNKNOWN for none
+    private final String[] rawPolarity;
+    private final String[] rawConnector;
+
+    /** Distinct voltage specs; pedals share a handful, so voltage checks are per spec, not per pedal. */
+    private final VoltageSpec[] specs;
+    private final Map<String, Integer> polarityCodes;
+    private final Map<String, Integer> connectorCodes;
+    private final Map<String, Integer> effectTypeCodes;
+
+    private final int[] byShortSide;         // rows with known dimensions, short side ascending
+    private final double[] shortSideSorted;
+    private final int[] byMsrp;              // rows with a known MSRP, ascending
+    private final int[] msrpSorted;
+    private final Map<String, int[]> byEffectType;
+    private final int[] allRows;
+
+    private SlotIndex(List<PedalDto> pedalList, Function<Integer, List<JackDto>> jacksOf) {
+        pedals = pedalList.toArray(PedalDto[]::new);
+        int n = pedals.length;
+        shortSide = new double[n];
+        longSide = new double[n];
+        footprint = new double[n];
+        powered = new boolean[n];
+        voltage = new int[n];
+        drawMa = new int[n];
+        msrpCents = new int[n];
+        polarity = new int[n];
+        connector = new int[n];
+        effectType = new int[n];
+        rawPolarity = new String[n];
+        rawConnector = new String[n];
+        Map<VoltageSpec, Integer> specCodes = new HashMap<>();
+        Map<String, Integer> polarities = new HashMap<>();
+        Map<String, Integer> connectors = new HashMap<>();
+        Map<String, Integer> effectTypes = new HashMap<>();
+        Map<String, List<Integer>> effectRows = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            PedalDto p = pedals[i];
+            if (p.widthMm() != null && p.depthMm() != null) {
+                shortSide[i] = Math.min(p.widthMm(), p.depthMm());
+                longSide[i] = Math.max(p.widthMm(), p.depthMm());
+            } else {
+                shortSide[i] = Double.NaN;
+                longSide[i] = Double.NaN;
+            }
+            footprint[i] = shortSide[i] * longSide[i];
+            msrpCents[i] = p.msrpCents() != null ? p.msrpCents() : UNKNOWN;
+
+            JackDto jack = jacksOf.apply(p.id()).stream()
+                    .filter(j -> POWER.equals(j.category()) && "input".equals(j.direction()))
+                    .findFirst().orElse(null);
+            powered[i] = jack != null;
+            VoltageSpec spec = jack != null ? VoltageSpec.parse(jack.voltage()) : null;
+            voltage[i] = spec != null ? specCodes.computeIfAbsent(spec, k -> specCodes.size()) : UNKNOWN;
+            drawMa[i] = jack != null && jack.currentMa() != null ? jack.currentMa() : UNKNOWN;
+            rawPolarity[i] = jack != null ? jack.polarity() : null;
+            rawConnector[i] = jack != null ? jack.connectorType() : null;
+            polarity[i] = code(polarities, PowerPortSolver.normalizePolarity(rawPolarity[i]));
+            connector[i] = code(connectors, normalizeConnector(rawConnector[i]));
+
+            String effect = normalize(p.pedalDetails().effectType());
+            effectType[i] = code(effectTypes, effect);
+            if (effect != null) effectRows.computeIfAbsent(effect, k -> new ArrayList<>()).add(i);
+        }
+
+        specs = new VoltageSpec[specCodes.size()];
+        specCodes.forEach((spec, code) -> specs[code] = spec);
+        polarityCodes = Map.copyOf(polarities);
+        connectorCodes = Map.copyOf(connectors);
+        effectTypeCodes = Map.copyOf(effectTypes);
+
+        byShortSide = IntStream.range(0, n).filter(i -> !Double.isNaN(shortSide[i]))
+                .boxed().sorted(Comparator.comparingDouble(i -> shortSide[i]))
+                .mapToInt(Integer::intValue).toArray();
+        shortSideSorted = Arrays.stream(byShortSide).mapToDouble(i -> shortSide[i]).toArray();
+        byMsrp = IntStream.range(0, n).filter(i -> msrpCents[i] >= 0)
+                .boxed().sorted(Comparator.comparingInt(i -> msrpCents[i]))
+                .mapToInt(Integer::intValue).toArray();
+        msrpSorted = Arrays.stream(byMsrp).map(i -> msrpCents[i]).toArray();
+        Map<String, int[]> postings = new HashMap<>(effectRows.size() * 2);
+        effectRows.forEach((type, rows) -> postings.put(type, rows.stream().mapToInt(Integer::intValue).toArray()));
+        byEffectType = Map.copyOf(postings);
+        allRows = IntStream.range(0, n).toArray();
+    }
+
+    /** Build from the pedals and a jack lookup (the snapshot's). */
+    public static SlotIndex build(List<PedalDto> pedals, Function<Integer, List<JackDto>> jacksOf) {
+        return new SlotIndex(pedals, jacksOf);
+    }
+
+    /**
+     * Pedals matching every constraint in the query, one page of them, ranked by:
+     * least slot area left over (tightest fit), then lowest draw, then lowest MSRP
+     * (unknown last), then product ID. A page past the last match is empty.
+     */
+    public Page search(Query q, int page, int size) {
+        double slotShort = slotSide(q, true);
+        double slotLong = slotSide(q, false);
+        boolean slotConstrained = slotShort < Double.POSITIVE_INFINITY || slotLong < Double.POSITIVE_INFINITY;
+        boolean completeSlot = q.maxWidthMm() != null && q.maxDepthMm() != null;
+        int maxMsrp = q.maxMsrpCents() != null ? q.maxMsrpCents() : Integer.MAX_VALUE;
+        int wantPolarity = lookup(polarityCodes, PowerPortSolver.normalizePolarity(q.polarity()));
+        int wantConnector = lookup(connectorCodes, normalizeConnector(q.connector()));
+        Power power = new Power(q.supplyMa());
+
+        // Smallest candidate source for the constraints given; everything is re-checked below
+        int[] source = allRows;
+        int sourceSize = allRows.length;
+        String wantEffect = normalize(q.effectType());
+        if (wantEffect != null) {
+            source = byEffectType.getOrDefault(wantEffect, new int[0]);
+            sourceSize = source.length;
+        }
+        if (slotConstrained) {
+            int end = upperBound(shortSideSorted, slotShort);
+            if (end < sourceSize) { source = byShortSide; sourceSize = end; }
+        }
+        if (q.maxMsrpCents() != null) {
+            int end = upperBound(msrpSorted, maxMsrp);
+            if (end < sourceSize) { source = byMsrp; sourceSize = end; }
+        }
+        int wantEffectType = lookup(effectTypeCodes, wantEffect);
+
+        // In long: page * size overflows int for large pages. Past the last pedal nothing
+        // needs keeping, but the loop below still counts the total.
+        long offset = (long) page * size;
+        int keep = offset >= pedals.length ? 0 : (int) Math.min(offset + size, pedals.length);
+        TopRows best = new TopRows(keep, completeSlot);
+        int total = 0;
+
+        for (int s = 0; s < sourceSize; s++) {
+            int i = source[s];
+            if (slotConstrained && !(shortSide[i] <= slotShort && longSide[i] <= slotLong)) continue;  // NaN fails too
+            if (q.maxMsrpCents() != null && (msrpCents[i] < 0 || msrpCents[i] > maxMsrp)) continue;
+            if (wantPolarity != UNKNOWN && polarity[i] != UNKNOWN && polarity[i] != wantPolarity) continue;
+            if (wantConnector != UNKNOWN && connector[i] != UNKNOWN && connector[i] != wantConnector) continue;
+            if (power.constrained() && powered[i] && power.bestOutput(i) < 0) continue;
+            if (wantEffectType != UNKNOWN && effectType[i] != wantEffectType) continue;
+            total++;
+            best.offer(i);
+        }
+
+        int[] ranked = best.sorted();
+        List<Hit> hits = new ArrayList<>(size);
+        for (int r = (int) Math.min(offset, ranked.length); r < ranked.length; r++) {
+            int i = ranked[r];
+            PedalDto p = pedals[i];
+            boolean fitsAsIs = (q.maxWidthMm() == null || p.widthMm() <= q.maxWidthMm())
+                    && (q.maxDepthMm() == null || p.depthMm() <= q.maxDepthMm());
+            int output = power.constrained() && powered[i] ? power.bestOutput(i) : -1;
+            hits.add(new Hit(p,
+                    slotConstrained && !fitsAsIs,
+                    output >= 0 ? power.keys[output] : null,
+                    drawMa[i] >= 0 ? drawMa[i] : null,
+                    rawPolarity[i], rawConnector[i],
+                    completeSlot ? q.maxWidthMm() * q.maxDepthMm() - footprint[i] : null));
+        }
+        return new Page(total, hits);
+    }
+
+    public int size() {
+        return pedals.length;
+    }
+
+    // ─── Query helpers ──────────────────────────────────────────────────
+
+    /** The supply headroom as arrays, plus which spec runs on which output, worked out per query. */
+    private final class Power {
+        final SupplyIndex.VoltKey[] keys;
+        final int[] freeMa;
+        final boolean[] runsOn;              // specs.length × keys.length
+
+        Power(Map<SupplyIndex.VoltKey, Integer> supply) {
+            int k = supply != null ? supply.size() : 0;
+            keys = new SupplyIndex.VoltKey[k];
+            freeMa = new int[k];
+            int j = 0;
+            if (supply != null) {
+                for (Map.Entry<SupplyIndex.VoltKey, Integer> e : supply.entrySet()) {
+                    keys[j] = e.getKey();
+                    freeMa[j++] = e.getValue();
+                }
+            }
+            runsOn = new boolean[specs.length * k];
+            for (int s = 0; s < specs.length; s++) {
+                for (j = 0; j < k; j++) runsOn[s * k + j] = SlotIndex.runsOn(specs[s], keys[j]);
+            }
+        }
+
+        boolean constrained() {
+            return keys.length > 0;
+        }
+
+        /** The output this pedal runs on with the most mA left after its draw, or -1. */
+        int bestOutput(int i) {
+            if (voltage[i] == UNKNOWN || drawMa[i] < 0) return -1;
+            int base = voltage[i] * keys.length;
+            int best = -1;
+            for (int j = 0; j < keys.length; j++) {
+                if (runsOn[base + j] && freeMa[j] >= drawMa[i] && (best < 0 || freeMa[j] > freeMa[best])) best = j;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * The best `keep` rows seen so far, as a binary max-heap on rank (worst at the root)
+     * over a plain int[] — no boxing, and a row that can't make the cut costs one compare.
+     */
+    private final class TopRows {
+        final int[] heap;
+        final boolean bySlack;
+        int size;
+
+        TopRows(int keep, boolean bySlack) {
+            this.heap = new int[keep];
+            this.bySlack = bySlack;
+        }
+
+        void offer(int row) {
+            if (size < heap.length) {
+                heap[size] = row;
+                siftUp(size++);
+            } else if (size > 0 && compare(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(0);
+            }
+        }
+
+        int[] sorted() {
+            return Arrays.stream(heap, 0, size).boxed().sorted(this::compare).mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Negative when row a ranks ahead of row b. */
+        int compare(int a, int b) {
+            if (bySlack) {
+                // Least slack first is the same as largest footprint first, for a fixed slot
+                int c = Double.compare(footprint[b], footprint[a]);
+                if (c != 0) return c;
+            }
+            int c = Integer.compare(Math.max(0, drawMa[a]), Math.max(0, drawMa[b]));
+            if (c != 0) return c;
+            c = Long.compare(msrpCents[a] >= 0 ? msrpCents[a] : Long.MAX_VALUE,
+                             msrpCents[b] >= 0 ? msrpCents[b] : Long.MAX_VALUE);
+            if (c != 0) return c;
+            return Integer.compare(pedals[a].id(), pedals[b].id());
+        }
+
+        private void siftUp(int pos) {
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (compare(heap[pos], heap[parent]) <= 0) return;
+                swap(pos, parent);
+                pos = parent;
+            }
+        }
+
+        private void siftDown(int pos) {
+            while (true) {
+                int worst = pos;
+                int left = 2 * pos + 1;
+                int right = left + 1;
+                if (left < size && compare(heap[left], heap[worst]) > 0) worst = left;
+                if (right < size && compare(heap[right], heap[worst]) > 0) worst = right;
+                if (worst == pos) return;
+                swap(pos, worst);
+                pos = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+
+    private static boolean runsOn(VoltageSpec spec, SupplyIndex.VoltKey key) {
+        if (spec.ac() != key.ac()) return false;
+        for (VoltageSpec.Range r : spec.ranges()) {
+            if (key.volts() >= r.min() - 1e-9 && key.volts() <= r.max() + 1e-9) return true;
+        }
+        return false;
+    }
+
+    /** min(W, D) or max(W, D) of the slot, with a missing side as unbounded. */
+    private static double slotSide(Query q, boolean shorter) {
+        double w = q.maxWidthMm() != null ? q.maxWidthMm() : Double.POSITIVE_INFINITY;
+        double d = q.maxDepthMm() != null ? q.maxDepthMm() : Double.POSITIVE_INFINITY;
+        return shorter ? Math.min(w, d) : Math.max(w, d);
+    }
+
+    /** Number of leading entries ≤ limit. */
+    private static int upperBound(double[] sorted, double limit) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= limit) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(int[] sorted, int limit) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= limit) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        return value == null ? UNKNOWN : codes.computeIfAbsent(value, k -> codes.size());
+    }
+
+    /** The value's code, UNKNOWN for no constraint, NOT_IN_CATALOG when no pedal has it. */
+    private static int lookup(Map<String, Integer> codes, String value) {
+        return value == null ? UNKNOWN : codes.getOrDefault(value, NOT_IN_CATALOG);
+    }
+
+    private static String normalize(String s) {
+        return s == null || s.isBlank() ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeConnector(String c) {
+        return c == null || c.isBlank() || c.equalsIgnoreCase("N/A") ? null : c.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,254 @@
+package com.pedalshootout.api.planner;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PowerSupplyDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only search index over power supplies, answering questions like
+ * "≥ 1500 mA total, and at 9V at least 6 outputs of ≥ 100 mA each, isolated".
+ *
+ * Layout:
+ *   - Supplies are ranked once by total capacity (ascending), then MSRP (cheapest
+ *     first, unknown last), then ID. A supply's rank is its position in that order.
+ *     Because headroom = capacity − required, rank order is also result order, so
+ *     ranking a result set is just sorting ints.
+ *   - capacities[rank] is sorted, so "capacity ≥ X" is a binary search giving a
+ *     suffix of ranks.
+ *   - Per-output profiles: for every (voltage, isolated-only?) pair seen in the
+ *     catalog, each supply's output currents at that voltage, sorted descending.
+ *   - For each (voltage, isolated-only?, n) there's a sorted array of every supply's
+ *     n-th largest output current at that voltage. "At least n outputs of ≥ Y mA"
+ *     ⇔ "n-th largest ≥ Y", which is again a binary search giving a set of ranks.
+ *
+ * A query binary-searches each constraint (O(log n) each), walks only the smallest
+ * resulting candidate set, and verifies the other constraints per candidate in O(1)
+ * (capacity) or O(outputs needed) (per-output currents). Cost is logarithmic in the
+ * catalog plus linear in the candidates actually considered.
+ *
+ * Output requirements are checked per voltage. Pedals that run on one fixed voltage
+ * use the per-voltage indexes; a pedal that takes a range or a list ('9-18V',
+ * '9V/12V') can use any output compatible with any of them, so its requirement is
+ * checked per candidate instead (the same overlap test the /assign matcher uses).
+ * An adjustable output counts toward every voltage it can be set to, so the index can over-promise when the same
+ * adjustable outputs are needed at two voltages at once — the /assign endpoint does
+ * the exact matching once the user has picked a supply.
+ */
+public final class SupplyIndex {
+
+    /** A voltage bucket: fixed volts plus AC/DC. */
+    public record VoltKey(double volts, boolean ac) {
+        public static VoltKey of(VoltageSpec spec) {
+            return new VoltKey(spec.minVolts(), spec.ac());
+        }
+
+        /** Display form: '9V', '12V AC', '4.5V'. */
+        public String label() {
+            return asSpec().label();
+        }
+
+        VoltageSpec asSpec() {
+            return new VoltageSpec(List.of(new VoltageSpec.Range(volts, volts)), ac);
+        }
+    }
+
+    /** Need outputs compatible with this voltage whose currents cover these draws (any order). */
+    public record OutputRequirement(VoltageSpec voltage, int[] drawsMa) {
+        /** The index bucket for a single fixed voltage; null when the pedals take several. */
+        VoltKey key() {
+            return voltage.adjustable() ? null : VoltKey.of(voltage);
+        }
+    }
+
+    public record Query(int minTotalMa, List<OutputRequirement> outputs, boolean isolatedOnly) {}
+
+    public record Hit(PowerSupplyDto supply, int headroomMa) {}
+
+    public record Page(int totalMatches, List<Hit> hits) {}
+
+    private record Output(VoltageSpec voltage, int currentMa, boolean isolated) {}
+
+    private record ProfileKey(VoltKey voltage, boolean isolatedOnly) {}
+
+    private record KthKey(VoltKey voltage, boolean isolatedOnly, int n) {}
+
+    /** n-th largest output current per supply, sorted ascending, with the owning rank alongside. */
+    private record KthIndex(int[] currents, int[] ranks) {}
+
+    private static final int[] NONE = new int[0];
+
+    private final PowerSupplyDto[] ranked;
+    private final int[] capacities;
+    private final List<List<Output>> outputsByRank;
+    private final Map<ProfileKey, int[][]> profiles = new HashMap<>();
+    private final Map<KthKey, KthIndex> kth = new HashMap<>();
+
+    private SupplyIndex(List<PowerSupplyDto> supplies) {
+        ranked = supplies.stream()
+                .filter(s -> s.totalCurrentMa() != null)
+                .sorted(Comparator.comparing(PowerSupplyDto::totalCurrentMa)
+                        .thenComparing(PowerSupplyDto::msrpCents, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(PowerSupplyDto::id))
+                .toArray(PowerSupplyDto[]::new);
+        capacities = Arrays.stream(ranked).mapToInt(PowerSupplyDto::totalCurrentMa).toArray();
+
+        outputsByRank = new ArrayList<>(ranked.length);
+        List<VoltKey> keys = new ArrayList<>();
+        for (PowerSupplyDto supply : ranked) {
+            List<Output> outputs = new ArrayList<>();
+            for (JackDto j : supply.jacks()) {
+                if (!"power".equals(j.category()) || !"output".equals(j.direction())) continue;
+                VoltageSpec spec = VoltageSpec.parse(j.voltage());
+                if (spec == null) continue;
+                outputs.add(new Output(spec, j.currentMa() != null ? j.currentMa() : 0,
+                        Boolean.TRUE.equals(j.isIsolated())));
+                for (VoltageSpec.Range r : spec.ranges()) {
+                    keys.add(new VoltKey(r.min(), spec.ac()));
+                    keys.add(new VoltKey(r.max(), spec.ac()));
+                }
+            }
+            outputsByRank.add(outputs);
+        }
+
+        for (VoltKey key : keys.stream().distinct().toList()) {
+            for (boolean isolatedOnly : new boolean[] { false, true }) {
+                int[][] currents = new int[ranked.length][];
+                int maxOutputs = 0;
+                for (int r = 0; r < ranked.length; r++) {
+                    currents[r] = currentsAt(outputsByRank.get(r), key.asSpec(), isolatedOnly);
+                    maxOutputs = Math.max(maxOutputs, currents[r].length);
+                }
+                profiles.put(new ProfileKey(key, isolatedOnly), currents);
+                for (int n = 1; n <= maxOutputs; n++) {
+                    kth.put(new KthKey(key, isolatedOnly, n), buildKth(currents, n));
+                }
+            }
+        }
+    }
+
+    public static SupplyIndex build(List<PowerSupplyDto> supplies) {
+        return new SupplyIndex(supplies);
+    }
+
+    /** Search and return one page of results, best match first. */
+    public Page search(Query query, int page, int size) {
+        // Candidate sets from each constraint, as (rank array or suffix); walk the smallest
+        int from = lowerBound(capacities, query.minTotalMa());
+        int[] driver = null;
+        int driverSize = ranked.length - from;
+        for (OutputRequirement req : query.outputs()) {
+            if (req.drawsMa().length == 0 || req.key() == null) continue;    // ranged: verified per candidate
+            KthIndex index = kth.get(new KthKey(req.key(), query.isolatedOnly(), req.drawsMa().length));
+            if (index == null) {
+                // Known voltage but no supply has that many outputs at it: nothing can match
+                if (profiles.containsKey(new ProfileKey(req.key(), query.isolatedOnly()))) {
+                    return new Page(0, List.of());
+                }
+                continue;  // voltage no output is listed at: verified per candidate below
+            }
+            int smallestDraw = Arrays.stream(req.drawsMa()).min().orElse(0);
+            int start = lowerBound(index.currents(), smallestDraw);
+            if (index.currents().length - start < driverSize) {
+                driver = Arrays.copyOfRange(index.ranks(), start, index.ranks().length);
+                driverSize = driver.length;
+            }
+        }
+
+        List<Integer> matches = new ArrayList<>();
+        if (driver == null) {
+            for (int r = from; r < ranked.length; r++) {
+                if (matchesOutputs(r, query)) matches.add(r);
+            }
+        } else {
+            Arrays.sort(driver);
+            for (int r : driver) {
+                if (r >= from && matchesOutputs(r, query)) matches.add(r);
+            }
+        }
+
+        int start = (int) Math.min(matches.size(), (long) page * size);
+        int end = Math.min(matches.size(), start + size);
+        List<Hit> hits = matches.subList(start, end).stream()
+                .map(r -> new Hit(ranked[r], capacities[r] - query.minTotalMa()))
+                .toList();
+        return new Page(matches.size(), hits);
+    }
+
+    public int size() {
+        return ranked.length;
+    }
+
+    private boolean matchesOutputs(int rank, Query query) {
+        for (OutputRequirement req : query.outputs()) {
+            int[][] currents = req.key() == null ? null : profiles.get(new ProfileKey(req.key(), query.isolatedOnly()));
+            int[] available = currents != null
+                    ? currents[rank]
+                    : currentsAt(outputsByRank.get(rank), req.voltage(), query.isolatedOnly());
+            if (!covers(available, req.drawsMa())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Can each draw get its own output? Both sorted descending, the i-th biggest draw
+     * must fit the i-th biggest output — if it doesn't, no other pairing works either.
+     */
+    private static boolean covers(int[] outputsDesc, int[] draws) {
+        if (draws.length > outputsDesc.length) return false;
+        int[] drawsDesc = draws.clone();
+        Arrays.sort(drawsDesc);
+        for (int i = 0; i < drawsDesc.length; i++) {
+            if (outputsDesc[i] < drawsDesc[drawsDesc.length - 1 - i]) return false;
+        }
+        return true;
+    }
+
+    private static int[] currentsAt(List<Output> outputs, VoltageSpec wanted, boolean isolatedOnly) {
+        int[] currents = outputs.stream()
+                .filter(o -> !isolatedOnly || o.isolated())
+                .filter(o -> o.voltage().compatibleWith(wanted))
+                .mapToInt(Output::currentMa)
+                .sorted()
+                .toArray();
+        if (currents.length == 0) return NONE;
+        // reverse to descending
+        for (int i = 0, j = currents.length - 1; i < j; i++, j--) {
+            int t = currents[i]; currents[i] = currents[j]; currents[j] = t;
+        }
+        return currents;
+    }
+
+    private static KthIndex buildKth(int[][] currents, int n) {
+        Integer[] ranks = new Integer[currents.length];
+        int count = 0;
+        for (int r = 0; r < currents.length; r++) {
+            if (currents[r].length >= n) ranks[count++] = r;
+        }
+        Integer[] present = Arrays.copyOf(ranks, count);
+        Arrays.sort(present, Comparator.comparingInt(r -> currents[r][n - 1]));
+        int[] values = new int[count];
+        int[] rankArray = new int[count];
+        for (int i = 0; i < count; i++) {
+            rankArray[i] = present[i];
+            values[i] = currents[present[i]][n - 1];
+        }
+        return new KthIndex(values, rankArray);
+    }
+
+    /** First index whose value is ≥ target (array sorted ascending). */
+    private static int lowerBound(int[] sorted, int target) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < target) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
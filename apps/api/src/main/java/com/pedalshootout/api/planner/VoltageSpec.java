@@ -0,0 +1,92 @@
+package com.pedalshootout.api.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed jack voltage string.
+ *
+ * The jacks.voltage column is free text — '9V', '9V DC', '9-18V', '9V/12V/15V/18V',
+ * '9V, 12V, 18V DC (switchable per outlet)', '9V AC'. This turns it into a list of
+ * accepted values/ranges plus an AC flag so two jacks can be compared numerically.
+ *
+ * Each '/' or ',' separated piece contributes its leading number, or a range if
+ * written as 'lo-hi'. Trailing text ('Power Link', '(2 variable outputs)') is ignored.
+ *
+ * Two specs are compatible when they share at least one voltage and agree on AC vs DC.
+ * For a supply output, several values mean "can be set to any of these"; for a pedal
+ * input they mean "runs on any of these" — either way, one common value is enough.
+ */
+public record VoltageSpec(List<Range> ranges, boolean ac) {
+
+    /** Inclusive voltage range; a fixed voltage has min == max. */
+    public record Range(double min, double max) {
+        boolean overlaps(Range o) {
+            return min <= o.max + 1e-9 && o.min <= max + 1e-9;
+        }
+    }
+
+    private static final Pattern LEADING = Pattern.compile(
+            "^\\s*(\\d+(?:\\.\\d+)?)\\s*V?\\s*(?:-\\s*(\\d+(?:\\.\\d+)?))?");
+    private static final Pattern AC = Pattern.compile("\\bAC\\b");
+
+    /** Parse a jack voltage string. Returns null for null/blank or unparseable input. */
+    public static VoltageSpec parse(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        List<Range> ranges = new ArrayList<>();
+        for (String piece : raw.split("[/,]")) {
+            Matcher m = LEADING.matcher(piece);
+            if (!m.find()) continue;
+            double lo = Double.parseDouble(m.group(1));
+            double hi = m.group(2) != null ? Double.parseDouble(m.group(2)) : lo;
+            ranges.add(new Range(Math.min(lo, hi), Math.max(lo, hi)));
+        }
+        if (ranges.isEmpty()) return null;
+        boolean ac = AC.matcher(raw.toUpperCase(Locale.ROOT)).find();
+        return new VoltageSpec(List.copyOf(ranges), ac);
+    }
+
+    public boolean compatibleWith(VoltageSpec other) {
+        if (other == null || ac != other.ac) return false;
+        for (Range a : ranges) {
+            for (Range b : other.ranges) {
+                if (a.overlaps(b)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** True if the output offers more than one setting (a switch, a range, or a list). */
+    public boolean adjustable() {
+        return ranges.size() > 1 || ranges.get(0).min() != ranges.get(0).max();
+    }
+
+    /** Lowest voltage covered — used to sort/bucket outputs by voltage. */
+    public double minVolts() {
+        return ranges.stream().mapToDouble(Range::min).min().orElse(0);
+    }
+
+    /** Highest voltage covered. */
+    public double maxVolts() {
+        return ranges.stream().mapToDouble(Range::max).max().orElse(0);
+    }
+
+    /** Display form: '9V', '9-18V', '9V/12V/18V', '12V AC'. */
+    public String label() {
+        StringBuilder sb = new StringBuilder();
+        for (Range r : ranges) {
+            if (sb.length() > 0) sb.append('/');
+            sb.append(volts(r.min()));
+            if (r.max() != r.min()) sb.append('-').append(volts(r.max()));
+            sb.append('V');
+        }
+        return ac ? sb.append(" AC").toString() : sb.toString();
+    }
+
+    private static String volts(double v) {
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+    }
+}
@@ -0,0 +1,110 @@
+package com.pedalshootout.api.projection;
+
+import com.pedalshootout.api.dto.CursorPage;
+import com.pedalshootout.api.dto.PedalFilterDto;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies a FieldSelection to a controller's return value.
+ *
+ * Compiled ProjectionWriters are cached per (DTO type, canonical selection), so the
+ * reflection happens once per distinct ?fields= a client uses and every later request
+ * — and every row in it — reuses the result. Like ResponseCache, the number of cached
+ * writers is capped so arbitrary query strings can't grow the heap; past the cap a
+ * writer is compiled per request and thrown away.
+ *
+ * What gets projected is the catalog item, wherever it sits in the response:
+ *   List<T>                          → each element
+ *   CursorPage<T>                    → each of items (cursor fields untouched)
+ *   PedalFilterDto.FilterResult      → each of pedals (counts and facets untouched)
+ *   a single record (GET /{id})      → the record
+ * Anything else (entities, error bodies) is returned unchanged.
+ */
+@Component
+public class FieldProjector {
+
+    static final int MAX_CACHED_WRITERS = 256;
+
+    private final Map<String, ProjectionWriter> writers = new ConcurrentHashMap<>();
+
+    // CursorPage and PedalFilterDto.FilterResult with the item list swapped for projected
+    // items; same JSON shape. (See Projected for why these can't reuse the DTO types.)
+
+    private record CursorPageOf(
+        Projected.Items items,
+        String nextCursor,
+        boolean hasMore,
+        String sort,
+        String dir,
+        int limit
+    ) {}
+
+    private record FilterResultOf(
+        int totalMatches,
+        int page,
+        int size,
+        Projected.Items pedals,
+        List<PedalFilterDto.Facet> facets
+    ) {}
+
+    /**
+     * Wrap body so Jackson writes only the selected fields.
+     * Throws IllegalArgumentException if the selection names a field the DTO doesn't have.
+     */
+    public Object project(Object body, FieldSelection selection) {
+        if (body instanceof Collection<?> items) {
+            return projectAll(items, selection);
+        }
+        if (body instanceof CursorPage<?> page) {
+            return new CursorPageOf(projectAll(page.items(), selection), page.nextCursor(), page.hasMore(),
+                    page.sort(), page.dir(), page.limit());
+        }
+        if (body instanceof PedalFilterDto.FilterResult result) {
+            return new FilterResultOf(result.totalMatches(), result.page(), result.size(),
+                    projectAll(result.pedals(), selection), result.facets());
+        }
+        if (body != null && body.getClass().isRecord()) {
+            return new Projected(body, writerFor(body.getClass(), selection));
+        }
+        return body;
+    }
+
+    /** Number of compiled writers currently cached. */
+    public int cachedWriters() {
+        return writers.size();
+    }
+
+    private Projected.Items projectAll(Collection<?> items, FieldSelection selection) {
+        ProjectionWriter writer = null;
+        Object[] projected = new Object[items.size()];
+        int i = 0;
+        for (Object item : items) {
+            if (item == null || !item.getClass().isRecord()) {
+                projected[i++] = item;
+                continue;
+            }
+            if (writer == null || writer.type() != item.getClass()) {
+                writer = writerFor(item.getClass(), selection);
+            }
+            projected[i++] = new Projected(item, writer);
+        }
+        return new Projected.Items(projected);
+    }
+
+    ProjectionWriter writerFor(Class<?> type, FieldSelection selection) {
+        String key = type.getName() + selection.key();
+        ProjectionWriter writer = writers.get(key);
+        if (writer != null) return writer;
+
+        writer = ProjectionWriter.compile(type, selection, "");
+        if (writers.size() < MAX_CACHED_WRITERS) {
+            writers.putIfAbsent(key, writer);
+        }
+        return writer;
+    }
+}
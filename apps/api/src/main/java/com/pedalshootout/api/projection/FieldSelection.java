@@ -0,0 +1,120 @@
+package com.pedalshootout.api.projection;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Which properties of a DTO to write, parsed from ?fields= and ?include=.
+ *
+ *   ?fields=id,model,msrpCents           → just those three
+ *   ?fields=id,pedalDetails.effectType   → id, plus pedalDetails with only effectType
+ *   ?fields=id,jacks.category            → id, plus each jack with only its category
+ *   ?include=                            → every plain field, no nested objects (no jacks)
+ *   ?include=pedalDetails                → every plain field, plus pedalDetails in full
+ *   ?fields=id,model&include=jacks       → id, model and full jacks
+ *
+ * fields picks properties; include names nested objects/arrays to embed. With
+ * include alone, plain fields are all kept and only the named nested ones are —
+ * which is how a list view drops jacks, roughly two thirds of a pedal's JSON.
+ *
+ * A selection is a small tree: each node either keeps everything (ALL), or keeps
+ * the named children, optionally plus every plain (non-nested) field.
+ * key() is a canonical string for it, so equivalent requests share a compiled writer.
+ */
+public final class FieldSelection {
+
+    /** Keep the whole value, serialized as usual. */
+    public static final FieldSelection ALL = new FieldSelection(true, false, Map.of());
+
+    private final boolean all;
+    private final boolean plainFields;
+    private final Map<String, FieldSelection> children;
+    private final String key;
+
+    private FieldSelection(boolean all, boolean plainFields, Map<String, FieldSelection> children) {
+        this.all = all;
+        this.plainFields = plainFields;
+        this.children = children;
+        this.key = buildKey();
+    }
+
+    /**
+     * Parse the two query parameters. Returns null when neither was sent (no projection).
+     * Throws IllegalArgumentException on malformed paths like "a..b".
+     */
+    public static FieldSelection parse(String fields, String include) {
+        boolean hasFields = fields != null && !fields.isBlank();
+        if (!hasFields && include == null) return null;
+
+        Builder root = new Builder(!hasFields);
+        if (hasFields) addPaths(root, fields);
+        if (include != null) addPaths(root, include);
+        return root.build();
+    }
+
+    public boolean all() { return all; }
+
+    /** True when every non-nested property is kept regardless of children(). */
+    public boolean plainFields() { return plainFields; }
+
+    /** Explicitly selected properties; sorted by name. */
+    public Map<String, FieldSelection> children() { return children; }
+
+    public String key() { return key; }
+
+    private String buildKey() {
+        if (all) return "*";
+        StringBuilder sb = new StringBuilder("{");
+        if (plainFields) sb.append('+');
+        String sep = "";
+        for (Map.Entry<String, FieldSelection> child : children.entrySet()) {
+            sb.append(sep).append(child.getKey());
+            if (!child.getValue().all) sb.append(child.getValue().key);
+            sep = ",";
+        }
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String toString() { return key; }
+
+    private static void addPaths(Builder root, String csv) {
+        for (String raw : csv.split(",")) {
+            String path = raw.trim();
+            if (path.isEmpty()) continue;
+            Builder node = root;
+            String[] segments = path.split("\\.", -1);
+            for (int i = 0; i < segments.length; i++) {
+                String name = segments[i].trim();
+                if (name.isEmpty()) throw new IllegalArgumentException("Malformed field path '" + path + "'");
+                boolean last = i == segments.length - 1;
+                node = node.child(name, last);
+            }
+        }
+    }
+
+    /** Mutable tree used while parsing. A node marked all absorbs any deeper paths. */
+    private static final class Builder {
+        private final boolean plainFields;
+        private final Map<String, Builder> children = new TreeMap<>();
+        private boolean all;
+
+        Builder(boolean plainFields) {
+            this.plainFields = plainFields;
+        }
+
+        Builder child(String name, boolean whole) {
+            Builder child = children.computeIfAbsent(name, n -> new Builder(false));
+            if (whole) child.all = true;
+            return child;
+        }
+
+        FieldSelection build() {
+            if (all) return ALL;
+            Map<String, FieldSelection> built = new TreeMap<>();
+            children.forEach((name, child) -> built.put(name, child.build()));
+            return new FieldSelection(false, plainFields, Collections.unmodifiableMap(built));
+        }
+    }
+}
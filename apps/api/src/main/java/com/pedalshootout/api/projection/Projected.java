@@ -0,0 +1,65 @@
+package com.pedalshootout.api.projection;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * One DTO paired with the compiled writer for its selection. Jackson calls serialize()
+ * for it like any other value, so a projected item can sit inside a page or a filter
+ * result and the surrounding JSON is written as normal.
+ *
+ * Projected values deliberately aren't the DTO type (nor is Items a List): Spring hands
+ * Jackson the controller's declared return type when the value is assignable to it,
+ * and Jackson would then write every element with the full PedalDto serializer.
+ */
+final class Projected implements JsonSerializable {
+
+    private final Object value;
+    private final ProjectionWriter writer;
+
+    Projected(Object value, ProjectionWriter writer) {
+        this.value = value;
+        this.writer = writer;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writer.write(value, gen, provider);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, provider);
+    }
+
+    /** A JSON array of projected items (what a List<SomeDto> becomes). */
+    static final class Items implements JsonSerializable {
+
+        private final Object[] items;
+
+        Items(Object[] items) {
+            this.items = items;
+        }
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(items, items.length);
+            for (Object item : items) {
+                if (item instanceof Projected projected) projected.serialize(gen, provider);
+                else provider.defaultSerializeValue(item, gen);
+            }
+            gen.writeEndArray();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+                throws IOException {
+            serialize(gen, provider);
+        }
+    }
+}
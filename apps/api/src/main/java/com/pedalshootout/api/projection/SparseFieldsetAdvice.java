@@ -0,0 +1,69 @@
+package com.pedalshootout.api.projection;
+
+import com.pedalshootout.api.controller.DetailTypeController;
+import com.pedalshootout.api.controller.ManufacturerController;
+import com.pedalshootout.api.controller.PedalController;
+import com.pedalshootout.api.controller.ProductController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds ?fields= and ?include= (sparse fieldsets) to every catalog endpoint.
+ *
+ * ResponseBodyAdvice is Spring's hook between "the controller returned a value" and
+ * "Jackson writes it" — roughly an Express middleware that wraps res.json(). The
+ * controllers stay unaware of projection: they return their usual DTOs, and when either
+ * parameter is present this swaps in a FieldProjector wrapper that writes only the
+ * selected properties. See FieldSelection for the syntax.
+ *
+ * Runs inside the ResponseCacheFilter, so each projection of a cached list is cached
+ * under its own key (the query string is part of it) like any other parameter.
+ *
+ * A name the DTO doesn't have is a 400, not silently ignored — a typo in a fields list
+ * should be loud.
+ */
+@RestControllerAdvice(assignableTypes = {
+        ProductController.class,
+        PedalController.class,
+        DetailTypeController.class,
+        ManufacturerController.class
+})
+public class SparseFieldsetAdvice implements ResponseBodyAdvice<Object> {
+
+    private final FieldProjector projector;
+
+    public SparseFieldsetAdvice(FieldProjector projector) {
+        this.projector = projector;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        String fields = servletRequest.getServletRequest().getParameter("fields");
+        String include = servletRequest.getServletRequest().getParameter("include");
+        try {
+            FieldSelection selection = FieldSelection.parse(fields, include);
+            return selection == null ? body : projector.project(body, selection);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pedalshootout.api.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared base for the six *_details repositories — the fetch plan for list queries.
+ *
+ * Every detail entity maps its product as @OneToOne(fetch = LAZY) @MapsId, and Product
+ * maps manufacturer and productType lazily. Plain findAll() therefore loads the details
+ * and then, as each DTO's from() calls getProduct().getManufacturer().getName(), fires
+ * one more SELECT per row for the product and one per manufacturer — the classic N+1.
+ *
+ * The methods here load product, manufacturer and product type in the same statement
+ * (an entity graph is JPA's way of saying "JOIN FETCH these"), so a list costs one
+ * query however many rows it has. List code should use these rather than findAll().
+ *
+ * @NoRepositoryBean: Spring Data shouldn't create a repository for this interface
+ * itself, only for each subinterface.
+ */
+@NoRepositoryBean
+public interface DetailRepository<D> extends JpaRepository<D, Integer> {
+
+    /** All rows, product / manufacturer / type joined in. */
+    @EntityGraph(attributePaths = {"product", "product.manufacturer", "product.productType"})
+    List<D> findAllWithProductBy(Sort sort);
+
+    /** The rows for these product IDs, product / manufacturer / type joined in. */
+    @EntityGraph(attributePaths = {"product", "product.manufacturer", "product.productType"})
+    List<D> findAllWithProductByProductIdIn(Collection<Integer> productIds);
+}
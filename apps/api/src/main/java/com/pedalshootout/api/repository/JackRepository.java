@@ -2,22 +2,30 @@ package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.Jack;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 /**
  * Repository for the jacks table.
  *
- * findByProductId(5) → SELECT * FROM jacks WHERE product_id = 5
- * findByProductIdAndCategory(5, "Power Input") → ... WHERE product_id = 5 AND category = 'Power Input'
+ * Reads go through the catalog snapshot; what's left here is the batched lookup
+ * behind the /page endpoints and what the admin write path needs:
+ *   findByProductIdInOrderByProductIdAscIdAsc([5, 7]) → ... WHERE product_id IN (5, 7) ORDER BY product_id, id
+ *   findIdsByProductId(5)                            → SELECT id FROM jacks WHERE product_id = 5
  */
 public interface JackRepository extends JpaRepository<Jack, Integer> {
 
-    List<Jack> findByProductId(Integer productId);
+    /** In id order within each product, the order the catalog snapshot lists them in. */
+    List<Jack> findByProductIdInOrderByProductIdAscIdAsc(List<Integer> productIds);
 
-    List<Jack> findByProductIdAndCategory(Integer productId, String category);
+    @Query("select j.id from Jack j where j.product.id = :productId")
+    List<Integer> findIdsByProductId(@Param("productId") Integer productId);
 
-    List<Jack> findByProductIdAndDirection(Integer productId, String direction);
-
-    List<Jack> findByProductIdIn(List<Integer> productIds);
+    /** Only if the jack belongs to productId; sources citing it go with it (ON DELETE CASCADE). */
+    @Modifying
+    @Query("delete from Jack j where j.id = :id and j.product.id = :productId")
+    int deleteJack(@Param("productId") Integer productId, @Param("id") Integer id);
 }
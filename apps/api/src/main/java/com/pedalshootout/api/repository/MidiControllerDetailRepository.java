@@ -1,7 +1,6 @@
 package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.MidiControllerDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface MidiControllerDetailRepository extends JpaRepository<MidiControllerDetail, Integer> {
+public interface MidiControllerDetailRepository extends DetailRepository<MidiControllerDetail> {
 }
@@ -1,19 +1,13 @@
 package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.PedalDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
-
-import java.util.List;
 
 /**
  * Repository for pedal_details table.
  *
- * findAll() returns all pedal details. To get the full pedal view (product + details + jacks),
- * the PedalService combines data from this repository with ProductRepository and JackRepository.
+ * The list methods (findAllWithProductBy etc.) come from DetailRepository and bring the
+ * product, manufacturer and type back in the same query. The full pedal view
+ * (product + details + jacks) is assembled by CatalogSnapshotLoader.
  */
-public interface PedalDetailRepository extends JpaRepository<PedalDetail, Integer> {
-
-    List<PedalDetail> findByEffectType(String effectType);
-
-    List<PedalDetail> findByMidiCapableTrue();
+public interface PedalDetailRepository extends DetailRepository<PedalDetail> {
 }
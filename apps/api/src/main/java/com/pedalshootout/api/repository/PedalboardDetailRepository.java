@@ -1,7 +1,6 @@
 package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.PedalboardDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface PedalboardDetailRepository extends JpaRepository<PedalboardDetail, Integer> {
+public interface PedalboardDetailRepository extends DetailRepository<PedalboardDetail> {
 }
@@ -1,7 +1,6 @@
 package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.PlugDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface PlugDetailRepository extends JpaRepository<PlugDetail, Integer> {
+public interface PlugDetailRepository extends DetailRepository<PlugDetail> {
 }
@@ -1,7 +1,6 @@
 package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.PowerSupplyDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface PowerSupplyDetailRepository extends JpaRepository<PowerSupplyDetail, Integer> {
+public interface PowerSupplyDetailRepository extends DetailRepository<PowerSupplyDetail> {
 }
@@ -0,0 +1,13 @@
+package com.pedalshootout.api.repository;
+
+import com.pedalshootout.api.entity.ProductCompatibility;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository for the product_compatibility table.
+ *
+ * Only read in bulk, when the catalog snapshot is built; lookups go through the
+ * in-memory CompatibilityGraph instead.
+ */
+public interface ProductCompatibilityRepository extends JpaRepository<ProductCompatibility, Integer> {
+}
@@ -0,0 +1,26 @@
+package com.pedalshootout.api.repository;
+
+import com.pedalshootout.api.entity.Product;
+import com.pedalshootout.api.paging.Cursor;
+import com.pedalshootout.api.paging.SortKey;
+
+import java.util.List;
+
+/**
+ * Keyset ("seek") paging over products — a custom fragment mixed into ProductRepository.
+ *
+ * Spring Data can't derive these queries from a method name (the WHERE clause depends
+ * on the sort and cursor), so ProductRepository extends this interface and Spring wires
+ * in ProductKeysetRepositoryImpl — found by the "Impl" suffix naming convention.
+ */
+public interface ProductKeysetRepository {
+
+    /** Optional filters; null means "don't filter on this". */
+    record Filter(Integer typeId, String effectType, String utilityType) {}
+
+    /**
+     * Up to maxResults products after the cursor (from the start when after is null),
+     * in sort order, with manufacturer and product type fetched.
+     */
+    List<Product> findPage(Filter filter, SortKey sort, boolean descending, Cursor after, int maxResults);
+}
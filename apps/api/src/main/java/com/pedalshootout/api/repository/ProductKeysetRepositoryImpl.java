@@ -0,0 +1,113 @@
+package com.pedalshootout.api.repository;
+
+import com.pedalshootout.api.entity.Product;
+import com.pedalshootout.api.paging.Cursor;
+import com.pedalshootout.api.paging.SortKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the keyset query for ProductKeysetRepository.
+ *
+ * For sort columns (c1, c2) and the id tie-breaker, "after the cursor" is written as
+ *   c1 >= :v0 AND (c1 > :v0 OR (c2 >= :v1 AND (c2 > :v1 OR p.id > :afterId)))
+ * rather than the shorter OR-only form. The leading c1 >= :v0 is a plain range, so
+ * Postgres uses it as the start of the index scan; the rest only filters rows that
+ * tie with the cursor on c1. (Postgres' own row comparison, (c1, id) > (?, ?), would
+ * do the same, but JPQL has no syntax for it.)
+ *
+ * Nullable sort keys are paged in two runs so that rows with no value come last in
+ * both directions:
+ *   1. c1 IS NOT NULL, in the requested order
+ *   2. c1 IS NULL, by id
+ * Both runs are index range scans on (c1, id). A page that straddles the boundary
+ * issues one query per run.
+ *
+ * All column paths come from the SortKey enum — user input never reaches the JPQL text.
+ */
+public class ProductKeysetRepositoryImpl implements ProductKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findPage(Filter filter, SortKey sort, boolean descending, Cursor after, int maxResults) {
+        List<Product> page = new ArrayList<>();
+        boolean inNullTail = after != null && after.nullsPhase();
+        if (!inNullTail) {
+            page.addAll(fetch(filter, sort, descending, after, false, maxResults));
+            if (!sort.nullable() || page.size() >= maxResults) return page;
+            after = null;  // values exhausted: continue from the start of the NULL tail
+        }
+        page.addAll(fetch(filter, sort, descending, after, true, maxResults - page.size()));
+        return page;
+    }
+
+    private List<Product> fetch(Filter filter, SortKey sort, boolean descending, Cursor after,
+                                boolean nullTail, int maxResults) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Product p JOIN FETCH p.manufacturer m JOIN FETCH p.productType WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (filter.typeId() != null) {
+            jpql.append(" AND p.productType.id = :typeId");
+            params.put("typeId", filter.typeId());
+        }
+        if (filter.effectType() != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM PedalDetail d WHERE d.productId = p.id AND d.effectType = :effectType)");
+            params.put("effectType", filter.effectType());
+        }
+        if (filter.utilityType() != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM UtilityDetail d WHERE d.productId = p.id AND d.utilityType = :utilityType)");
+            params.put("utilityType", filter.utilityType());
+        }
+
+        String dir = descending ? " DESC" : " ASC";
+        String gt = descending ? "<" : ">";
+        List<SortKey.Column> columns = sort.columns();
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+
+        if (nullTail) {
+            jpql.append(" AND ").append(columns.get(0).path()).append(" IS NULL");
+            if (after != null) {
+                jpql.append(" AND p.id ").append(gt).append(" :afterId");
+                params.put("afterId", after.id());
+            }
+        } else {
+            if (sort.nullable()) {
+                jpql.append(" AND ").append(columns.get(0).path()).append(" IS NOT NULL");
+            }
+            if (after != null) {
+                jpql.append(" AND ").append(seekPredicate(columns, 0, gt));
+                for (int i = 0; i < columns.size(); i++) {
+                    params.put("v" + i, after.values().get(i));
+                }
+                params.put("afterId", after.id());
+            }
+            for (SortKey.Column column : columns) {
+                orderBy.append(column.path()).append(dir).append(", ");
+            }
+        }
+        orderBy.append("p.id").append(dir);
+        jpql.append(orderBy);
+
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(maxResults).getResultList();
+    }
+
+    /** (columns[i..], id) strictly after the cursor, as an index-friendly range plus tie filter. */
+    private static String seekPredicate(List<SortKey.Column> columns, int i, String gt) {
+        if (i == columns.size()) return "p.id " + gt + " :afterId";
+        String c = columns.get(i).path();
+        String v = ":v" + i;
+        return "(" + c + " " + gt + "= " + v + " AND (" + c + " " + gt + " " + v + " OR "
+                + seekPredicate(columns, i + 1, gt) + "))";
+    }
+}
@@ -2,7 +2,9 @@ package com.pedalshootout.api.repository;
 
 import com.pedalshootout.api.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -13,8 +15,13 @@ import java.util.List;
  *   findByManufacturerId(5)  →  SELECT * FROM products WHERE manufacturer_id = 5
  *   findByProductTypeId(1)   →  SELECT * FROM products WHERE product_type_id = 1
  *   countByManufacturerId(5) →  SELECT COUNT(*) FROM products WHERE manufacturer_id = 5
+ *
+ * findAllWithManufacturerAndType() uses JOIN FETCH so the lazy manufacturer and
+ * product type come back in the same SELECT instead of one extra query per row.
+ *
+ * findPage() (keyset paging) comes from the ProductKeysetRepository fragment.
  */
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductKeysetRepository {
 
     List<Product> findByManufacturerId(Integer manufacturerId);
 
@@ -24,4 +31,12 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 
     @Query("SELECT p.manufacturer.id, COUNT(p) FROM Product p GROUP BY p.manufacturer.id")
     List<Object[]> countGroupedByManufacturerId();
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.manufacturer JOIN FETCH p.productType ORDER BY p.id")
+    List<Product> findAllWithManufacturerAndType();
+
+    /** Detail row, jacks and sources go with it (ON DELETE CASCADE). */
+    @Modifying
+    @Query("delete from Product p where p.id = :id")
+    int deleteProduct(@Param("id") Integer id);
 }
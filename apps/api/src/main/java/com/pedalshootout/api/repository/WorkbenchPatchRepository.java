@@ -0,0 +1,23 @@
+package com.pedalshootout.api.repository;
+
+import com.pedalshootout.api.entity.WorkbenchPatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository for the workbench_patches table (the save log behind each snapshot).
+ */
+public interface WorkbenchPatchRepository extends JpaRepository<WorkbenchPatch, Long> {
+
+    /** Patches after a version, oldest first — what to replay on top of a snapshot. */
+    List<WorkbenchPatch> findByWorkbenchIdAndVersionGreaterThanOrderByVersion(Integer workbenchId, long version);
+
+    /** Drop patches already folded into the snapshot. */
+    @Modifying
+    @Query("delete from WorkbenchPatch p where p.workbenchId = :workbenchId and p.version <= :version")
+    int deleteUpTo(@Param("workbenchId") Integer workbenchId, @Param("version") long version);
+}
@@ -0,0 +1,54 @@
+package com.pedalshootout.api.repository;
+
+import com.pedalshootout.api.entity.Workbench;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for the workbenches table.
+ *
+ * The write methods are single UPDATE/DELETE statements (@Modifying) rather than
+ * load-change-save, so a save never has to read the snapshot blob just to bump a
+ * version number.
+ */
+public interface WorkbenchRepository extends JpaRepository<Workbench, Integer> {
+
+    /** Everything but the snapshot, for the list and for version checks. */
+    interface Summary {
+        Integer getId();
+        String getName();
+        Long getVersion();
+        Long getSnapshotVersion();
+        OffsetDateTime getCreatedAt();
+        OffsetDateTime getUpdatedAt();
+    }
+
+    List<Summary> findAllByOrderByUpdatedAtDesc();
+
+    Optional<Summary> findSummaryById(Integer id);
+
+    /**
+     * Optimistic concurrency in one statement: move to expected + 1 only if the
+     * workbench is still at expected. Returns 0 if it isn't (or doesn't exist).
+     */
+    @Modifying
+    @Query("update Workbench w set w.version = w.version + 1, w.updatedAt = :now "
+            + "where w.id = :id and w.version = :expected")
+    int bumpVersion(@Param("id") Integer id, @Param("expected") long expected, @Param("now") OffsetDateTime now);
+
+    /** Replace the snapshot with the state at version (compaction). */
+    @Modifying
+    @Query("update Workbench w set w.snapshot = :snapshot, w.snapshotVersion = :version where w.id = :id")
+    int replaceSnapshot(@Param("id") Integer id, @Param("version") long version, @Param("snapshot") byte[] snapshot);
+
+    /** Patches go with it (ON DELETE CASCADE). */
+    @Modifying
+    @Query("delete from Workbench w where w.id = :id")
+    int deleteWorkbench(@Param("id") Integer id);
+}
@@ -0,0 +1,287 @@
+package com.pedalshootout.api.routing;
+
+import java.util.Arrays;
+
+/**
+ * A directed graph that knows, after every edge insert or delete, whether it has a
+ * cycle and which edges close one — without re-walking the whole graph.
+ *
+ * It keeps a topological order of the nodes (ord[node] = position) for the acyclic
+ * part of the graph, maintained with the Pearce–Kelly dynamic topological sort:
+ *   - inserting u → v with ord[u] < ord[v] is already consistent: O(1)
+ *   - otherwise only the nodes between ord[v] and ord[u] can be affected. A forward
+ *     search from v (bounded by ord[u]) and a backward search from u (bounded by
+ *     ord[v]) find them; if the forward search reaches u, the edge closes a cycle,
+ *     else the two sets swap their order positions, backward set first
+ *   - deleting an edge never invalidates a topological order: O(degree)
+ * So an edit costs time proportional to the part of the order it disturbs, which for
+ * a signal chain is usually a handful of nodes, not the whole rig.
+ *
+ * An edge that would close a cycle isn't refused — the rig really has that cable — it
+ * is "parked": kept aside, out of the ordered graph, and reported by parkedEdges().
+ * Deleting any edge can break cycles, so deletions retry the parked edges.
+ *
+ * Nodes are dense ints from addNode(); parallel edges are allowed (a stereo pair is
+ * one node, so its two cables are two u → v edges). Not thread-safe.
+ */
+public final class RoutingGraph {
+
+    private int n;
+    private int[] ord = new int[16];
+    private int[][] out = new int[16][];
+    private int[][] in = new int[16][];
+    private int[] outSize = new int[16];
+    private int[] inSize = new int[16];
+
+    /** DFS bookkeeping: a node is visited in the current search when mark == epoch. */
+    private int[] mark = new int[16];
+    private int epoch;
+    private int[] stack = new int[16];
+    private int[] forward = new int[16];
+    private int[] backward = new int[16];
+    private int[] pool = new int[32];
+
+    /** Edges that close a cycle, as (u << 32) | v. */
+    private long[] parked = new long[4];
+    private int parkedSize;
+
+    public int addNode() {
+        if (n == ord.length) grow(n * 2);
+        ord[n] = n;
+        out[n] = new int[2];
+        in[n] = new int[2];
+        return n++;
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    /** Add u → v. True if the graph is still acyclic, false if the edge was parked. */
+    public boolean addEdge(int u, int v) {
+        if (!insert(u, v)) {
+            if (parkedSize == parked.length) parked = Arrays.copyOf(parked, parkedSize * 2);
+            parked[parkedSize++] = key(u, v);
+            return false;
+        }
+        return true;
+    }
+
+    /** Remove one u → v edge (a parked one first). False if there was none. */
+    public boolean removeEdge(int u, int v) {
+        long k = key(u, v);
+        for (int i = parkedSize - 1; i >= 0; i--) {
+            if (parked[i] == k) {
+                parked[i] = parked[--parkedSize];
+                return true;
+            }
+        }
+        if (!remove(out, outSize, u, v)) return false;
+        remove(in, inSize, v, u);
+        retryParked();
+        return true;
+    }
+
+    /** Would adding u → v close a cycle? Doesn't change the graph. */
+    public boolean wouldCreateCycle(int u, int v) {
+        if (u == v) return true;
+        return ord[u] > ord[v] && reaches(v, u);
+    }
+
+    public boolean hasCycle() {
+        return parkedSize > 0;
+    }
+
+    /** The parked edges, each {u, v}. */
+    public int[][] parkedEdges() {
+        int[][] edges = new int[parkedSize][];
+        for (int i = 0; i < parkedSize; i++) {
+            edges[i] = new int[] {(int) (parked[i] >>> 32), (int) parked[i]};
+        }
+        return edges;
+    }
+
+    /**
+     * A shortest path from → ... → to over the acyclic edges, as nodes, or null if there
+     * is none. For a parked edge u → v, path(v, u) plus the edge is the cycle it closes.
+     */
+    public int[] path(int from, int to) {
+        if (from == to) return new int[] {from};
+        if (ord[from] > ord[to]) return null;
+        int[] parent = new int[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        epoch++;
+        mark[from] = epoch;
+        queue[tail++] = from;
+        int bound = ord[to];
+        while (head < tail) {
+            int x = queue[head++];
+            for (int i = 0; i < outSize[x]; i++) {
+                int y = out[x][i];
+                if (mark[y] == epoch || ord[y] > bound) continue;
+                mark[y] = epoch;
+                parent[y] = x;
+                if (y == to) return unwind(parent, from, to);
+                queue[tail++] = y;
+            }
+        }
+        return null;
+    }
+
+    // ─── Pearce–Kelly ───────────────────────────────────────────────────
+
+    /** Link u → v into the ordered graph, reordering as needed; false if it closes a cycle. */
+    private boolean insert(int u, int v) {
+        if (u == v) return false;
+        int lb = ord[v], ub = ord[u];
+        if (lb > ub) {
+            link(u, v);
+            return true;
+        }
+        int f = collect(v, ub, true);
+        if (f < 0) return false;
+        int b = collect(u, lb, false);
+        reorder(f, b);
+        link(u, v);
+        return true;
+    }
+
+    /**
+     * Nodes reachable from start, into forward[0..count) (over out-edges with
+     * ord <= bound) or backward[0..count) (over in-edges with ord >= bound). The forward
+     * search returns -1 when it reaches the node at ord == bound, the new edge's source:
+     * a cycle.
+     */
+    private int collect(int start, int bound, boolean forwardSearch) {
+        int[] into = forwardSearch ? forward : backward;
+        epoch++;
+        int count = 0, top = 0;
+        mark[start] = epoch;
+        stack[top++] = start;
+        while (top > 0) {
+            int x = stack[--top];
+            if (count == into.length) into = Arrays.copyOf(into, count * 2);
+            into[count++] = x;
+            int[] adj = forwardSearch ? out[x] : in[x];
+            int size = forwardSearch ? outSize[x] : inSize[x];
+            for (int i = 0; i < size; i++) {
+                int y = adj[i];
+                int o = ord[y];
+                if (forwardSearch) {
+                    if (o == bound) {
+                        forward = into;
+                        return -1;
+                    }
+                    if (o > bound) continue;
+                } else if (o < bound) {
+                    continue;
+                }
+                if (mark[y] == epoch) continue;
+                mark[y] = epoch;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = y;
+            }
+        }
+        if (forwardSearch) forward = into; else backward = into;
+        return count;
+    }
+
+    /** Give the backward set, then the forward set, the order positions they held between them. */
+    private void reorder(int f, int b) {
+        sortByOrd(forward, f);
+        sortByOrd(backward, b);
+        if (pool.length < f + b) pool = new int[Math.max(f + b, pool.length * 2)];
+        for (int i = 0; i < b; i++) pool[i] = ord[backward[i]];
+        for (int i = 0; i < f; i++) pool[b + i] = ord[forward[i]];
+        Arrays.sort(pool, 0, f + b);
+        for (int i = 0; i < b; i++) ord[backward[i]] = pool[i];
+        for (int i = 0; i < f; i++) ord[forward[i]] = pool[b + i];
+    }
+
+    private void sortByOrd(int[] nodes, int count) {
+        // insertion sort: the affected sets are small
+        for (int i = 1; i < count; i++) {
+            int x = nodes[i], o = ord[x], j = i - 1;
+            while (j >= 0 && ord[nodes[j]] > o) {
+                nodes[j + 1] = nodes[j];
+                j--;
+            }
+            nodes[j + 1] = x;
+        }
+    }
+
+    /** Forward search from start for target, only through nodes ordered before target. */
+    private boolean reaches(int start, int target) {
+        int bound = ord[target];
+        epoch++;
+        int top = 0;
+        mark[start] = epoch;
+        stack[top++] = start;
+        while (top > 0) {
+            int x = stack[--top];
+            for (int i = 0; i < outSize[x]; i++) {
+                int y = out[x][i];
+                if (y == target) return true;
+                if (ord[y] > bound || mark[y] == epoch) continue;
+                mark[y] = epoch;
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = y;
+            }
+        }
+        return false;
+    }
+
+    /** After a delete: re-insert the parked edges that no longer close a cycle. */
+    private void retryParked() {
+        // Inserting an edge can't make another parked edge acyclic, so one pass is enough.
+        for (int i = parkedSize - 1; i >= 0; i--) {
+            long k = parked[i];
+            if (insert((int) (k >>> 32), (int) k)) parked[i] = parked[--parkedSize];
+        }
+    }
+
+    // ─── Storage ────────────────────────────────────────────────────────
+
+    private void link(int u, int v) {
+        append(out, outSize, u, v);
+        append(in, inSize, v, u);
+    }
+
+    private static void append(int[][] adj, int[] size, int x, int y) {
+        if (size[x] == adj[x].length) adj[x] = Arrays.copyOf(adj[x], size[x] * 2);
+        adj[x][size[x]++] = y;
+    }
+
+    private static boolean remove(int[][] adj, int[] size, int x, int y) {
+        int[] a = adj[x];
+        for (int i = 0; i < size[x]; i++) {
+            if (a[i] == y) {
+                a[i] = a[--size[x]];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(int u, int v) {
+        return ((long) u << 32) | (v & 0xffffffffL);
+    }
+
+    private static int[] unwind(int[] parent, int from, int to) {
+        int length = 1;
+        for (int x = to; x != from; x = parent[x]) length++;
+        int[] path = new int[length];
+        for (int x = to, i = length - 1; i >= 0; x = parent[x], i--) path[i] = x;
+        return path;
+    }
+
+    private void grow(int capacity) {
+        ord = Arrays.copyOf(ord, capacity);
+        out = Arrays.copyOf(out, capacity);
+        in = Arrays.copyOf(in, capacity);
+        outSize = Arrays.copyOf(outSize, capacity);
+        inSize = Arrays.copyOf(inSize, capacity);
+        mark = Arrays.copyOf(mark, capacity);
+    }
+}
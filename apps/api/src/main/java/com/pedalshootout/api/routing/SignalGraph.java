@@ -0,0 +1,433 @@
+package com.pedalshootout.api.routing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pedalshootout.api.dto.JackDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One routing layer (audio or MIDI) of a workbench as a RoutingGraph of jacks.
+ *
+ * Nodes are jacks, not devices, so what happens inside a device is explicit:
+ *   - every input reaches every output of the same device (in → out edges), except
+ *     through an FX loop. A group_id shared by an input and an output is a send/return
+ *     pair ("loop_1"); a return feeds the outputs outside any loop and the sends of
+ *     later loops only, never its own or an earlier send. That's what makes a pedal
+ *     in a loop switcher's loop, or an amp's FX loop, not a feedback loop.
+ *   - a group_id shared by jacks of one direction is a stereo pair ("stereo_in"): both
+ *     jacks are one node, so L and R cables are parallel edges of one lane.
+ *   - normalled_to_jack_id is an internal edge from the jack that gives the signal
+ *     (the output side, or for two inputs the jack referred to) to the one that takes
+ *     it, present while normalling_type says it isn't broken: "Normalled" breaks when
+ *     either jack has a cable, "Half-Normalled" when the receiving one does,
+ *     "Parallel" never, "Non-Normalled" is no edge.
+ * Cables (audioConnections / midiConnections) are edges between jacks of two devices.
+ * Virtual nodes (guitar, amp input, ...) and jacks the catalog doesn't know are plain
+ * nodes with no internal edges.
+ *
+ * sync() brings the graph in line with a workbench state by diffing it against the
+ * last one — devices by instance ID and what their jacks came from, cables by
+ * connection ID — so a save that moves one cable is one edge delete and one insert.
+ * Node IDs of removed devices are not reused; when more than half the nodes are
+ * garbage the graph is rebuilt. Not thread-safe.
+ */
+public final class SignalGraph {
+
+    public enum Layer {
+        AUDIO("audio", "audioConnections"),
+        MIDI("midi", "midiConnections");
+
+        final String category;
+        final String connectionsField;
+
+        Layer(String category, String connectionsField) {
+            this.category = category;
+            this.connectionsField = connectionsField;
+        }
+
+        public String label() {
+            return category;
+        }
+
+        public static Layer of(String label) {
+            for (Layer l : values()) {
+                if (l.category.equalsIgnoreCase(label)) return l;
+            }
+            return null;
+        }
+    }
+
+    /** A jack on a workbench: instance ID plus jack ID (a number, or a virtual jack's string). */
+    public record Port(String instanceId, String jackId) {}
+
+    /** A cycle: the devices it passes through in signal order, and the cables that make it. */
+    public record Cycle(List<String> instanceIds, List<String> connectionIds) {}
+
+    /** One jack of a device, from the catalog or a placeholder's spec. */
+    private record JackSpec(String id, String direction, String groupId, String normalledTo, String normallingType) {}
+
+    private record Cable(String id, Port source, Port target, int u, int v) {}
+
+    private static final class Normal {
+        final Port giver, receiver;
+        final int u, v;
+        final boolean breaksOnGiver, breaksOnReceiver;
+        boolean active;
+
+        Normal(Port giver, Port receiver, int u, int v, boolean breaksOnGiver, boolean breaksOnReceiver) {
+            this.giver = giver;
+            this.receiver = receiver;
+            this.u = u;
+            this.v = v;
+            this.breaksOnGiver = breaksOnGiver;
+            this.breaksOnReceiver = breaksOnReceiver;
+        }
+    }
+
+    private record Device(Object source, List<Port> ports, List<int[]> paths, List<Normal> normals) {}
+
+    private static final Pattern TRAILING_NUMBER = Pattern.compile("^(.*?)(\\d{1,9})$");
+
+    private final Layer layer;
+    private RoutingGraph graph = new RoutingGraph();
+    private final Map<Port, Integer> nodes = new HashMap<>();
+    private final List<String> instanceOfNode = new ArrayList<>();
+    private final Map<String, Device> devices = new HashMap<>();
+    private final Map<String, Cable> cables = new LinkedHashMap<>();
+    private final Map<Long, List<String>> cablesByEdge = new HashMap<>();
+    private final Map<Port, Integer> plugs = new HashMap<>();
+    private final Map<Port, List<Normal>> normalsByPort = new HashMap<>();
+
+    public SignalGraph(Layer layer) {
+        this.layer = layer;
+    }
+
+    public Layer layer() {
+        return layer;
+    }
+
+    /**
+     * Update the graph to a workbench state (the data of WorkbenchDto.Detail): items and
+     * audioPlaceholders are the devices, the layer's connection list the cables.
+     * jacksOf gives a product's catalog jacks.
+     */
+    public void sync(JsonNode data, Function<Integer, List<JackDto>> jacksOf) {
+        if (graph.nodeCount() > 64 && graph.nodeCount() > 2 * nodes.size()) reset();
+
+        Map<String, Object> wantedDevices = new HashMap<>();
+        for (JsonNode item : data.path("items")) {
+            String instance = item.path("instanceId").asText(null);
+            if (instance == null || !item.path("productId").canConvertToInt()) continue;
+            int productId = item.path("productId").asInt();
+            wantedDevices.put(instance, productId);
+        }
+        if (layer == Layer.AUDIO) {
+            for (JsonNode placeholder : data.path("audioPlaceholders")) {
+                String instance = placeholder.path("instanceId").asText(null);
+                if (instance == null) continue;
+                wantedDevices.put(instance, placeholder.path("jacks"));
+            }
+        }
+
+        Map<String, JsonNode> wantedCables = new LinkedHashMap<>();
+        JsonNode connections = data.path(layer.connectionsField);
+        for (int i = 0; i < connections.size(); i++) {
+            JsonNode c = connections.get(i);
+            wantedCables.put(c.path("id").asText("#" + i), c);
+        }
+
+        // Devices whose jacks changed (or went away) take their cables down with them;
+        // the cables go back up below, onto the devices' new nodes.
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Device> e : devices.entrySet()) {
+            if (!Objects.equals(e.getValue().source(), wantedDevices.get(e.getKey()))) changed.add(e.getKey());
+        }
+        for (String instance : wantedDevices.keySet()) {
+            if (!devices.containsKey(instance)) changed.add(instance);
+        }
+        for (Cable cable : List.copyOf(cables.values())) {
+            JsonNode wanted = wantedCables.get(cable.id());
+            if (wanted == null || !cable.source().equals(port(wanted, true)) || !cable.target().equals(port(wanted, false))
+                    || changed.contains(cable.source().instanceId()) || changed.contains(cable.target().instanceId())) {
+                unplug(cable);
+            }
+        }
+        for (String instance : changed) {
+            Device old = devices.remove(instance);
+            if (old != null) detach(old);
+        }
+        for (String instance : changed) {
+            Object source = wantedDevices.get(instance);
+            if (source == null) continue;
+            List<JackSpec> jacks = source instanceof Integer productId
+                    ? fromCatalog(jacksOf.apply(productId))
+                    : fromPlaceholder((JsonNode) source);
+            devices.put(instance, attach(instance, source, jacks));
+        }
+        for (Map.Entry<String, JsonNode> e : wantedCables.entrySet()) {
+            if (cables.containsKey(e.getKey())) continue;
+            Port source = port(e.getValue(), true);
+            Port target = port(e.getValue(), false);
+            if (source != null && target != null) plug(new Cable(e.getKey(), source, target, node(source), node(target)));
+        }
+    }
+
+    public boolean hasCycle() {
+        return graph.hasCycle();
+    }
+
+    /** Every cycle, one per cable (or internal path) that closes one. */
+    public List<Cycle> cycles() {
+        List<Cycle> cycles = new ArrayList<>();
+        for (int[] edge : graph.parkedEdges()) {
+            int[] path = graph.path(edge[1], edge[0]);
+            if (path != null) cycles.add(describe(edge[0], path));
+        }
+        return cycles;
+    }
+
+    /** The cycle a new cable source → target would close, or null if it wouldn't. */
+    public Cycle wouldClose(Port source, Port target) {
+        Integer u = nodes.get(source), v = nodes.get(target);
+        if (u == null || v == null) return null;       // a jack with nothing on it yet can't be on a cycle
+        if (!graph.wouldCreateCycle(u, v)) return null;
+        int[] path = graph.path(v, u);
+        return path == null ? new Cycle(List.of(source.instanceId()), List.of()) : describe(u, path);
+    }
+
+    public int cableCount() {
+        return cables.size();
+    }
+
+    // ─── Devices ────────────────────────────────────────────────────────
+
+    private Device attach(String instance, Object source, List<JackSpec> jacks) {
+        Map<String, JackSpec> byId = new HashMap<>();
+        Map<String, List<JackSpec>> groups = new HashMap<>();
+        for (JackSpec j : jacks) {
+            byId.put(j.id(), j);
+            if (j.groupId() != null) groups.computeIfAbsent(j.groupId(), g -> new ArrayList<>()).add(j);
+        }
+
+        // Fresh nodes for every jack (a cable may have created one before the device was
+        // added); stereo pairs share one, loop groups get a rank for the series order.
+        List<Port> ports = new ArrayList<>();
+        for (JackSpec j : jacks) {
+            Port p = new Port(instance, j.id());
+            nodes.remove(p);
+            ports.add(p);
+        }
+        Map<String, Integer> loopRank = new HashMap<>();
+        List<String> loopGroups = new ArrayList<>();
+        for (Map.Entry<String, List<JackSpec>> g : groups.entrySet()) {
+            List<JackSpec> members = g.getValue();
+            boolean loop = members.stream().anyMatch(SignalGraph::isInput) && members.stream().anyMatch(SignalGraph::isOutput);
+            if (loop) {
+                loopGroups.add(g.getKey());
+            } else if (members.size() > 1) {
+                int shared = node(new Port(instance, members.get(0).id()));
+                for (JackSpec j : members) nodes.put(new Port(instance, j.id()), shared);
+            }
+        }
+        loopGroups.sort(LOOP_ORDER);
+        for (int i = 0; i < loopGroups.size(); i++) loopRank.put(loopGroups.get(i), i);
+        for (Port p : ports) node(p);
+
+        List<int[]> paths = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (JackSpec in : jacks) {
+            if (!isInput(in)) continue;
+            Integer inRank = in.groupId() == null ? null : loopRank.get(in.groupId());
+            for (JackSpec out : jacks) {
+                if (!isOutput(out)) continue;
+                if (inRank != null) {
+                    Integer outRank = out.groupId() == null ? null : loopRank.get(out.groupId());
+                    if (outRank != null && outRank <= inRank) continue;
+                }
+                int u = node(new Port(instance, in.id())), v = node(new Port(instance, out.id()));
+                if (u != v && seen.add(edgeKey(u, v))) {
+                    graph.addEdge(u, v);
+                    paths.add(new int[] {u, v});
+                }
+            }
+        }
+
+        List<Normal> normals = new ArrayList<>();
+        for (JackSpec j : jacks) {
+            JackSpec other = j.normalledTo() == null ? null : byId.get(j.normalledTo());
+            if (other == null || "non-normalled".equals(lower(j.normallingType()))) continue;
+            boolean otherGives = isOutput(other) && !isOutput(j) || isInput(j) == isInput(other);
+            JackSpec giver = otherGives ? other : j;
+            JackSpec receiver = otherGives ? j : other;
+            String type = lower(j.normallingType());
+            boolean parallel = "parallel".equals(type);
+            boolean half = "half-normalled".equals(type);
+            Port gp = new Port(instance, giver.id()), rp = new Port(instance, receiver.id());
+            Normal normal = new Normal(gp, rp, node(gp), node(rp), !parallel && !half, !parallel);
+            if (normal.u == normal.v) continue;
+            normals.add(normal);
+            normalsByPort.computeIfAbsent(gp, k -> new ArrayList<>()).add(normal);
+            normalsByPort.computeIfAbsent(rp, k -> new ArrayList<>()).add(normal);
+            updateNormal(normal);
+        }
+        return new Device(source, List.copyOf(ports), paths, normals);
+    }
+
+    private void detach(Device device) {
+        for (int[] edge : device.paths()) graph.removeEdge(edge[0], edge[1]);
+        for (Normal normal : device.normals()) {
+            if (normal.active) graph.removeEdge(normal.u, normal.v);
+            normalsByPort.remove(normal.giver);
+            normalsByPort.remove(normal.receiver);
+        }
+        for (Port p : device.ports()) nodes.remove(p);
+    }
+
+    /** The product's jacks in this layer's category. */
+    private List<JackSpec> fromCatalog(List<JackDto> jacks) {
+        List<JackSpec> specs = new ArrayList<>();
+        if (jacks == null) return specs;
+        for (JackDto j : jacks) {
+            if (!layer.category.equals(lower(j.category()))) continue;
+            specs.add(new JackSpec(String.valueOf(j.id()), lower(j.direction()), j.groupId(),
+                    j.normalledToJackId() == null ? null : String.valueOf(j.normalledToJackId()),
+                    j.normallingType()));
+        }
+        return specs;
+    }
+
+    private static List<JackSpec> fromPlaceholder(JsonNode jacks) {
+        List<JackSpec> specs = new ArrayList<>();
+        for (JsonNode j : jacks) {
+            String id = j.path("virtualJackId").asText(null);
+            if (id == null) continue;
+            specs.add(new JackSpec(id, lower(j.path("direction").asText(null)),
+                    j.path("group_id").isTextual() ? j.get("group_id").asText() : null, null, null));
+        }
+        return specs;
+    }
+
+    // ─── Cables and normalling ──────────────────────────────────────────
+
+    private void plug(Cable cable) {
+        cables.put(cable.id(), cable);
+        cablesByEdge.computeIfAbsent(edgeKey(cable.u(), cable.v()), k -> new ArrayList<>()).add(cable.id());
+        plugs.merge(cable.source(), 1, Integer::sum);
+        plugs.merge(cable.target(), 1, Integer::sum);
+        graph.addEdge(cable.u(), cable.v());
+        updateNormals(cable.source());
+        updateNormals(cable.target());
+    }
+
+    private void unplug(Cable cable) {
+        cables.remove(cable.id());
+        List<String> ids = cablesByEdge.get(edgeKey(cable.u(), cable.v()));
+        if (ids != null && ids.remove(cable.id()) && ids.isEmpty()) cablesByEdge.remove(edgeKey(cable.u(), cable.v()));
+        plugs.computeIfPresent(cable.source(), (p, count) -> count > 1 ? count - 1 : null);
+        plugs.computeIfPresent(cable.target(), (p, count) -> count > 1 ? count - 1 : null);
+        graph.removeEdge(cable.u(), cable.v());
+        updateNormals(cable.source());
+        updateNormals(cable.target());
+    }
+
+    private void updateNormals(Port port) {
+        List<Normal> normals = normalsByPort.get(port);
+        if (normals != null) normals.forEach(this::updateNormal);
+    }
+
+    private void updateNormal(Normal normal) {
+        boolean broken = normal.breaksOnGiver && plugs.containsKey(normal.giver)
+                || normal.breaksOnReceiver && plugs.containsKey(normal.receiver);
+        if (broken == !normal.active) return;
+        normal.active = !broken;
+        if (normal.active) graph.addEdge(normal.u, normal.v); else graph.removeEdge(normal.u, normal.v);
+    }
+
+    // ─── Nodes ──────────────────────────────────────────────────────────
+
+    private int node(Port port) {
+        Integer n = nodes.get(port);
+        if (n != null) return n;
+        int id = graph.addNode();
+        instanceOfNode.add(port.instanceId());
+        nodes.put(port, id);
+        return id;
+    }
+
+    private void reset() {
+        graph = new RoutingGraph();
+        nodes.clear();
+        instanceOfNode.clear();
+        devices.clear();
+        cables.clear();
+        cablesByEdge.clear();
+        plugs.clear();
+        normalsByPort.clear();
+    }
+
+    private Cycle describe(int closingSource, int[] path) {
+        // path runs from the closing edge's target back round to its source
+        List<String> instances = new ArrayList<>();
+        List<String> connections = new ArrayList<>();
+        int previous = closingSource;
+        for (int node : path) {
+            addCable(connections, previous, node);
+            String instance = instanceOfNode.get(node);
+            if (instances.isEmpty() || !instances.get(instances.size() - 1).equals(instance)) instances.add(instance);
+            previous = node;
+        }
+        if (instances.size() > 1 && instances.get(0).equals(instances.get(instances.size() - 1))) {
+            instances.remove(instances.size() - 1);
+        }
+        return new Cycle(List.copyOf(instances), List.copyOf(connections));
+    }
+
+    private void addCable(List<String> into, int u, int v) {
+        List<String> ids = cablesByEdge.get(edgeKey(u, v));
+        if (ids != null && !ids.isEmpty()) into.add(ids.get(0));
+    }
+
+    private static Port port(JsonNode connection, boolean source) {
+        String instance = connection.path(source ? "sourceInstanceId" : "targetInstanceId").asText(null);
+        JsonNode jack = connection.get(source ? "sourceJackId" : "targetJackId");
+        if (instance == null || jack == null || jack.isNull()) return null;
+        return new Port(instance, jack.asText());
+    }
+
+    private static boolean isInput(JackSpec j) {
+        return "input".equals(j.direction()) || "bidirectional".equals(j.direction());
+    }
+
+    private static boolean isOutput(JackSpec j) {
+        return "output".equals(j.direction()) || "bidirectional".equals(j.direction());
+    }
+
+    private static String lower(String s) {
+        return s == null ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long edgeKey(int u, int v) {
+        return ((long) u << 32) | (v & 0xffffffffL);
+    }
+
+    /** "loop_2" before "loop_10": a trailing number compares as a number. */
+    private static final Comparator<String> LOOP_ORDER = (a, b) -> {
+        Matcher ma = TRAILING_NUMBER.matcher(a), mb = TRAILING_NUMBER.matcher(b);
+        if (ma.matches() && mb.matches() && ma.group(1).equals(mb.group(1))) {
+            return Integer.compare(Integer.parseInt(ma.group(2)), Integer.parseInt(mb.group(2)));
+        }
+        return a.compareTo(b);
+    };
+}
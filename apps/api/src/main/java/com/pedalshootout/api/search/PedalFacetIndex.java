@@ -0,0 +1,341 @@
+package com.pedalshootout.api.search;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDetailDto;
+import com.pedalshootout.api.dto.PedalDto;
+import com.pedalshootout.api.planner.SupplyIndex;
+import com.pedalshootout.api.planner.VoltageSpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Faceted filtering over pedals with one bitmap per facet value.
+ *
+ * Every pedal gets a position (its index in the snapshot's pedal list). For each
+ * dimension — effect type, bypass type, price bucket, ... — and each value in it, there's
+ * a bitmap (long[]) with bit i set when pedal i has that value. Then:
+ *   - "Delay OR Reverb"            → OR the two bitmaps
+ *   - "... AND True Bypass"        → AND with the True Bypass bitmap
+ *   - "how many of those are $100–199?" → popcount(result AND price bitmap)
+ * Each of those is a tight loop over n/64 longs, which is why a query with facet counts
+ * for every value stays well under a millisecond even at 100k pedals.
+ *
+ * Facet counts follow the usual multi-select convention (what Amazon-style filter
+ * sidebars do): a dimension's counts are computed with every *other* dimension's
+ * selection applied but not its own, so ticking "Delay" doesn't zero out "Reverb" — it
+ * still shows how many reverbs you'd get by ticking it too.
+ *
+ * Values within a dimension are OR'ed; dimensions are AND'ed. Null values are indexed as
+ * "unknown" so they can be filtered for (or counted) like any other value.
+ *
+ * Values are matched case-insensitively, the same way they're grouped when indexed:
+ * "Delay" and "delay" in the catalog are one value, and ?effectType=delay selects it.
+ */
+public final class PedalFacetIndex {
+
+    public static final String UNKNOWN = "unknown";
+
+    public enum Dimension {
+        EFFECT_TYPE("effectType"),
+        BYPASS_TYPE("bypassType"),
+        MONO_STEREO("monoStereo"),
+        SIGNAL_TYPE("signalType"),
+        MIDI_CAPABLE("midiCapable"),
+        TAP_TEMPO("hasTapTempo"),
+        VOLTAGE("voltage"),
+        CURRENT("current"),
+        PRICE("price");
+
+        /** Query-string / JSON name. */
+        public final String param;
+
+        Dimension(String param) { this.param = param; }
+    }
+
+    /** Fixed bucket: key is what clients send, [min, max] inclusive. */
+    private record Bucket(String key, int min, int max) {}
+
+    private static final List<Bucket> CURRENT_BUCKETS = List.of(
+            new Bucket("0-50", 0, 50),
+            new Bucket("51-100", 51, 100),
+            new Bucket("101-250", 101, 250),
+            new Bucket("251-500", 251, 500),
+            new Bucket("501+", 501, Integer.MAX_VALUE));
+
+    /** Price buckets in whole dollars. */
+    private static final List<Bucket> PRICE_BUCKETS = List.of(
+            new Bucket("0-99", 0, 99),
+            new Bucket("100-199", 100, 199),
+            new Bucket("200-299", 200, 299),
+            new Bucket("300-499", 300, 499),
+            new Bucket("500+", 500, Integer.MAX_VALUE));
+
+    public record FacetValue(String value, int count, boolean selected) {}
+
+    public record Facet(Dimension dimension, List<FacetValue> values) {}
+
+    public record Result(int totalMatches, List<PedalDto> pedals, List<Facet> facets) {}
+
+    private final PedalDto[] pedals;
+    private final int words;
+    private final long[] all;
+    /** Dimension → value → bitmap, values in display order. */
+    private final Map<Dimension, Map<String, long[]>> bitmaps = new EnumMap<>(Dimension.class);
+    /** Dimension → lower-cased value → the value as indexed (a key of bitmaps). */
+    private final Map<Dimension, Map<String, String>> canonical = new EnumMap<>(Dimension.class);
+
+    private PedalFacetIndex(List<PedalDto> pedalList, Function<Integer, List<JackDto>> jacksOf) {
+        pedals = pedalList.toArray(PedalDto[]::new);
+        words = (pedals.length + 63) >>> 6;
+        all = new long[words];
+        for (int i = 0; i < pedals.length; i++) set(all, i);
+
+        indexStrings(Dimension.EFFECT_TYPE, p -> p.pedalDetails().effectType());
+        indexStrings(Dimension.BYPASS_TYPE, p -> p.pedalDetails().bypassType());
+        indexStrings(Dimension.MONO_STEREO, p -> p.pedalDetails().monoStereo());
+        indexStrings(Dimension.SIGNAL_TYPE, p -> p.pedalDetails().signalType());
+        indexBooleans(Dimension.MIDI_CAPABLE, PedalDetailDto::midiCapable);
+        indexBooleans(Dimension.TAP_TEMPO, PedalDetailDto::hasTapTempo);
+
+        JackDto[] power = new JackDto[pedals.length];
+        for (int i = 0; i < pedals.length; i++) {
+            power[i] = jacksOf.apply(pedals[i].id()).stream()
+                    .filter(j -> "power".equals(j.category()) && "input".equals(j.direction()))
+                    .findFirst().orElse(null);
+        }
+        indexVoltages(power);
+        indexBuckets(Dimension.CURRENT, CURRENT_BUCKETS, i -> power[i] != null ? power[i].currentMa() : null);
+        indexBuckets(Dimension.PRICE, PRICE_BUCKETS,
+                i -> pedals[i].msrpCents() != null ? pedals[i].msrpCents() / 100 : null);
+
+        bitmaps.forEach((dim, values) -> {
+            Map<String, String> names = new HashMap<>();
+            for (String value : values.keySet()) names.put(fold(value), value);
+            canonical.put(dim, names);
+        });
+    }
+
+    /** Build from the pedals in display order and a jack lookup (the snapshot's). */
+    public static PedalFacetIndex build(List<PedalDto> pedals, Function<Integer, List<JackDto>> jacksOf) {
+        return new PedalFacetIndex(pedals, jacksOf);
+    }
+
+    /**
+     * Pedals matching every selected dimension (any value within a dimension), one page
+     * of them in catalog order, and counts for every facet value.
+     */
+    public Result search(Map<Dimension, ? extends Collection<String>> selected, int page, int size) {
+        // One OR'ed mask per dimension with a selection; selected values as indexed
+        Map<Dimension, long[]> masks = new EnumMap<>(Dimension.class);
+        Map<Dimension, Set<String>> chosenValues = new EnumMap<>(Dimension.class);
+        for (Map.Entry<Dimension, ? extends Collection<String>> e : selected.entrySet()) {
+            if (e.getValue() == null || e.getValue().isEmpty()) continue;
+            long[] mask = new long[words];
+            Map<String, long[]> values = bitmaps.get(e.getKey());
+            Map<String, String> names = canonical.get(e.getKey());
+            Set<String> chosen = new HashSet<>();
+            for (String v : e.getValue()) {
+                String value = v == null ? null : names.get(fold(v));
+                if (value != null && chosen.add(value)) or(mask, values.get(value));
+            }
+            masks.put(e.getKey(), mask);
+            chosenValues.put(e.getKey(), chosen);
+        }
+
+        long[] matches = all.clone();
+        for (long[] mask : masks.values()) and(matches, mask);
+
+        List<Facet> facets = new ArrayList<>();
+        for (Dimension dim : Dimension.values()) {
+            // Own selection excluded; dimensions with no selection just use the full match set
+            long[] base = matches;
+            if (masks.containsKey(dim)) {
+                base = all.clone();
+                for (Map.Entry<Dimension, long[]> m : masks.entrySet()) {
+                    if (m.getKey() != dim) and(base, m.getValue());
+                }
+            }
+            Set<String> chosen = chosenValues.getOrDefault(dim, Set.of());
+            List<FacetValue> values = new ArrayList<>();
+            for (Map.Entry<String, long[]> v : bitmaps.get(dim).entrySet()) {
+                values.add(new FacetValue(v.getKey(), andCount(base, v.getValue()), chosen.contains(v.getKey())));
+            }
+            facets.add(new Facet(dim, values));
+        }
+
+        int total = count(matches);
+        List<PedalDto> hits = new ArrayList<>();
+        long skip = (long) page * size;
+        if (skip < total) {
+            int i = nthSetBit(matches, (int) skip);
+            while (i >= 0 && hits.size() < size) {
+                hits.add(pedals[i]);
+                i = nextSetBit(matches, i + 1);
+            }
+        }
+        return new Result(total, hits, facets);
+    }
+
+    public int size() {
+        return pedals.length;
+    }
+
+    // ─── Building ───────────────────────────────────────────────────────
+
+    private void indexStrings(Dimension dim, Function<PedalDto, String> getter) {
+        Map<String, long[]> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < pedals.length; i++) {
+            String v = getter.apply(pedals[i]);
+            String key = v == null || v.isBlank() ? UNKNOWN : v.trim();
+            set(values.computeIfAbsent(key, k -> new long[words]), i);
+        }
+        bitmaps.put(dim, unknownLast(values));
+    }
+
+    private void indexBooleans(Dimension dim, Function<PedalDetailDto, Boolean> getter) {
+        Map<String, long[]> values = new LinkedHashMap<>();
+        values.put("true", new long[words]);
+        values.put("false", new long[words]);
+        values.put(UNKNOWN, new long[words]);
+        for (int i = 0; i < pedals.length; i++) {
+            Boolean v = getter.apply(pedals[i].pedalDetails());
+            set(values.get(v == null ? UNKNOWN : v.toString()), i);
+        }
+        bitmaps.put(dim, values);
+    }
+
+    /**
+     * One value per voltage that appears on any pedal's power input. A pedal that runs on
+     * 9–18V is in the 9V, 12V and 18V buckets (if those appear) — filtering by "12V" means
+     * "can run on 12V".
+     */
+    private void indexVoltages(JackDto[] power) {
+        VoltageSpec[] specs = new VoltageSpec[pedals.length];
+        Set<SupplyIndex.VoltKey> keys = new TreeSet<>(
+                Comparator.comparing(SupplyIndex.VoltKey::ac).thenComparingDouble(SupplyIndex.VoltKey::volts));
+        for (int i = 0; i < pedals.length; i++) {
+            specs[i] = power[i] != null ? VoltageSpec.parse(power[i].voltage()) : null;
+            if (specs[i] == null) continue;
+            for (VoltageSpec.Range r : specs[i].ranges()) {
+                keys.add(new SupplyIndex.VoltKey(r.min(), specs[i].ac()));
+                keys.add(new SupplyIndex.VoltKey(r.max(), specs[i].ac()));
+            }
+        }
+        Map<String, long[]> values = new LinkedHashMap<>();
+        for (SupplyIndex.VoltKey key : keys) {
+            long[] bits = new long[words];
+            for (int i = 0; i < pedals.length; i++) {
+                if (specs[i] != null && runsOn(specs[i], key)) set(bits, i);
+            }
+            values.put(key.label(), bits);
+        }
+        long[] unknown = new long[words];
+        for (int i = 0; i < pedals.length; i++) {
+            if (specs[i] == null) set(unknown, i);
+        }
+        values.put(UNKNOWN, unknown);
+        bitmaps.put(Dimension.VOLTAGE, values);
+    }
+
+    private static boolean runsOn(VoltageSpec spec, SupplyIndex.VoltKey key) {
+        if (spec.ac() != key.ac()) return false;
+        for (VoltageSpec.Range r : spec.ranges()) {
+            if (key.volts() >= r.min() - 1e-9 && key.volts() <= r.max() + 1e-9) return true;
+        }
+        return false;
+    }
+
+    private void indexBuckets(Dimension dim, List<Bucket> buckets, Function<Integer, Integer> valueAt) {
+        Map<String, long[]> values = new LinkedHashMap<>();
+        for (Bucket b : buckets) values.put(b.key(), new long[words]);
+        values.put(UNKNOWN, new long[words]);
+        for (int i = 0; i < pedals.length; i++) {
+            Integer v = valueAt.apply(i);
+            String key = UNKNOWN;
+            if (v != null) {
+                for (Bucket b : buckets) {
+                    if (v >= b.min() && v <= b.max()) { key = b.key(); break; }
+                }
+            }
+            set(values.get(key), i);
+        }
+        bitmaps.put(dim, values);
+    }
+
+    /** The case-insensitive form values are matched on, as CASE_INSENSITIVE_ORDER groups them when indexing. */
+    private static String fold(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, long[]> unknownLast(Map<String, long[]> sorted) {
+        Map<String, long[]> ordered = new LinkedHashMap<>();
+        sorted.forEach((k, v) -> { if (!k.equals(UNKNOWN)) ordered.put(k, v); });
+        if (sorted.containsKey(UNKNOWN)) ordered.put(UNKNOWN, sorted.get(UNKNOWN));
+        return ordered;
+    }
+
+    // ─── Bitmap primitives ──────────────────────────────────────────────
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static void or(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) target[w] |= other[w];
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) target[w] &= other[w];
+    }
+
+    private static int count(long[] bits) {
+        int n = 0;
+        for (long word : bits) n += Long.bitCount(word);
+        return n;
+    }
+
+    /** popcount(a AND b) without allocating the intersection. */
+    private static int andCount(long[] a, long[] b) {
+        int n = 0;
+        for (int w = 0; w < a.length; w++) n += Long.bitCount(a[w] & b[w]);
+        return n;
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+
+    /** Position of the n-th set bit (0-based); skips whole words by popcount. */
+    private static int nthSetBit(long[] bits, int n) {
+        for (int w = 0; w < bits.length; w++) {
+            int c = Long.bitCount(bits[w]);
+            if (n < c) {
+                long word = bits[w];
+                for (int k = 0; k < n; k++) word &= word - 1;  // drop the n lowest set bits
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            n -= c;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,211 @@
+package com.pedalshootout.api.search;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * "You might also consider": the k most similar pedals to each pedal, worked out up front.
+ *
+ * Each pedal becomes a dense feature vector (one float[] row per pedal, all rows in one
+ * flat array) built from its normalized specs:
+ *   - effect type, mono/stereo and bypass type, one-hot (one column per value seen)
+ *   - width, depth, height, current draw and MSRP, log-scaled then standardized
+ *     (z-scores), so a $50 gap matters more between two cheap pedals than two
+ *     expensive ones, and no unit dominates; unknown values sit at the mean (0)
+ *   - MIDI capable as 1 / 0, 0.5 when unknown
+ * Columns are weighted — effect type most of all, since a delay is a poor suggestion
+ * next to an overdrive however alike their enclosures are.
+ *
+ * Similarity is Euclidean distance between rows. Neighbour lists are computed for every
+ * pedal when the index is built — brute force, one row against all the others, kept in
+ * a small sorted buffer — with the rows spread across cores (parallel stream; the work
+ * is pure CPU over immutable arrays). That's O(n² · d), fine for a catalog of a few
+ * thousand pedals; queries afterwards are an array read.
+ */
+public final class SimilarityIndex {
+
+    /** Neighbours kept per pedal; the endpoint's limit is clamped to this. */
+    public static final int MAX_NEIGHBOURS = 20;
+
+    private static final float EFFECT_TYPE_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 1.0f;
+    private static final float NUMERIC_WEIGHT = 1.0f;
+    private static final float MIDI_WEIGHT = 0.75f;
+
+    public record Neighbour(PedalDto pedal, double distance) {}
+
+    private final PedalDto[] pedals;
+    private final Map<Integer, Integer> rowById;
+    private final int k;
+    private final int[] neighbours;       // n × k pedal rows, nearest first; -1 pads short lists
+    private final float[] distances;      // n × k
+
+    private SimilarityIndex(PedalDto[] pedals, int[] neighbours, float[] distances, int k) {
+        this.pedals = pedals;
+        this.neighbours = neighbours;
+        this.distances = distances;
+        this.k = k;
+        Map<Integer, Integer> rows = new HashMap<>(pedals.length * 2);
+        for (int i = 0; i < pedals.length; i++) rows.put(pedals[i].id(), i);
+        this.rowById = Map.copyOf(rows);
+    }
+
+    /** Build from the pedals and a jack lookup (the snapshot's). */
+    public static SimilarityIndex build(List<PedalDto> pedalList, Function<Integer, List<JackDto>> jacksOf) {
+        PedalDto[] pedals = pedalList.toArray(PedalDto[]::new);
+        int n = pedals.length;
+        int k = Math.min(MAX_NEIGHBOURS, Math.max(0, n - 1));
+
+        Features features = new Features(pedals, jacksOf);
+        int[] neighbours = new int[n * k];
+        float[] distances = new float[n * k];
+        IntStream.range(0, n).parallel().forEach(i -> nearest(features, i, k, neighbours, distances));
+        return new SimilarityIndex(pedals, neighbours, distances, k);
+    }
+
+    /** Up to limit nearest pedals to the given one, nearest first; empty if it isn't a pedal. */
+    public List<Neighbour> similarTo(Integer pedalId, int limit) {
+        Integer row = rowById.get(pedalId);
+        if (row == null) return List.of();
+        int count = Math.min(limit, k);
+        List<Neighbour> result = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            int other = neighbours[row * k + j];
+            if (other < 0) break;
+            result.add(new Neighbour(pedals[other], distances[row * k + j]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return pedals.length;
+    }
+
+    // ─── Building ───────────────────────────────────────────────────────
+
+    /** Fill row i's k nearest neighbours (insertion into a sorted buffer of k). */
+    private static void nearest(Features f, int i, int k, int[] neighbours, float[] distances) {
+        int base = i * k;
+        int filled = 0;
+        for (int j = 0; j < f.n; j++) {
+            if (j == i) continue;
+            float d = f.distanceSquared(i, j);
+            if (filled == k && d >= distances[base + k - 1]) continue;
+            int pos = filled < k ? filled++ : k - 1;
+            while (pos > 0 && distances[base + pos - 1] > d) {
+                distances[base + pos] = distances[base + pos - 1];
+                neighbours[base + pos] = neighbours[base + pos - 1];
+                pos--;
+            }
+            distances[base + pos] = d;
+            neighbours[base + pos] = j;
+        }
+        for (int j = 0; j < filled; j++) distances[base + j] = (float) Math.sqrt(distances[base + j]);
+        for (int j = filled; j < k; j++) neighbours[base + j] = -1;
+    }
+
+    /** The feature matrix: n rows of d floats, row-major in one array. */
+    private static final class Features {
+        final int n;
+        final int d;
+        final float[] values;
+
+        Features(PedalDto[] pedals, Function<Integer, List<JackDto>> jacksOf) {
+            this.n = pedals.length;
+            List<float[]> columns = new ArrayList<>();
+
+            oneHot(columns, pedals, p -> p.pedalDetails().effectType(), EFFECT_TYPE_WEIGHT);
+            oneHot(columns, pedals, p -> p.pedalDetails().monoStereo(), CATEGORY_WEIGHT);
+            oneHot(columns, pedals, p -> p.pedalDetails().bypassType(), CATEGORY_WEIGHT);
+            columns.add(standardized(pedals, PedalDto::widthMm));
+            columns.add(standardized(pedals, PedalDto::depthMm));
+            columns.add(standardized(pedals, PedalDto::heightMm));
+            columns.add(standardized(pedals, p -> currentDraw(jacksOf.apply(p.id()))));
+            columns.add(standardized(pedals, p -> p.msrpCents() != null ? p.msrpCents().doubleValue() : null));
+            float[] midi = new float[n];
+            for (int i = 0; i < n; i++) {
+                Boolean capable = pedals[i].pedalDetails().midiCapable();
+                midi[i] = MIDI_WEIGHT * (capable == null ? 0.5f : capable ? 1f : 0f);
+            }
+            columns.add(midi);
+
+            this.d = columns.size();
+            this.values = new float[n * d];
+            for (int c = 0; c < d; c++) {
+                float[] column = columns.get(c);
+                for (int i = 0; i < n; i++) values[i * d + c] = column[i];
+            }
+        }
+
+        float distanceSquared(int a, int b) {
+            int ra = a * d;
+            int rb = b * d;
+            float sum = 0;
+            for (int c = 0; c < d; c++) {
+                float diff = values[ra + c] - values[rb + c];
+                sum += diff * diff;
+            }
+            return sum;
+        }
+
+        /** One column per distinct (case-insensitive) value; unknown values get no column. */
+        private static void oneHot(List<float[]> columns, PedalDto[] pedals,
+                                   Function<PedalDto, String> getter, float weight) {
+            Map<String, float[]> byValue = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 0; i < pedals.length; i++) {
+                String v = getter.apply(pedals[i]);
+                if (v == null || v.isBlank()) continue;
+                byValue.computeIfAbsent(v.trim(), key -> new float[pedals.length])[i] = weight;
+            }
+            columns.addAll(byValue.values());
+        }
+
+        /** log1p, then (x - mean) / stddev over the known values; unknown → 0 (the mean). */
+        private static float[] standardized(PedalDto[] pedals, Function<PedalDto, Double> getter) {
+            double[] raw = new double[pedals.length];
+            boolean[] known = new boolean[pedals.length];
+            double sum = 0;
+            int count = 0;
+            for (int i = 0; i < pedals.length; i++) {
+                Double v = getter.apply(pedals[i]);
+                if (v == null || v < 0) continue;
+                raw[i] = Math.log1p(v);
+                known[i] = true;
+                sum += raw[i];
+                count++;
+            }
+            float[] column = new float[pedals.length];
+            if (count < 2) return column;
+            double mean = sum / count;
+            double squares = 0;
+            for (int i = 0; i < pedals.length; i++) {
+                if (known[i]) squares += (raw[i] - mean) * (raw[i] - mean);
+            }
+            double stddev = Math.sqrt(squares / count);
+            if (stddev == 0) return column;
+            for (int i = 0; i < pedals.length; i++) {
+                if (known[i]) column[i] = (float) (NUMERIC_WEIGHT * (raw[i] - mean) / stddev);
+            }
+            return column;
+        }
+
+        private static Double currentDraw(List<JackDto> jacks) {
+            return jacks.stream()
+                    .filter(j -> "power".equals(j.category()) && "input".equals(j.direction()))
+                    .map(JackDto::currentMa)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .map(Integer::doubleValue)
+                    .orElse(null);
+        }
+    }
+}
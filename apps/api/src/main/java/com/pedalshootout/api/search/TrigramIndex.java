@@ -0,0 +1,302 @@
+package com.pedalshootout.api.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory trigram index for typo-tolerant, ranked search (the same idea as Postgres'
+ * pg_trgm, without a full-table LIKE '%term%' scan).
+ *
+ * Text is lower-cased, accents are stripped, and each word is cut into overlapping
+ * three-letter pieces, padded the way pg_trgm does it:
+ *   "boss" → "  b", " bo", "bos", "oss", "ss "
+ * Every trigram maps to a sorted posting list of the documents containing it. A query
+ * is cut up the same way and each document scores by how many of the query's trigrams
+ * it shares — so "strymon timline" still finds "Strymon Timeline", and "bos" (a
+ * half-typed word) matches "Boss" through its leading trigrams.
+ *
+ * Documents have up to four weighted fields (e.g. model, manufacturer, tags,
+ * description). A posting stores the document slot and a bitmask of which fields
+ * contain the trigram; the trigram counts once per document, at its best field's weight.
+ *
+ * The index is immutable. withChanges() produces a new index that shares every posting
+ * list the change didn't touch, so updating a handful of products doesn't re-tokenize
+ * the whole catalog and readers never see a half-updated index.
+ */
+public final class TrigramIndex {
+
+    public static final int MAX_FIELDS = 4;
+
+    /** A searchable thing. key must be unique across the index (e.g. "product:42"). */
+    public record Document(String key, String kind, int id, String title, String subtitle,
+                           List<String> fields) {
+        public Document {
+            if (fields.size() > MAX_FIELDS) throw new IllegalArgumentException("At most " + MAX_FIELDS + " fields");
+        }
+    }
+
+    public record Hit(Document document, double score) {}
+
+    /** Fraction of the query's trigrams a document must share to be returned at all. */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    /** How many top trigram scores get re-ranked with title bonuses, relative to the limit. */
+    private static final int SHORTLIST_FACTOR = 4;
+    private static final int MIN_SHORTLIST = 50;
+
+    private final float[] fieldWeights;
+    private final float[] maskWeights;          // fieldMask → weight of its best field
+    private final Document[] docs;              // slot → document; null = deleted
+    private final String[] titles;              // slot → normalized title, for ranking
+    private final Map<String, Integer> slotByKey;
+    private final Map<Long, int[]> postings;    // trigram → sorted (slot << 4 | fieldMask)
+    private final int live;
+
+    private TrigramIndex(float[] fieldWeights, Document[] docs, String[] titles,
+                         Map<String, Integer> slotByKey, Map<Long, int[]> postings, int live) {
+        this.fieldWeights = fieldWeights;
+        this.docs = docs;
+        this.titles = titles;
+        this.slotByKey = slotByKey;
+        this.postings = postings;
+        this.live = live;
+        maskWeights = new float[1 << MAX_FIELDS];
+        for (int mask = 0; mask < maskWeights.length; mask++) {
+            for (int f = 0; f < fieldWeights.length; f++) {
+                if ((mask & (1 << f)) != 0) maskWeights[mask] = Math.max(maskWeights[mask], fieldWeights[f]);
+            }
+        }
+    }
+
+    /** Build from scratch. fieldWeights[i] is the weight of Document.fields().get(i). */
+    public static TrigramIndex build(List<Document> documents, float... fieldWeights) {
+        Document[] docs = documents.toArray(Document[]::new);
+        String[] titles = new String[docs.length];
+        Map<String, Integer> slotByKey = new HashMap<>();
+        Map<Long, List<Integer>> lists = new HashMap<>();
+        for (int slot = 0; slot < docs.length; slot++) {
+            slotByKey.put(docs[slot].key(), slot);
+            titles[slot] = normalize(docs[slot].title());
+            for (Map.Entry<Long, Integer> t : trigramsOf(docs[slot]).entrySet()) {
+                lists.computeIfAbsent(t.getKey(), k -> new ArrayList<>()).add(slot << 4 | t.getValue());
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>();
+        lists.forEach((k, v) -> postings.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+        return new TrigramIndex(fieldWeights.clone(), docs, titles, slotByKey, postings, docs.length);
+    }
+
+    /**
+     * A new index with this one's documents replaced by the given set. Documents whose
+     * key and content are unchanged keep their postings; only trigrams of removed, added
+     * or edited documents are rewritten. Falls back to a full build when most of the
+     * index would change anyway or too many slots are dead.
+     */
+    public TrigramIndex withChanges(List<Document> current) {
+        Map<String, Document> wanted = new HashMap<>();
+        for (Document d : current) wanted.put(d.key(), d);
+
+        List<Integer> removed = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : slotByKey.entrySet()) {
+            Document next = wanted.get(e.getKey());
+            if (next == null || !next.equals(docs[e.getValue()])) removed.add(e.getValue());
+        }
+        List<Document> added = new ArrayList<>();
+        for (Document d : current) {
+            Integer slot = slotByKey.get(d.key());
+            if (slot == null || !d.equals(docs[slot])) added.add(d);
+        }
+        if (removed.isEmpty() && added.isEmpty()) return this;
+
+        int dead = docs.length - live + removed.size();
+        if (removed.size() + added.size() > current.size() / 2 || dead > docs.length / 4) {
+            return build(current, fieldWeights);
+        }
+
+        // Slots are append-only; removed slots become tombstones until the next full build
+        Document[] nextDocs = Arrays.copyOf(docs, docs.length + added.size());
+        String[] nextTitles = Arrays.copyOf(titles, nextDocs.length);
+        Map<String, Integer> nextSlots = new HashMap<>(slotByKey);
+        boolean[] removedSlots = new boolean[docs.length];
+        Map<Long, List<Integer>> additions = new HashMap<>();
+        Set<Long> touched = new HashSet<>();
+
+        for (int slot : removed) {
+            touched.addAll(trigramsOf(docs[slot]).keySet());
+            nextSlots.remove(docs[slot].key());
+            nextDocs[slot] = null;
+            nextTitles[slot] = null;
+            removedSlots[slot] = true;
+        }
+        int slot = docs.length;
+        for (Document d : added) {
+            nextDocs[slot] = d;
+            nextTitles[slot] = normalize(d.title());
+            nextSlots.put(d.key(), slot);
+            for (Map.Entry<Long, Integer> t : trigramsOf(d).entrySet()) {
+                additions.computeIfAbsent(t.getKey(), k -> new ArrayList<>()).add(slot << 4 | t.getValue());
+                touched.add(t.getKey());
+            }
+            slot++;
+        }
+
+        Map<Long, int[]> nextPostings = new HashMap<>(postings);
+        for (Long trigram : touched) {
+            int[] old = postings.getOrDefault(trigram, new int[0]);
+            List<Integer> extra = additions.getOrDefault(trigram, List.of());
+            int[] merged = new int[old.length + extra.size()];
+            int n = 0;
+            for (int p : old) {
+                if (!removedSlots[p >>> 4]) merged[n++] = p;
+            }
+            for (int p : extra) merged[n++] = p;  // new slots are all higher, so order holds
+            if (n == 0) nextPostings.remove(trigram);
+            else nextPostings.put(trigram, n == merged.length ? merged : Arrays.copyOf(merged, n));
+        }
+        return new TrigramIndex(fieldWeights, nextDocs, nextTitles, nextSlots, nextPostings,
+                live - removed.size() + added.size());
+    }
+
+    /** Up to limit best matches, best first. Blank or all-punctuation queries match nothing. */
+    public List<Hit> search(String query, int limit) {
+        return search(query, limit, d -> true);
+    }
+
+    /** As search(query, limit), only considering documents the filter accepts. */
+    public List<Hit> search(String query, int limit, Predicate<Document> filter) {
+        String normalized = normalize(query);
+        Set<Long> queryTrigrams = new HashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (!word.isEmpty()) addTrigrams(word, queryTrigrams);
+        }
+        if (queryTrigrams.isEmpty() || limit <= 0) return List.of();
+
+        float[] scores = new float[docs.length];
+        int[] shared = new int[docs.length];
+        int[] candidates = new int[docs.length];
+        int candidateCount = 0;
+        for (Long trigram : queryTrigrams) {
+            int[] list = postings.get(trigram);
+            if (list == null) continue;
+            for (int p : list) {
+                int slot = p >>> 4;
+                if (shared[slot]++ == 0) candidates[candidateCount++] = slot;
+                scores[slot] += maskWeights[p & 0xF];
+            }
+        }
+
+        // Phase 1: shortlist by trigram score alone. Keys pack (score bits, slot) into a
+        // long so the shortlist is a primitive quickselect, not a heap of objects.
+        int needed = (int) Math.ceil(queryTrigrams.size() * MIN_SIMILARITY);
+        long[] keys = new long[candidateCount];
+        int n = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            int slot = candidates[c];
+            if (shared[slot] < needed || !filter.test(docs[slot])) continue;
+            keys[n++] = (long) Float.floatToIntBits(scores[slot]) << 32 | slot;  // scores are ≥ 0, so bits sort like floats
+        }
+        int shortlist = Math.min(n, Math.max(limit * SHORTLIST_FACTOR, MIN_SHORTLIST));
+        selectLargest(keys, n, shortlist);
+
+        // Phase 2: re-rank the shortlist with title bonuses
+        List<Hit> hits = new ArrayList<>(shortlist);
+        for (int k = 0; k < shortlist; k++) {
+            int slot = (int) keys[k];
+            double score = scores[slot] / queryTrigrams.size();
+            String title = titles[slot];
+            if (title.equals(normalized)) score += 1.0;
+            else if (title.startsWith(normalized)) score += 0.5;
+            else if (title.contains(normalized)) score += 0.25;
+            // Among equal matches, prefer the shorter (more specific) title
+            score -= Math.min(title.length(), 100) * 0.0005;
+            hits.add(new Hit(docs[slot], score));
+        }
+        hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /** Rearrange keys[0..n) so its m largest values are in keys[0..m) (Hoare quickselect). */
+    private static void selectLargest(long[] keys, int n, int m) {
+        int lo = 0;
+        int hi = n - 1;
+        while (lo < hi && m > 0 && m < n) {
+            long pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] > pivot) i++;
+                while (keys[j] < pivot) j--;
+                if (i <= j) {
+                    long t = keys[i]; keys[i] = keys[j]; keys[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (m - 1 <= j) hi = j;
+            else if (m - 1 >= i) lo = i;
+            else return;
+        }
+    }
+
+    /** Live documents. */
+    public int size() {
+        return live;
+    }
+
+    // ─── Tokenizing ─────────────────────────────────────────────────────
+
+
+    /** Trigram → mask of the fields it occurs in. */
+    private static Map<Long, Integer> trigramsOf(Document d) {
+        Map<Long, Integer> masks = new HashMap<>();
+        for (int f = 0; f < d.fields().size(); f++) {
+            String text = d.fields().get(f);
+            if (text == null) continue;
+            Set<Long> trigrams = new HashSet<>();
+            for (String word : normalize(text).split(" ")) {
+                if (!word.isEmpty()) addTrigrams(word, trigrams);
+            }
+            int bit = 1 << f;
+            for (Long t : trigrams) masks.merge(t, bit, (a, b) -> a | b);
+        }
+        return masks;
+    }
+
+    /** pg_trgm-style: two spaces before the word, one after. */
+    private static void addTrigrams(String word, Set<Long> out) {
+        String padded = "  " + word + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            out.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+    }
+
+    /** Lower-case, strip accents, and turn anything that isn't a letter or digit into a single space. */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,14 +1,26 @@
 package com.pedalshootout.api.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
 import com.pedalshootout.api.dto.*;
-import com.pedalshootout.api.entity.PedalboardDetail;
-import com.pedalshootout.api.entity.Product;
-import com.pedalshootout.api.repository.*;
+import com.pedalshootout.api.planner.BoardLayoutPacker;
+import com.pedalshootout.api.planner.SlotIndex;
+import com.pedalshootout.api.planner.SupplyIndex;
+import com.pedalshootout.api.planner.VoltageSpec;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -17,110 +29,239 @@ import java.util.Optional;
  * This is where the "smart" cross-table logic lives. It combines data from
  * pedalboards, pedals, and power supplies to help users plan their pedalboard layout.
  *
- * The fit-check uses a simple area comparison — it sums each pedal's footprint
- * (width × depth) and compares to the board's usable area. This is a rough estimate
- * since it doesn't account for pedal placement/packing, but it gives a quick
- * "will these even fit?" sanity check.
+ * The fit-check packs the pedals onto the board with BoardLayoutPacker (MaxRects
+ * with 90° rotation, spilling onto the second tier when the board has one) and
+ * returns each pedal's position. The old area comparison is still reported as
+ * fitsByArea — a quick lower bound that's handy for explaining why a set failed.
+ *
+ * The components list is streamed: it's the one response that carries every board,
+ * supply and pedal at once, so it's written to the client DTO by DTO from the snapshot
+ * rather than rendered into one buffer first.
+ *
+ * Slot candidates ("what fits the space and power I have left?") come from a SlotIndex
+ * built over the snapshot's pedals and their power jacks, rebuilt on catalog refresh.
  */
 @Service
-@Transactional(readOnly = true)
+@Timed("pedalshootout.service")
 public class BoardPlannerService {
 
-    private final PedalboardDetailRepository pedalboardRepo;
-    private final PedalDetailRepository pedalDetailRepo;
-    private final PowerSupplyDetailRepository powerSupplyRepo;
-    private final ProductRepository productRepository;
-    private final JackRepository jackRepository;
-
-    public BoardPlannerService(PedalboardDetailRepository pedalboardRepo,
-                                PedalDetailRepository pedalDetailRepo,
-                                PowerSupplyDetailRepository powerSupplyRepo,
-                                ProductRepository productRepository,
-                                JackRepository jackRepository) {
-        this.pedalboardRepo = pedalboardRepo;
-        this.pedalDetailRepo = pedalDetailRepo;
-        this.powerSupplyRepo = powerSupplyRepo;
-        this.productRepository = productRepository;
-        this.jackRepository = jackRepository;
-    }
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<SlotIndex> slotIndex =
+            new SnapshotDerived<>(snapshot -> SlotIndex.build(snapshot.pedals().all(), snapshot::jacks));
 
-    private List<JackDto> jacksFor(Integer productId) {
-        return jackRepository.findByProductId(productId).stream()
-                .map(JackDto::from)
-                .toList();
-    }
+    /** DTOs written between flushes to the client when streaming components. */
+    private static final int FLUSH_EVERY = 256;
 
-    /** Get all components needed for board planning. */
-    public BoardPlannerDto.Components getComponents() {
-        List<PedalboardDto> boards = pedalboardRepo.findAll().stream()
-                .map(d -> PedalboardDto.from(d.getProduct(), d, jacksFor(d.getProductId())))
-                .toList();
+    /**
+     * Most pedals in one fit check. A real board holds dozens; the packer runs three
+     * times per request and each run grows faster than linearly in the pedal count.
+     */
+    public static final int MAX_PEDALS = 64;
 
-        List<PowerSupplyDto> supplies = powerSupplyRepo.findAll().stream()
-                .map(d -> PowerSupplyDto.from(d.getProduct(), d, jacksFor(d.getProductId())))
-                .toList();
+    /** Widest gap a fit check accepts between pedals; anything more isn't a real layout. */
+    public static final double MAX_SPACING_MM = 100;
 
-        List<PedalDto> pedals = pedalDetailRepo.findAll().stream()
-                .map(d -> PedalDto.from(d.getProduct(), d, jacksFor(d.getProductId())))
-                .toList();
+    public BoardPlannerService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
+    }
 
-        return new BoardPlannerDto.Components(boards, supplies, pedals);
+    /**
+     * Write all components for board planning to out as
+     *   {"pedalboards": [...], "powerSupplies": [...], "pedals": [...]}
+     * (the BoardPlannerDto.Components shape).
+     *
+     * Every DTO is already in the catalog snapshot, jacks in the same order the other
+     * catalog endpoints serve them, so this runs no SQL and holds no connection while a
+     * slow client reads. Each DTO is written straight to the generator and the output
+     * flushed every FLUSH_EVERY of them, so the response is never built up as one
+     * buffer and the first bytes leave straight away.
+     */
+    public void streamComponents(JsonGenerator out) throws IOException {
+        CatalogSnapshot snapshot = catalog.current();
+        out.writeStartObject();
+        writeArray(out, "pedalboards", snapshot.pedalboards().all());
+        writeArray(out, "powerSupplies", snapshot.powerSupplies().all());
+        writeArray(out, "pedals", snapshot.pedals().all());
+        out.writeEndObject();
+        out.flush();
     }
 
-    /** Check if given pedals fit on a specific board (area comparison). */
-    public Optional<BoardPlannerDto.FitCheckResult> fitCheck(Integer boardId, List<Integer> pedalIds) {
-        Optional<PedalboardDetail> boardOpt = pedalboardRepo.findById(boardId);
+    private static void writeArray(JsonGenerator out, String field, List<?> items) throws IOException {
+        out.writeArrayFieldStart(field);
+        for (int i = 0; i < items.size(); i++) {
+            out.writeObject(items.get(i));
+            if ((i + 1) % FLUSH_EVERY == 0) out.flush();
+        }
+        out.writeEndArray();
+    }
+
+    /**
+     * Check if given pedals fit on a specific board by actually laying them out.
+     *
+     * Board and pedal dimensions come from the in-memory catalog snapshot, so this
+     * makes no database calls no matter how many pedals are passed. Pedals are packed
+     * onto the main deck first; anything left over goes on the second tier when the
+     * board has one. The same pedal ID may appear more than once (two of the same tuner).
+     * Known-bad pairings among the board and pedals are flagged from the snapshot's
+     * compatibility graph.
+     */
+    public Optional<BoardPlannerDto.FitCheckResult> fitCheck(Integer boardId, List<Integer> pedalIds, double spacingMm) {
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<PedalboardDto> boardOpt = snapshot.pedalboards().find(boardId);
         if (boardOpt.isEmpty()) {
             return Optional.empty();
         }
 
-        PedalboardDetail board = boardOpt.get();
-        Product boardProduct = board.getProduct();
-        Double boardWidth = board.getUsableWidthMm();
-        Double boardDepth = board.getUsableDepthMm();
+        PedalboardDto board = boardOpt.get();
+        List<CompatibilityDto.Relation> knownIssues =
+                snapshot.compatibility().incompatibilitiesAmong(boardId, pedalIds);
+        Double boardWidth = board.usableWidthMm();
+        Double boardDepth = board.usableDepthMm();
 
         // If usable dimensions aren't set, fall back to external dimensions
-        if (boardWidth == null) boardWidth = boardProduct.getWidthMm();
-        if (boardDepth == null) boardDepth = boardProduct.getDepthMm();
+        if (boardWidth == null) boardWidth = board.widthMm();
+        if (boardDepth == null) boardDepth = board.depthMm();
 
         if (boardWidth == null || boardDepth == null) {
             return Optional.of(new BoardPlannerDto.FitCheckResult(
-                boardId, boardProduct.getModel(),
-                null, null, 0.0, 0.0, false,
-                List.of(), "Board dimensions unknown — cannot check fit."
+                boardId, board.model(),
+                null, null, null, null, 0.0, 0.0, false, false,
+                List.of(), List.of(), List.of(), List.of(), knownIssues,
+                "Board dimensions unknown — cannot check fit."
             ));
         }
 
-        double boardArea = boardWidth * boardDepth;
+        List<BoardLayoutPacker.Surface> surfaces = new ArrayList<>(2);
+        surfaces.add(new BoardLayoutPacker.Surface(boardWidth, boardDepth));
+        Double tier2Width = null;
+        Double tier2Depth = null;
+        if (Boolean.TRUE.equals(board.hasSecondTier())
+                && board.tier2UsableWidthMm() != null && board.tier2UsableDepthMm() != null) {
+            tier2Width = board.tier2UsableWidthMm();
+            tier2Depth = board.tier2UsableDepthMm();
+            surfaces.add(new BoardLayoutPacker.Surface(tier2Width, tier2Depth));
+        }
+        double boardArea = surfaces.stream().mapToDouble(s -> s.width() * s.depth()).sum();
+
+        // Item keys are positions in the request list, so duplicate pedal IDs stay distinct
         double totalPedalArea = 0;
+        List<ProductSummaryDto> requested = new ArrayList<>();
         List<BoardPlannerDto.PedalFootprint> footprints = new ArrayList<>();
+        List<BoardLayoutPacker.Item> items = new ArrayList<>();
+        List<Integer> unknownSize = new ArrayList<>();
 
         for (Integer pedalId : pedalIds) {
-            Optional<Product> pedalOpt = productRepository.findById(pedalId);
-            if (pedalOpt.isPresent()) {
-                Product pedal = pedalOpt.get();
-                double w = pedal.getWidthMm() != null ? pedal.getWidthMm() : 0;
-                double d = pedal.getDepthMm() != null ? pedal.getDepthMm() : 0;
-                totalPedalArea += w * d;
-                footprints.add(new BoardPlannerDto.PedalFootprint(
-                    pedal.getId(), pedal.getModel(), pedal.getManufacturer().getName(),
-                    pedal.getWidthMm(), pedal.getDepthMm(), pedal.getHeightMm()
-                ));
+            Optional<ProductSummaryDto> pedalOpt = snapshot.products().find(pedalId);
+            if (pedalOpt.isEmpty()) {
+                continue;
+            }
+            ProductSummaryDto pedal = pedalOpt.get();
+            footprints.add(new BoardPlannerDto.PedalFootprint(
+                pedal.id(), pedal.model(), pedal.manufacturerName(),
+                pedal.widthMm(), pedal.depthMm(), pedal.heightMm()
+            ));
+            if (pedal.widthMm() == null || pedal.depthMm() == null) {
+                unknownSize.add(pedal.id());
+                continue;
             }
+            totalPedalArea += pedal.widthMm() * pedal.depthMm();
+            items.add(new BoardLayoutPacker.Item(requested.size(), pedal.widthMm(), pedal.depthMm()));
+            requested.add(pedal);
         }
 
-        boolean fits = totalPedalArea <= boardArea;
-        String summary = fits
-                ? String.format("Pedals use %.0f of %.0f mm² (%.0f%% of board area).",
-                    totalPedalArea, boardArea, (totalPedalArea / boardArea) * 100)
-                : String.format("Pedals need %.0f mm² but board only has %.0f mm² — over by %.0f mm².",
+        BoardLayoutPacker.Result layout = BoardLayoutPacker.pack(items, surfaces, Math.max(0, spacingMm));
+
+        List<BoardPlannerDto.PedalPlacement> placements = layout.placements().stream()
+                .map(p -> new BoardPlannerDto.PedalPlacement(
+                    requested.get(p.key()).id(), p.surface() + 1,
+                    p.x(), p.y(), p.width(), p.depth(), p.rotated()))
+                .toList();
+        List<Integer> unplaced = layout.unplacedKeys().stream()
+                .map(key -> requested.get(key).id())
+                .toList();
+
+        boolean fitsByArea = totalPedalArea <= boardArea;
+        boolean fits = layout.allPlaced();
+        String summary;
+        if (fits) {
+            summary = String.format("All %d pedals placed, using %.0f of %.0f mm² (%.0f%% of board area).",
+                    placements.size(), totalPedalArea, boardArea, (totalPedalArea / boardArea) * 100);
+        } else if (!fitsByArea) {
+            summary = String.format("Pedals need %.0f mm² but board only has %.0f mm² — over by %.0f mm².",
                     totalPedalArea, boardArea, totalPedalArea - boardArea);
+        } else {
+            summary = String.format("%d of %d pedals could not be placed — the total area fits, but the shapes don't.",
+                    unplaced.size(), items.size());
+        }
+        if (!unknownSize.isEmpty()) {
+            summary += String.format(" %d pedal(s) have unknown dimensions and were skipped.", unknownSize.size());
+        }
+        if (!knownIssues.isEmpty()) {
+            summary += String.format(" %d known incompatible pairing(s) — see knownIssues.", knownIssues.size());
+        }
 
         return Optional.of(new BoardPlannerDto.FitCheckResult(
-            boardId, boardProduct.getModel(),
-            boardWidth, boardDepth,
-            totalPedalArea, boardArea, fits,
-            footprints, summary
+            boardId, board.model(),
+            boardWidth, boardDepth, tier2Width, tier2Depth,
+            totalPedalArea, boardArea, fitsByArea, fits,
+            footprints, placements, unplaced, unknownSize, knownIssues, summary
         ));
     }
+
+    /**
+     * Pedals that would fit the space and power left on a board, tightest fit first.
+     *
+     * supply lists the headroom left per voltage as "9V:500,18V:250" (mA); pedals need
+     * one of those voltages with enough mA left for their draw. Every other argument
+     * may be null for "no constraint". An unreadable supply value is a 400.
+     */
+    public BoardPlannerDto.SlotSearchResult findSlotCandidates(Double maxWidthMm, Double maxDepthMm, String supply,
+                                                               String polarity, String connector, String effectType,
+                                                               Integer maxMsrpCents, int page, int size) {
+        SlotIndex.Query query = new SlotIndex.Query(maxWidthMm, maxDepthMm, parseSupply(supply),
+                polarity, connector, effectType, maxMsrpCents);
+        SlotIndex.Page result = slotIndex.get(catalog.current()).search(query, page, size);
+
+        List<BoardPlannerDto.SlotCandidate> candidates = result.hits().stream()
+                .map(hit -> {
+                    PedalDto p = hit.pedal();
+                    return new BoardPlannerDto.SlotCandidate(
+                        p.id(), p.model(), p.manufacturerName(), p.pedalDetails().effectType(),
+                        p.widthMm(), p.depthMm(), hit.rotated(),
+                        hit.poweredAt() != null ? hit.poweredAt().label() : null,
+                        hit.currentMa(), hit.polarity(), hit.connector(),
+                        p.msrpDisplay(), p.msrpCents(), p.imagePath(), hit.slackMm2()
+                    );
+                })
+                .toList();
+        return new BoardPlannerDto.SlotSearchResult(result.totalMatches(), page, size, candidates);
+    }
+
+    /** "9V:500,18V AC:250" → {9V: 500, 18V AC: 250}; repeated voltages add up. */
+    private static Map<SupplyIndex.VoltKey, Integer> parseSupply(String supply) {
+        Map<SupplyIndex.VoltKey, Integer> headroom = new LinkedHashMap<>();
+        if (supply == null || supply.isBlank()) return headroom;
+        for (String entry : supply.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            VoltageSpec spec = colon > 0 ? VoltageSpec.parse(entry.substring(0, colon)) : null;
+            if (spec == null || spec.adjustable()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "supply entries look like 9V:500 (one voltage, then mA free), got '" + entry.trim() + "'");
+            }
+            int ma;
+            try {
+                ma = Integer.parseInt(entry.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "supply entries look like 9V:500 (one voltage, then mA free), got '" + entry.trim() + "'", e);
+            }
+            headroom.merge(SupplyIndex.VoltKey.of(spec), Math.max(0, ma), Integer::sum);
+        }
+        return headroom;
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        slotIndex.get(event.current());
+    }
 }
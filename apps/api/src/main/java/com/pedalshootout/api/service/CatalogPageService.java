@@ -0,0 +1,172 @@
+package com.pedalshootout.api.service;
+
+import com.pedalshootout.api.catalog.CatalogSnapshotLoader;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.dto.*;
+import com.pedalshootout.api.entity.*;
+import com.pedalshootout.api.paging.Cursor;
+import com.pedalshootout.api.paging.KeysetPageRequest;
+import com.pedalshootout.api.repository.*;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset-paged, server-sorted catalog lists (the /page endpoints).
+ *
+ * Unlike the other catalog services, this one reads Postgres rather than the in-memory
+ * snapshot: the point is that a client can walk the catalog a page at a time in any
+ * supported order without either side holding the whole list, and each page is an
+ * index seek (see ProductKeysetRepositoryImpl) so deep pages cost the same as the first.
+ *
+ * Each page is a fixed number of queries, whatever the page size:
+ *   1. the page of products (manufacturer + type joined in), fetched limit + 1 rows
+ *      deep so we know whether there's a next page without a COUNT(*)
+ *   2. the detail rows for those product IDs, product joined in (detail-type pages only)
+ *   3. their jacks (detail-type pages only)
+ */
+@Service
+@Timed("pedalshootout.service")
+public class CatalogPageService {
+
+    /** Builds a type's DTO from its three parts, e.g. PedalDto::from. */
+    @FunctionalInterface
+    private interface DetailMapper<D, T> {
+        T map(Product product, D detail, List<JackDto> jacks);
+    }
+
+    private final CatalogSnapshotService catalog;
+    private final ProductRepository productRepository;
+    private final JackRepository jackRepository;
+    private final PedalDetailRepository pedalDetailRepo;
+    private final PowerSupplyDetailRepository powerSupplyRepo;
+    private final PedalboardDetailRepository pedalboardRepo;
+    private final MidiControllerDetailRepository midiControllerRepo;
+    private final UtilityDetailRepository utilityRepo;
+    private final PlugDetailRepository plugRepo;
+
+    public CatalogPageService(CatalogSnapshotService catalog,
+                              ProductRepository productRepository,
+                              JackRepository jackRepository,
+                              PedalDetailRepository pedalDetailRepo,
+                              PowerSupplyDetailRepository powerSupplyRepo,
+                              PedalboardDetailRepository pedalboardRepo,
+                              MidiControllerDetailRepository midiControllerRepo,
+                              UtilityDetailRepository utilityRepo,
+                              PlugDetailRepository plugRepo) {
+        this.catalog = catalog;
+        this.productRepository = productRepository;
+        this.jackRepository = jackRepository;
+        this.pedalDetailRepo = pedalDetailRepo;
+        this.powerSupplyRepo = powerSupplyRepo;
+        this.pedalboardRepo = pedalboardRepo;
+        this.midiControllerRepo = midiControllerRepo;
+        this.utilityRepo = utilityRepo;
+        this.plugRepo = plugRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ProductSummaryDto> products(Integer typeId, KeysetPageRequest request) {
+        List<Product> rows = fetch(new ProductKeysetRepository.Filter(typeId, null, null), request);
+        List<Product> page = trim(rows, request);
+        return toPage(page.stream().map(ProductSummaryDto::from).toList(), rows, request);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PedalDto> pedals(String effectType, KeysetPageRequest request) {
+        return detailPage("pedal", blankToNull(effectType), null, request,
+                pedalDetailRepo, PedalDetail::getProductId, PedalDto::from);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PowerSupplyDto> powerSupplies(KeysetPageRequest request) {
+        return detailPage("power_supply", null, null, request,
+                powerSupplyRepo, PowerSupplyDetail::getProductId, PowerSupplyDto::from);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PedalboardDto> pedalboards(KeysetPageRequest request) {
+        return detailPage("pedalboard", null, null, request,
+                pedalboardRepo, PedalboardDetail::getProductId, PedalboardDto::from);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<MidiControllerDto> midiControllers(KeysetPageRequest request) {
+        return detailPage("midi_controller", null, null, request,
+                midiControllerRepo, MidiControllerDetail::getProductId, MidiControllerDto::from);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<UtilityDto> utilities(String utilityType, KeysetPageRequest request) {
+        return detailPage("utility", null, blankToNull(utilityType), request,
+                utilityRepo, UtilityDetail::getProductId, UtilityDto::from);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<PlugDto> plugs(KeysetPageRequest request) {
+        return detailPage("plug", null, null, request,
+                plugRepo, PlugDetail::getProductId, PlugDto::from);
+    }
+
+    // ─── Helpers ────────────────────────────────────────────────────────
+
+    private <D, T> CursorPage<T> detailPage(String typeName, String effectType, String utilityType,
+                                            KeysetPageRequest request, DetailRepository<D> detailRepo,
+                                            Function<D, Integer> idOf, DetailMapper<D, T> mapper) {
+        Integer typeId = typeId(typeName);
+        if (typeId == null) return toPage(List.of(), List.of(), request);
+
+        List<Product> rows = fetch(new ProductKeysetRepository.Filter(typeId, effectType, utilityType), request);
+        List<Product> page = trim(rows, request);
+        if (page.isEmpty()) return toPage(List.of(), rows, request);
+
+        List<Integer> ids = page.stream().map(Product::getId).toList();
+        Map<Integer, D> details = detailRepo.findAllWithProductByProductIdIn(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        Map<Integer, List<JackDto>> jacks =
+                CatalogSnapshotLoader.groupJacksByProduct(jackRepository.findByProductIdInOrderByProductIdAscIdAsc(ids));
+
+        List<T> items = page.stream()
+                .filter(p -> details.containsKey(p.getId()))
+                .map(p -> mapper.map(p, details.get(p.getId()), jacks.getOrDefault(p.getId(), List.of())))
+                .toList();
+        return toPage(items, rows, request);
+    }
+
+    private List<Product> fetch(ProductKeysetRepository.Filter filter, KeysetPageRequest request) {
+        return productRepository.findPage(filter, request.sort(), request.descending(),
+                request.after(), request.limit() + 1);
+    }
+
+    private static List<Product> trim(List<Product> rows, KeysetPageRequest request) {
+        return rows.size() > request.limit() ? rows.subList(0, request.limit()) : rows;
+    }
+
+    /** rows is the limit + 1 fetch: one extra row means there's another page. */
+    private static <T> CursorPage<T> toPage(List<T> items, List<Product> rows, KeysetPageRequest request) {
+        boolean hasMore = rows.size() > request.limit();
+        String nextCursor = hasMore
+                ? Cursor.after(request.sort(), request.descending(), rows.get(request.limit() - 1)).encode()
+                : null;
+        return new CursorPage<>(items, nextCursor, hasMore,
+                request.sort().param(), request.descending() ? "desc" : "asc", request.limit());
+    }
+
+    /** Product type IDs come from the reference table, which the snapshot already holds. */
+    private Integer typeId(String typeName) {
+        return catalog.current().productTypes().stream()
+                .filter(t -> typeName.equals(t.getTypeName()))
+                .map(ProductType::getId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
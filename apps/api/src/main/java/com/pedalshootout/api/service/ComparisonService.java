@@ -0,0 +1,102 @@
+package com.pedalshootout.api.service;
+
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
+import com.pedalshootout.api.compare.SpecMatrix;
+import com.pedalshootout.api.compare.SpecSheet;
+import com.pedalshootout.api.dto.ComparisonDto;
+import com.pedalshootout.api.dto.ProductDetailDto;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side-by-side product comparison: one request for the whole table.
+ *
+ * Products, their type-specific details and jacks all come from the catalog snapshot,
+ * so building a comparison costs no queries however many products are pinned. The
+ * spec rows and their differs flags are worked out once per distinct set of products
+ * and kept until the next catalog refresh — the key is the sorted, de-duplicated ID
+ * list, so "3,1,2" and "1,2,3,3" share an entry. Like ResponseCache, the number of
+ * cached tables is capped; past the cap comparisons are built per request.
+ */
+@Service
+@Timed("pedalshootout.service")
+public class ComparisonService {
+
+    /** Most products in one comparison. */
+    public static final int MAX_PRODUCTS = 12;
+
+    static final int MAX_CACHED = 1024;
+
+    private final CatalogSnapshotService catalog;
+    /** Canonical ID list → table, one map per snapshot version (a refresh starts a new one). */
+    private final SnapshotDerived<Map<List<Integer>, ComparisonDto.Comparison>> cache =
+            new SnapshotDerived<>(snapshot -> new ConcurrentHashMap<>());
+
+    public ComparisonService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * The comparison table for these products, or empty if none of them exist.
+     * Callers check ids against MAX_PRODUCTS first.
+     */
+    public Optional<ComparisonDto.Comparison> compare(List<Integer> ids) {
+        CatalogSnapshot snapshot = catalog.current();
+        List<Integer> key = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        Map<List<Integer>, ComparisonDto.Comparison> tables = cache.get(snapshot);
+
+        ComparisonDto.Comparison table = tables.get(key);
+        if (table == null) {
+            table = build(snapshot, key);
+            if (tables.size() < MAX_CACHED) tables.putIfAbsent(key, table);
+        }
+        return table.columns().isEmpty() ? Optional.empty() : Optional.of(table);
+    }
+
+    private static ComparisonDto.Comparison build(CatalogSnapshot snapshot, List<Integer> ids) {
+        List<ComparisonDto.Column> columns = new ArrayList<>(ids.size());
+        List<SpecSheet> sheets = new ArrayList<>(ids.size());
+        List<Integer> unknown = new ArrayList<>();
+        for (Integer id : ids) {
+            Optional<ProductDetailDto> product = snapshot.productDetail(id);
+            if (product.isEmpty()) {
+                unknown.add(id);
+                continue;
+            }
+            ProductDetailDto p = product.get();
+            columns.add(new ComparisonDto.Column(
+                p.id(), p.model(), p.manufacturerName(), p.productType(), p.msrpDisplay(), p.imagePath()));
+            sheets.add(SpecSheet.of(p, typed(snapshot, id)));
+        }
+        List<ComparisonDto.Row> rows = SpecMatrix.rows(sheets);
+        int differing = (int) rows.stream().filter(ComparisonDto.Row::differs).count();
+        return new ComparisonDto.Comparison(List.copyOf(columns), List.copyOf(rows), differing, List.copyOf(unknown));
+    }
+
+    /** The product's type-specific DTO (PedalDto, PowerSupplyDto, ...), or null. */
+    private static Record typed(CatalogSnapshot snapshot, Integer id) {
+        return snapshot.pedals().find(id).<Record>map(r -> r)
+                .or(() -> snapshot.powerSupplies().find(id))
+                .or(() -> snapshot.pedalboards().find(id))
+                .or(() -> snapshot.midiControllers().find(id))
+                .or(() -> snapshot.utilities().find(id))
+                .or(() -> snapshot.plugs().find(id))
+                .orElse(null);
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        cache.get(event.current());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pedalshootout.api.service;
+
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.compatibility.CompatibilityGraph;
+import com.pedalshootout.api.dto.CompatibilityDto;
+import com.pedalshootout.api.dto.ProductSummaryDto;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Known relationships between products — mounting, power, MIDI, accessories,
+ * replacements, and known-bad pairings — from product_compatibility.
+ *
+ * Everything is answered from the CompatibilityGraph held by the catalog snapshot,
+ * so none of these touch the database.
+ */
+@Service
+@Timed("pedalshootout.service")
+public class CompatibilityService {
+
+    private final CatalogSnapshotService catalog;
+
+    public CompatibilityService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Every relation recorded for a product, optionally only one type
+     * (case-insensitive, e.g. "power"). Empty if the product doesn't exist.
+     */
+    public Optional<CompatibilityDto.ProductLinks> findForProduct(Integer productId, String type) {
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<ProductSummaryDto> product = snapshot.products().find(productId);
+        if (product.isEmpty()) return Optional.empty();
+
+        List<CompatibilityDto.Link> links = new ArrayList<>();
+        for (CompatibilityDto.Relation r : snapshot.compatibility().of(productId)) {
+            if (type != null && !type.isBlank() && !type.equalsIgnoreCase(r.type())) continue;
+            ProductSummaryDto other = snapshot.products().find(r.other(productId)).orElse(null);
+            links.add(new CompatibilityDto.Link(
+                r.other(productId),
+                other != null ? other.model() : null,
+                other != null ? other.manufacturerName() : null,
+                other != null ? other.productType() : null,
+                r
+            ));
+        }
+        return Optional.of(new CompatibilityDto.ProductLinks(productId, product.get().model(), links));
+    }
+
+    /** What's recorded about one pair of products, in either order. */
+    public CompatibilityDto.PairResult findForPair(int productAId, int productBId) {
+        CompatibilityGraph graph = catalog.current().compatibility();
+        return new CompatibilityDto.PairResult(
+            productAId, productBId,
+            graph.knownIncompatible(productAId, productBId),
+            graph.between(productAId, productBId)
+        );
+    }
+
+    /**
+     * Everything that can stand in for a product, following Replacement relations
+     * transitively, nearest first. Empty if the product doesn't exist.
+     */
+    public Optional<CompatibilityDto.ReplacementResult> findReplacements(Integer productId) {
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<ProductSummaryDto> product = snapshot.products().find(productId);
+        if (product.isEmpty()) return Optional.empty();
+
+        List<CompatibilityDto.Replacement> replacements = new ArrayList<>();
+        snapshot.compatibility().replacements(productId).forEach((id, hops) ->
+            snapshot.products().find(id).ifPresent(p -> replacements.add(new CompatibilityDto.Replacement(
+                p.id(), p.model(), p.manufacturerName(), p.productType(), hops
+            )))
+        );
+        return Optional.of(new CompatibilityDto.ReplacementResult(productId, product.get().model(), replacements));
+    }
+}
@@ -1,71 +1,57 @@
 package com.pedalshootout.api.service;
 
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
 import com.pedalshootout.api.dto.ManufacturerDto;
-import com.pedalshootout.api.entity.Manufacturer;
-import com.pedalshootout.api.repository.ManufacturerRepository;
-import com.pedalshootout.api.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service layer for manufacturer business logic.
  *
- * The service sits between the controller (HTTP) and repository (database).
- * It's where you put logic that doesn't belong in either:
+ * The service sits between the controller (HTTP) and the data. It's where you
+ * put logic that doesn't belong in either:
  *   - Transforming entities into DTOs
  *   - Combining data from multiple repositories
  *   - Applying business rules
  *
+ * Manufacturers (with their product counts already tallied) live in the catalog
+ * snapshot, so listing, searching, and lookups are all memory reads.
+ *
  * @Service tells Spring to create a single instance of this class (a "bean")
  * and make it available for injection into controllers.
  *
- * Constructor injection: Spring sees the constructor parameters are repository
- * types, finds the beans it already created for those, and passes them in.
- * This is like dependency injection in Angular or NestJS.
+ * Constructor injection: Spring sees the constructor parameter type, finds the
+ * bean it already created for it, and passes it in. This is like dependency
+ * injection in Angular or NestJS.
  */
 @Service
+@Timed("pedalshootout.service")
 public class ManufacturerService {
 
-    private final ManufacturerRepository manufacturerRepository;
-    private final ProductRepository productRepository;
+    private final CatalogSnapshotService catalog;
 
-    public ManufacturerService(ManufacturerRepository manufacturerRepository,
-                                ProductRepository productRepository) {
-        this.manufacturerRepository = manufacturerRepository;
-        this.productRepository = productRepository;
+    public ManufacturerService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
     }
 
-    /** Get all manufacturers, optionally filtered by name search. */
+    /** Get all manufacturers, optionally filtered by name search (case-insensitive contains). */
     public List<ManufacturerDto> findAll(String search) {
-        List<Manufacturer> manufacturers;
-        if (search != null && !search.isBlank()) {
-            manufacturers = manufacturerRepository.findByNameContainingIgnoreCase(search);
-        } else {
-            manufacturers = manufacturerRepository.findAll();
+        List<ManufacturerDto> manufacturers = catalog.current().manufacturers().all();
+        if (search == null || search.isBlank()) {
+            return manufacturers;
         }
-        // Batch: 1 query for all counts instead of N
-        Map<Integer, Long> countsByManufacturer = productRepository.countGroupedByManufacturerId()
-                .stream()
-                .collect(Collectors.toMap(
-                        row -> (Integer) row[0],
-                        row -> (Long) row[1]
-                ));
-
+        String needle = search.toLowerCase(Locale.ROOT);
         return manufacturers.stream()
-                .map(m -> ManufacturerDto.from(m, countsByManufacturer.getOrDefault(m.getId(), 0L)))
+                .filter(m -> m.name().toLowerCase(Locale.ROOT).contains(needle))
                 .toList();
     }
 
     /** Get a single manufacturer by ID, including their product count. */
     public Optional<ManufacturerDto> findById(Integer id) {
-        return manufacturerRepository.findById(id)
-                .map(m -> {
-                    long count = productRepository.countByManufacturerId(id);
-                    return ManufacturerDto.from(m, count);
-                });
+        return catalog.current().manufacturers().find(id);
     }
 }
@@ -1,21 +1,27 @@
 package com.pedalshootout.api.service;
 
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
+import com.pedalshootout.api.dto.CompatibilityDto;
 import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.MidiControllerDto;
 import com.pedalshootout.api.dto.MidiPlannerDto;
-import com.pedalshootout.api.entity.Jack;
-import com.pedalshootout.api.entity.MidiControllerDetail;
-import com.pedalshootout.api.entity.PedalDetail;
-import com.pedalshootout.api.entity.Product;
-import com.pedalshootout.api.repository.JackRepository;
-import com.pedalshootout.api.repository.MidiControllerDetailRepository;
-import com.pedalshootout.api.repository.PedalDetailRepository;
-import com.pedalshootout.api.repository.ProductRepository;
+import com.pedalshootout.api.dto.PedalDetailDto;
+import com.pedalshootout.api.dto.PedalDto;
+import com.pedalshootout.api.planner.MidiProfile;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 /**
  * Layer 2 service: MIDI Planner.
@@ -25,132 +31,190 @@ import java.util.Optional;
  *   1. Does the pedal have midi_capable = true?
  *   2. Does the pedal have a MIDI input jack?
  *   3. What MIDI capabilities does it support? (PC, CC, Clock, etc.)
+ *
+ * Each device's capabilities and MIDI jacks are parsed once per catalog snapshot
+ * into a MidiProfile (bitmasks), so a compatibility check is a few bitwise ANDs
+ * per pair and nothing here queries the database. The full controller × pedal
+ * matrix is computed in parallel, one controller row per task, and cached until
+ * the catalog changes.
  */
 @Service
-@Transactional(readOnly = true)
+@Timed("pedalshootout.service")
 public class MidiPlannerService {
 
-    private final MidiControllerDetailRepository midiControllerRepo;
-    private final PedalDetailRepository pedalDetailRepo;
-    private final ProductRepository productRepository;
-    private final JackRepository jackRepository;
-
-    public MidiPlannerService(MidiControllerDetailRepository midiControllerRepo,
-                               PedalDetailRepository pedalDetailRepo,
-                               ProductRepository productRepository,
-                               JackRepository jackRepository) {
-        this.midiControllerRepo = midiControllerRepo;
-        this.pedalDetailRepo = pedalDetailRepo;
-        this.productRepository = productRepository;
-        this.jackRepository = jackRepository;
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<MidiDevices> devices = new SnapshotDerived<>(MidiPlannerService::buildDevices);
+    private final SnapshotDerived<MidiPlannerDto.CompatibilityMatrix> matrix =
+            new SnapshotDerived<>(snapshot -> buildMatrix(devices.get(snapshot)));
+
+    public MidiPlannerService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
     }
 
+    /** Parsed view of every MIDI device in one snapshot. */
+    private record MidiDevices(
+        List<MidiPlannerDto.MidiDevice> all,
+        List<MidiPlannerDto.MidiDevice> controllers,
+        List<MidiPlannerDto.MidiDevice> pedals,
+        Map<Integer, MidiProfile> controllerProfiles,
+        Map<Integer, MidiProfile> pedalProfiles
+    ) {}
+
     /** Get all MIDI-capable devices (controllers + MIDI-capable pedals). */
     public List<MidiPlannerDto.MidiDevice> getDevices() {
-        List<MidiPlannerDto.MidiDevice> devices = new ArrayList<>();
-
-        // Add all MIDI controllers
-        for (MidiControllerDetail mc : midiControllerRepo.findAll()) {
-            Product p = mc.getProduct();
-            List<JackDto> midiJacks = getMidiJacks(p.getId());
-            devices.add(new MidiPlannerDto.MidiDevice(
-                p.getId(), p.getModel(), p.getManufacturer().getName(),
-                "midi_controller", true, null, null,
-                mc.getTotalPresetSlots(), midiJacks
-            ));
-        }
-
-        // Add MIDI-capable pedals
-        for (PedalDetail pd : pedalDetailRepo.findByMidiCapableTrue()) {
-            Product p = pd.getProduct();
-            List<JackDto> midiJacks = getMidiJacks(p.getId());
-            devices.add(new MidiPlannerDto.MidiDevice(
-                p.getId(), p.getModel(), p.getManufacturer().getName(),
-                "pedal", pd.getMidiCapable(),
-                pd.getMidiReceiveCapabilities(), pd.getMidiSendCapabilities(),
-                pd.getPresetCount(), midiJacks
-            ));
-        }
-
-        return devices;
+        return devices.get(catalog.current()).all();
     }
 
     /** Check MIDI compatibility between a controller and pedals. */
     public Optional<MidiPlannerDto.CompatibilityResult> checkCompatibility(
             Integer controllerId, List<Integer> pedalIds) {
 
-        Optional<MidiControllerDetail> controllerOpt = midiControllerRepo.findById(controllerId);
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<MidiControllerDto> controllerOpt = snapshot.midiControllers().find(controllerId);
         if (controllerOpt.isEmpty()) return Optional.empty();
 
-        MidiControllerDetail controller = controllerOpt.get();
-        Product controllerProduct = controller.getProduct();
-
-        // Check what MIDI output types the controller has
-        List<Jack> controllerMidiOuts = jackRepository.findByProductId(controllerId).stream()
-                .filter(j -> j.getCategory().startsWith("MIDI") && "Output".equals(j.getDirection()))
-                .toList();
+        MidiDevices parsed = devices.get(snapshot);
+        MidiProfile controller = parsed.controllerProfiles().get(controllerId);
 
         List<MidiPlannerDto.PedalCompatibility> results = new ArrayList<>();
         int compatible = 0;
 
         for (Integer pedalId : pedalIds) {
-            Optional<PedalDetail> pedalOpt = pedalDetailRepo.findById(pedalId);
-            if (pedalOpt.isPresent()) {
-                PedalDetail pd = pedalOpt.get();
-                Product p = pd.getProduct();
-                boolean isMidiCapable = Boolean.TRUE.equals(pd.getMidiCapable());
-
-                // Check if pedal has a MIDI input jack
-                List<Jack> pedalMidiIns = jackRepository.findByProductId(pedalId).stream()
-                        .filter(j -> j.getCategory().startsWith("MIDI") && "Input".equals(j.getDirection()))
-                        .toList();
-                boolean hasMidiInput = !pedalMidiIns.isEmpty();
-
-                // Determine connection type
-                String connectionType = "None";
-                String notes = "";
-
-                if (isMidiCapable && hasMidiInput) {
-                    // Match connector types
-                    String pedalConnector = pedalMidiIns.get(0).getConnectorType();
-                    boolean directMatch = controllerMidiOuts.stream()
-                            .anyMatch(j -> j.getConnectorType().equals(pedalConnector));
-
-                    if (directMatch) {
-                        connectionType = "Direct (" + pedalConnector + ")";
-                    } else if (!controllerMidiOuts.isEmpty()) {
-                        connectionType = "Adapter needed";
-                        notes = "Controller outputs " + controllerMidiOuts.get(0).getConnectorType()
-                                + ", pedal expects " + pedalConnector;
-                    }
-                    compatible++;
-                } else if (isMidiCapable && !hasMidiInput) {
-                    connectionType = "USB only";
-                    notes = "Pedal is MIDI-capable but has no standard MIDI input jack";
-                } else {
-                    notes = "Pedal does not support MIDI";
-                }
-
-                results.add(new MidiPlannerDto.PedalCompatibility(
-                    p.getId(), p.getModel(), p.getManufacturer().getName(),
-                    isMidiCapable, pd.getMidiReceiveCapabilities(),
-                    hasMidiInput, connectionType, notes
-                ));
-            }
+            Optional<PedalDto> pedalOpt = snapshot.pedals().find(pedalId);
+            if (pedalOpt.isEmpty()) continue;
+
+            PedalDto pedal = pedalOpt.get();
+            PedalDetailDto pd = pedal.pedalDetails();
+            // Only MIDI-capable pedals are cached; anything else is parsed on the spot
+            MidiProfile profile = parsed.pedalProfiles().get(pedalId);
+            if (profile == null) profile = pedalProfile(pedal);
+            MidiProfile.Match match = controller.match(profile);
+            if (match.compatible()) compatible++;
+
+            String connectionType = match.connection() == MidiProfile.Connection.DIRECT
+                    ? match.connection().label + " (" + match.port().label + ")"
+                    : match.connection().label;
+
+            results.add(new MidiPlannerDto.PedalCompatibility(
+                pedal.id(), pedal.model(), pedal.manufacturerName(),
+                profile.midiCapable(), pd.midiReceiveCapabilities(),
+                profile.hasMidiInput(), connectionType, match.note(),
+                MidiProfile.messageLabels(match.sharedMessages())
+            ));
         }
 
         String summary = String.format("%d of %d pedals are MIDI-compatible with %s.",
-                compatible, pedalIds.size(), controllerProduct.getModel());
+                compatible, pedalIds.size(), controllerOpt.get().model());
+        List<CompatibilityDto.Relation> knownIssues =
+                snapshot.compatibility().incompatibilitiesAmong(controllerId, pedalIds);
+        if (!knownIssues.isEmpty()) {
+            summary += String.format(" %d known incompatible pairing(s) — see knownIssues.", knownIssues.size());
+        }
 
         return Optional.of(new MidiPlannerDto.CompatibilityResult(
-            controllerId, controllerProduct.getModel(), results, summary
+            controllerId, controllerOpt.get().model(), results, knownIssues, summary
         ));
     }
 
-    private List<JackDto> getMidiJacks(Integer productId) {
-        return jackRepository.findByProductId(productId).stream()
-                .filter(j -> j.getCategory().startsWith("MIDI"))
-                .map(JackDto::from)
+    /** Every controller × every MIDI-capable pedal. */
+    public MidiPlannerDto.CompatibilityMatrix getCompatibilityMatrix() {
+        return matrix.get(catalog.current());
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        devices.get(event.current());
+    }
+
+    // ─── Building the cached views ─────────────────────────────────────
+
+    private static MidiDevices buildDevices(CatalogSnapshot snapshot) {
+        List<MidiPlannerDto.MidiDevice> controllers = new ArrayList<>();
+        Map<Integer, MidiProfile> controllerProfiles = new HashMap<>();
+        for (MidiControllerDto mc : snapshot.midiControllers().all()) {
+            MidiProfile profile = controllerProfile(mc);
+            controllerProfiles.put(mc.id(), profile);
+            controllers.add(device(mc.id(), mc.model(), mc.manufacturerName(), "midi_controller", true,
+                    null, null, mc.totalPresetSlots(), mc.jacks(), profile));
+        }
+
+        List<MidiPlannerDto.MidiDevice> pedals = new ArrayList<>();
+        Map<Integer, MidiProfile> pedalProfiles = new HashMap<>();
+        for (PedalDto pedal : snapshot.pedals().all()) {
+            PedalDetailDto pd = pedal.pedalDetails();
+            if (!Boolean.TRUE.equals(pd.midiCapable())) continue;
+            MidiProfile profile = pedalProfile(pedal);
+            pedalProfiles.put(pedal.id(), profile);
+            pedals.add(device(pedal.id(), pedal.model(), pedal.manufacturerName(), "pedal", pd.midiCapable(),
+                    pd.midiReceiveCapabilities(), pd.midiSendCapabilities(), pd.presetCount(), pedal.jacks(), profile));
+        }
+
+        List<MidiPlannerDto.MidiDevice> all = new ArrayList<>(controllers);
+        all.addAll(pedals);
+        return new MidiDevices(List.copyOf(all), List.copyOf(controllers), List.copyOf(pedals),
+                Map.copyOf(controllerProfiles), Map.copyOf(pedalProfiles));
+    }
+
+    /**
+     * Controllers have no send-capabilities column; they all send PC and CC,
+     * plus Clock/SysEx when the detail row says so.
+     */
+    private static MidiProfile controllerProfile(MidiControllerDto mc) {
+        MidiProfile parsed = MidiProfile.of(mc.id(), true, null, null, mc.jacks());
+        int sends = MidiProfile.Message.PC.bit() | MidiProfile.Message.CC.bit();
+        if (Boolean.TRUE.equals(mc.supportsMidiClock())) sends |= MidiProfile.Message.CLOCK.bit();
+        if (Boolean.TRUE.equals(mc.supportsSysex())) sends |= MidiProfile.Message.SYSEX.bit();
+        return new MidiProfile(mc.id(), true, parsed.receives(), sends, parsed.inputs(), parsed.outputs());
+    }
+
+    private static MidiProfile pedalProfile(PedalDto pedal) {
+        PedalDetailDto pd = pedal.pedalDetails();
+        return MidiProfile.of(pedal.id(), Boolean.TRUE.equals(pd.midiCapable()),
+                pd.midiReceiveCapabilities(), pd.midiSendCapabilities(), pedal.jacks());
+    }
+
+    private static MidiPlannerDto.MidiDevice device(Integer id, String model, String manufacturerName, String type,
+                                                    Boolean midiCapable, String receives, String sends,
+                                                    Integer presetCount, List<JackDto> jacks, MidiProfile profile) {
+        List<JackDto> midiJacks = jacks.stream().filter(j -> "midi".equals(j.category())).toList();
+        return new MidiPlannerDto.MidiDevice(
+            id, model, manufacturerName, type, midiCapable, receives, sends, presetCount, midiJacks,
+            MidiProfile.messageLabels(profile.receives()), MidiProfile.messageLabels(profile.sends()),
+            MidiProfile.portLabels(profile.inputs()), MidiProfile.portLabels(profile.outputs())
+        );
+    }
+
+    private static MidiPlannerDto.CompatibilityMatrix buildMatrix(MidiDevices parsed) {
+        List<MidiPlannerDto.MidiDevice> controllers = parsed.controllers();
+        List<MidiPlannerDto.MidiDevice> pedals = parsed.pedals();
+        MidiProfile[] pedalProfiles = pedals.stream()
+                .map(d -> parsed.pedalProfiles().get(d.id()))
+                .toArray(MidiProfile[]::new);
+
+        // One task per controller row; rows are independent and the profiles are immutable
+        List<MidiPlannerDto.MatrixRow> rows = IntStream.range(0, controllers.size())
+                .parallel()
+                .mapToObj(r -> {
+                    MidiProfile controller = parsed.controllerProfiles().get(controllers.get(r).id());
+                    int[] connection = new int[pedalProfiles.length];
+                    int[] shared = new int[pedalProfiles.length];
+                    int compatibleCount = 0;
+                    for (int c = 0; c < pedalProfiles.length; c++) {
+                        MidiProfile.Match match = controller.match(pedalProfiles[c]);
+                        connection[c] = match.connection().ordinal();
+                        shared[c] = match.sharedMessages();
+                        if (match.compatible()) compatibleCount++;
+                    }
+                    return new MidiPlannerDto.MatrixRow(controller.id(), compatibleCount, connection, shared);
+                })
                 .toList();
+
+        return new MidiPlannerDto.CompatibilityMatrix(
+            Arrays.stream(MidiProfile.Connection.values()).map(c -> c.name().toLowerCase()).toList(),
+            Arrays.stream(MidiProfile.Message.values()).map(m -> m.label).toList(),
+            controllers.stream().map(d -> new MidiPlannerDto.MatrixDevice(d.id(), d.model(), d.manufacturerName())).toList(),
+            pedals.stream().map(d -> new MidiPlannerDto.MatrixDevice(d.id(), d.model(), d.manufacturerName())).toList(),
+            rows
+        );
     }
 }
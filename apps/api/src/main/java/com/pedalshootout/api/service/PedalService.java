@@ -1,73 +1,74 @@
 package com.pedalshootout.api.service;
 
-import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
 import com.pedalshootout.api.dto.PedalDto;
-import com.pedalshootout.api.entity.PedalDetail;
-import com.pedalshootout.api.repository.JackRepository;
-import com.pedalshootout.api.repository.PedalDetailRepository;
+import com.pedalshootout.api.dto.PedalFilterDto;
+import com.pedalshootout.api.search.PedalFacetIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service for pedal-specific operations.
  *
- * This is where the "cross-table join" happens for pedals:
- * it combines data from products (via PedalDetail.getProduct()),
- * pedal_details, and jacks into a single PedalDto.
+ * The "cross-table join" of products, pedal_details, and jacks into a single
+ * PedalDto happens once, when the catalog snapshot is loaded (see
+ * CatalogSnapshotLoader). This service just reads the pre-built DTOs, so these
+ * methods never touch the database.
+ *
+ * Faceted filtering uses a PedalFacetIndex (one bitmap per facet value), built once
+ * per snapshot.
  */
 @Service
-@Transactional(readOnly = true)
+@Timed("pedalshootout.service")
 public class PedalService {
 
-    private final PedalDetailRepository pedalDetailRepository;
-    private final JackRepository jackRepository;
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<PedalFacetIndex> facetIndex =
+            new SnapshotDerived<>(snapshot -> PedalFacetIndex.build(snapshot.pedals().all(), snapshot::jacks));
 
-    public PedalService(PedalDetailRepository pedalDetailRepository,
-                        JackRepository jackRepository) {
-        this.pedalDetailRepository = pedalDetailRepository;
-        this.jackRepository = jackRepository;
+    public PedalService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
     }
 
     /** Get all pedals with their details and jacks. */
     public List<PedalDto> findAll(String effectType) {
-        List<PedalDetail> pedals;
+        CatalogSnapshot snapshot = catalog.current();
         if (effectType != null && !effectType.isBlank()) {
-            pedals = pedalDetailRepository.findByEffectType(effectType);
-        } else {
-            pedals = pedalDetailRepository.findAll();
+            return snapshot.pedalsByEffectType(effectType);
         }
-        List<Integer> productIds = pedals.stream().map(PedalDetail::getProductId).toList();
-        Map<Integer, List<JackDto>> jacksByProduct = jacksForAll(productIds);
-
-        return pedals.stream()
-                .map(pd -> PedalDto.from(pd.getProduct(), pd,
-                        jacksByProduct.getOrDefault(pd.getProductId(), List.of())))
-                .toList();
+        return snapshot.pedals().all();
     }
 
     /** Get a single pedal by product ID. */
     public Optional<PedalDto> findById(Integer productId) {
-        return pedalDetailRepository.findById(productId)
-                .map(this::toDto);
+        return catalog.current().pedals().find(productId);
     }
 
-    private PedalDto toDto(PedalDetail pd) {
-        List<JackDto> jacks = jackRepository.findByProductId(pd.getProductId()).stream()
-                .map(JackDto::from)
+    /**
+     * Filter pedals by any combination of facet values and count every facet value
+     * against the result. Values within a facet are OR'ed, facets are AND'ed.
+     */
+    public PedalFilterDto.FilterResult filter(Map<PedalFacetIndex.Dimension, List<String>> selected,
+                                              int page, int size) {
+        PedalFacetIndex.Result result = facetIndex.get(catalog.current()).search(selected, page, size);
+        List<PedalFilterDto.Facet> facets = result.facets().stream()
+                .map(f -> new PedalFilterDto.Facet(f.dimension().param, f.values().stream()
+                        .map(v -> new PedalFilterDto.FacetValue(v.value(), v.count(), v.selected()))
+                        .toList()))
                 .toList();
-        return PedalDto.from(pd.getProduct(), pd, jacks);
+        return new PedalFilterDto.FilterResult(result.totalMatches(), page, size, result.pedals(), facets);
     }
 
-    private Map<Integer, List<JackDto>> jacksForAll(List<Integer> productIds) {
-        return jackRepository.findByProductIdIn(productIds).stream()
-                .collect(Collectors.groupingBy(
-                        j -> j.getProduct().getId(),
-                        Collectors.mapping(JackDto::from, Collectors.toList())
-                ));
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        facetIndex.get(event.current());
     }
 }
@@ -1,78 +1,111 @@
 package com.pedalshootout.api.service;
 
-import com.pedalshootout.api.dto.DtoUtils;
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
+import com.pedalshootout.api.dto.CompatibilityDto;
+import com.pedalshootout.api.dto.JackDto;
 import com.pedalshootout.api.dto.PowerBudgetDto;
-import com.pedalshootout.api.entity.Jack;
-import com.pedalshootout.api.entity.PowerSupplyDetail;
-import com.pedalshootout.api.entity.Product;
-import com.pedalshootout.api.repository.JackRepository;
-import com.pedalshootout.api.repository.PowerSupplyDetailRepository;
-import com.pedalshootout.api.repository.ProductRepository;
+import com.pedalshootout.api.dto.PowerSupplyDto;
+import com.pedalshootout.api.dto.ProductSummaryDto;
+import com.pedalshootout.api.planner.PowerPortSolver;
+import com.pedalshootout.api.planner.SupplyIndex;
+import com.pedalshootout.api.planner.VoltageSpec;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 /**
  * Layer 2 service: Power Budget.
  *
  * Calculates total power draw of selected pedals and compares against
- * a power supply's capacity. Also finds compatible supplies for a set of pedals.
+ * a power supply's capacity, assigns pedals to specific supply outputs,
+ * and finds compatible supplies for a set of pedals (via a SupplyIndex).
  *
- * Power info comes from the jacks table — specifically the "Power Input" jacks
- * on pedals (current_ma = how much the pedal draws) and the total_current_ma
- * on power_supply_details (total capacity).
+ * Power info comes from the jacks table — specifically the power input jacks
+ * on pedals (current_ma = how much the pedal draws), the power output jacks on
+ * supplies (per-output voltage/current/isolation), and the total_current_ma on
+ * power_supply_details (total capacity).
+ *
+ * Everything is read from the in-memory catalog snapshot, where jacks are already
+ * grouped by product — so no endpoint here touches the database, however many
+ * pedals are passed in.
  */
 @Service
-@Transactional(readOnly = true)
+@Timed("pedalshootout.service")
 public class PowerBudgetService {
 
-    private final PowerSupplyDetailRepository powerSupplyRepo;
-    private final ProductRepository productRepository;
-    private final JackRepository jackRepository;
+    /**
+     * Most pedals / supplies in one request. A real rig is a few dozen pedals on one or
+     * two supplies; the assignment solver's matrix and running time grow with the square
+     * of the pedal count, so the lists are capped rather than left to the query string.
+     */
+    public static final int MAX_PEDALS = 64;
+    public static final int MAX_SUPPLIES = 8;
+
+    private static final String POWER = "power";
+
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<SupplyIndex> supplyIndex =
+            new SnapshotDerived<>(snapshot -> SupplyIndex.build(snapshot.powerSupplies().all()));
+
+    public PowerBudgetService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
+    }
+
+    /** The pedal's power input jack, if it lists one. */
+    private static Optional<JackDto> powerInput(CatalogSnapshot snapshot, Integer productId) {
+        return snapshot.jacks(productId).stream()
+                .filter(j -> POWER.equals(j.category()) && "input".equals(j.direction()))
+                .findFirst();
+    }
 
-    public PowerBudgetService(PowerSupplyDetailRepository powerSupplyRepo,
-                               ProductRepository productRepository,
-                               JackRepository jackRepository) {
-        this.powerSupplyRepo = powerSupplyRepo;
-        this.productRepository = productRepository;
-        this.jackRepository = jackRepository;
+    /** A supply's power output jacks, in jack ID order (= port order). */
+    private static List<JackDto> powerOutputs(CatalogSnapshot snapshot, Integer productId) {
+        return snapshot.jacks(productId).stream()
+                .filter(j -> POWER.equals(j.category()) && "output".equals(j.direction()))
+                .toList();
     }
 
-    /** Get power draw info for a pedal from its Power Input jack. */
-    private PowerBudgetDto.PedalPower getPedalPower(Product pedal) {
-        // Find the power input jack for this pedal
-        List<Jack> powerJacks = jackRepository.findByProductIdAndCategory(pedal.getId(), "Power Input");
-        Jack powerJack = powerJacks.isEmpty() ? null : powerJacks.get(0);
+    /** Get power draw info for a pedal from its power input jack. */
+    private static PowerBudgetDto.PedalPower getPedalPower(CatalogSnapshot snapshot, ProductSummaryDto pedal) {
+        JackDto powerJack = powerInput(snapshot, pedal.id()).orElse(null);
 
         return new PowerBudgetDto.PedalPower(
-            pedal.getId(),
-            pedal.getModel(),
-            pedal.getManufacturer().getName(),
-            powerJack != null ? powerJack.getVoltage() : null,
-            powerJack != null ? powerJack.getCurrentMa() : null,
-            powerJack != null ? powerJack.getPolarity() : null
+            pedal.id(),
+            pedal.model(),
+            pedal.manufacturerName(),
+            powerJack != null ? powerJack.voltage() : null,
+            powerJack != null ? powerJack.currentMa() : null,
+            powerJack != null ? powerJack.polarity() : null
         );
     }
 
     /** Calculate total power draw of pedals vs a supply's capacity. */
     public Optional<PowerBudgetDto.CalculationResult> calculate(Integer supplyId, List<Integer> pedalIds) {
-        Optional<PowerSupplyDetail> supplyOpt = powerSupplyRepo.findById(supplyId);
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<PowerSupplyDto> supplyOpt = snapshot.powerSupplies().find(supplyId);
         if (supplyOpt.isEmpty()) return Optional.empty();
 
-        PowerSupplyDetail supply = supplyOpt.get();
-        Product supplyProduct = supply.getProduct();
-        int totalCapacity = supply.getTotalCurrentMa() != null ? supply.getTotalCurrentMa() : 0;
+        PowerSupplyDto supply = supplyOpt.get();
+        int totalCapacity = supply.totalCurrentMa() != null ? supply.totalCurrentMa() : 0;
 
         List<PowerBudgetDto.PedalPower> pedalPowers = new ArrayList<>();
         int totalDraw = 0;
 
         for (Integer pedalId : pedalIds) {
-            Optional<Product> pedalOpt = productRepository.findById(pedalId);
+            Optional<ProductSummaryDto> pedalOpt = snapshot.products().find(pedalId);
             if (pedalOpt.isPresent()) {
-                PowerBudgetDto.PedalPower pp = getPedalPower(pedalOpt.get());
+                PowerBudgetDto.PedalPower pp = getPedalPower(snapshot, pedalOpt.get());
                 pedalPowers.add(pp);
                 if (pp.currentMa() != null) {
                     totalDraw += pp.currentMa();
@@ -88,42 +121,202 @@ public class PowerBudgetService {
                     totalDraw, totalCapacity, remaining)
                 : String.format("Over budget! Need %dmA but supply only provides %dmA (short by %dmA).",
                     totalDraw, totalCapacity, -remaining);
+        List<CompatibilityDto.Relation> knownIssues =
+                snapshot.compatibility().incompatibilitiesAmong(supplyId, pedalIds);
+        if (!knownIssues.isEmpty()) {
+            summary += String.format(" %d known incompatible pairing(s) — see knownIssues.", knownIssues.size());
+        }
 
         return Optional.of(new PowerBudgetDto.CalculationResult(
-            supplyId, supplyProduct.getModel(),
+            supplyId, supply.model(),
             totalCapacity, totalDraw, remaining, withinBudget,
-            pedalPowers, summary
+            pedalPowers, knownIssues, summary
         ));
     }
 
-    /** Find all power supplies that can handle the given pedals' total draw. */
-    public List<PowerBudgetDto.SupplyMatch> findSuppliesForPedals(List<Integer> pedalIds) {
-        // Calculate total draw
+    /**
+     * Assign each pedal to a specific output on the given supplies.
+     *
+     * Supply and pedal IDs may repeat (two of the same supply, two of the same pedal);
+     * each occurrence is treated as its own physical unit. Products without a power
+     * input jack (passive pedals, unknown data) are listed in unpoweredPedalIds.
+     * Returns empty if none of the supply IDs exist.
+     */
+    public Optional<PowerBudgetDto.AssignmentResult> assign(List<Integer> supplyIds, List<Integer> pedalIds) {
+        CatalogSnapshot snapshot = catalog.current();
+
+        // Every output of every requested supply, tagged with where it came from
+        record Port(int supplyIndex, PowerSupplyDto supply, int portIndex, JackDto jack) {}
+        List<Port> ports = new ArrayList<>();
+        List<Integer> foundSupplyIds = new ArrayList<>();
+        int totalCapacity = 0;
+        for (int s = 0; s < supplyIds.size(); s++) {
+            Optional<PowerSupplyDto> supplyOpt = snapshot.powerSupplies().find(supplyIds.get(s));
+            if (supplyOpt.isEmpty()) continue;
+            PowerSupplyDto supply = supplyOpt.get();
+            foundSupplyIds.add(supply.id());
+            if (supply.totalCurrentMa() != null) totalCapacity += supply.totalCurrentMa();
+            List<JackDto> outputs = powerOutputs(snapshot, supply.id());
+            for (int p = 0; p < outputs.size(); p++) {
+                ports.add(new Port(s, supply, p + 1, outputs.get(p)));
+            }
+        }
+        if (foundSupplyIds.isEmpty()) return Optional.empty();
+
+        record Pedal(ProductSummaryDto product, JackDto powerJack) {}
+        List<Pedal> pedals = new ArrayList<>();
+        List<Integer> unpowered = new ArrayList<>();
         int totalDraw = 0;
         for (Integer pedalId : pedalIds) {
-            Optional<Product> pedalOpt = productRepository.findById(pedalId);
-            if (pedalOpt.isPresent()) {
-                List<Jack> powerJacks = jackRepository.findByProductIdAndCategory(pedalId, "Power Input");
-                if (!powerJacks.isEmpty() && powerJacks.get(0).getCurrentMa() != null) {
-                    totalDraw += powerJacks.get(0).getCurrentMa();
-                }
+            Optional<ProductSummaryDto> productOpt = snapshot.products().find(pedalId);
+            if (productOpt.isEmpty()) continue;
+            Optional<JackDto> powerJack = powerInput(snapshot, pedalId);
+            if (powerJack.isEmpty()) {
+                unpowered.add(pedalId);
+                continue;
+            }
+            pedals.add(new Pedal(productOpt.get(), powerJack.get()));
+            if (powerJack.get().currentMa() != null) totalDraw += powerJack.get().currentMa();
+        }
+
+        // Solver keys are list positions
+        List<PowerPortSolver.Consumer> consumers = new ArrayList<>(pedals.size());
+        for (int i = 0; i < pedals.size(); i++) {
+            JackDto j = pedals.get(i).powerJack();
+            consumers.add(new PowerPortSolver.Consumer(i, j.voltage(), j.currentMa(), j.polarity(), j.connectorType()));
+        }
+        List<PowerPortSolver.Output> outputs = new ArrayList<>(ports.size());
+        for (int i = 0; i < ports.size(); i++) {
+            JackDto j = ports.get(i).jack();
+            outputs.add(new PowerPortSolver.Output(i, j.voltage(), j.currentMa(), j.polarity(), j.connectorType(),
+                    Boolean.TRUE.equals(j.isIsolated())));
+        }
+
+        PowerPortSolver.Result solved = PowerPortSolver.solve(consumers, outputs);
+
+        List<PowerBudgetDto.PortAssignment> assignments = new ArrayList<>();
+        Map<Integer, List<Integer>> chainMembers = new LinkedHashMap<>();
+        for (PowerPortSolver.Assignment a : solved.assignments()) {
+            Pedal pedal = pedals.get(a.consumerKey());
+            Port port = ports.get(a.outputKey());
+            assignments.add(new PowerBudgetDto.PortAssignment(
+                pedal.product().id(), pedal.product().model(), pedal.product().manufacturerName(),
+                pedal.powerJack().voltage(), pedal.powerJack().currentMa(),
+                port.supply().id(), port.supply().model(), port.supplyIndex(), port.portIndex(),
+                port.jack().id(), port.jack().jackName(), port.jack().voltage(), port.jack().currentMa(),
+                Boolean.TRUE.equals(port.jack().isIsolated()), a.daisyChained(), a.notes()
+            ));
+            if (a.daisyChained()) {
+                chainMembers.computeIfAbsent(a.outputKey(), k -> new ArrayList<>()).add(a.consumerKey());
+            }
+        }
+
+        List<PowerBudgetDto.DaisyChainGroup> chains = chainMembers.entrySet().stream()
+                .map(e -> {
+                    Port port = ports.get(e.getKey());
+                    int combined = e.getValue().stream()
+                            .mapToInt(i -> pedals.get(i).powerJack().currentMa())
+                            .sum();
+                    return new PowerBudgetDto.DaisyChainGroup(
+                        port.supply().id(), port.supplyIndex(), port.portIndex(), port.jack().id(),
+                        e.getValue().stream().map(i -> pedals.get(i).product().id()).toList(),
+                        combined, port.jack().currentMa()
+                    );
+                })
+                .toList();
+
+        List<PowerBudgetDto.UnassignedPedal> unassigned = solved.unassigned().stream()
+                .map(u -> {
+                    Pedal pedal = pedals.get(u.consumerKey());
+                    return new PowerBudgetDto.UnassignedPedal(
+                        pedal.product().id(), pedal.product().model(), pedal.product().manufacturerName(),
+                        pedal.powerJack().voltage(), pedal.powerJack().currentMa(), u.reason()
+                    );
+                })
+                .toList();
+
+        int outputsUsed = (int) solved.assignments().stream().mapToInt(PowerPortSolver.Assignment::outputKey).distinct().count();
+        boolean allAssigned = unassigned.isEmpty();
+        String summary;
+        if (allAssigned) {
+            summary = String.format("All %d pedals assigned using %d of %d outputs%s.",
+                    pedals.size(), outputsUsed, ports.size(),
+                    chains.isEmpty() ? "" : String.format(" (%d daisy chain%s)", chains.size(), chains.size() == 1 ? "" : "s"));
+        } else {
+            summary = String.format("%d of %d pedals could not be assigned an output.",
+                    unassigned.size(), pedals.size());
+        }
+
+        return Optional.of(new PowerBudgetDto.AssignmentResult(
+            foundSupplyIds, ports.size(), outputsUsed, totalDraw, totalCapacity, allAssigned,
+            assignments, chains, unassigned, unpowered, summary
+        ));
+    }
+
+    /**
+     * Find power supplies that can power the given pedals: enough total current, and
+     * at each voltage the pedals need, enough outputs (optionally isolated) with the
+     * current for the pedals on them. Ranked by headroom (tightest fit first), then MSRP.
+     *
+     * Backed by a SupplyIndex built once per catalog snapshot, since the planner UI calls
+     * this on every pedal add.
+     */
+    public PowerBudgetDto.SupplySearchResult findSuppliesForPedals(List<Integer> pedalIds, boolean isolatedOnly,
+                                                                   int page, int size) {
+        CatalogSnapshot snapshot = catalog.current();
+
+        // Total draw, plus the pedals' draws grouped by the voltage they need. A pedal
+        // that takes a range or a list keeps its whole spec, so any of them can match.
+        int totalDraw = 0;
+        Map<VoltageSpec, List<Integer>> drawsByVoltage = new TreeMap<>(
+                Comparator.comparing(VoltageSpec::ac)
+                        .thenComparingDouble(VoltageSpec::minVolts)
+                        .thenComparingDouble(VoltageSpec::maxVolts)
+                        .thenComparing(VoltageSpec::label));
+        for (Integer pedalId : pedalIds) {
+            if (snapshot.products().find(pedalId).isEmpty()) continue;
+            Optional<JackDto> powerJack = powerInput(snapshot, pedalId);
+            if (powerJack.isEmpty()) continue;
+            int draw = powerJack.get().currentMa() != null ? powerJack.get().currentMa() : 0;
+            totalDraw += draw;
+            VoltageSpec spec = VoltageSpec.parse(powerJack.get().voltage());
+            if (spec != null) {
+                drawsByVoltage.computeIfAbsent(spec, k -> new ArrayList<>()).add(draw);
             }
         }
 
         int requiredMa = totalDraw;
+        List<SupplyIndex.OutputRequirement> requirements = new ArrayList<>();
+        List<PowerBudgetDto.OutputRequirement> requirementDtos = new ArrayList<>();
+        drawsByVoltage.forEach((spec, draws) -> {
+            requirements.add(new SupplyIndex.OutputRequirement(spec, draws.stream().mapToInt(Integer::intValue).toArray()));
+            requirementDtos.add(new PowerBudgetDto.OutputRequirement(
+                spec.label(), draws.size(), draws.stream().max(Integer::compare).orElse(null)));
+        });
 
-        // Find supplies with enough capacity
-        return powerSupplyRepo.findAll().stream()
-                .filter(s -> s.getTotalCurrentMa() != null && s.getTotalCurrentMa() >= requiredMa)
-                .map(s -> {
-                    Product p = s.getProduct();
+        SupplyIndex.Page result = supplyIndex.get(snapshot)
+                .search(new SupplyIndex.Query(requiredMa, requirements, isolatedOnly), page, size);
+
+        List<PowerBudgetDto.SupplyMatch> matches = result.hits().stream()
+                .map(hit -> {
+                    PowerSupplyDto s = hit.supply();
                     return new PowerBudgetDto.SupplyMatch(
-                        p.getId(), p.getModel(), p.getManufacturer().getName(),
-                        s.getTotalCurrentMa(), requiredMa,
-                        s.getTotalCurrentMa() - requiredMa,
-                        DtoUtils.formatMsrp(p.getMsrpCents())
+                        s.id(), s.model(), s.manufacturerName(),
+                        s.totalCurrentMa(), requiredMa, hit.headroomMa(),
+                        s.msrpDisplay(), s.msrpCents(),
+                        s.totalOutputCount(), s.isolatedOutputCount()
                     );
                 })
                 .toList();
+
+        return new PowerBudgetDto.SupplySearchResult(
+            requiredMa, requirementDtos, isolatedOnly,
+            result.totalMatches(), page, size, matches
+        );
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        supplyIndex.get(event.current());
     }
 }
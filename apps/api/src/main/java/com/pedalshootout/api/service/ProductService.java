@@ -1,76 +1,117 @@
 package com.pedalshootout.api.service;
 
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
 import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PedalDetailDto;
+import com.pedalshootout.api.dto.PedalDto;
 import com.pedalshootout.api.dto.ProductDetailDto;
 import com.pedalshootout.api.dto.ProductSummaryDto;
-import com.pedalshootout.api.entity.Product;
-import com.pedalshootout.api.repository.JackRepository;
-import com.pedalshootout.api.repository.ProductRepository;
+import com.pedalshootout.api.dto.SimilarityDto;
+import com.pedalshootout.api.entity.ProductType;
+import com.pedalshootout.api.search.SimilarityIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * Service layer for product operations.
  *
- * @Transactional(readOnly = true) tells Spring to:
- *   1. Open a database transaction for each method call
- *   2. Mark it as read-only (optimizer hint for the database)
- *   3. Keep the JPA session open for the duration (so lazy-loaded relationships work)
+ * All reads are served from the in-memory catalog snapshot. The snapshot was built
+ * inside a single read-only transaction (see CatalogSnapshotLoader), which is where
+ * lazy relationships like product.getManufacturer().getName() were resolved — so
+ * there's no JPA session or @Transactional needed here, and no
+ * LazyInitializationException to worry about.
  *
- * Without this, accessing product.getManufacturer().getName() would throw a
- * LazyInitializationException because the JPA session closes after the repository call.
+ * "Similar products" come from a SimilarityIndex, whose neighbour lists are computed
+ * for every pedal right after each catalog refresh rather than per request.
  */
 @Service
-@Transactional(readOnly = true)
+@Timed("pedalshootout.service")
 public class ProductService {
 
-    private final ProductRepository productRepository;
-    private final JackRepository jackRepository;
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<SimilarityIndex> similarity =
+            new SnapshotDerived<>(snapshot -> SimilarityIndex.build(snapshot.pedals().all(), snapshot::jacks));
 
-    public ProductService(ProductRepository productRepository,
-                          JackRepository jackRepository) {
-        this.productRepository = productRepository;
-        this.jackRepository = jackRepository;
+    public ProductService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
     }
 
     /** Get all products, optionally filtered by product type ID. */
     public List<ProductSummaryDto> findAll(Integer typeId) {
-        List<Product> products;
+        CatalogSnapshot snapshot = catalog.current();
         if (typeId != null) {
-            products = productRepository.findByProductTypeId(typeId);
-        } else {
-            products = productRepository.findAll();
+            return snapshot.productsByType(typeId);
         }
-        return products.stream()
-                .map(ProductSummaryDto::from)
-                .toList();
+        return snapshot.products().all();
     }
 
     /** Get all products by a specific manufacturer. */
     public List<ProductSummaryDto> findByManufacturerId(Integer manufacturerId) {
-        return productRepository.findByManufacturerId(manufacturerId).stream()
-                .map(ProductSummaryDto::from)
-                .toList();
+        return catalog.current().productsByManufacturer(manufacturerId);
     }
 
     /** Get a single product with full details and jacks. */
     public Optional<ProductDetailDto> findById(Integer id) {
-        return productRepository.findById(id)
-                .map(p -> {
-                    List<JackDto> jacks = jackRepository.findByProductId(id).stream()
-                            .map(JackDto::from)
-                            .toList();
-                    return ProductDetailDto.from(p, jacks);
-                });
+        return catalog.current().productDetail(id);
     }
 
     /** Get just the jacks for a product. */
     public List<JackDto> findJacksByProductId(Integer productId) {
-        return jackRepository.findByProductId(productId).stream()
-                .map(JackDto::from)
-                .toList();
+        return catalog.current().jacks(productId);
+    }
+
+    /** Get the product type reference table. */
+    public List<ProductType> findProductTypes() {
+        return catalog.current().productTypes();
+    }
+
+    /**
+     * The pedals most like this one, nearest first. Only pedals have a spec vector, so
+     * empty for any other product (and for unknown IDs).
+     */
+    public Optional<SimilarityDto.SimilarResult> findSimilar(Integer productId, int limit) {
+        CatalogSnapshot snapshot = catalog.current();
+        Optional<PedalDto> pedalOpt = snapshot.pedals().find(productId);
+        if (pedalOpt.isEmpty()) return Optional.empty();
+
+        PedalDto pedal = pedalOpt.get();
+        List<SimilarityDto.SimilarPedal> similar = new ArrayList<>();
+        for (SimilarityIndex.Neighbour n : similarity.get(snapshot).similarTo(productId, limit)) {
+            PedalDto other = n.pedal();
+            similar.add(new SimilarityDto.SimilarPedal(
+                other.id(), other.model(), other.manufacturerName(), other.pedalDetails().effectType(),
+                other.msrpDisplay(), other.msrpCents(), other.imagePath(),
+                Math.round(1000.0 / (1 + n.distance())) / 1000.0,
+                sharedSpecs(pedal.pedalDetails(), other.pedalDetails())
+            ));
+        }
+        return Optional.of(new SimilarityDto.SimilarResult(pedal.id(), pedal.model(), similar));
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        similarity.get(event.current());
+    }
+
+    private static List<String> sharedSpecs(PedalDetailDto a, PedalDetailDto b) {
+        List<String> shared = new ArrayList<>(4);
+        if (sameText(a.effectType(), b.effectType())) shared.add("effectType");
+        if (sameText(a.monoStereo(), b.monoStereo())) shared.add("monoStereo");
+        if (sameText(a.bypassType(), b.bypassType())) shared.add("bypassType");
+        if (a.midiCapable() != null && Objects.equals(a.midiCapable(), b.midiCapable())) shared.add("midiCapable");
+        return shared;
+    }
+
+    private static boolean sameText(String a, String b) {
+        return a != null && b != null && !a.isBlank() && a.trim().equalsIgnoreCase(b.trim());
     }
 }
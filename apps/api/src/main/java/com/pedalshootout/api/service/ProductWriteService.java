@@ -0,0 +1,474 @@
+package com.pedalshootout.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pedalshootout.api.catalog.CatalogChangeListener;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.ProductWriteDto;
+import com.pedalshootout.api.entity.ColumnBinder;
+import com.pedalshootout.api.entity.Jack;
+import com.pedalshootout.api.entity.Manufacturer;
+import com.pedalshootout.api.entity.MidiControllerDetail;
+import com.pedalshootout.api.entity.PedalDetail;
+import com.pedalshootout.api.entity.PedalboardDetail;
+import com.pedalshootout.api.entity.PlugDetail;
+import com.pedalshootout.api.entity.PowerSupplyDetail;
+import com.pedalshootout.api.entity.Product;
+import com.pedalshootout.api.entity.ProductType;
+import com.pedalshootout.api.entity.UtilityDetail;
+import com.pedalshootout.api.repository.JackRepository;
+import com.pedalshootout.api.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Creates, replaces and deletes products, their detail rows and their jacks.
+ *
+ * Writes go through Hibernate with JDBC batching on (application.yml) and sequence ids
+ * (V6 migration), so creating a pedal with 10 jacks is: a nextval per 50 new products
+ * or jacks, then one batch per table — product, detail row, jacks — rather than 12
+ * INSERTs each waiting for its IDENTITY value. Having the ids before the INSERTs also
+ * means a new jack can be normalled to another new jack ("normalledTo": its key) in the
+ * same batch: targets are persisted first, so the link is in the INSERT itself.
+ *
+ * Bodies are validated as a whole before anything is persisted: unknown fields and
+ * wrongly typed values come back as one 400 listing every problem. The database's own
+ * constraints (CHECK vocabularies, NOT NULL, foreign keys) are checked at flush, inside
+ * the request, and come back as 400 — or 409 for a duplicate manufacturer + model +
+ * type — instead of failing at commit.
+ *
+ * Reads are served from the catalog snapshot, so a write isn't done until the snapshot
+ * has it. Each write transaction sends NOTIFY catalog_changed, which reaches every
+ * instance's CatalogChangeListener once it commits. Its own instance is brought up to
+ * date by awaitCatalog(), which ProductWriteController calls after the write has
+ * returned (committed, its connection back in the pool), so a GET straight after a POST
+ * finds the product. Other instances catch up a moment later.
+ *
+ * Only under the admin profile, like ProductWriteController.
+ */
+@Profile("admin")
+@Service
+@Timed("pedalshootout.service")
+public class ProductWriteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductWriteService.class);
+
+    /** Jacks per request: one id block and one JDBC batch. */
+    public static final int MAX_JACKS = 50;
+
+    /** Longest a write waits for the catalog reload before answering anyway. */
+    public static final long CATALOG_WAIT_SECONDS = 10;
+
+    private static final ColumnBinder<Product> PRODUCT = new ColumnBinder<>(Product.class);
+    private static final ColumnBinder<Jack> JACK = new ColumnBinder<>(Jack.class);
+
+    /** Body fields that aren't product columns. */
+    private static final Set<String> PRODUCT_FIELDS = Set.of("id", "manufacturerId", "productTypeId", "details", "jacks");
+    private static final Set<String> NEW_JACK_FIELDS = Set.of("id", "key", "normalledTo");
+    private static final Set<String> JACK_FIELDS = Set.of("id");
+
+    /** A product type's detail table: its entity and how to start a row for a product. */
+    private record DetailType<D>(Class<D> type, Function<Product, D> create, ColumnBinder<D> columns) {
+
+        static <D> DetailType<D> of(Class<D> type, Function<Product, D> create) {
+            return new DetailType<>(type, create, new ColumnBinder<>(type));
+        }
+    }
+
+    private static final Map<String, DetailType<?>> DETAILS = Map.of(
+            "pedal", DetailType.of(PedalDetail.class, PedalDetail::new),
+            "power_supply", DetailType.of(PowerSupplyDetail.class, PowerSupplyDetail::new),
+            "pedalboard", DetailType.of(PedalboardDetail.class, PedalboardDetail::new),
+            "midi_controller", DetailType.of(MidiControllerDetail.class, MidiControllerDetail::new),
+            "utility", DetailType.of(UtilityDetail.class, UtilityDetail::new),
+            "plug", DetailType.of(PlugDetail.class, PlugDetail::new));
+
+    /** A jack from a request body, before it's persisted. */
+    private record NewJack(Jack jack, String key, String normalledTo) {}
+
+    private final ProductRepository productRepository;
+    private final JackRepository jackRepository;
+    private final EntityManager entityManager;
+    private final CatalogSnapshotService catalog;
+    private final CatalogChangeListener catalogChanges;
+    private final ObjectMapper objectMapper;
+    private final AsyncTaskExecutor executor;
+
+    public ProductWriteService(ProductRepository productRepository,
+                               JackRepository jackRepository,
+                               EntityManager entityManager,
+                               CatalogSnapshotService catalog,
+                               CatalogChangeListener catalogChanges,
+                               ObjectMapper objectMapper,
+                               @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.productRepository = productRepository;
+        this.jackRepository = jackRepository;
+        this.entityManager = entityManager;
+        this.catalog = catalog;
+        this.catalogChanges = catalogChanges;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    // ─── Products ───────────────────────────────────────────────────────
+
+    /** A product with its detail row and jacks. */
+    @Transactional
+    public ProductWriteDto.Created create(JsonNode body) {
+        requireObject(body, "product");
+        List<String> problems = new ArrayList<>();
+        ProductType type = productType(body.get("productTypeId"), problems);
+        Integer manufacturerId = id(body.get("manufacturerId"), "manufacturerId", problems);
+        if (!problems.isEmpty()) throw badRequest(problems);
+
+        Product product = new Product(entityManager.getReference(Manufacturer.class, manufacturerId),
+                entityManager.getReference(ProductType.class, type.getId()));
+        problems.addAll(PRODUCT.bind(body, product, objectMapper, PRODUCT_FIELDS, "product"));
+        DetailType<?> detailType = DETAILS.get(type.getTypeName());
+        Object detail = newDetail(detailType, product, body.get("details"), problems);
+        List<NewJack> jacks = newJacks(product, body.get("jacks"), Set.of(), problems);
+        if (!problems.isEmpty()) throw badRequest(problems);
+
+        productRepository.save(product);
+        entityManager.persist(detail);
+        persist(jacks);
+        flush();
+        catalogChanged();
+        return new ProductWriteDto.Created(product.getId(), jacks.stream().map(j -> JackDto.from(j.jack())).toList());
+    }
+
+    /**
+     * Replace a product's columns, and its detail row's when the body has "details".
+     * False if there's no such product. Jacks are edited on their own endpoints, and a
+     * product's type can't change (its detail row lives in the type's table).
+     */
+    @Transactional
+    public boolean update(Integer id, JsonNode body) {
+        requireObject(body, "product");
+        Optional<Product> found = productRepository.findById(id);
+        if (found.isEmpty()) return false;
+        Product product = found.get();
+        List<String> problems = new ArrayList<>();
+        Integer typeId = product.getProductType().getId();
+        JsonNode requestedType = body.get("productTypeId");
+        if (requestedType != null && !requestedType.isNull() && !Objects.equals(requestedType.asText(), typeId.toString())) {
+            problems.add("productTypeId can't change; delete the product and create it again");
+        }
+        if (body.has("jacks")) problems.add("jacks are edited at /api/products/" + id + "/jacks");
+        Integer manufacturerId = id(body.get("manufacturerId"), "manufacturerId", problems);
+        problems.addAll(PRODUCT.bind(body, product, objectMapper, PRODUCT_FIELDS, "product"));
+        if (body.has("details")) {
+            bindDetail(product, typeId, body.get("details"), problems);
+        }
+        if (!problems.isEmpty()) throw badRequest(problems);
+
+        product.setManufacturer(entityManager.getReference(Manufacturer.class, manufacturerId));
+        flush();
+        catalogChanged();
+        return true;
+    }
+
+    /** Replace a product's detail row. False if there's no such product. */
+    @Transactional
+    public boolean updateDetails(Integer id, JsonNode body) {
+        Optional<Product> found = productRepository.findById(id);
+        if (found.isEmpty()) return false;
+        List<String> problems = new ArrayList<>();
+        bindDetail(found.get(), found.get().getProductType().getId(), body, problems);
+        if (!problems.isEmpty()) throw badRequest(problems);
+        flush();
+        catalogChanged();
+        return true;
+    }
+
+    /** Its detail row, jacks and sources go with it (ON DELETE CASCADE). */
+    @Transactional
+    public boolean delete(Integer id) {
+        boolean deleted;
+        try {
+            deleted = productRepository.deleteProduct(id) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // the one reference without a cascade: a pedalboard's integrated power supply
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Product " + id + " is a pedalboard's integrated power supply; update that pedalboard first");
+        }
+        if (deleted) catalogChanged();
+        return deleted;
+    }
+
+    // ─── Jacks ──────────────────────────────────────────────────────────
+
+    /**
+     * Add jacks to a product. Each may be normalled to one of the product's existing
+     * jacks (normalledToJackId) or to another new one (normalledTo: its key). Empty if
+     * there's no such product.
+     */
+    @Transactional
+    public Optional<List<JackDto>> addJacks(Integer productId, JsonNode body) {
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) return Optional.empty();
+        List<String> problems = new ArrayList<>();
+        boolean linksExisting = body != null && body.isArray() && body.findValue("normalledToJackId") != null;
+        Set<Integer> existing = linksExisting ? new HashSet<>(jackRepository.findIdsByProductId(productId)) : Set.of();
+        List<NewJack> jacks = newJacks(product.get(), body, existing, problems);
+        if (jacks.isEmpty() && problems.isEmpty()) problems.add("jacks must be a non-empty array");
+        if (!problems.isEmpty()) throw badRequest(problems);
+
+        persist(jacks);
+        flush();
+        catalogChanged();
+        return Optional.of(jacks.stream().map(j -> JackDto.from(j.jack())).toList());
+    }
+
+    /** Replace a jack's columns. Empty if the product has no such jack. */
+    @Transactional
+    public Optional<JackDto> updateJack(Integer productId, Integer jackId, JsonNode body) {
+        Optional<Jack> found = jackRepository.findById(jackId)
+                .filter(j -> j.getProduct().getId().equals(productId));
+        if (found.isEmpty()) return Optional.empty();
+        Jack jack = found.get();
+        List<String> problems = new ArrayList<>(JACK.bind(body, jack, objectMapper, JACK_FIELDS, "jack"));
+        Integer target = jack.getNormalledToJackId();
+        if (problems.isEmpty() && target != null
+                && (target.equals(jackId) || !jackRepository.findIdsByProductId(productId).contains(target))) {
+            problems.add("jack: normalledToJackId " + target + " is not another jack of product " + productId);
+        }
+        if (!problems.isEmpty()) throw badRequest(problems);
+
+        flush();
+        catalogChanged();
+        return Optional.of(JackDto.from(jack));
+    }
+
+    @Transactional
+    public boolean deleteJack(Integer productId, Integer jackId) {
+        boolean deleted = jackRepository.deleteJack(productId, jackId) > 0;
+        if (deleted) catalogChanged();
+        return deleted;
+    }
+
+    // ─── Binding ────────────────────────────────────────────────────────
+
+    private <D> D newDetail(DetailType<D> detailType, Product product, JsonNode details, List<String> problems) {
+        D detail = detailType.create().apply(product);
+        problems.addAll(detailType.columns().bind(details == null ? objectMapper.createObjectNode() : details,
+                detail, objectMapper, Set.of(), "details"));
+        return detail;
+    }
+
+    /** Bind onto the product's detail row, starting one if it has none. */
+    private void bindDetail(Product product, Integer typeId, JsonNode details, List<String> problems) {
+        DetailType<?> detailType = DETAILS.get(productType(typeId).getTypeName());
+        Object detail = entityManager.find(detailType.type(), product.getId());
+        if (detail == null) {
+            entityManager.persist(newDetail(detailType, product, details, problems));
+        } else {
+            bindExisting(detailType, detail, details, problems);
+        }
+    }
+
+    private <D> void bindExisting(DetailType<D> detailType, Object detail, JsonNode details, List<String> problems) {
+        problems.addAll(detailType.columns().bind(details, detailType.type().cast(detail), objectMapper, Set.of(), "details"));
+    }
+
+    /**
+     * The jacks in a body's array. normalledToJackId may only name one of existingIds;
+     * normalledTo names another jack in the same array by its key.
+     */
+    private List<NewJack> newJacks(Product product, JsonNode array, Set<Integer> existingIds, List<String> problems) {
+        if (array == null || array.isNull()) return List.of();
+        if (!array.isArray()) {
+            problems.add("jacks must be an array");
+            return List.of();
+        }
+        if (array.size() > MAX_JACKS) {
+            problems.add("at most " + MAX_JACKS + " jacks per request");
+            return List.of();
+        }
+        List<NewJack> jacks = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < array.size(); i++) {
+            JsonNode node = array.get(i);
+            String where = "jacks[" + i + "]";
+            Jack jack = new Jack(product);
+            problems.addAll(JACK.bind(node, jack, objectMapper, NEW_JACK_FIELDS, where));
+            String key = text(node, "key");
+            String normalledTo = text(node, "normalledTo");
+            if (key != null && !keys.add(key)) problems.add(where + ": key " + key + " is used twice");
+            if (jack.getNormalledToJackId() != null && !existingIds.contains(jack.getNormalledToJackId())) {
+                problems.add(where + ": normalledToJackId " + jack.getNormalledToJackId()
+                        + " is not a jack of this product" + (existingIds.isEmpty() ? " (use normalledTo: a key)" : ""));
+            }
+            if (normalledTo != null && jack.getNormalledToJackId() != null) {
+                problems.add(where + ": give normalledTo or normalledToJackId, not both");
+            }
+            jacks.add(new NewJack(jack, key, normalledTo));
+        }
+        for (int i = 0; i < jacks.size(); i++) {
+            String target = jacks.get(i).normalledTo();
+            if (target != null && (!keys.contains(target) || target.equals(jacks.get(i).key()))) {
+                problems.add("jacks[" + i + "]: normalledTo " + target + " is not the key of another jack here");
+            }
+        }
+        return jacks;
+    }
+
+    /**
+     * Persist jacks so that each normalledTo target has its id before the jack pointing
+     * at it is persisted, putting the link in the INSERT. A normalling cycle (A to B, B
+     * to A) can't be ordered; those links are set after, as UPDATEs.
+     */
+    private void persist(List<NewJack> jacks) {
+        Map<String, Jack> byKey = new HashMap<>();
+        jacks.forEach(j -> {
+            if (j.key() != null) byKey.put(j.key(), j.jack());
+        });
+        List<NewJack> waiting = new ArrayList<>(jacks);
+        while (!waiting.isEmpty()) {
+            boolean progress = false;
+            for (Iterator<NewJack> it = waiting.iterator(); it.hasNext(); ) {
+                NewJack j = it.next();
+                if (j.normalledTo() != null) {
+                    Integer target = byKey.get(j.normalledTo()).getId();
+                    if (target == null) continue;
+                    j.jack().setNormalledToJackId(target);
+                }
+                jackRepository.save(j.jack());
+                it.remove();
+                progress = true;
+            }
+            if (!progress) {
+                waiting.forEach(j -> jackRepository.save(j.jack()));
+                waiting.forEach(j -> j.jack().setNormalledToJackId(byKey.get(j.normalledTo()).getId()));
+                break;
+            }
+        }
+    }
+
+    // ─── Helpers ────────────────────────────────────────────────────────
+
+    private ProductType productType(JsonNode id, List<String> problems) {
+        Integer typeId = id(id, "productTypeId", problems);
+        if (typeId == null) return null;
+        ProductType type = productType(typeId);
+        if (type == null || !DETAILS.containsKey(type.getTypeName())) {
+            problems.add("productTypeId " + typeId + " is not a product type");
+            return null;
+        }
+        return type;
+    }
+
+    /** From the catalog snapshot: product types are fixed reference data. */
+    private ProductType productType(Integer id) {
+        return catalog.current().productTypes().stream()
+                .filter(t -> t.getId().equals(id))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static Integer id(JsonNode value, String name, List<String> problems) {
+        if (value == null || !value.canConvertToInt() || !value.isIntegralNumber()) {
+            problems.add(name + " is required: an integer id");
+            return null;
+        }
+        return value.intValue();
+    }
+
+    private static String text(JsonNode object, String field) {
+        JsonNode value = object == null ? null : object.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static void requireObject(JsonNode body, String what) {
+        if (body == null || !body.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, what + " must be a JSON object");
+        }
+    }
+
+    /** Send the batched statements now, so constraint violations come back as 400/409 rather than a failed commit. */
+    private void flush() {
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            SQLException sql = null;
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof SQLException s) {
+                    sql = s;
+                    break;
+                }
+            }
+            if (sql == null) throw e;
+            String message = sql.getMessage().lines().findFirst().orElse("").replaceFirst("^ERROR: ", "");
+            // 23505: unique_violation — products' manufacturer + model + type
+            HttpStatus status = "23505".equals(sql.getSQLState()) ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+            throw new ResponseStatusException(status, "Rejected by the database: " + message);
+        }
+    }
+
+    /**
+     * Tell every instance the catalog changed once this transaction commits. The
+     * notification carries this instance's id, so its own listener skips it: the
+     * caller brings this instance up to date with awaitCatalog().
+     */
+    private void catalogChanged() {
+        entityManager.createNativeQuery("NOTIFY " + CatalogChangeListener.CHANNEL
+                + ", '" + catalogChanges.instanceId() + "'").executeUpdate();
+    }
+
+    // ─── Catalog ────────────────────────────────────────────────────────
+
+    /**
+     * Wait until this instance's catalog snapshot has every write committed so far
+     * (CatalogSnapshotService.awaitRefresh, shared by concurrent writes). Call it after
+     * a write has returned, never inside its transaction, so no connection is held while
+     * waiting. The reload runs on a task thread, so its reads aren't counted as the
+     * write request's SQL.
+     *
+     * Gives up after CATALOG_WAIT_SECONDS: the write is committed either way, so the
+     * caller still answers, and the reload carries on and is served once it finishes.
+     */
+    public void awaitCatalog() {
+        try {
+            executor.submit(catalog::awaitRefresh).get(CATALOG_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Catalog refresh after a product write is taking over {} s; answering before it's served",
+                    CATALOG_WAIT_SECONDS);
+        } catch (ExecutionException e) {
+            // The write is committed either way; reads catch up on the next refresh.
+            log.error("Catalog refresh after a product write failed", e.getCause());
+        }
+    }
+
+    private static ResponseStatusException badRequest(List<String> problems) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join("; ", problems));
+    }
+}
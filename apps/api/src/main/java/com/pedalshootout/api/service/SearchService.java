@@ -0,0 +1,84 @@
+package com.pedalshootout.api.service;
+
+import com.pedalshootout.api.catalog.CatalogRefreshedEvent;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.catalog.SnapshotDerived;
+import com.pedalshootout.api.dto.ManufacturerDto;
+import com.pedalshootout.api.dto.ProductDetailDto;
+import com.pedalshootout.api.dto.SearchDto;
+import com.pedalshootout.api.search.TrigramIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Catalog-wide search: every product (all types) and every manufacturer, ranked and
+ * typo-tolerant, backed by an in-memory TrigramIndex.
+ *
+ * Fields and weights, best match wins per trigram:
+ *   model / manufacturer name  1.0
+ *   product's manufacturer     0.7
+ *   tags / specialty           0.5
+ *   description                0.3
+ *
+ * When the catalog refreshes, the index is patched rather than rebuilt: documents
+ * whose text didn't change keep their postings, so a refresh that touched a few
+ * products costs a few products' worth of work.
+ */
+@Service
+@Timed("pedalshootout.service")
+public class SearchService {
+
+    private static final float[] FIELD_WEIGHTS = { 1.0f, 0.7f, 0.5f, 0.3f };
+
+    private final CatalogSnapshotService catalog;
+    private final SnapshotDerived<TrigramIndex> index = SnapshotDerived.incremental((previous, snapshot) ->
+            previous == null
+                    ? TrigramIndex.build(documents(snapshot), FIELD_WEIGHTS)
+                    : previous.withChanges(documents(snapshot)));
+
+    public SearchService(CatalogSnapshotService catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Best matches for the query. kinds, when non-empty, restricts results to those
+     * product types and/or "manufacturer".
+     */
+    public SearchDto.SearchResult search(String query, Set<String> kinds, int limit) {
+        List<TrigramIndex.Hit> hits = index.get(catalog.current()).search(query, limit,
+                d -> kinds.isEmpty() || kinds.contains(d.kind()));
+        return new SearchDto.SearchResult(query, hits.stream()
+                .map(h -> new SearchDto.Hit(h.document().kind(), h.document().id(),
+                        h.document().title(), h.document().subtitle(),
+                        Math.round(h.score() * 1000) / 1000.0))
+                .toList());
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        index.get(event.current());
+    }
+
+    private static List<TrigramIndex.Document> documents(CatalogSnapshot snapshot) {
+        List<TrigramIndex.Document> docs = new ArrayList<>();
+        for (ManufacturerDto m : snapshot.manufacturers().all()) {
+            docs.add(new TrigramIndex.Document("manufacturer:" + m.id(), "manufacturer", m.id(),
+                    m.name(), m.country(), Arrays.asList(m.name(), null, m.specialty(), null)));
+        }
+        snapshot.products().all().forEach(summary -> {
+            ProductDetailDto p = snapshot.productDetail(summary.id()).orElse(null);
+            if (p == null) return;
+            docs.add(new TrigramIndex.Document("product:" + p.id(), p.productType(), p.id(),
+                    p.model(), p.manufacturerName(),
+                    Arrays.asList(p.model(), p.manufacturerName(), p.tags(), p.description())));
+        });
+        return docs;
+    }
+}
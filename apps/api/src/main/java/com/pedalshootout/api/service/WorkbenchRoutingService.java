@@ -0,0 +1,136 @@
+package com.pedalshootout.api.service;
+
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.dto.RoutingDto;
+import com.pedalshootout.api.dto.WorkbenchDto;
+import com.pedalshootout.api.routing.SignalGraph;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signal-chain validation for saved workbenches: feedback loops in the audio and MIDI
+ * routing.
+ *
+ * The frontend reruns a full DFS over every connection each time one changes. Here
+ * each workbench keeps its SignalGraphs between requests, and a request syncs them to
+ * the workbench's current version — a diff against the version they were last synced
+ * to, so after a save that moved one cable only that cable's edges change and the
+ * incremental topological order (RoutingGraph) does the rest.
+ *
+ * Graphs are rebuilt when the catalog refreshes, since a product's jacks may have
+ * changed. Like ResponseCache the number of workbenches kept is capped; past the cap
+ * graphs are built per request. The workbench itself comes from WorkbenchService, so
+ * the SQL is the same as GET /api/workbenches/{id}.
+ */
+@Service
+@Timed("pedalshootout.service")
+public class WorkbenchRoutingService {
+
+    static final int MAX_CACHED = 1024;
+
+    /** One workbench's graphs and the versions they reflect. Guarded by its own monitor. */
+    private static final class Routing {
+        long version = -1;
+        long catalogVersion = -1;
+        final Map<SignalGraph.Layer, SignalGraph> layers = new EnumMap<>(SignalGraph.Layer.class);
+    }
+
+    private final WorkbenchService workbenchService;
+    private final CatalogSnapshotService catalog;
+    private final Map<Integer, Routing> routings = new ConcurrentHashMap<>();
+
+    public WorkbenchRoutingService(WorkbenchService workbenchService, CatalogSnapshotService catalog) {
+        this.workbenchService = workbenchService;
+        this.catalog = catalog;
+    }
+
+    /** Cycles in every layer of the workbench at its current version; empty if it doesn't exist. */
+    public Optional<RoutingDto.Report> validate(Integer id) {
+        Optional<WorkbenchDto.Detail> workbench = workbenchService.find(id);
+        if (workbench.isEmpty()) {
+            routings.remove(id);
+            return Optional.empty();
+        }
+        Routing routing = routing(id);
+        synchronized (routing) {
+            sync(routing, workbench.get());
+            List<RoutingDto.LayerReport> layers = new ArrayList<>();
+            String status = "valid";
+            for (SignalGraph graph : routing.layers.values()) {
+                List<RoutingDto.Cycle> cycles = graph.cycles().stream().map(WorkbenchRoutingService::toDto).toList();
+                String layerStatus = cycles.isEmpty() ? "valid" : severity(graph.layer());
+                layers.add(new RoutingDto.LayerReport(graph.layer().label(), layerStatus, graph.cableCount(), cycles));
+                status = worse(status, layerStatus);
+            }
+            return Optional.of(new RoutingDto.Report(id, routing.version, status, List.copyOf(layers)));
+        }
+    }
+
+    /**
+     * Would a cable from one jack to another close a cycle in this layer? Empty if the
+     * workbench doesn't exist.
+     */
+    public Optional<RoutingDto.Check> check(Integer id, SignalGraph.Layer layer,
+                                            SignalGraph.Port source, SignalGraph.Port target) {
+        Optional<WorkbenchDto.Detail> workbench = workbenchService.find(id);
+        if (workbench.isEmpty()) {
+            routings.remove(id);
+            return Optional.empty();
+        }
+        Routing routing = routing(id);
+        synchronized (routing) {
+            sync(routing, workbench.get());
+            SignalGraph.Cycle cycle = routing.layers.get(layer).wouldClose(source, target);
+            return Optional.of(new RoutingDto.Check(layer.label(), cycle != null,
+                    cycle == null ? "valid" : severity(layer), cycle == null ? null : toDto(cycle)));
+        }
+    }
+
+    private Routing routing(Integer id) {
+        Routing routing = routings.get(id);
+        if (routing != null) return routing;
+        routing = new Routing();
+        if (routings.size() >= MAX_CACHED) return routing;
+        Routing existing = routings.putIfAbsent(id, routing);
+        return existing != null ? existing : routing;
+    }
+
+    private void sync(Routing routing, WorkbenchDto.Detail workbench) {
+        CatalogSnapshot snapshot = catalog.current();
+        if (routing.catalogVersion != snapshot.version()) {
+            routing.layers.clear();
+            for (SignalGraph.Layer layer : SignalGraph.Layer.values()) {
+                routing.layers.put(layer, new SignalGraph(layer));
+            }
+            routing.catalogVersion = snapshot.version();
+            routing.version = -1;
+        }
+        if (routing.version == workbench.version()) return;
+        for (SignalGraph graph : routing.layers.values()) {
+            graph.sync(workbench.data(), snapshot::jacks);
+        }
+        routing.version = workbench.version();
+    }
+
+    private static String severity(SignalGraph.Layer layer) {
+        return layer == SignalGraph.Layer.AUDIO ? "error" : "warning";
+    }
+
+    private static String worse(String a, String b) {
+        if ("error".equals(a) || "error".equals(b)) return "error";
+        if ("warning".equals(a) || "warning".equals(b)) return "warning";
+        return "valid";
+    }
+
+    private static RoutingDto.Cycle toDto(SignalGraph.Cycle cycle) {
+        return new RoutingDto.Cycle(cycle.instanceIds(), cycle.connectionIds());
+    }
+}
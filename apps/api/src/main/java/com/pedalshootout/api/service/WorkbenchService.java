@@ -0,0 +1,297 @@
+package com.pedalshootout.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pedalshootout.api.dto.WorkbenchDto;
+import com.pedalshootout.api.entity.Workbench;
+import com.pedalshootout.api.entity.WorkbenchPatch;
+import com.pedalshootout.api.repository.WorkbenchPatchRepository;
+import com.pedalshootout.api.repository.WorkbenchRepository;
+import com.pedalshootout.api.workbench.JsonPatch;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Server-side workbenches with delta saves.
+ *
+ * A save is a JSON Patch against the version the client last saw (If-Match), not the
+ * whole rig, so an autosave after dragging one pedal is a few hundred bytes however
+ * big the workbench is. Storage mirrors that: a gzip snapshot plus the log of patches
+ * since (see V5__create_workbenches.sql). A save
+ *   1. applies the patch to the current state — 422 if it doesn't fit
+ *   2. bumps the version with a conditional UPDATE — 409 if someone saved first
+ *   3. appends the patch row
+ * and every COMPACT_EVERY saves folds the log back into the snapshot.
+ *
+ * Step 1 needs the current state, which would mean reading the snapshot and replaying
+ * the log on every save. Instead the last state this instance saved or loaded is kept
+ * per workbench, so back-to-back autosaves from one editor never touch the blob. The
+ * cached state is only trusted when its version matches the row's, and the conditional
+ * UPDATE is the real check anyway, so another instance saving in between costs a 409
+ * and a reload, never a lost edit. Like ResponseCache the map is capped; past the cap
+ * saves rebuild the state from the database.
+ *
+ * Every method is @Transactional but not readOnly: reads go to the primary too, so a
+ * client always reads back the version its last save returned (replicas can lag).
+ */
+@Service
+@Timed("pedalshootout.service")
+public class WorkbenchService {
+
+    /** Fold the patch log into the snapshot once it's this long. */
+    static final int COMPACT_EVERY = 32;
+
+    static final int MAX_CACHED = 1024;
+
+    public static final int MAX_NAME_LENGTH = 200;
+
+    /** A materialized workbench: data at version, built on the snapshot at snapshotVersion. */
+    private record State(long version, long snapshotVersion, JsonNode data) {}
+
+    private final WorkbenchRepository workbenchRepository;
+    private final WorkbenchPatchRepository patchRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, State> states = new ConcurrentHashMap<>();
+
+    public WorkbenchService(WorkbenchRepository workbenchRepository,
+                            WorkbenchPatchRepository patchRepository,
+                            ObjectMapper objectMapper) {
+        this.workbenchRepository = workbenchRepository;
+        this.patchRepository = patchRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public List<WorkbenchDto.Summary> list() {
+        return workbenchRepository.findAllByOrderByUpdatedAtDesc().stream()
+                .map(WorkbenchService::toSummary)
+                .toList();
+    }
+
+    @Transactional
+    public Optional<WorkbenchDto.Detail> find(Integer id) {
+        return workbenchRepository.findById(id).map(w -> {
+            State state = materialize(w);
+            return new WorkbenchDto.Detail(w.getId(), w.getName(), state.version(), state.data(),
+                    w.getCreatedAt(), w.getUpdatedAt());
+        });
+    }
+
+    @Transactional
+    public WorkbenchDto.Detail create(WorkbenchDto.Create request) {
+        String name = request.name() == null ? "" : request.name().trim();
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "name is required, at most " + MAX_NAME_LENGTH + " characters");
+        }
+        if (request.data() == null || !request.data().isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "data must be a JSON object");
+        }
+        Workbench w = workbenchRepository.save(new Workbench(name, compress(request.data())));
+        remember(w.getId(), new State(0, 0, request.data()));
+        return new WorkbenchDto.Detail(w.getId(), w.getName(), 0, request.data(), w.getCreatedAt(), w.getUpdatedAt());
+    }
+
+    /**
+     * Apply a patch made against expectedVersion. Empty if the workbench doesn't exist;
+     * 400 for a malformed patch, 409 if the workbench has moved past expectedVersion,
+     * 422 if the patch doesn't apply.
+     */
+    @Transactional
+    public Optional<WorkbenchDto.Saved> patch(Integer id, long expectedVersion, JsonNode patchDocument) {
+        JsonPatch patch;
+        try {
+            patch = JsonPatch.parse(patchDocument);
+        } catch (JsonPatch.InvalidPatchException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        State current = states.get(id);
+        if (current == null || current.version() != expectedVersion) {
+            Optional<Workbench> row = workbenchRepository.findById(id);
+            if (row.isEmpty()) return Optional.empty();
+            if (row.get().getVersion() != expectedVersion) throw conflict(row.get().getVersion());
+            current = materialize(row.get());
+        }
+
+        JsonNode next;
+        try {
+            next = patch.apply(current.data());
+        } catch (JsonPatch.PatchFailedException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        }
+
+        if (workbenchRepository.bumpVersion(id, expectedVersion, OffsetDateTime.now()) == 0) {
+            // Saved elsewhere since (or deleted): whatever we cached is stale.
+            states.remove(id);
+            WorkbenchRepository.Summary now = workbenchRepository.findSummaryById(id).orElse(null);
+            if (now == null) return Optional.empty();
+            throw conflict(now.getVersion());
+        }
+        long version = expectedVersion + 1;
+        patchRepository.save(new WorkbenchPatch(id, version, patch.source().toString()));
+
+        long snapshotVersion = current.snapshotVersion();
+        if (version - snapshotVersion >= COMPACT_EVERY) {
+            workbenchRepository.replaceSnapshot(id, version, compress(next));
+            patchRepository.deleteUpTo(id, version);
+            snapshotVersion = version;
+        }
+        remember(id, new State(version, snapshotVersion, next));
+        return Optional.of(new WorkbenchDto.Saved(id, version));
+    }
+
+    /**
+     * The patches after version since, for a client catching up. Empty if the workbench
+     * doesn't exist; 410 if they've been compacted away (the client reloads instead).
+     */
+    @Transactional
+    public Optional<WorkbenchDto.Changes> changesSince(Integer id, long since) {
+        Optional<WorkbenchRepository.Summary> row = workbenchRepository.findSummaryById(id);
+        if (row.isEmpty()) return Optional.empty();
+        long version = row.get().getVersion();
+        if (since < 0 || since > version) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "since must be between 0 and the current version (" + version + ")");
+        }
+        if (since < row.get().getSnapshotVersion()) throw gone(since);
+
+        List<WorkbenchPatch> patches = since == version
+                ? List.of()
+                : logAfter(id, since, version);
+        if (patches == null) throw gone(since);       // compacted between the two reads
+        List<JsonNode> documents = patches.stream().map(p -> readTree(p.getPatch())).toList();
+        return Optional.of(new WorkbenchDto.Changes(id, since, version, documents));
+    }
+
+    @Transactional
+    public boolean delete(Integer id) {
+        states.remove(id);
+        return workbenchRepository.deleteWorkbench(id) > 0;
+    }
+
+    // ─── State ──────────────────────────────────────────────────────────
+
+    /**
+     * The workbench's data at the row's version: the cached state if it's that version,
+     * else the snapshot with the log replayed on top.
+     */
+    private State materialize(Workbench w) {
+        State cached = states.get(w.getId());
+        if (cached != null && cached.version() == w.getVersion()) return cached;
+
+        List<WorkbenchPatch> patches = logAfter(w.getId(), w.getSnapshotVersion(), w.getVersion());
+        if (patches == null) {
+            // Compacted by another save between reading the row and reading the log; the
+            // row read now has a snapshot that covers the missing patches.
+            Workbench fresh = workbenchRepository.findById(w.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Workbench was deleted"));
+            if (fresh.getVersion() != w.getVersion().longValue()) throw conflict(fresh.getVersion());
+            return materialize(fresh);
+        }
+        JsonNode data = decompress(w.getSnapshot());
+        for (WorkbenchPatch p : patches) {
+            // Every stored patch applied when it was saved, so a failure here is a bug.
+            data = JsonPatch.parse(readTree(p.getPatch())).apply(data);
+        }
+        State state = new State(w.getVersion(), w.getSnapshotVersion(), data);
+        states.computeIfPresent(w.getId(), (k, old) -> old.version() < state.version() ? state : old);
+        if (states.size() < MAX_CACHED) states.putIfAbsent(w.getId(), state);
+        return state;
+    }
+
+    /**
+     * Patches from after to upTo inclusive, oldest first, or null if the log doesn't
+     * cover that whole range (it was compacted past after). Patches newer than upTo are
+     * saves that landed after the caller read the row, and are left out.
+     */
+    private List<WorkbenchPatch> logAfter(Integer id, long after, long upTo) {
+        List<WorkbenchPatch> patches = patchRepository
+                .findByWorkbenchIdAndVersionGreaterThanOrderByVersion(id, after).stream()
+                .filter(p -> p.getVersion() <= upTo)
+                .toList();
+        for (int i = 0; i < patches.size(); i++) {
+            if (patches.get(i).getVersion() != after + 1 + i) return null;
+        }
+        return patches.size() == upTo - after ? patches : null;
+    }
+
+    /** Cache a state, but only once the transaction that produced it has committed. */
+    private void remember(Integer id, State state) {
+        Runnable put = () -> {
+            if (states.containsKey(id) || states.size() < MAX_CACHED) states.put(id, state);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put.run();
+            return;
+        }
+        states.remove(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put.run();
+            }
+        });
+    }
+
+    // ─── Encoding ───────────────────────────────────────────────────────
+
+    private byte[] compress(JsonNode data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private JsonNode decompress(byte[] snapshot) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot))) {
+            return objectMapper.readTree(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static WorkbenchDto.Summary toSummary(WorkbenchRepository.Summary s) {
+        return new WorkbenchDto.Summary(s.getId(), s.getName(), s.getVersion(), s.getCreatedAt(), s.getUpdatedAt());
+    }
+
+    private static ResponseStatusException conflict(long version) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Workbench is at version " + version + "; fetch it and reapply your changes");
+    }
+
+    private static ResponseStatusException gone(long since) {
+        return new ResponseStatusException(HttpStatus.GONE,
+                "Patches after version " + since + " have been compacted; fetch the whole workbench");
+    }
+}
@@ -0,0 +1,206 @@
+package com.pedalshootout.api.workbench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 6902 JSON Patch over Jackson trees: add, remove, replace, move, copy, test,
+ * with RFC 6901 JSON Pointer paths ("/items/3/x", "~1" for '/', "~0" for '~',
+ * "-" for "after the last array element").
+ *
+ * A patch is all-or-nothing: apply() works on a deep copy and only returns it if every
+ * operation succeeded, so a failed patch never leaves a half-edited document behind.
+ *
+ * Two kinds of failure, matching how the endpoint reports them:
+ *   - parse() throws InvalidPatchException when the patch itself is malformed
+ *     (not an array, unknown op, missing path/value/from) — a 400
+ *   - apply() throws PatchFailedException when a well-formed patch doesn't fit the
+ *     document (missing path, failed test) — a 422
+ */
+public final class JsonPatch {
+
+    public static class InvalidPatchException extends IllegalArgumentException {
+        public InvalidPatchException(String message) { super(message); }
+    }
+
+    public static class PatchFailedException extends IllegalStateException {
+        public PatchFailedException(String message) { super(message); }
+    }
+
+    /**
+     * Leaf equality for test: numbers by value (RFC 6902 §4.6), so 1 matches 1.0 even
+     * though Jackson parses them to different node types. Containers recurse through it.
+     */
+    private static final Comparator<JsonNode> NUMERIC = (a, b) -> a.isNumber() && b.isNumber()
+            ? a.decimalValue().compareTo(b.decimalValue())
+            : a.equals(b) ? 0 : 1;
+
+    private enum Op { ADD, REMOVE, REPLACE, MOVE, COPY, TEST }
+
+    private record Operation(Op op, List<String> path, List<String> from, JsonNode value) {}
+
+    private final List<Operation> operations;
+    private final JsonNode source;
+
+    private JsonPatch(List<Operation> operations, JsonNode source) {
+        this.operations = operations;
+        this.source = source;
+    }
+
+    /** Validate and compile a patch document (a JSON array of operation objects). */
+    public static JsonPatch parse(JsonNode patch) {
+        if (patch == null || !patch.isArray()) throw new InvalidPatchException("A JSON Patch is an array of operations");
+        List<Operation> ops = new ArrayList<>(patch.size());
+        for (int i = 0; i < patch.size(); i++) {
+            JsonNode o = patch.get(i);
+            String name = o.path("op").asText("");
+            Op op;
+            try {
+                op = Op.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidPatchException("Operation " + i + ": unknown op '" + name + "'");
+            }
+            if (!o.path("path").isTextual()) throw new InvalidPatchException("Operation " + i + ": missing path");
+            List<String> path = pointer(o.get("path").asText(), i);
+            List<String> from = null;
+            if (op == Op.MOVE || op == Op.COPY) {
+                if (!o.path("from").isTextual()) throw new InvalidPatchException("Operation " + i + ": missing from");
+                from = pointer(o.get("from").asText(), i);
+                if (op == Op.MOVE && isPrefix(from, path) && !from.equals(path)) {
+                    throw new InvalidPatchException("Operation " + i + ": can't move a value into itself");
+                }
+            }
+            if ((op == Op.ADD || op == Op.REPLACE || op == Op.TEST) && !o.has("value")) {
+                throw new InvalidPatchException("Operation " + i + ": missing value");
+            }
+            ops.add(new Operation(op, path, from, o.get("value")));
+        }
+        return new JsonPatch(List.copyOf(ops), patch);
+    }
+
+    /** The patch as it was sent, for storing. */
+    public JsonNode source() {
+        return source;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    /** The patched document; the input is left untouched. */
+    public JsonNode apply(JsonNode document) {
+        JsonNode root = document.deepCopy();
+        for (int i = 0; i < operations.size(); i++) {
+            Operation o = operations.get(i);
+            try {
+                root = switch (o.op()) {
+                    case ADD -> add(root, o.path(), o.value().deepCopy());
+                    case REMOVE -> { remove(root, o.path()); yield root; }
+                    case REPLACE -> {
+                        if (o.path().isEmpty()) yield o.value().deepCopy();
+                        remove(root, o.path());
+                        yield add(root, o.path(), o.value().deepCopy());
+                    }
+                    case MOVE -> {
+                        if (!o.from().equals(o.path())) yield add(root, o.path(), remove(root, o.from()));
+                        get(root, o.from());        // moving onto itself: a no-op, but it must exist
+                        yield root;
+                    }
+                    case COPY -> add(root, o.path(), get(root, o.from()).deepCopy());
+                    case TEST -> {
+                        if (!get(root, o.path()).equals(NUMERIC, o.value())) throw new PatchFailedException("test failed");
+                        yield root;
+                    }
+                };
+            } catch (PatchFailedException e) {
+                throw new PatchFailedException("Operation " + i + " (" + o.op().name().toLowerCase(Locale.ROOT)
+                        + " " + render(o.path()) + "): " + e.getMessage());
+            }
+        }
+        return root;
+    }
+
+    // ─── Operations ─────────────────────────────────────────────────────
+
+    /** Returns the new root (only different when the path is the whole document). */
+    private static JsonNode add(JsonNode root, List<String> path, JsonNode value) {
+        if (path.isEmpty()) return value;
+        JsonNode parent = get(root, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent instanceof ObjectNode object) {
+            object.set(last, value);
+        } else if (parent instanceof ArrayNode array) {
+            int index = "-".equals(last) ? array.size() : index(last, array.size() + 1);
+            array.insert(index, value);
+        } else {
+            throw new PatchFailedException("parent is not an object or array");
+        }
+        return root;
+    }
+
+    /** Removes and returns the value at path; the root itself can't be removed. */
+    private static JsonNode remove(JsonNode root, List<String> path) {
+        if (path.isEmpty()) throw new PatchFailedException("can't remove the whole document");
+        JsonNode parent = get(root, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent instanceof ObjectNode object) {
+            if (!object.has(last)) throw new PatchFailedException("no such member");
+            return object.remove(last);
+        }
+        if (parent instanceof ArrayNode array) {
+            return array.remove(index(last, array.size()));
+        }
+        throw new PatchFailedException("parent is not an object or array");
+    }
+
+    private static JsonNode get(JsonNode root, List<String> path) {
+        JsonNode node = root;
+        for (String token : path) {
+            if (node instanceof ObjectNode object) {
+                node = object.get(token);
+            } else if (node instanceof ArrayNode array) {
+                node = array.get(index(token, array.size()));
+            } else {
+                node = null;
+            }
+            if (node == null) throw new PatchFailedException("path not found");
+        }
+        return node;
+    }
+
+    /** An array index token: digits only, no leading zeros, below bound. */
+    private static int index(String token, int bound) {
+        if (!token.matches("0|[1-9][0-9]{0,8}")) throw new PatchFailedException("'" + token + "' is not an array index");
+        int i = Integer.parseInt(token);
+        if (i >= bound) throw new PatchFailedException("index " + i + " out of bounds");
+        return i;
+    }
+
+    // ─── JSON Pointer ───────────────────────────────────────────────────
+
+    private static List<String> pointer(String p, int op) {
+        if (p.isEmpty()) return List.of();
+        if (p.charAt(0) != '/') throw new InvalidPatchException("Operation " + op + ": '" + p + "' is not a JSON Pointer");
+        List<String> tokens = new ArrayList<>();
+        for (String raw : p.substring(1).split("/", -1)) {
+            tokens.add(raw.replace("~1", "/").replace("~0", "~"));
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static String render(List<String> path) {
+        StringBuilder sb = new StringBuilder();
+        for (String t : path) sb.append('/').append(t.replace("~", "~0").replace("/", "~1"));
+        return sb.toString();
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> path) {
+        return prefix.size() <= path.size() && path.subList(0, prefix.size()).equals(prefix);
+    }
+}
@@ -0,0 +1,25 @@
+-- Composite indexes for keyset pagination (GET /api/.../page).
+--
+-- Every paged ordering is (sort column, id), optionally within one product type.
+-- With an index on exactly those columns, "the next 50 rows after (value, id)" is a
+-- single index range scan, whatever page the client is on. Postgres can read these
+-- backwards, so the same index serves dir=asc and dir=desc.
+
+-- Detail-type pages and /api/products/page?typeId=: filtered to one product type
+CREATE INDEX IF NOT EXISTS idx_products_type_id ON products(product_type_id, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_model ON products(product_type_id, model, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_msrp ON products(product_type_id, msrp_cents, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_width ON products(product_type_id, width_mm, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_depth ON products(product_type_id, depth_mm, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_height ON products(product_type_id, height_mm, id);
+
+-- /api/products/page without a type filter
+CREATE INDEX IF NOT EXISTS idx_products_model ON products(model, id);
+CREATE INDEX IF NOT EXISTS idx_products_msrp ON products(msrp_cents, id);
+CREATE INDEX IF NOT EXISTS idx_products_width ON products(width_mm, id);
+CREATE INDEX IF NOT EXISTS idx_products_depth ON products(depth_mm, id);
+CREATE INDEX IF NOT EXISTS idx_products_height ON products(height_mm, id);
+
+-- sort=manufacturer walks manufacturers by name (already indexed via UNIQUE) and
+-- reads each one's products in (model, id) order
+CREATE INDEX IF NOT EXISTS idx_products_manufacturer_type_model ON products(manufacturer_id, product_type_id, model, id);
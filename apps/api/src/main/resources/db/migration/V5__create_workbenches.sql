@@ -0,0 +1,32 @@
+-- Server-side workbench storage with delta saves (see docs/plans/workbench-cloud-save.md).
+--
+-- A workbench is a compressed snapshot plus a log of the JSON Patches applied since:
+--   current state = gunzip(snapshot) at snapshot_version, then each patch in
+--                   workbench_patches with version > snapshot_version, in order
+-- Saves append one small patch row and bump version, so their cost follows the size of
+-- the edit, not the rig. Every so often the log is folded back into the snapshot
+-- (compaction) and the folded patches are deleted.
+
+CREATE TABLE workbenches (
+    id               INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name             TEXT NOT NULL,
+    version          BIGINT NOT NULL DEFAULT 0,    -- bumped by every save; clients patch against it
+    snapshot_version BIGINT NOT NULL DEFAULT 0,    -- the version snapshot holds
+    snapshot         BYTEA NOT NULL,               -- gzip-compressed JSON workbench state
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    CHECK (snapshot_version <= version)
+);
+
+CREATE INDEX idx_workbenches_name ON workbenches(name);
+
+CREATE TABLE workbench_patches (
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    workbench_id INTEGER NOT NULL REFERENCES workbenches(id) ON DELETE CASCADE,
+    version      BIGINT NOT NULL,                  -- the version this patch produced
+    patch        JSONB NOT NULL,                   -- RFC 6902 operations, as sent
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    UNIQUE (workbench_id, version)
+);
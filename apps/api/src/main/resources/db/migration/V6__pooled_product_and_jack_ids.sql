@@ -0,0 +1,25 @@
+-- Products and jacks take their ids from their sequences in blocks of 50.
+--
+-- With GENERATED ALWAYS the id only exists once the row is inserted, so Hibernate has
+-- to run every INSERT on its own, immediately, to read the id back: creating a pedal
+-- with 10 jacks was 12 single-row round trips. Handing out ids from the sequence
+-- instead lets Hibernate assign them in memory and send the inserts as JDBC batches,
+-- and INCREMENT BY 50 means one nextval() covers 50 new rows (Hibernate's pooled
+-- optimizer: nextval() = n gives the ids n-49 .. n). Product and Jack map this with
+-- @SequenceGenerator(allocationSize = 50), which must match the increment.
+--
+-- BY DEFAULT rather than ALWAYS so the application may supply the id; a plain INSERT
+-- without one still takes nextval() as before. The setval makes sure the first block
+-- starts past every existing id, even on a sequence that was never used.
+
+ALTER TABLE products
+    ALTER COLUMN id SET GENERATED BY DEFAULT,
+    ALTER COLUMN id SET INCREMENT BY 50;
+SELECT setval(pg_get_serial_sequence('products', 'id'),
+              GREATEST((SELECT COALESCE(max(id), 0) FROM products), (SELECT last_value FROM products_id_seq)));
+
+ALTER TABLE jacks
+    ALTER COLUMN id SET GENERATED BY DEFAULT,
+    ALTER COLUMN id SET INCREMENT BY 50;
+SELECT setval(pg_get_serial_sequence('jacks', 'id'),
+              GREATEST((SELECT COALESCE(max(id), 0) FROM jacks), (SELECT last_value FROM jacks_id_seq)));
@@ -0,0 +1,10 @@
+-- Drop single-column product indexes that a V4 composite index already covers.
+--
+-- A B-tree on (a, b, ...) answers every lookup on a alone, so idx_products_type is
+-- served by idx_products_type_id (product_type_id, id) and idx_products_manufacturer
+-- by idx_products_manufacturer_type_model (manufacturer_id, ...), foreign-key checks
+-- on delete included. Keeping both only adds work to every products write, and the
+-- bulk import (CatalogIngester) writes products by the thousand.
+
+DROP INDEX IF EXISTS idx_products_type;
+DROP INDEX IF EXISTS idx_products_manufacturer;
@@ -0,0 +1,79 @@
+package com.pedalshootout.api.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ResponseCache's byte accounting: what's stored, what's turned away before any
+ * encoding, and when the gzip copy is built and kept.
+ */
+class ResponseCacheTest {
+
+    private static byte[] body(int length) {
+        return "x".repeat(length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void storesWithoutCompressingUntilAGzipRequestComes() throws IOException {
+        ResponseCache cache = new ResponseCache(DataSize.ofKilobytes(10));
+
+        CachedResponse cached = cache.put("/api/pedals", 1, "application/json", body(1000));
+
+        assertThat(cache.get("/api/pedals", 1)).isSameAs(cached);
+        assertThat(cached.gzipIfBuilt()).isNull();
+        assertThat(cache.byteSize()).isEqualTo(1000);
+
+        byte[] gzip = cache.gzip("/api/pedals", cached);
+        assertThat(gunzip(gzip)).isEqualTo(body(1000));
+        assertThat(cache.gzip("/api/pedals", cached)).isSameAs(gzip);
+        assertThat(cache.byteSize()).isEqualTo(1000 + gzip.length);
+    }
+
+    @Test
+    void aBodyThatDoesNotFitIsNeitherStoredNorFingerprinted() {
+        ResponseCache cache = new ResponseCache(DataSize.ofBytes(1500));
+        cache.put("/api/pedals", 1, "application/json", body(1000));
+
+        assertThat(cache.put("/api/utilities", 1, "application/json", body(1000))).isNull();
+        assertThat(cache.get("/api/utilities", 1)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.byteSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void aGzipCopyPastTheCapIsServedButNotKept() throws IOException {
+        ResponseCache cache = new ResponseCache(DataSize.ofBytes(1000));
+        CachedResponse cached = cache.put("/api/pedals", 1, "application/json", body(1000));
+
+        byte[] gzip = cache.gzip("/api/pedals", cached);
+
+        assertThat(gunzip(gzip)).isEqualTo(body(1000));
+        assertThat(cached.gzipIfBuilt()).isNull();
+        assertThat(cache.byteSize()).isEqualTo(1000);
+    }
+
+    @Test
+    void replacingAnEntryReleasesItsBytesIncludingItsGzipCopy() {
+        ResponseCache cache = new ResponseCache(DataSize.ofKilobytes(10));
+        CachedResponse first = cache.put("/api/pedals", 1, "application/json", body(1000));
+        cache.gzip("/api/pedals", first);
+
+        cache.put("/api/pedals", 2, "application/json", body(500));
+
+        assertThat(cache.byteSize()).isEqualTo(500);
+        assertThat(cache.get("/api/pedals", 1)).isNull();
+    }
+}
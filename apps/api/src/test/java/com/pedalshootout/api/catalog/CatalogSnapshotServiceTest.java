@@ -0,0 +1,83 @@
+package com.pedalshootout.api.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * awaitRefresh()'s bookkeeping with a stub loader: which callers load, and which reuse
+ * a load that started after they asked.
+ */
+class CatalogSnapshotServiceTest {
+
+    private final CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+    private final CatalogSnapshotService service =
+            new CatalogSnapshotService(loader, mock(ApplicationEventPublisher.class));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /** Every load returns a new empty snapshot; with blockFirst, the first waits for release. */
+    private CountDownLatch stubLoads(boolean blockFirst) {
+        CountDownLatch release = new CountDownLatch(blockFirst ? 1 : 0);
+        when(loader.load(anyLong())).thenAnswer(inv -> {
+            if (loads.incrementAndGet() == 1) release.await(10, TimeUnit.SECONDS);
+            CatalogSnapshot snapshot = mock(CatalogSnapshot.class, RETURNS_DEEP_STUBS);
+            when(snapshot.version()).thenReturn(inv.getArgument(0));
+            when(snapshot.products().all()).thenReturn(List.of());
+            return snapshot;
+        });
+        return release;
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.BLOCKED) {
+            if (System.nanoTime() > deadline) throw new AssertionError(thread.getName() + " never blocked");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void eachSequentialWriteLoadsAfterItAsked() {
+        stubLoads(false);
+        service.refresh();
+
+        assertThat(service.awaitRefresh().version()).isEqualTo(2);
+        assertThat(service.awaitRefresh().version()).isEqualTo(3);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void aLoadAlreadyUnderwayDoesNotCountAndWritersWaitingTogetherShareTheNext() throws Exception {
+        CountDownLatch release = stubLoads(true);
+        Thread startup = new Thread(service::refresh, "startup");
+        startup.start();
+        while (loads.get() == 0) Thread.sleep(5);          // startup is inside its load
+
+        // Both writers committed after that load began, so it can't be theirs.
+        long[] seen = new long[2];
+        Thread first = new Thread(() -> seen[0] = service.awaitRefresh().version(), "first");
+        Thread second = new Thread(() -> seen[1] = service.awaitRefresh().version(), "second");
+        first.start();
+        second.start();
+        awaitBlocked(first);
+        awaitBlocked(second);
+
+        release.countDown();
+        startup.join();
+        first.join();
+        second.join();
+
+        assertThat(loads).hasValue(2);
+        assertThat(seen).containsOnly(2L);
+    }
+}
@@ -0,0 +1,334 @@
+package com.pedalshootout.api.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pedalshootout.api.catalog.CatalogSnapshot;
+import com.pedalshootout.api.catalog.CatalogSnapshotService;
+import com.pedalshootout.api.dto.ProductWriteDto;
+import com.pedalshootout.api.dto.WorkbenchDto;
+import com.pedalshootout.api.entity.Product;
+import com.pedalshootout.api.repository.ProductRepository;
+import com.pedalshootout.api.service.ProductWriteService;
+import com.pedalshootout.api.service.WorkbenchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * SQL statement-count regression test: every endpoint, held to its @SqlBudget.
+ *
+ * Needs the seeded local Postgres from docker-compose (like the other @SpringBootTest).
+ * The application's DataSource is wrapped in a StatementCountingDataSource, then each
+ * handler the app registers is called once with the sample request below and the
+ * statements it sent are compared with the budget on the handler method.
+ *
+ * A new endpoint fails here until it has both an @SqlBudget and a sample request, so
+ * nothing escapes the check by being added later.
+ *
+ * The servlet filters are left out (addFilters = false): the response cache would
+ * answer repeat requests without running anything, which is exactly what we're not
+ * trying to measure. Profiles that switch endpoints on are active, so they're checked too.
+ *
+ * Writes are measured doing their work, not bouncing off a 404 or a 400: they run
+ * against fixture products and workbenches created before the samples and must
+ * answer 2xx. Every row a run creates has the FIXTURE prefix and is deleted afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles({"workbenches", "admin"})
+@AutoConfigureMockMvc(addFilters = false)
+@Import(SqlBudgetTest.CountStatements.class)
+class SqlBudgetTest {
+
+    /** Model / name prefix of every row this test creates. */
+    private static final String FIXTURE = "SqlBudgetTest fixture";
+
+    /** An audio input: the least a jack needs to be accepted. */
+    private static final String JACK = "{\"category\":\"audio\",\"direction\":\"input\",\"connectorType\":\"1/4\\\" TS\"}";
+
+    @TestConfiguration
+    static class CountStatements {
+        /** Wraps the @Primary "dataSource" bean, the one JPA and everything else use. */
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                            ? new StatementCountingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CatalogSnapshotService catalog;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private ProductWriteService productWriteService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WorkbenchService workbenchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** What the write samples work on: kept* is edited, doomed* is deleted. */
+    private record Fixtures(int manufacturer, int pedalType, int keptProduct, int keptJack, int doomedJack,
+                            int doomedProduct, int keptWorkbench, int doomedWorkbench) {}
+
+    private Fixtures fixtures;
+
+    @BeforeEach
+    void createFixtures() throws Exception {
+        CatalogSnapshot c = catalog.current();
+        int manufacturer = c.manufacturers().all().get(0).id();
+        int pedalType = c.productTypes().stream()
+                .filter(t -> "pedal".equals(t.getTypeName()))
+                .findFirst().orElseThrow().getId();
+        String run = FIXTURE + " " + System.nanoTime();
+
+        ProductWriteDto.Created kept = productWriteService.create(objectMapper.readTree(
+                pedalBody(manufacturer, pedalType, run + " kept", JACK + "," + JACK)));
+        ProductWriteDto.Created doomed = productWriteService.create(objectMapper.readTree(
+                pedalBody(manufacturer, pedalType, run + " doomed", JACK)));
+        WorkbenchDto.Detail keptBench = workbenchService.create(
+                new WorkbenchDto.Create(run + " kept", objectMapper.readTree("{\"items\":[]}")));
+        WorkbenchDto.Detail doomedBench = workbenchService.create(
+                new WorkbenchDto.Create(run + " doomed", objectMapper.readTree("{\"items\":[]}")));
+        productWriteService.awaitCatalog();
+
+        fixtures = new Fixtures(manufacturer, pedalType,
+                kept.id(), kept.jacks().get(0).id(), kept.jacks().get(1).id(),
+                doomed.id(), keptBench.id(), doomedBench.id());
+    }
+
+    /** Runs once the factory's dynamic tests have all finished. */
+    @AfterEach
+    void deleteFixtures() {
+        if (fixtures == null) return;
+        for (Product p : productRepository.findByManufacturerId(fixtures.manufacturer())) {
+            if (p.getModel().startsWith(FIXTURE)) productWriteService.delete(p.getId());
+        }
+        productWriteService.awaitCatalog();
+        for (WorkbenchDto.Summary w : workbenchService.list()) {
+            if (w.name().startsWith(FIXTURE)) workbenchService.delete(w.id());
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyEndpointStaysWithinItsSqlBudget() {
+        StatementCountingDataSource counter = (StatementCountingDataSource) dataSource;
+        Map<String, MockHttpServletRequestBuilder> samples = samples(catalog.current(), fixtures);
+        Set<String> unused = new TreeSet<>(samples.keySet());
+
+        List<DynamicTest> tests = new ArrayList<>();
+        handlerMapping.getHandlerMethods().forEach((info, handler) -> {
+            if (!handler.getBeanType().getPackageName().startsWith("com.pedalshootout.api")) return;
+            for (String key : keys(info)) {
+                unused.remove(key);
+                tests.add(DynamicTest.dynamicTest(key, () -> check(key, handler, samples.get(key), counter)));
+            }
+        });
+        tests.add(DynamicTest.dynamicTest("every sample request has an endpoint",
+                () -> assertThat(unused).as("samples for endpoints that no longer exist").isEmpty()));
+        return tests.stream();
+    }
+
+    private void check(String key, HandlerMethod handler, MockHttpServletRequestBuilder request,
+                       StatementCountingDataSource counter) throws Exception {
+        SqlBudget budget = handler.getMethodAnnotation(SqlBudget.class);
+        if (budget == null) fail(handler.getShortLogMessage() + " has no @SqlBudget");
+        if (request == null) fail("No sample request for " + key + " — add one to samples()");
+
+        counter.reset();
+        MvcResult result = mvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            // StreamingResponseBody: the body (and its SQL) runs on another thread
+            result.getAsyncResult();
+            result = mvc.perform(asyncDispatch(result)).andReturn();
+        }
+        int statements = counter.count();
+
+        int status = result.getResponse().getStatus();
+        assertThat(status).as(key + " status").isLessThan(500);
+        if (!key.startsWith("GET ")) {
+            assertThat(status).as(key + " status (a write that did nothing measures nothing)").isBetween(200, 299);
+        }
+        assertThat(statements)
+                .as("%s ran %d SQL statements, budget is %d", key, statements, budget.value())
+                .isLessThanOrEqualTo(budget.value());
+    }
+
+    /** "GET /api/pedals/{id}" for each method/pattern pair the handler is mapped to. */
+    private static List<String> keys(RequestMappingInfo info) {
+        Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+        List<String> keys = new ArrayList<>();
+        for (String pattern : info.getPatternValues()) {
+            if (methods.isEmpty()) keys.add("* " + pattern);
+            for (RequestMethod method : methods) keys.add(method + " " + pattern);
+        }
+        return keys;
+    }
+
+    /**
+     * One representative request per endpoint, with IDs taken from the seeded catalog.
+     * Pages ask for the largest page sorted by a nullable key, so the null-tail
+     * continuation query gets exercised too.
+     *
+     * The workbench and product writes go to the fixtures, with bodies that are accepted.
+     */
+    private static Map<String, MockHttpServletRequestBuilder> samples(CatalogSnapshot c, Fixtures f) {
+        int product = c.products().all().get(0).id();
+        int manufacturer = c.manufacturers().all().get(0).id();
+        int pedal = c.pedals().all().get(0).id();
+        int pedal2 = c.pedals().all().get(1).id();
+        int supply = c.powerSupplies().all().get(0).id();
+        int board = c.pedalboards().all().get(0).id();
+        int controller = c.midiControllers().all().get(0).id();
+        int utility = c.utilities().all().get(0).id();
+        int plug = c.plugs().all().isEmpty() ? 0 : c.plugs().all().get(0).id();
+        String pedals = pedal + "," + pedal2;
+        String page = "?sort=msrp&limit=200";
+
+        Map<String, MockHttpServletRequestBuilder> s = new LinkedHashMap<>();
+        s.put("GET /api/products", get("/api/products"));
+        s.put("GET /api/products/page", get("/api/products/page" + page));
+        s.put("GET /api/products/{id}", get("/api/products/" + product));
+        s.put("GET /api/products/{id}/jacks", get("/api/products/" + product + "/jacks"));
+        s.put("GET /api/products/{id}/similar", get("/api/products/" + pedal + "/similar"));
+        s.put("GET /api/product-types", get("/api/product-types"));
+        s.put("GET /api/products/{id}/compatibility", get("/api/products/" + product + "/compatibility"));
+        s.put("GET /api/products/{id}/replacements", get("/api/products/" + product + "/replacements"));
+        s.put("GET /api/compatibility", get("/api/compatibility?a=" + supply + "&b=" + pedal));
+        s.put("GET /api/compare", get("/api/compare?ids=" + pedals + "," + supply + "," + board));
+
+        s.put("GET /api/manufacturers", get("/api/manufacturers?search=a"));
+        s.put("GET /api/manufacturers/{id}", get("/api/manufacturers/" + manufacturer));
+        s.put("GET /api/manufacturers/{id}/products", get("/api/manufacturers/" + manufacturer + "/products"));
+
+        s.put("GET /api/pedals", get("/api/pedals"));
+        s.put("GET /api/pedals/page", get("/api/pedals/page" + page));
+        s.put("GET /api/pedals/filter", get("/api/pedals/filter?midiCapable=true"));
+        s.put("GET /api/pedals/{id}", get("/api/pedals/" + pedal));
+
+        s.put("GET /api/power-supplies", get("/api/power-supplies"));
+        s.put("GET /api/power-supplies/page", get("/api/power-supplies/page" + page));
+        s.put("GET /api/power-supplies/{id}", get("/api/power-supplies/" + supply));
+        s.put("GET /api/pedalboards", get("/api/pedalboards"));
+        s.put("GET /api/pedalboards/page", get("/api/pedalboards/page" + page));
+        s.put("GET /api/pedalboards/{id}", get("/api/pedalboards/" + board));
+        s.put("GET /api/midi-controllers", get("/api/midi-controllers"));
+        s.put("GET /api/midi-controllers/page", get("/api/midi-controllers/page" + page));
+        s.put("GET /api/midi-controllers/{id}", get("/api/midi-controllers/" + controller));
+        s.put("GET /api/utilities", get("/api/utilities"));
+        s.put("GET /api/utilities/page", get("/api/utilities/page" + page));
+        s.put("GET /api/utilities/{id}", get("/api/utilities/" + utility));
+        s.put("GET /api/plugs", get("/api/plugs"));
+        s.put("GET /api/plugs/page", get("/api/plugs/page" + page));
+        s.put("GET /api/plugs/{id}", get("/api/plugs/" + plug));
+
+        s.put("GET /api/board-planner/components", get("/api/board-planner/components"));
+        s.put("GET /api/board-planner/fit-check",
+                get("/api/board-planner/fit-check?boardId=" + board + "&pedalIds=" + pedals));
+        s.put("GET /api/board-planner/slot-candidates",
+                get("/api/board-planner/slot-candidates?maxWidthMm=100&maxDepthMm=130&supply=9V:500"));
+        s.put("GET /api/power-budget/calculate",
+                get("/api/power-budget/calculate?supplyId=" + supply + "&pedalIds=" + pedals));
+        s.put("GET /api/power-budget/assign",
+                get("/api/power-budget/assign?supplyIds=" + supply + "&pedalIds=" + pedals));
+        s.put("GET /api/power-budget/supplies-for-pedals",
+                get("/api/power-budget/supplies-for-pedals?pedalIds=" + pedals));
+        s.put("GET /api/midi-planner/devices", get("/api/midi-planner/devices"));
+        s.put("GET /api/midi-planner/compatibility",
+                get("/api/midi-planner/compatibility?controllerId=" + controller + "&pedalIds=" + pedals));
+        s.put("GET /api/midi-planner/matrix", get("/api/midi-planner/matrix"));
+        s.put("GET /api/search", get("/api/search?q=fuzz"));
+
+        s.put("GET /api/workbenches", get("/api/workbenches"));
+        int bench = f.keptWorkbench();
+        s.put("POST /api/workbenches", post("/api/workbenches")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"" + FIXTURE + " posted\",\"data\":{}}"));
+        s.put("GET /api/workbenches/{id}", get("/api/workbenches/" + bench));
+        s.put("PATCH /api/workbenches/{id}", patch("/api/workbenches/" + bench)
+                .contentType("application/json-patch+json").header(HttpHeaders.IF_MATCH, "\"0\"")
+                .content("[{\"op\":\"add\",\"path\":\"/items/-\",\"value\":{}}]"));
+        s.put("GET /api/workbenches/{id}/patches", get("/api/workbenches/" + bench + "/patches?since=0"));
+        s.put("DELETE /api/workbenches/{id}", delete("/api/workbenches/" + f.doomedWorkbench()));
+        s.put("GET /api/workbenches/{id}/routing", get("/api/workbenches/" + bench + "/routing"));
+        s.put("GET /api/workbenches/{id}/routing/check", get("/api/workbenches/" + bench + "/routing/check?layer=audio"
+                + "&sourceInstanceId=a&sourceJackId=1&targetInstanceId=b&targetJackId=2"));
+
+        int kept = f.keptProduct();
+        s.put("POST /api/products", post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(pedalBody(f.manufacturer(), f.pedalType(), FIXTURE + " posted " + System.nanoTime(), JACK)));
+        s.put("PUT /api/products/{id}", put("/api/products/" + kept)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"manufacturerId\":" + f.manufacturer()
+                        + ",\"model\":\"" + FIXTURE + " replaced " + System.nanoTime() + "\",\"details\":{}}"));
+        s.put("DELETE /api/products/{id}", delete("/api/products/" + f.doomedProduct()));
+        s.put("PUT /api/products/{id}/details", put("/api/products/" + kept + "/details")
+                .contentType(MediaType.APPLICATION_JSON).content("{}"));
+        s.put("POST /api/products/{id}/jacks", post("/api/products/" + kept + "/jacks")
+                .contentType(MediaType.APPLICATION_JSON).content("[" + JACK + "]"));
+        s.put("PUT /api/products/{id}/jacks/{jackId}", put("/api/products/" + kept + "/jacks/" + f.keptJack())
+                .contentType(MediaType.APPLICATION_JSON).content(JACK));
+        s.put("DELETE /api/products/{id}/jacks/{jackId}",
+                delete("/api/products/" + kept + "/jacks/" + f.doomedJack()));
+        return s;
+    }
+
+    private static String pedalBody(int manufacturer, int pedalType, String model, String jacks) {
+        return "{\"manufacturerId\":" + manufacturer + ",\"productTypeId\":" + pedalType
+                + ",\"model\":\"" + model + "\",\"jacks\":[" + jacks + "]}";
+    }
+}
@@ -0,0 +1,88 @@
+package com.pedalshootout.api.metrics;
+
+import com.pedalshootout.api.catalog.CatalogSnapshotLoader;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a DataSource so every statement sent to the database is counted.
+ *
+ * Connections and the statements they create are JDK proxies that pass every call
+ * through and bump a counter on each execute*() — one round trip each, so a JDBC
+ * batch counts once. Counting at the JDBC layer rather than in Hibernate's
+ * StatementInspector catches everything: native queries, JdbcTemplate, and work that
+ * runs on another thread (a StreamingResponseBody, a FanOut subtask).
+ *
+ * The counter is global, which is fine for a test that issues one request at a time.
+ * Catalog snapshot loads are left out: a product write waits for one before it answers,
+ * but the reload is the catalog's cost, not the endpoint's, and runs on task threads
+ * that the request's own metrics don't see either.
+ */
+final class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    int count() {
+        return count.get();
+    }
+
+    void reset() {
+        count.set(0);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, super.getConnection(username, password));
+    }
+
+    private <T> T wrap(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (target instanceof Statement && EXECUTE_METHODS.contains(method.getName()) && !loadingCatalog()) {
+                count.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Statements created from a connection come back wrapped too
+            if (target instanceof Connection && !method.getName().equals("unwrap")) {
+                if (result instanceof CallableStatement statement) return wrap(CallableStatement.class, statement);
+                if (result instanceof PreparedStatement statement) return wrap(PreparedStatement.class, statement);
+                if (result instanceof Statement statement) return wrap(Statement.class, statement);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    /** On a CatalogSnapshotLoader call path (its parallel reads run inside its own lambdas). */
+    private static boolean loadingCatalog() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .anyMatch(f -> f.getClassName().startsWith(CatalogSnapshotLoader.class.getName())));
+    }
+}
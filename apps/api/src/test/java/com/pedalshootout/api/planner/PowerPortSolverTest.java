@@ -0,0 +1,207 @@
+package com.pedalshootout.api.planner;
+
+import com.pedalshootout.api.planner.PowerPortSolver.Assignment;
+import com.pedalshootout.api.planner.PowerPortSolver.Consumer;
+import com.pedalshootout.api.planner.PowerPortSolver.Output;
+import com.pedalshootout.api.planner.PowerPortSolver.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PowerPortSolver on hand-built pedals and outputs — pure computation, no database or
+ * Spring context, so these run anywhere.
+ */
+class PowerPortSolverTest {
+
+    private static final String NEG = "center-negative";
+    private static final String BARREL = "2.1mm barrel";
+
+    private static Consumer pedal(int key, String voltage, Integer ma) {
+        return new Consumer(key, voltage, ma, NEG, BARREL);
+    }
+
+    private static Output output(int key, String voltage, Integer ma) {
+        return new Output(key, voltage, ma, NEG, BARREL, true);
+    }
+
+    private static Map<Integer, Integer> outputByPedal(Result result) {
+        return result.assignments().stream()
+                .collect(Collectors.toMap(Assignment::consumerKey, Assignment::outputKey));
+    }
+
+    @Test
+    void noPedalsIsAnEmptyResult() {
+        Result result = PowerPortSolver.solve(List.of(), List.of(output(1, "9V", 500)));
+
+        assertThat(result.assignments()).isEmpty();
+        assertThat(result.unassigned()).isEmpty();
+    }
+
+    @Test
+    void findsTheAssignmentAGreedyPassWouldMiss() {
+        // Pedal 1 fits either output; pedal 2 only the big one. Taking the big output for
+        // pedal 1 first (it's listed first) would leave pedal 2 unpowered.
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 100), pedal(2, "9V", 400)),
+                List.of(output(10, "9V", 500), output(11, "9V", 100)));
+
+        assertThat(outputByPedal(result)).containsExactlyInAnyOrderEntriesOf(Map.of(1, 11, 2, 10));
+        assertThat(result.unassigned()).isEmpty();
+        assertThat(result.assignments()).noneMatch(Assignment::daisyChained);
+    }
+
+    @Test
+    void prefersIsolatedOutputs() {
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 100)),
+                List.of(new Output(10, "9V", 500, NEG, BARREL, false), output(11, "9V", 500)));
+
+        assertThat(outputByPedal(result)).containsEntry(1, 11);
+    }
+
+    @Test
+    void voltageAndCurrentAreHardConstraints() {
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "18V", 100), pedal(2, "9V", 600)),
+                List.of(output(10, "9V", 500)));
+
+        assertThat(result.assignments()).isEmpty();
+        assertThat(result.unassigned()).extracting(PowerPortSolver.Unassigned::reason).containsExactly(
+                "No output supplies 18V",
+                "Draws 600mA; the largest compatible output provides 500mA");
+    }
+
+    @Test
+    void adjustableOutputsMatchAnyVoltageInRange() {
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "18V", 100)),
+                List.of(output(10, "9-18V", 250)));
+
+        assertThat(outputByPedal(result)).containsEntry(1, 10);
+        assertThat(result.assignments().get(0).notes()).contains("Adjustable output — set it to 18V for this pedal");
+    }
+
+    @Test
+    void polarityAndConnectorMismatchesAreAllowedWithANote() {
+        Result result = PowerPortSolver.solve(
+                List.of(new Consumer(1, "9V", 100, "center-positive", "3.5mm")),
+                List.of(output(10, "9V", 500)));
+
+        assertThat(outputByPedal(result)).containsEntry(1, 10);
+        assertThat(result.assignments().get(0).notes()).containsExactly(
+                "Needs polarity adapter (center-positive pedal, center-negative output)",
+                "Needs connector adapter (3.5mm pedal, 2.1mm barrel output)");
+    }
+
+    @Test
+    void leftoversAreDaisyChainedWhenCurrentAndPolarityAllow() {
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 100), pedal(2, "9V", 100)),
+                List.of(output(10, "9V", 500)));
+
+        assertThat(outputByPedal(result)).containsExactlyInAnyOrderEntriesOf(Map.of(1, 10, 2, 10));
+        assertThat(result.assignments()).allMatch(Assignment::daisyChained);
+        assertThat(result.unassigned()).isEmpty();
+    }
+
+    @Test
+    void noDaisyChainAcrossPolaritiesOrPastTheOutputsCurrent() {
+        Result mixedPolarity = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 100), new Consumer(2, "9V", 100, "center-positive", BARREL)),
+                List.of(output(10, "9V", 500)));
+        Result overdrawn = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 300), pedal(2, "9V", 300)),
+                List.of(output(10, "9V", 500)));
+
+        for (Result result : List.of(mixedPolarity, overdrawn)) {
+            assertThat(result.assignments()).hasSize(1);
+            assertThat(result.unassigned()).singleElement()
+                    .extracting(PowerPortSolver.Unassigned::reason)
+                    .isEqualTo("All compatible outputs are in use and none has spare current for a daisy chain");
+        }
+    }
+
+    @Test
+    void unknownCurrentDrawIsNeverDaisyChained() {
+        Result result = PowerPortSolver.solve(
+                List.of(pedal(1, "9V", 100), pedal(2, "9V", null)),
+                List.of(output(10, "9V", 500)));
+
+        assertThat(result.assignments()).hasSize(1);
+        assertThat(result.unassigned()).hasSize(1);
+    }
+
+    @Test
+    void noOutputsAtAll() {
+        Result result = PowerPortSolver.solve(List.of(pedal(1, "9V", 100)), List.of());
+
+        assertThat(result.unassigned()).singleElement()
+                .extracting(PowerPortSolver.Unassigned::reason)
+                .isEqualTo("The selected supplies have no output jacks listed");
+    }
+
+    @Test
+    void hungarianFindsTheMinimumCostAssignment() {
+        long[][] cost = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2},
+        };
+
+        assertThat(PowerPortSolver.hungarian(cost)).containsExactly(1, 0, 2);
+    }
+
+    @Test
+    void hungarianAgreesWithBruteForceOnRectangularMatrices() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(5);
+            int m = n + random.nextInt(3);
+            long[][] cost = new long[n][m];
+            for (long[] row : cost) {
+                for (int j = 0; j < m; j++) row[j] = random.nextInt(50);
+            }
+
+            int[] match = PowerPortSolver.hungarian(cost);
+
+            assertThat(match).doesNotHaveDuplicates();
+            long total = 0;
+            for (int i = 0; i < n; i++) total += cost[i][match[i]];
+            assertThat(total).isEqualTo(bruteForce(cost, 0, new boolean[m]));
+        }
+    }
+
+    @Test
+    void repeatedPedalsAreSeparateUnits() {
+        List<Consumer> pedals = new ArrayList<>();
+        List<Output> outputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            pedals.add(pedal(i, "9V", 100));
+            outputs.add(output(100 + i, "9V", 100));
+        }
+
+        Result result = PowerPortSolver.solve(pedals, outputs);
+
+        assertThat(result.assignments()).hasSize(8).noneMatch(Assignment::daisyChained);
+        assertThat(result.assignments()).extracting(Assignment::outputKey).doesNotHaveDuplicates();
+    }
+
+    private static long bruteForce(long[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) return 0;
+        long best = Long.MAX_VALUE;
+        for (int j = 0; j < taken.length; j++) {
+            if (taken[j]) continue;
+            taken[j] = true;
+            best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, taken));
+            taken[j] = false;
+        }
+        return best;
+    }
+}
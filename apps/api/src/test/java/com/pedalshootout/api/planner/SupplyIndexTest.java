@@ -0,0 +1,65 @@
+package com.pedalshootout.api.planner;
+
+import com.pedalshootout.api.dto.JackDto;
+import com.pedalshootout.api.dto.PowerSupplyDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SupplyIndex over a few hand-built supplies — no catalog or database needed.
+ */
+class SupplyIndexTest {
+
+    private static JackDto output(String voltage, int ma, boolean isolated) {
+        return new JackDto(null, "power", "output", null, null, "2.1mm barrel", null, voltage, ma,
+                "center-negative", null, null, isolated, null, null, null, null, null, null, null, null, null,
+                null, null);
+    }
+
+    private static PowerSupplyDto supply(int id, int totalMa, JackDto... outputs) {
+        return new PowerSupplyDto(id, "Supply " + id, "Maker", 1, null, true, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, outputs.length, totalMa,
+                null, null, null, null, null, null, null, null, null, null, List.of(outputs));
+    }
+
+    private static List<Integer> ids(SupplyIndex index, String pedalVoltage, int... draws) {
+        SupplyIndex.OutputRequirement req = new SupplyIndex.OutputRequirement(VoltageSpec.parse(pedalVoltage), draws);
+        List<Integer> ids = new ArrayList<>();
+        for (SupplyIndex.Hit hit : index.search(new SupplyIndex.Query(0, List.of(req), false), 0, 50).hits()) {
+            ids.add(hit.supply().id());
+        }
+        return ids;
+    }
+
+    private final SupplyIndex index = SupplyIndex.build(List.of(
+            supply(1, 500, output("9V", 250, true), output("9V", 250, true)),
+            supply(2, 600, output("18V", 300, true), output("18V", 300, true)),
+            supply(3, 700, output("12V", 350, true), output("12V", 350, true))));
+
+    @Test
+    void aFixedVoltagePedalOnlyMatchesOutputsAtThatVoltage() {
+        assertThat(ids(index, "9V", 100)).containsExactly(1);
+        assertThat(ids(index, "18V", 100, 100)).containsExactly(2);
+    }
+
+    @Test
+    void aRangedPedalMatchesAnyVoltageInItsRange() {
+        assertThat(ids(index, "9-18V", 100)).containsExactly(1, 2, 3);
+        assertThat(ids(index, "12-18V", 300, 300)).containsExactly(2, 3);
+    }
+
+    @Test
+    void aPedalListingSeveralVoltagesMatchesEachOfThem() {
+        assertThat(ids(index, "9V/18V", 100)).containsExactly(1, 2);
+    }
+
+    @Test
+    void currentAndOutputCountStillApplyToRangedPedals() {
+        assertThat(ids(index, "9-18V", 280)).containsExactly(2, 3);
+        assertThat(ids(index, "9-18V", 100, 100, 100)).isEmpty();
+    }
+}
@@ -0,0 +1,206 @@
+package com.pedalshootout.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pedalshootout.api.dto.WorkbenchDto;
+import com.pedalshootout.api.entity.Workbench;
+import com.pedalshootout.api.entity.WorkbenchPatch;
+import com.pedalshootout.api.repository.WorkbenchPatchRepository;
+import com.pedalshootout.api.repository.WorkbenchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * WorkbenchService's save log and compaction against a one-row in-memory stand-in for
+ * the two tables, so the version arithmetic is checked without a database.
+ */
+class WorkbenchServiceTest {
+
+    private static final int ID = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WorkbenchRepository workbenches = mock(WorkbenchRepository.class);
+    private final WorkbenchPatchRepository patches = mock(WorkbenchPatchRepository.class);
+
+    /** The row and its log as the database would hold them. */
+    private long version;
+    private long snapshotVersion;
+    private byte[] snapshot;
+    private final List<WorkbenchPatch> log = new ArrayList<>();
+
+    @BeforeEach
+    void tables() {
+        when(workbenches.save(any())).thenAnswer(inv -> {
+            snapshot = inv.<Workbench>getArgument(0).getSnapshot();
+            return row();
+        });
+        when(workbenches.findById(ID)).thenAnswer(inv -> Optional.of(row()));
+        when(workbenches.bumpVersion(eq(ID), anyLong(), any())).thenAnswer(inv -> {
+            if (inv.<Long>getArgument(1) != version) return 0;
+            version++;
+            return 1;
+        });
+        when(workbenches.replaceSnapshot(eq(ID), anyLong(), any())).thenAnswer(inv -> {
+            snapshotVersion = inv.getArgument(1);
+            snapshot = inv.getArgument(2);
+            return 1;
+        });
+        when(patches.save(any())).thenAnswer(inv -> {
+            log.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        when(patches.deleteUpTo(eq(ID), anyLong())).thenAnswer(inv -> {
+            long upTo = inv.getArgument(1);
+            log.removeIf(p -> p.getVersion() <= upTo);
+            return 1;
+        });
+        when(patches.findByWorkbenchIdAndVersionGreaterThanOrderByVersion(eq(ID), anyLong())).thenAnswer(inv -> {
+            long after = inv.getArgument(1);
+            return log.stream().filter(p -> p.getVersion() > after).toList();
+        });
+    }
+
+    private Workbench row() {
+        Workbench w = mock(Workbench.class);
+        OffsetDateTime now = OffsetDateTime.now();
+        when(w.getId()).thenReturn(ID);
+        when(w.getName()).thenReturn("Board");
+        when(w.getVersion()).thenReturn(version);
+        when(w.getSnapshotVersion()).thenReturn(snapshotVersion);
+        when(w.getSnapshot()).thenReturn(snapshot);
+        when(w.getCreatedAt()).thenReturn(now);
+        when(w.getUpdatedAt()).thenReturn(now);
+        return w;
+    }
+
+    private WorkbenchService service() {
+        return new WorkbenchService(workbenches, patches, objectMapper);
+    }
+
+    private JsonNode emptyBoard() {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.putArray("moves");
+        return data;
+    }
+
+    private JsonNode appendMove(int move) {
+        ArrayNode patch = objectMapper.createArrayNode();
+        patch.addObject().put("op", "add").put("path", "/moves/-").put("value", move);
+        return patch;
+    }
+
+    private static List<Integer> moves(JsonNode data) {
+        List<Integer> moves = new ArrayList<>();
+        data.get("moves").forEach(m -> moves.add(m.asInt()));
+        return moves;
+    }
+
+    private static List<Integer> range(int fromInclusive, int toExclusive) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = fromInclusive; i < toExclusive; i++) values.add(i);
+        return values;
+    }
+
+    @Test
+    void theLogIsFoldedIntoTheSnapshotEveryCompactEverySaves() {
+        WorkbenchService service = service();
+        service.create(new WorkbenchDto.Create("Board", emptyBoard()));
+
+        for (int v = 0; v < WorkbenchService.COMPACT_EVERY - 1; v++) service.patch(ID, v, appendMove(v));
+        verify(workbenches, never()).replaceSnapshot(eq(ID), anyLong(), any());
+        assertThat(log).hasSize(WorkbenchService.COMPACT_EVERY - 1);
+
+        service.patch(ID, WorkbenchService.COMPACT_EVERY - 1, appendMove(WorkbenchService.COMPACT_EVERY - 1));
+        verify(workbenches, times(1)).replaceSnapshot(eq(ID), eq((long) WorkbenchService.COMPACT_EVERY), any());
+        assertThat(log).isEmpty();
+        assertThat(snapshotVersion).isEqualTo(WorkbenchService.COMPACT_EVERY);
+
+        for (int v = WorkbenchService.COMPACT_EVERY; v < 40; v++) service.patch(ID, v, appendMove(v));
+        assertThat(log).extracting(WorkbenchPatch::getVersion)
+                .containsExactlyElementsOf(range(WorkbenchService.COMPACT_EVERY + 1, 41).stream().map(Long::valueOf).toList());
+        assertThat(version).isEqualTo(40);
+    }
+
+    @Test
+    void aColdInstanceRebuildsFromTheSnapshotAndTheLog() {
+        WorkbenchService writer = service();
+        writer.create(new WorkbenchDto.Create("Board", emptyBoard()));
+        for (int v = 0; v < 40; v++) writer.patch(ID, v, appendMove(v));
+
+        WorkbenchService reader = service();
+        WorkbenchDto.Detail detail = reader.find(ID).orElseThrow();
+
+        assertThat(detail.version()).isEqualTo(40);
+        assertThat(moves(detail.data())).containsExactlyElementsOf(range(0, 40));
+
+        // It picked up the row's snapshot version too, so its next compaction lands on schedule.
+        for (int v = 40; v < 2 * WorkbenchService.COMPACT_EVERY; v++) reader.patch(ID, v, appendMove(v));
+        verify(workbenches).replaceSnapshot(eq(ID), eq(2L * WorkbenchService.COMPACT_EVERY), any());
+        assertThat(log).isEmpty();
+        assertThat(moves(service().find(ID).orElseThrow().data()))
+                .containsExactlyElementsOf(range(0, 2 * WorkbenchService.COMPACT_EVERY));
+    }
+
+    @Test
+    void aStaleVersionIsAConflictAndSavesNothing() {
+        WorkbenchService service = service();
+        service.create(new WorkbenchDto.Create("Board", emptyBoard()));
+        service.patch(ID, 0, appendMove(0));
+        service.patch(ID, 1, appendMove(1));
+
+        assertThatThrownBy(() -> service.patch(ID, 1, appendMove(99)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(version).isEqualTo(2);
+        assertThat(log).hasSize(2);
+        assertThat(moves(service.find(ID).orElseThrow().data())).containsExactly(0, 1);
+    }
+
+    @Test
+    void aSaveFromAnotherInstanceInvalidatesTheCachedState() {
+        WorkbenchService first = service();
+        WorkbenchService second = service();
+        first.create(new WorkbenchDto.Create("Board", emptyBoard()));
+        first.patch(ID, 0, appendMove(0));
+        second.patch(ID, 1, appendMove(1));
+
+        // first still caches version 1; saving against 2 has to rebuild from the tables.
+        first.patch(ID, 2, appendMove(2));
+
+        assertThat(moves(service().find(ID).orElseThrow().data())).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void aPatchThatDoesNotApplyIsUnprocessableAndSavesNothing() {
+        WorkbenchService service = service();
+        service.create(new WorkbenchDto.Create("Board", emptyBoard()));
+        ArrayNode patch = objectMapper.createArrayNode();
+        patch.addObject().put("op", "remove").put("path", "/missing");
+
+        assertThatThrownBy(() -> service.patch(ID, 0, patch))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(version).isZero();
+        assertThat(log).isEmpty();
+    }
+}
@@ -0,0 +1,164 @@
+package com.pedalshootout.api.workbench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JsonPatch on small documents — pure tree manipulation, no Spring context.
+ */
+class JsonPatchTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static JsonNode json(String text) {
+        try {
+            return JSON.readTree(text.replace('\'', '"'));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static JsonNode apply(String document, String patch) {
+        return JsonPatch.parse(json(patch)).apply(json(document));
+    }
+
+    @Test
+    void pointerEscapesAddressKeysWithSlashesAndTildes() {
+        JsonNode result = apply("{'a/b':1,'m~n':2}", """
+                [{'op':'replace','path':'/a~1b','value':10},
+                 {'op':'replace','path':'/m~0n','value':20}]""");
+
+        assertThat(result).isEqualTo(json("{'a/b':10,'m~n':20}"));
+    }
+
+    @Test
+    void escapesAreDecodedTildeOneFirst() {
+        // "~01" is the key "~1", not "/": RFC 6901 decodes ~1 before ~0.
+        JsonNode result = apply("{'~1':1,'/':2}", "[{'op':'remove','path':'/~01'}]");
+
+        assertThat(result).isEqualTo(json("{'/':2}"));
+    }
+
+    @Test
+    void dashAppendsToAnArray() {
+        JsonNode result = apply("{'items':[1,2]}", "[{'op':'add','path':'/items/-','value':3}]");
+
+        assertThat(result).isEqualTo(json("{'items':[1,2,3]}"));
+    }
+
+    @Test
+    void dashIsNotAnExistingElement() {
+        assertThatThrownBy(() -> apply("{'items':[1,2]}", "[{'op':'remove','path':'/items/-'}]"))
+                .isInstanceOf(JsonPatch.PatchFailedException.class);
+    }
+
+    @Test
+    void arrayIndicesAreStrict() {
+        for (String path : new String[] {"/items/01", "/items/2", "/items/-1", "/items/x"}) {
+            assertThatThrownBy(() -> apply("{'items':[1,2]}", "[{'op':'replace','path':'" + path + "','value':0}]"))
+                    .as(path)
+                    .isInstanceOf(JsonPatch.PatchFailedException.class);
+        }
+    }
+
+    @Test
+    void addInsertsAtAnIndexAndAtTheEnd() {
+        JsonNode result = apply("[1,3]", """
+                [{'op':'add','path':'/1','value':2},
+                 {'op':'add','path':'/3','value':4}]""");
+
+        assertThat(result).isEqualTo(json("[1,2,3,4]"));
+    }
+
+    @Test
+    void moveIntoItsOwnChildIsRejected() {
+        assertThatThrownBy(() -> JsonPatch.parse(json("[{'op':'move','from':'/a','path':'/a/b'}]")))
+                .isInstanceOf(JsonPatch.InvalidPatchException.class)
+                .hasMessageContaining("into itself");
+    }
+
+    @Test
+    void moveOntoItselfIsANoOpButMustExist() {
+        assertThat(apply("{'a':1}", "[{'op':'move','from':'/a','path':'/a'}]")).isEqualTo(json("{'a':1}"));
+        assertThatThrownBy(() -> apply("{'a':1}", "[{'op':'move','from':'/b','path':'/b'}]"))
+                .isInstanceOf(JsonPatch.PatchFailedException.class);
+    }
+
+    @Test
+    void moveToASiblingPrefixIsAllowed() {
+        // "/a" is a string prefix of "/ab" but not a pointer prefix.
+        JsonNode result = apply("{'a':1}", "[{'op':'move','from':'/a','path':'/ab'}]");
+
+        assertThat(result).isEqualTo(json("{'ab':1}"));
+    }
+
+    @Test
+    void aFailedPatchLeavesTheDocumentUntouched() {
+        JsonNode document = json("{'pedals':[{'id':1,'x':0}]}");
+        JsonNode before = document.deepCopy();
+        JsonPatch patch = JsonPatch.parse(json("""
+                [{'op':'replace','path':'/pedals/0/x','value':40},
+                 {'op':'add','path':'/pedals/-','value':{'id':2}},
+                 {'op':'remove','path':'/missing'}]"""));
+
+        assertThatThrownBy(() -> patch.apply(document))
+                .isInstanceOf(JsonPatch.PatchFailedException.class)
+                .hasMessageStartingWith("Operation 2 (remove /missing)");
+        assertThat(document).isEqualTo(before);
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        JsonNode result = apply("{'a':{'x':1}}", """
+                [{'op':'copy','from':'/a','path':'/b'},
+                 {'op':'replace','path':'/b/x','value':2}]""");
+
+        assertThat(result).isEqualTo(json("{'a':{'x':1},'b':{'x':2}}"));
+    }
+
+    @Test
+    void testComparesNumbersByValue() {
+        assertThat(apply("{'x':1}", "[{'op':'test','path':'/x','value':1.0}]")).isEqualTo(json("{'x':1}"));
+        assertThat(apply("{'x':1.50}", "[{'op':'test','path':'/x','value':1.5}]")).isEqualTo(json("{'x':1.50}"));
+        assertThat(apply("{'a':[{'x':2}]}", "[{'op':'test','path':'/a','value':[{'x':2.0}]}]"))
+                .isEqualTo(json("{'a':[{'x':2}]}"));
+    }
+
+    @Test
+    void testFailsOnADifferentValueOrType() {
+        for (String value : new String[] {"2", "'1'", "true", "[1]", "null"}) {
+            assertThatThrownBy(() -> apply("{'x':1}", "[{'op':'test','path':'/x','value':" + value + "}]"))
+                    .as(value)
+                    .isInstanceOf(JsonPatch.PatchFailedException.class)
+                    .hasMessageEndingWith("test failed");
+        }
+        assertThatThrownBy(() -> apply("{'a':{'x':1}}", "[{'op':'test','path':'/a','value':{'x':1,'y':2}}]"))
+                .isInstanceOf(JsonPatch.PatchFailedException.class);
+    }
+
+    @Test
+    void malformedPatchesAreRejectedAtParse() {
+        for (String patch : new String[] {
+                "{'op':'add','path':'/a','value':1}",
+                "[{'op':'frobnicate','path':'/a'}]",
+                "[{'op':'add','value':1}]",
+                "[{'op':'add','path':'/a'}]",
+                "[{'op':'copy','path':'/a'}]",
+                "[{'op':'remove','path':'a'}]"}) {
+            assertThatThrownBy(() -> JsonPatch.parse(json(patch)))
+                    .as(patch)
+                    .isInstanceOf(JsonPatch.InvalidPatchException.class);
+        }
+    }
+
+    @Test
+    void theRootCanBeReplacedButNotRemoved() {
+        assertThat(apply("{'a':1}", "[{'op':'replace','path':'','value':{'b':2}}]")).isEqualTo(json("{'b':2}"));
+        assertThatThrownBy(() -> apply("{'a':1}", "[{'op':'remove','path':''}]"))
+                .isInstanceOf(JsonPatch.PatchFailedException.class);
+    }
+}
@@ -37,7 +37,7 @@ INSERT INTO product_types (id, type_name, description) VALUES
 
 -- Products base table (shared attributes for all product types)
 CREATE TABLE products (
-    id INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (INCREMENT BY 50) PRIMARY KEY,  -- ids handed out in blocks (see V6 migration)
     manufacturer_id INTEGER NOT NULL,     -- FK to manufacturers table
     product_type_id INTEGER NOT NULL,     -- FK to product_types table
     model TEXT NOT NULL,                  -- Product model name (e.g., 'Morning Glory V4')
@@ -70,8 +70,21 @@ CREATE TABLE products (
     UNIQUE(manufacturer_id, model, product_type_id)
 );
 
-CREATE INDEX idx_products_manufacturer ON products(manufacturer_id);
-CREATE INDEX idx_products_type ON products(product_type_id);
+-- Keyset pagination: (sort column, id), per type and across all types (see V4 migration).
+-- idx_products_type_id and idx_products_manufacturer_type_model also serve plain
+-- product_type_id / manufacturer_id lookups, so those have no index of their own (V7).
+CREATE INDEX idx_products_type_id ON products(product_type_id, id);
+CREATE INDEX idx_products_type_model ON products(product_type_id, model, id);
+CREATE INDEX idx_products_type_msrp ON products(product_type_id, msrp_cents, id);
+CREATE INDEX idx_products_type_width ON products(product_type_id, width_mm, id);
+CREATE INDEX idx_products_type_depth ON products(product_type_id, depth_mm, id);
+CREATE INDEX idx_products_type_height ON products(product_type_id, height_mm, id);
+CREATE INDEX idx_products_model ON products(model, id);
+CREATE INDEX idx_products_msrp ON products(msrp_cents, id);
+CREATE INDEX idx_products_width ON products(width_mm, id);
+CREATE INDEX idx_products_depth ON products(depth_mm, id);
+CREATE INDEX idx_products_height ON products(height_mm, id);
+CREATE INDEX idx_products_manufacturer_type_model ON products(manufacturer_id, product_type_id, model, id);
 
 -- =============================================================================
 -- JACKS TABLE (unified connectors for all product types)
@@ -79,7 +92,7 @@ CREATE INDEX idx_products_type ON products(product_type_id);
 
 -- All physical connectors (audio, MIDI, power, expression, USB) for all products
 CREATE TABLE jacks (
-    id INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (INCREMENT BY 50) PRIMARY KEY,  -- ids handed out in blocks (see V6 migration)
     product_id INTEGER NOT NULL,          -- FK to products table
     category TEXT NOT NULL,               -- 'audio', 'power', 'midi', 'expression', 'usb', 'aux', 'multijack'
     direction TEXT NOT NULL,              -- 'input', 'output', 'bidirectional'
@@ -459,6 +472,33 @@ CREATE TABLE product_compatibility (
 CREATE INDEX idx_compat_a ON product_compatibility(product_a_id);
 CREATE INDEX idx_compat_b ON product_compatibility(product_b_id);
 
+-- =============================================================================
+-- WORKBENCHES (user rigs, saved as snapshot + JSON Patch log; see V5 migration)
+-- =============================================================================
+
+CREATE TABLE workbenches (
+    id INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name TEXT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,            -- Bumped by every save; clients patch against it
+    snapshot_version BIGINT NOT NULL DEFAULT 0,   -- The version snapshot holds
+    snapshot BYTEA NOT NULL,                      -- gzip-compressed JSON workbench state
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CHECK (snapshot_version <= version)
+);
+
+CREATE INDEX idx_workbenches_name ON workbenches(name);
+
+-- Patches applied since the snapshot; folded back into it by compaction
+CREATE TABLE workbench_patches (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    workbench_id INTEGER NOT NULL REFERENCES workbenches(id) ON DELETE CASCADE,
+    version BIGINT NOT NULL,                      -- The version this patch produced
+    patch JSONB NOT NULL,                         -- RFC 6902 operations, as sent
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    UNIQUE (workbench_id, version)
+);
+
 -- =============================================================================
 -- TRIGGERS (PL/pgSQL)
 -- =============================================================================